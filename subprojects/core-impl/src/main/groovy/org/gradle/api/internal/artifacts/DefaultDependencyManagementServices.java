@@ -43,6 +43,7 @@ import org.gradle.cache.CacheRepository;
 import org.gradle.cache.internal.FileLockManager;
 import org.gradle.listener.ListenerManager;
 import org.gradle.logging.ProgressLoggerFactory;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 import org.gradle.util.TimeProvider;
 import org.gradle.util.WrapUtil;
 import org.jfrog.wharf.ivy.lock.LockHolderFactory;
@@ -229,7 +230,8 @@ public class DefaultDependencyManagementServices extends DefaultServiceRegistry
                     clientModuleRegistry);
 
             ResolvedArtifactFactory resolvedArtifactFactory = new ResolvedArtifactFactory(
-                    get(CacheLockingManager.class)
+                    get(CacheLockingManager.class),
+                    get(ExecutorFactory.class)
             );
 
             ArtifactDependencyResolver actualResolver;
@@ -108,4 +108,8 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
         }
         return file;
     }
+
+    public FileSource getArtifactSource() {
+        return artifactSource;
+    }
 }
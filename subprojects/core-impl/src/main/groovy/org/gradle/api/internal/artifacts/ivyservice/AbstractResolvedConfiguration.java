@@ -35,6 +35,12 @@ abstract class AbstractResolvedConfiguration implements ResolvedConfiguration {
 
     abstract Set<UnresolvedDependency> getUnresolvedDependencies();
 
+    /**
+     * Called before the files of the given artifacts are requested one at a time. Does nothing by default.
+     */
+    void beforeGetFiles(Set<ResolvedArtifact> artifacts) {
+    }
+
     public LenientConfiguration getLenientConfiguration() {
         return new LenientConfigurationImpl(this);
     }
@@ -66,6 +72,8 @@ abstract class AbstractResolvedConfiguration implements ResolvedConfiguration {
 
         artifacts.addAll(walker.findValues());
 
+        beforeGetFiles(artifacts);
+
         Set<File> files = new LinkedHashSet<File>();
         for (ResolvedArtifact artifact : artifacts) {
             File depFile = artifact.getFile();
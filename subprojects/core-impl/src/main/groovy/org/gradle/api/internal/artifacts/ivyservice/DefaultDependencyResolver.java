@@ -76,7 +76,7 @@ public class DefaultDependencyResolver implements ArtifactDependencyResolver {
             conflictResolver = new LatestModuleConflictResolver();
         }
         conflictResolver = new ForcedModuleConflictResolver(conflictResolver);
-        ResolvedConfigurationImpl result = new ResolvedConfigurationImpl(configuration, root.getResult());
+        ResolvedConfigurationImpl result = new ResolvedConfigurationImpl(configuration, root.getResult(), resolvedArtifactFactory);
         resolve(dependencyResolver, result, root, resolveState, resolveData, artifactResolver, conflictResolver);
 
         return result;
@@ -597,10 +597,12 @@ public class DefaultDependencyResolver implements ArtifactDependencyResolver {
         private final Map<ModuleDependency, ResolvedDependency> firstLevelDependencies = new LinkedHashMap<ModuleDependency, ResolvedDependency>();
         private final Set<ResolvedArtifact> artifacts = new LinkedHashSet<ResolvedArtifact>();
         private final Set<UnresolvedDependency> unresolvedDependencies = new LinkedHashSet<UnresolvedDependency>();
+        private final ResolvedArtifactFactory resolvedArtifactFactory;
 
-        private ResolvedConfigurationImpl(Configuration configuration, ResolvedDependency root) {
+        private ResolvedConfigurationImpl(Configuration configuration, ResolvedDependency root, ResolvedArtifactFactory resolvedArtifactFactory) {
             this.configuration = configuration;
             this.root = root;
+            this.resolvedArtifactFactory = resolvedArtifactFactory;
         }
 
         public boolean hasError() {
@@ -622,6 +624,11 @@ public class DefaultDependencyResolver implements ArtifactDependencyResolver {
             return unresolvedDependencies;
         }
 
+        @Override
+        void beforeGetFiles(Set<ResolvedArtifact> artifacts) {
+            resolvedArtifactFactory.downloadAll(artifacts);
+        }
+
         @Override
         Set<ResolvedDependency> doGetFirstLevelModuleDependencies(Spec<? super Dependency> dependencySpec) {
             Set<ResolvedDependency> matches = new LinkedHashSet<ResolvedDependency>();
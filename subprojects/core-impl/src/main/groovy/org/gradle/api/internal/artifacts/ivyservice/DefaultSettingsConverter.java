@@ -35,6 +35,7 @@ import org.gradle.util.WrapUtil;
 import org.jfrog.wharf.ivy.model.WharfResolverMetadata;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Hans Dockter
@@ -175,28 +176,38 @@ public class DefaultSettingsConverter implements SettingsConverter {
         }
     }
 
+    /**
+     * Logs the progress of each transfer. Transfers may run concurrently, so the state of each transfer is kept
+     * separately, keyed by resource name.
+     */
     private class ProgressLoggingTransferListener implements TransferListener {
-        private ProgressLogger logger;
-        private long total;
+        private final Map<String, TransferProgress> transfers = new ConcurrentHashMap<String, TransferProgress>();
 
         public void transferProgress(TransferEvent evt) {
             if (evt.getResource().isLocal()) {
                 return;
             }
+            String name = evt.getResource().getName();
             if (evt.getEventType() == TransferEvent.TRANSFER_STARTED) {
-                total = 0;
-                logger = progressLoggerFactory.newOperation(DefaultSettingsConverter.class);
-                String description = String.format("%s %s", StringUtils.capitalize(getRequestType(evt)), evt.getResource().getName());
+                ProgressLogger logger = progressLoggerFactory.newOperation(DefaultSettingsConverter.class);
+                String description = String.format("%s %s", StringUtils.capitalize(getRequestType(evt)), name);
                 logger.setDescription(description);
                 logger.setLoggingHeader(description);
                 logger.started();
+                transfers.put(name, new TransferProgress(logger));
             }
             if (evt.getEventType() == TransferEvent.TRANSFER_PROGRESS) {
-                total += evt.getLength();
-                logger.progress(String.format("%s/%s %sed", getLengthText(total), getLengthText(evt), getRequestType(evt)));
+                TransferProgress transfer = transfers.get(name);
+                if (transfer != null) {
+                    transfer.total += evt.getLength();
+                    transfer.logger.progress(String.format("%s/%s %sed", getLengthText(transfer.total), getLengthText(evt), getRequestType(evt)));
+                }
             }
-            if (evt.getEventType() == TransferEvent.TRANSFER_COMPLETED) {
-                logger.completed();
+            if (evt.getEventType() == TransferEvent.TRANSFER_COMPLETED || evt.getEventType() == TransferEvent.TRANSFER_ERROR) {
+                TransferProgress transfer = transfers.remove(name);
+                if (transfer != null) {
+                    transfer.logger.completed();
+                }
             }
         }
 
@@ -208,4 +219,13 @@ public class DefaultSettingsConverter implements SettingsConverter {
             }
         }
     }
+
+    private static class TransferProgress {
+        private final ProgressLogger logger;
+        private long total;
+
+        private TransferProgress(ProgressLogger logger) {
+            this.logger = logger;
+        }
+    }
 }
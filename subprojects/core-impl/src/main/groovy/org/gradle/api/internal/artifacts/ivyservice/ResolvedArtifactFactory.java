@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.module.descriptor.Artifact;
 import org.apache.ivy.core.resolve.DownloadOptions;
 import org.apache.ivy.core.resolve.ResolveEngine;
@@ -22,38 +23,148 @@ import org.gradle.api.artifacts.ResolvedArtifact;
 import org.gradle.api.artifacts.ResolvedDependency;
 import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
 import org.gradle.api.internal.file.FileSource;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class ResolvedArtifactFactory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolvedArtifactFactory.class);
+    static final int MAX_CONCURRENT_DOWNLOADS = 4;
     private final CacheLockingManager lockingManager;
+    private final ExecutorFactory executorFactory;
 
     public ResolvedArtifactFactory(CacheLockingManager lockingManager) {
+        this(lockingManager, null);
+    }
+
+    /**
+     * Creates a factory whose artifacts can be downloaded concurrently using {@link #downloadAll(Iterable)}.
+     */
+    public ResolvedArtifactFactory(CacheLockingManager lockingManager, ExecutorFactory executorFactory) {
         this.lockingManager = lockingManager;
+        this.executorFactory = executorFactory;
     }
 
     public ResolvedArtifact create(ResolvedDependency owner, final Artifact artifact, final ResolveEngine resolvedEngine) {
-        return new DefaultResolvedArtifact(owner, artifact, new FileSource() {
-            public File get() {
-                return lockingManager.withCacheLock(String.format("download %s", artifact), new Callable<File>() {
-                    public File call() throws Exception {
-                        return resolvedEngine.download(artifact, new DownloadOptions()).getLocalFile();
-                    }
-                });
+        return new DefaultResolvedArtifact(owner, artifact, new ArtifactFileSource(artifact) {
+            @Override
+            protected File download() {
+                return resolvedEngine.download(artifact, new DownloadOptions()).getLocalFile();
             }
         });
     }
     
     public ResolvedArtifact create(ResolvedDependency owner, final Artifact artifact, final ArtifactToFileResolver resolver) {
-        return new DefaultResolvedArtifact(owner, artifact, new FileSource() {
-            public File get() {
-                return lockingManager.withCacheLock(String.format("download %s", artifact), new Callable<File>() {
-                    public File call() throws Exception {
-                        return resolver.resolve(artifact);
+        return new DefaultResolvedArtifact(owner, artifact, new ArtifactFileSource(artifact) {
+            @Override
+            protected File download() {
+                return resolver.resolve(artifact);
+            }
+        });
+    }
+
+    /**
+     * Downloads the files of the given artifacts that have not been downloaded yet, using a bounded number of concurrent
+     * downloads. Does nothing when this factory has no executor. A failed download is not reported here. Instead, the
+     * download is attempted again, and the failure reported, when the file of the artifact is requested.
+     */
+    public void downloadAll(Iterable<? extends ResolvedArtifact> artifacts) {
+        if (executorFactory == null) {
+            return;
+        }
+        final Queue<ArtifactFileSource> pending = new ConcurrentLinkedQueue<ArtifactFileSource>();
+        for (ResolvedArtifact artifact : artifacts) {
+            if (!(artifact instanceof DefaultResolvedArtifact)) {
+                continue;
+            }
+            FileSource source = ((DefaultResolvedArtifact) artifact).getArtifactSource();
+            if (source instanceof ArtifactFileSource && !((ArtifactFileSource) source).isDownloaded()) {
+                pending.add((ArtifactFileSource) source);
+            }
+        }
+        if (pending.size() < 2) {
+            return;
+        }
+
+        lockingManager.withCacheLock(String.format("download %s artifacts", pending.size()), new Callable<Object>() {
+            public Object call() throws Exception {
+                final IvyContext context = IvyContext.getContext();
+                int workers = Math.min(pending.size(), MAX_CONCURRENT_DOWNLOADS);
+                StoppableExecutor executor = executorFactory.create("download artifacts");
+                try {
+                    for (int i = 0; i < workers; i++) {
+                        executor.execute(new Runnable() {
+                            public void run() {
+                                IvyContext.pushContext(context);
+                                try {
+                                    ArtifactFileSource source;
+                                    while ((source = pending.poll()) != null) {
+                                        source.prefetch();
+                                    }
+                                } finally {
+                                    IvyContext.popContext();
+                                }
+                            }
+                        });
                     }
-                });
+                } finally {
+                    executor.stop();
+                }
+                return null;
             }
         });
     }
+
+    private abstract class ArtifactFileSource implements FileSource {
+        private final Artifact artifact;
+        private boolean downloaded;
+        private File file;
+
+        protected ArtifactFileSource(Artifact artifact) {
+            this.artifact = artifact;
+        }
+
+        public File get() {
+            synchronized (this) {
+                if (downloaded) {
+                    return file;
+                }
+            }
+            File result = lockingManager.withCacheLock(String.format("download %s", artifact), new Callable<File>() {
+                public File call() throws Exception {
+                    return download();
+                }
+            });
+            downloaded(result);
+            return result;
+        }
+
+        synchronized boolean isDownloaded() {
+            return downloaded;
+        }
+
+        /**
+         * Downloads the file without taking the cache lock, which must already be held by the caller.
+         */
+        void prefetch() {
+            try {
+                downloaded(download());
+            } catch (Throwable t) {
+                LOGGER.debug(String.format("Could not download %s. Will try again when the file is requested.", artifact), t);
+            }
+        }
+
+        private synchronized void downloaded(File file) {
+            this.file = file;
+            downloaded = true;
+        }
+
+        protected abstract File download();
+    }
 }
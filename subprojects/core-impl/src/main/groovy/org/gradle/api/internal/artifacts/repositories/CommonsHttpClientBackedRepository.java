@@ -18,6 +18,7 @@ package org.gradle.api.internal.artifacts.repositories;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.HttpMethodRetryHandler;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.UsernamePasswordCredentials;
 import org.apache.commons.httpclient.auth.AuthScope;
 import org.apache.commons.httpclient.methods.GetMethod;
@@ -26,6 +27,8 @@ import org.apache.commons.httpclient.methods.RequestEntity;
 import org.apache.commons.httpclient.params.HttpMethodParams;
 import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.ivy.plugins.repository.*;
+import org.apache.ivy.util.CopyProgressEvent;
+import org.apache.ivy.util.CopyProgressListener;
 import org.apache.ivy.util.FileUtil;
 import org.apache.ivy.util.url.ApacheURLLister;
 import org.gradle.util.GUtil;
@@ -40,17 +43,26 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A repository which uses commons-httpclient to access resources using HTTP/HTTPS.
+ *
+ * <p>Resources may be fetched concurrently from several threads, using a bounded pool of connections per host. Each
+ * thread can have a single resource open at a time, as the connection held by a resource is released when the same
+ * thread fetches another resource.</p>
  */
 public class CommonsHttpClientBackedRepository extends AbstractRepository {
     private static final Logger LOGGER = LoggerFactory.getLogger(CommonsHttpClientBackedRepository.class);
-    private final Map<String, Resource> resources = new HashMap<String, Resource>();
-    private final HttpClient client = new HttpClient();
-    private final RepositoryCopyProgressListener progress = new RepositoryCopyProgressListener(this);
+    static final int MAX_CONNECTIONS_PER_HOST = 4;
+    private final Map<String, Resource> resources = new ConcurrentHashMap<String, Resource>();
+    private final ThreadLocal<LazyResourceInvocationHandler> lastFetched = new ThreadLocal<LazyResourceInvocationHandler>();
+    private final HttpClient client;
 
     public CommonsHttpClientBackedRepository(String username, String password) {
+        MultiThreadedHttpConnectionManager connectionManager = new MultiThreadedHttpConnectionManager();
+        connectionManager.getParams().setDefaultMaxConnectionsPerHost(MAX_CONNECTIONS_PER_HOST);
+        client = new HttpClient(connectionManager);
         if (GUtil.isTrue(username)) {
             client.getParams().setAuthenticationPreemptive(true);
             client.getState().setCredentials(new AuthScope(null, -1, null), new UsernamePasswordCredentials(username, password));
@@ -59,46 +71,69 @@ public class CommonsHttpClientBackedRepository extends AbstractRepository {
 
     public Resource getResource(final String source) throws IOException {
         LOGGER.debug("Attempting to get resource {}.", source);
-        GetMethod method = new GetMethod(source);
-        configureMethod(method);
-        Resource resource = createLazyResource(source, method);
-        resources.put(source, resource);
+        Resource resource = createLazyResource(source);
+        Resource previous = resources.put(source, resource);
+        if (previous != null) {
+            release(previous);
+        }
         return resource;
     }
 
-    private Resource createLazyResource(String source, GetMethod method) {
+    private Resource createLazyResource(String source) {
+        GetMethod method = new GetMethod(source);
+        configureMethod(method);
         LazyResourceInvocationHandler invocationHandler = new LazyResourceInvocationHandler(source, method);
         return Resource.class.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Resource.class}, invocationHandler));
     }
 
+    private void release(Resource resource) {
+        ((LazyResourceInvocationHandler) Proxy.getInvocationHandler(resource)).release();
+    }
+
     public void get(String source, File destination) throws IOException {
-        Resource resource = resources.get(source);
-        fireTransferInitiated(resource, TransferEvent.REQUEST_GET);
+        Resource resource = resources.remove(source);
+        if (resource == null) {
+            resource = createLazyResource(source);
+        }
+        TransferProgress progress = new TransferProgress(resource, TransferEvent.REQUEST_GET);
+        progress.initiated();
         try {
             progress.setTotalLength(resource.getContentLength());
-            downloadResource(resource, destination);
+            downloadResource(resource, destination, progress);
         } catch (IOException e) {
-            fireTransferError(e);
+            progress.failed(e);
             throw e;
         } catch (Exception e) {
-            fireTransferError(e);
+            progress.failed(e);
             throw UncheckedException.asUncheckedException(e);
         } finally {
-            progress.setTotalLength(null);
+            release(resource);
         }
     }
 
-    public void downloadResource(Resource resource, File destination) throws IOException {
-        FileOutputStream output = new FileOutputStream(destination);
+    /**
+     * Downloads the resource to a temporary file next to the destination, then moves it into place, so that a partial
+     * download is never visible at the destination.
+     */
+    private void downloadResource(Resource resource, File destination, CopyProgressListener progress) throws IOException {
+        File partial = new File(destination.getParentFile(), destination.getName() + ".part");
         try {
-            InputStream input = resource.openStream();
+            FileOutputStream output = new FileOutputStream(partial);
             try {
-                FileUtil.copy(input, output, progress);
+                InputStream input = resource.openStream();
+                try {
+                    FileUtil.copy(input, output, progress);
+                } finally {
+                    input.close();
+                }
             } finally {
-                input.close();
+                output.close();
+            }
+            if (destination.exists() && !destination.delete() || !partial.renameTo(destination)) {
+                throw new IOException(String.format("Could not move downloaded file '%s' to '%s'.", partial, destination));
             }
         } finally {
-            output.close();
+            partial.delete();
         }
     }
 
@@ -106,28 +141,31 @@ public class CommonsHttpClientBackedRepository extends AbstractRepository {
     protected void put(final File source, String destination, boolean overwrite) throws IOException {
         LOGGER.debug("Attempting to put resource {}.", destination);
         assert source.isFile();
-        fireTransferInitiated(new BasicResource(destination, true, source.length(), source.lastModified(), false), TransferEvent.REQUEST_PUT);
+        TransferProgress progress = new TransferProgress(new BasicResource(destination, true, source.length(), source.lastModified(), false), TransferEvent.REQUEST_PUT);
+        progress.initiated();
         try {
             progress.setTotalLength(source.length());
-            doPut(source, destination);
+            doPut(source, destination, progress);
         } catch (IOException e) {
-            fireTransferError(e);
+            progress.failed(e);
             throw e;
         } catch (Exception e) {
-            fireTransferError(e);
+            progress.failed(e);
             throw UncheckedException.asUncheckedException(e);
-        } finally {
-            progress.setTotalLength(null);
         }
     }
 
-    private void doPut(File source, String destination) throws IOException {
+    private void doPut(File source, String destination, CopyProgressListener progress) throws IOException {
         PutMethod method = new PutMethod(destination);
         configureMethod(method);
-        method.setRequestEntity(new FileRequestEntity(source));
-        int result = client.executeMethod(method);
-        if (!wasSuccessful(result)) {
-            throw new IOException(String.format("Could not PUT '%s'. Received status code %s from server: %s", destination, result, method.getStatusText()));
+        method.setRequestEntity(new FileRequestEntity(source, progress));
+        try {
+            int result = client.executeMethod(method);
+            if (!wasSuccessful(result)) {
+                throw new IOException(String.format("Could not PUT '%s'. Received status code %s from server: %s", destination, result, method.getStatusText()));
+            }
+        } finally {
+            method.releaseConnection();
         }
     }
 
@@ -177,15 +215,32 @@ public class CommonsHttpClientBackedRepository extends AbstractRepository {
 
         private Resource init() throws IOException {
             LOGGER.debug("Attempting to get resource {}.", source);
+            LazyResourceInvocationHandler previous = lastFetched.get();
+            if (previous != null) {
+                previous.release();
+            }
+            lastFetched.set(this);
             int result = client.executeMethod(method);
             if (result == 404) {
+                release();
                 return new MissingResource(source);
             }
             if (!wasSuccessful(result)) {
+                release();
                 throw new IOException(String.format("Could not GET '%s'. Received status code %s from server: %s", source, result, method.getStatusText()));
             }
             return new HttpResource(source, method);
         }
+
+        /**
+         * Returns the connection used by this resource to the pool.
+         */
+        public void release() {
+            method.releaseConnection();
+            if (lastFetched.get() == this) {
+                lastFetched.remove();
+            }
+        }
     }
 
     private class HttpResource implements Resource {
@@ -272,11 +327,13 @@ public class CommonsHttpClientBackedRepository extends AbstractRepository {
         }
     }
 
-    private class FileRequestEntity implements RequestEntity {
+    private static class FileRequestEntity implements RequestEntity {
         private final File source;
+        private final CopyProgressListener progress;
 
-        public FileRequestEntity(File source) {
+        public FileRequestEntity(File source, CopyProgressListener progress) {
             this.source = source;
+            this.progress = progress;
         }
 
         public boolean isRepeatable() {
@@ -300,4 +357,59 @@ public class CommonsHttpClientBackedRepository extends AbstractRepository {
             return "application/octet-stream";
         }
     }
+
+    /**
+     * Fires the transfer events for a single transfer. Unlike {@link RepositoryCopyProgressListener}, does not share
+     * any state with other transfers, so that transfers can run concurrently.
+     */
+    private class TransferProgress implements CopyProgressListener {
+        private final Resource resource;
+        private final int requestType;
+        private Long totalLength;
+
+        private TransferProgress(Resource resource, int requestType) {
+            this.resource = resource;
+            this.requestType = requestType;
+        }
+
+        public void setTotalLength(Long totalLength) {
+            this.totalLength = totalLength;
+        }
+
+        public void initiated() {
+            fireTransferEvent(new RepositoryTransferEvent(TransferEvent.TRANSFER_INITIATED, 0));
+        }
+
+        public void start(CopyProgressEvent evt) {
+            fireTransferEvent(new RepositoryTransferEvent(TransferEvent.TRANSFER_STARTED, 0));
+        }
+
+        public void progress(CopyProgressEvent evt) {
+            fireTransferEvent(new RepositoryTransferEvent(TransferEvent.TRANSFER_PROGRESS, evt.getReadBytes()));
+        }
+
+        public void end(CopyProgressEvent evt) {
+            if (evt.getReadBytes() > 0) {
+                progress(evt);
+            }
+            fireTransferEvent(new RepositoryTransferEvent(TransferEvent.TRANSFER_COMPLETED, evt.getTotalReadBytes()));
+        }
+
+        public void failed(Exception failure) {
+            TransferEvent event = new RepositoryTransferEvent(TransferEvent.TRANSFER_ERROR, 0);
+            event.setException(failure);
+            fireTransferEvent(event);
+        }
+
+        private class RepositoryTransferEvent extends TransferEvent {
+            private RepositoryTransferEvent(int eventType, long length) {
+                super(CommonsHttpClientBackedRepository.this, resource, eventType, requestType);
+                setLength(length);
+                if (totalLength != null) {
+                    setTotalLength(totalLength);
+                    setTotalLengthSet(true);
+                }
+            }
+        }
+    }
 }
@@ -16,17 +16,25 @@
 package org.gradle.api.internal.artifacts.ivyservice
 
 import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 import org.apache.ivy.core.module.descriptor.Artifact
 import org.apache.ivy.core.resolve.ResolveEngine
 import org.gradle.api.artifacts.ResolvedArtifact
 import org.gradle.api.artifacts.ResolvedDependency
 import org.gradle.api.internal.artifacts.DefaultResolvedArtifact
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
 import spock.lang.Specification
 
 class ResolvedArtifactFactoryTest extends Specification {
     final CacheLockingManager lockingManager = Mock()
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
     final ResolvedArtifactFactory factory = new ResolvedArtifactFactory(lockingManager)
 
+    def cleanup() {
+        executorFactory.stop()
+    }
+
     def "creates an artifact backed by resolve engine"() {
         Artifact artifact = Mock()
         ResolveEngine resolveEngine = Mock()
@@ -58,4 +66,74 @@ class ResolvedArtifactFactoryTest extends Specification {
         1 * resolver.resolve(artifact) >> file
         0 * _._
     }
+
+    def "downloads artifacts concurrently while holding the cache lock"() {
+        def factory = new ResolvedArtifactFactory(lockingManager, executorFactory)
+        def latch = new CountDownLatch(2)
+        Artifact artifact1 = Mock()
+        Artifact artifact2 = Mock()
+        File file1 = new File("one.jar")
+        File file2 = new File("two.jar")
+        // Use a stub rather than a mock, as mock invocations are serialised
+        def resolver = [resolve: { Artifact artifact ->
+            latch.countDown()
+            assert latch.await(10, TimeUnit.SECONDS)
+            return artifact.is(artifact1) ? file1 : file2
+        }] as ArtifactToFileResolver
+        def resolved1 = factory.create(Mock(ResolvedDependency), artifact1, resolver)
+        def resolved2 = factory.create(Mock(ResolvedDependency), artifact2, resolver)
+
+        when:
+        factory.downloadAll([resolved1, resolved2])
+
+        then:
+        1 * lockingManager.withCacheLock(!null, !null) >> {String displayName, Callable action ->
+            return action.call()
+        }
+
+        when:
+        def result = [resolved1.file, resolved2.file]
+
+        then:
+        result == [file1, file2]
+        0 * lockingManager._
+    }
+
+    def "downloads artifact again when file is requested after download fails"() {
+        def factory = new ResolvedArtifactFactory(lockingManager, executorFactory)
+        // Use stubs rather than mocks, as mock invocations are serialised
+        Artifact artifact1 = [toString: { "artifact1" }] as Artifact
+        Artifact artifact2 = [toString: { "artifact2" }] as Artifact
+        File file = new File("something.jar")
+        def attempts = 0
+        def resolver = [resolve: { Artifact artifact ->
+            if (artifact.is(artifact1) && attempts++ == 0) {
+                throw new RuntimeException("broken")
+            }
+            return file
+        }] as ArtifactToFileResolver
+        def resolved1 = factory.create(Mock(ResolvedDependency), artifact1, resolver)
+        def resolved2 = factory.create(Mock(ResolvedDependency), artifact2, resolver)
+
+        when:
+        factory.downloadAll([resolved1, resolved2])
+        def result = resolved1.file
+
+        then:
+        result == file
+        attempts == 2
+        2 * lockingManager.withCacheLock(!null, !null) >> {String displayName, Callable action ->
+            return action.call()
+        }
+    }
+
+    def "does not download artifacts when no executor is available"() {
+        ArtifactToFileResolver resolver = Mock()
+
+        when:
+        factory.downloadAll([factory.create(Mock(ResolvedDependency), Mock(Artifact), resolver), factory.create(Mock(ResolvedDependency), Mock(Artifact), resolver)])
+
+        then:
+        0 * _._
+    }
 }
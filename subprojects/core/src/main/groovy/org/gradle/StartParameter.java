@@ -82,6 +82,9 @@ public class StartParameter {
     private boolean colorOutput = true;
     private boolean profile;
     private boolean continueOnFailure;
+    private int parallelThreadCount;
+    private boolean parallelProjectConfiguration;
+    private boolean configureOnDemand;
     private File projectCacheDir;
 
     /**
@@ -147,6 +150,9 @@ public class StartParameter {
         startParameter.profile = profile;
         startParameter.projectCacheDir = projectCacheDir;
         startParameter.continueOnFailure = continueOnFailure;
+        startParameter.parallelThreadCount = parallelThreadCount;
+        startParameter.parallelProjectConfiguration = parallelProjectConfiguration;
+        startParameter.configureOnDemand = configureOnDemand;
         return startParameter;
     }
 
@@ -165,6 +171,9 @@ public class StartParameter {
         startParameter.colorOutput = colorOutput;
         startParameter.profile = profile;
         startParameter.continueOnFailure = continueOnFailure;
+        startParameter.parallelThreadCount = parallelThreadCount;
+        startParameter.parallelProjectConfiguration = parallelProjectConfiguration;
+        startParameter.configureOnDemand = configureOnDemand;
         return startParameter;
     }
 
@@ -532,6 +541,57 @@ public class StartParameter {
         this.continueOnFailure = continueOnFailure;
     }
 
+    /**
+     * Returns the number of threads to use to execute tasks. A value less than 2 means that tasks are executed one
+     * at a time. The default is 0.
+     */
+    public int getParallelThreadCount() {
+        return parallelThreadCount;
+    }
+
+    /**
+     * Specifies the number of threads to use to execute tasks. Tasks whose dependencies have all executed are
+     * executed concurrently, up to this number of threads. A value less than 2 means that tasks are executed one at
+     * a time. The default is 0.
+     */
+    public void setParallelThreadCount(int parallelThreadCount) {
+        this.parallelThreadCount = parallelThreadCount;
+    }
+
+    /**
+     * Returns true if projects should be configured concurrently. The default is false.
+     */
+    public boolean isParallelProjectConfiguration() {
+        return parallelProjectConfiguration;
+    }
+
+    /**
+     * Specifies whether projects should be configured concurrently. When true, a project is configured once its parent
+     * has been configured, using up to {@link #getParallelThreadCount()} threads, or one thread per processor when no
+     * thread count is specified. The default is false.
+     */
+    public void setParallelProjectConfiguration(boolean parallelProjectConfiguration) {
+        this.parallelProjectConfiguration = parallelProjectConfiguration;
+    }
+
+    /**
+     * Returns true if only the projects required by the requested tasks should be configured. The default is false.
+     */
+    public boolean isConfigureOnDemand() {
+        return configureOnDemand;
+    }
+
+    /**
+     * Specifies whether only the projects required by the requested tasks should be configured. When true, the root
+     * project, the default project and its parents are configured up front, and other projects are configured when
+     * their tasks are selected, when another project depends on them, or when their tasks are referenced by path. All
+     * projects are configured when one of the scripts run up front registers a hook which runs once all projects have
+     * been evaluated. The default is false.
+     */
+    public void setConfigureOnDemand(boolean configureOnDemand) {
+        this.configureOnDemand = configureOnDemand;
+    }
+
     @Override
     public String toString() {
         return "StartParameter{"
@@ -553,6 +613,10 @@ public class StartParameter {
                 + ", dryRun=" + dryRun
                 + ", noOpt=" + noOpt
                 + ", profile=" + profile
+                + ", continueOnFailure=" + continueOnFailure
+                + ", parallelThreadCount=" + parallelThreadCount
+                + ", parallelProjectConfiguration=" + parallelProjectConfiguration
+                + ", configureOnDemand=" + configureOnDemand
                 + '}';
     }
 }
\ No newline at end of file
@@ -32,6 +32,14 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
     }
 
     public <T> Class<? extends T> generate(Class<T> type) {
+        // Classes may be generated by several threads at once, for example when projects are configured in parallel.
+        // Generate them one at a time, so that a class is defined only once
+        synchronized (GENERATED_CLASSES) {
+            return doGenerate(type);
+        }
+    }
+
+    private <T> Class<? extends T> doGenerate(Class<T> type) {
         Map<Class, Class> cache = GENERATED_CLASSES.get(getClass());
         if (cache == null) {
             cache = new HashMap<Class, Class>();
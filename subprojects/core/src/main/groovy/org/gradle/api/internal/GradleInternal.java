@@ -73,5 +73,13 @@ public interface GradleInternal extends Gradle {
      */
     BuildListener getBuildListenerBroadcaster();
 
+    /**
+     * Returns true when a script has registered a hook which expects every project of this build to be configured,
+     * such as a {@link #projectsEvaluated(groovy.lang.Closure)} closure, or a {@link BuildListener} which implements
+     * {@link BuildListener#projectsEvaluated(Gradle)}. Listeners which are added to the {@link
+     * org.gradle.listener.ListenerManager} directly, rather than through this build, are not detected.
+     */
+    boolean isFullConfigurationRequired();
+
     ServiceRegistryFactory getServices();
 }
@@ -17,9 +17,18 @@ package org.gradle.api.internal;
 
 import org.gradle.api.file.FileCollection;
 
+import java.io.File;
+import java.util.Set;
+
 public interface TaskExecutionHistory {
     /**
      * Returns the set of output files which the task produced.
      */
     FileCollection getOutputFiles();
+
+    /**
+     * Returns the input files which have been added or changed since the task last executed successfully. Returns null
+     * when this is not known, such as when the task has not executed before.
+     */
+    Set<File> getChangedInputFiles();
 }
@@ -20,10 +20,19 @@ import org.gradle.api.file.FileCollection;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.TaskOutputs;
 
+import java.io.File;
+import java.util.Set;
+
 public interface TaskOutputsInternal extends TaskOutputs {
     Spec<? super TaskInternal> getUpToDateSpec();
 
     FileCollection getPreviousFiles();
 
+    /**
+     * Returns the input files which have been added or changed since the task last executed successfully. Returns null
+     * when this is not known, such as when the task is not executing.
+     */
+    Set<File> getChangedInputFiles();
+
     void setHistory(TaskExecutionHistory history);
 }
@@ -67,6 +67,9 @@ public class DefaultProjectDependency extends AbstractModuleDependency implement
     }
 
     public Configuration getProjectConfiguration() {
+        if (dependencyProject.getGradle().getStartParameter().isConfigureOnDemand()) {
+            dependencyProject.evaluate();
+        }
         return dependencyProject.getConfigurations().getByName(getConfiguration());
     }
 
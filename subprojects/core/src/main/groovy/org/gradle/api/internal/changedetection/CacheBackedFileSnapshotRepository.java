@@ -18,15 +18,28 @@ package org.gradle.api.internal.changedetection;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.Serializer;
 
+import java.io.*;
+import java.util.Collections;
+
+/**
+ * A {@link FileSnapshotRepository} backed by a persistent cache. Can be used by multiple threads concurrently.
+ */
 public class CacheBackedFileSnapshotRepository implements FileSnapshotRepository {
+    static final String LAYOUT_VERSION = "2";
     private final PersistentIndexedCache<Object, Object> cache;
 
     public CacheBackedFileSnapshotRepository(CacheRepository repository, Gradle gradle) {
-        cache = repository.indexedCache(Object.class, Object.class, "fileSnapshots").forObject(gradle).open();
+        cache = repository.indexedCache(Object.class, Object.class, "fileSnapshots")
+                .forObject(gradle)
+                .withSerializer(new SnapshotSerializer())
+                .withProperties(Collections.singletonMap("layout.version", LAYOUT_VERSION))
+                .withMemoryMappedReads(true)
+                .open();
     }
 
-    public Long add(FileCollectionSnapshot snapshot) {
+    public synchronized Long add(FileCollectionSnapshot snapshot) {
         Long id = (Long) cache.get("nextId");
         if (id == null) {
             id = 1L;
@@ -36,11 +49,45 @@ public class CacheBackedFileSnapshotRepository implements FileSnapshotRepository
         return id;
     }
 
-    public FileCollectionSnapshot get(Long id) {
+    public synchronized FileCollectionSnapshot get(Long id) {
         return (FileCollectionSnapshot) cache.get(id);
     }
 
-    public void remove(Long id) {
+    public synchronized void remove(Long id) {
         cache.remove(id);
     }
+
+    /**
+     * Serializes the values of the snapshot cache, which are either the next snapshot id or a snapshot.
+     */
+    static class SnapshotSerializer implements Serializer<Object> {
+        private static final byte ID = 1;
+        private static final byte SNAPSHOT = 2;
+        private final FileCollectionSnapshotSerializer snapshotSerializer = new FileCollectionSnapshotSerializer();
+
+        public Object read(InputStream instr) throws Exception {
+            DataInputStream input = new DataInputStream(instr);
+            byte type = input.readByte();
+            switch (type) {
+                case ID:
+                    return input.readLong();
+                case SNAPSHOT:
+                    return snapshotSerializer.read(input);
+                default:
+                    throw new StreamCorruptedException(String.format("Unexpected value type %s found.", type));
+            }
+        }
+
+        public void write(OutputStream outstr, Object value) throws Exception {
+            DataOutputStream output = new DataOutputStream(outstr);
+            if (value instanceof Long) {
+                output.writeByte(ID);
+                output.writeLong((Long) value);
+            } else {
+                output.writeByte(SNAPSHOT);
+                snapshotSerializer.write(output, (FileCollectionSnapshot) value);
+            }
+            output.flush();
+        }
+    }
 }
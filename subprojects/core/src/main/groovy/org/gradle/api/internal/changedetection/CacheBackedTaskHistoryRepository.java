@@ -18,24 +18,29 @@ package org.gradle.api.internal.changedetection;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
-import org.gradle.cache.DefaultSerializer;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.Serializer;
+import org.gradle.util.ClassLoaderObjectInputStream;
 
-import java.io.File;
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.io.*;
+import java.util.*;
 
+/**
+ * A {@link TaskHistoryRepository} backed by a persistent cache. Can be used by multiple threads concurrently, for
+ * tasks which are executed in parallel.
+ */
 public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
     private final FileSnapshotRepository snapshotRepository;
     private final PersistentIndexedCache<String, TaskHistory> taskHistoryCache;
-    private final DefaultSerializer<TaskHistory> serializer = new DefaultSerializer<TaskHistory>();
+    private final TaskHistorySerializer serializer = new TaskHistorySerializer();
 
     public CacheBackedTaskHistoryRepository(CacheRepository repository, FileSnapshotRepository snapshotRepository, Gradle gradle) {
         this.snapshotRepository = snapshotRepository;
-        taskHistoryCache = repository.indexedCache(String.class, TaskHistory.class, "taskArtifacts").forObject(gradle).withSerializer(serializer).open();
+        taskHistoryCache = repository.indexedCache(String.class, TaskHistory.class, "taskArtifacts")
+                .forObject(gradle)
+                .withSerializer(serializer)
+                .withProperties(Collections.singletonMap("layout.version", CacheBackedFileSnapshotRepository.LAYOUT_VERSION))
+                .open();
     }
 
     public History getHistory(final TaskInternal task) {
@@ -59,6 +64,12 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
             }
 
             public void update() {
+                synchronized (CacheBackedTaskHistoryRepository.this) {
+                    doUpdate();
+                }
+            }
+
+            private void doUpdate() {
                 if (currentExecution.inputFilesSnapshotId == null && currentExecution.inputFilesSnapshot != null) {
                     currentExecution.inputFilesSnapshotId = snapshotRepository.add(currentExecution.inputFilesSnapshot);
                 }
@@ -79,7 +90,8 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         };
     }
 
-    private TaskHistory loadHistory(TaskInternal task) {
+    private synchronized TaskHistory loadHistory(TaskInternal task) {
+        // The serializer is shared, so the class loader can only be changed while holding the lock
         ClassLoader original = serializer.getClassLoader();
         serializer.setClassLoader(task.getClass().getClassLoader());
         try {
@@ -163,4 +175,100 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
             outputFilesSnapshotId = null;
         }
     }
+
+    /**
+     * Serializes the task history using a compact binary format. The input properties can be of any serializable type,
+     * and so are written using Java serialization, and read using the class loader of the task.
+     */
+    private static class TaskHistorySerializer implements Serializer<TaskHistory> {
+        private ClassLoader classLoader = getClass().getClassLoader();
+
+        public ClassLoader getClassLoader() {
+            return classLoader;
+        }
+
+        public void setClassLoader(ClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+
+        public TaskHistory read(InputStream instr) throws Exception {
+            DataInputStream input = new DataInputStream(instr);
+            TaskHistory history = new TaskHistory();
+            int count = FileCollectionSnapshotSerializer.readSize(input);
+            for (int i = 0; i < count; i++) {
+                history.configurations.add(readExecution(input));
+            }
+            return history;
+        }
+
+        public void write(OutputStream outstr, TaskHistory value) throws Exception {
+            DataOutputStream output = new DataOutputStream(outstr);
+            FileCollectionSnapshotSerializer.writeSize(output, value.configurations.size());
+            for (LazyTaskExecution execution : value.configurations) {
+                writeExecution(output, execution);
+            }
+            output.flush();
+        }
+
+        private LazyTaskExecution readExecution(DataInputStream input) throws Exception {
+            LazyTaskExecution execution = new LazyTaskExecution();
+            execution.inputFilesSnapshotId = readId(input);
+            execution.outputFilesSnapshotId = readId(input);
+            execution.setTaskClass(input.readBoolean() ? input.readUTF() : null);
+            if (input.readBoolean()) {
+                int count = FileCollectionSnapshotSerializer.readSize(input);
+                Set<String> outputFiles = new HashSet<String>(count * 4 / 3 + 1);
+                FileCollectionSnapshotSerializer.PathReader paths = new FileCollectionSnapshotSerializer.PathReader();
+                for (int i = 0; i < count; i++) {
+                    outputFiles.add(paths.read(input));
+                }
+                execution.setOutputFiles(outputFiles);
+            }
+            if (input.readBoolean()) {
+                byte[] serializedProperties = new byte[input.readInt()];
+                input.readFully(serializedProperties);
+                ObjectInputStream objectInput = new ClassLoaderObjectInputStream(new ByteArrayInputStream(serializedProperties), classLoader);
+                execution.setInputProperties((Map<String, Object>) objectInput.readObject());
+            }
+            return execution;
+        }
+
+        private void writeExecution(DataOutputStream output, LazyTaskExecution execution) throws IOException {
+            writeId(output, execution.inputFilesSnapshotId);
+            writeId(output, execution.outputFilesSnapshotId);
+            output.writeBoolean(execution.getTaskClass() != null);
+            if (execution.getTaskClass() != null) {
+                output.writeUTF(execution.getTaskClass());
+            }
+            output.writeBoolean(execution.getOutputFiles() != null);
+            if (execution.getOutputFiles() != null) {
+                Set<String> outputFiles = new TreeSet<String>(execution.getOutputFiles());
+                FileCollectionSnapshotSerializer.writeSize(output, outputFiles.size());
+                FileCollectionSnapshotSerializer.PathWriter paths = new FileCollectionSnapshotSerializer.PathWriter();
+                for (String outputFile : outputFiles) {
+                    paths.write(output, outputFile);
+                }
+            }
+            output.writeBoolean(execution.getInputProperties() != null);
+            if (execution.getInputProperties() != null) {
+                ByteArrayOutputStream serializedProperties = new ByteArrayOutputStream();
+                ObjectOutputStream objectOutput = new ObjectOutputStream(serializedProperties);
+                objectOutput.writeObject(execution.getInputProperties());
+                objectOutput.close();
+                output.writeInt(serializedProperties.size());
+                serializedProperties.writeTo(output);
+            }
+        }
+
+        private Long readId(DataInputStream input) throws IOException {
+            return input.readBoolean() ? input.readLong() : null;
+        }
+
+        private void writeId(DataOutputStream output, Long id) throws IOException {
+            output.writeBoolean(id != null);
+            if (id != null) {
+                output.writeLong(id);
+            }
+        }
+    }
 }
@@ -21,11 +21,17 @@ import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.Serializer;
 
 import java.io.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * A {@link Hasher} which caches the hash of a file, along with its length and timestamp. Is thread-safe when the
+ * backing hasher is thread-safe. Access to the cache is serialised, but files are hashed concurrently.
+ */
 public class CachingHasher implements Hasher {
     private final PersistentIndexedCache<File, FileInfo> cache;
     private final Hasher hasher;
-    private long timestamp;
 
     public CachingHasher(Hasher hasher, CacheRepository cacheRepository, Gradle gradle) {
         this.hasher = hasher;
@@ -33,19 +39,57 @@ public class CachingHasher implements Hasher {
     }
 
     public byte[] hash(File file) {
-        FileInfo info = cache.get(file);
+        FileInfo info;
+        synchronized (cache) {
+            info = cache.get(file);
+        }
 
         long length = file.length();
-        timestamp = file.lastModified();
+        long timestamp = file.lastModified();
         if (info != null && length == info.length && timestamp == info.timestamp) {
             return info.hash;
         }
 
         byte[] hash = hasher.hash(file);
-        cache.put(file, new FileInfo(hash, length, timestamp));
+        synchronized (cache) {
+            cache.put(file, new FileInfo(hash, length, timestamp));
+        }
         return hash;
     }
 
+    /**
+     * Looks up the cached hashes of all the given files at once, and then stores the hashes of all changed files at
+     * once, rather than accessing the cache for each file.
+     */
+    public byte[][] hashAll(List<File> files) {
+        Map<File, FileInfo> cachedInfo;
+        synchronized (cache) {
+            cachedInfo = cache.getAll(files);
+        }
+
+        byte[][] hashes = new byte[files.size()][];
+        Map<File, FileInfo> updatedInfo = new HashMap<File, FileInfo>();
+        for (int i = 0; i < hashes.length; i++) {
+            File file = files.get(i);
+            FileInfo info = cachedInfo.get(file);
+            long length = file.length();
+            long timestamp = file.lastModified();
+            if (info != null && length == info.length && timestamp == info.timestamp) {
+                hashes[i] = info.hash;
+            } else {
+                hashes[i] = hasher.hash(file);
+                updatedInfo.put(file, new FileInfo(hashes[i], length, timestamp));
+            }
+        }
+
+        if (!updatedInfo.isEmpty()) {
+            synchronized (cache) {
+                cache.putAll(updatedInfo);
+            }
+        }
+        return hashes;
+    }
+
     public static class FileInfo implements Serializable {
         private final byte[] hash;
         private final long timestamp;
@@ -17,20 +17,55 @@
 package org.gradle.api.internal.changedetection;
 
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.internal.file.collections.DefaultFileCollectionResolveContext;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.internal.file.collections.FileTreeAdapter;
 import org.gradle.api.internal.file.collections.SimpleFileCollection;
 import org.gradle.util.ChangeListener;
 import org.gradle.util.NoOpChangeListener;
+import org.gradle.util.UncheckedException;
 
 import java.io.File;
 import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 public class DefaultFileSnapshotter implements FileSnapshotter {
+    /**
+     * The smallest number of files to hash in a single batch. Collections smaller than twice this are hashed using
+     * the calling thread.
+     */
+    static final int MIN_BATCH_SIZE = 32;
     private final Hasher hasher;
+    private final Executor executor;
+    private final int parallelism;
+    private final DirectoryTreeSnapshotCache treeSnapshotCache;
 
     public DefaultFileSnapshotter(Hasher hasher) {
+        this(hasher, null, 1);
+    }
+
+    /**
+     * Creates a snapshotter which splits the files to hash into batches, and hashes up to the given number of batches
+     * concurrently using the given executor. The hasher must be thread-safe.
+     */
+    public DefaultFileSnapshotter(Hasher hasher, Executor executor, int parallelism) {
+        this(hasher, executor, parallelism, null);
+    }
+
+    /**
+     * Creates a snapshotter which also reuses the snapshots of unchanged directory trees from the given cache, when not
+     * null.
+     */
+    public DefaultFileSnapshotter(Hasher hasher, Executor executor, int parallelism, DirectoryTreeSnapshotCache treeSnapshotCache) {
         this.hasher = hasher;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.treeSnapshotCache = treeSnapshotCache;
     }
 
     public FileCollectionSnapshot emptySnapshot() {
@@ -39,29 +74,181 @@ public class DefaultFileSnapshotter implements FileSnapshotter {
 
     public FileCollectionSnapshot snapshot(FileCollection sourceFiles) {
         Map<String, FileSnapshot> snapshots = new HashMap<String, FileSnapshot>();
-        for (File file : sourceFiles.getAsFileTree()) {
+        List<File> filesToHash = new ArrayList<File>();
+        List<TreeSnapshot> treesToCache = new ArrayList<TreeSnapshot>();
+        if (treeSnapshotCache == null) {
+            visit(sourceFiles.getAsFileTree(), snapshots, filesToHash);
+        } else {
+            for (FileTree tree : new DefaultFileCollectionResolveContext().add(sourceFiles.getAsFileTree()).resolveAsFileTrees()) {
+                DirectoryFileTree directoryTree = toDirectoryTree(tree);
+                Map<String, FileSnapshot> cachedSnapshots = directoryTree == null ? null : treeSnapshotCache.get(directoryTree);
+                if (cachedSnapshots != null) {
+                    snapshots.putAll(cachedSnapshots);
+                    continue;
+                }
+                long token = directoryTree == null ? -1 : treeSnapshotCache.startSnapshot(directoryTree);
+                if (token < 0) {
+                    visit(tree, snapshots, filesToHash);
+                    continue;
+                }
+                TreeSnapshot treeSnapshot = new TreeSnapshot(directoryTree, token, filesToHash.size());
+                visit(tree, treeSnapshot.snapshots, filesToHash);
+                treeSnapshot.endFile = filesToHash.size();
+                treesToCache.add(treeSnapshot);
+            }
+        }
+
+        byte[][] hashes = hash(filesToHash);
+        // The files of each cached tree are a contiguous range of the files to hash, in the order the trees were visited
+        int nextFile = 0;
+        for (TreeSnapshot treeSnapshot : treesToCache) {
+            addHashes(filesToHash, hashes, nextFile, treeSnapshot.startFile, snapshots);
+            addHashes(filesToHash, hashes, treeSnapshot.startFile, treeSnapshot.endFile, treeSnapshot.snapshots);
+            treeSnapshotCache.put(treeSnapshot.tree, treeSnapshot.token, treeSnapshot.snapshots);
+            snapshots.putAll(treeSnapshot.snapshots);
+            nextFile = treeSnapshot.endFile;
+        }
+        addHashes(filesToHash, hashes, nextFile, hashes.length, snapshots);
+        return new FileCollectionSnapshotImpl(snapshots);
+    }
+
+    private void addHashes(List<File> files, byte[][] hashes, int start, int end, Map<String, FileSnapshot> snapshots) {
+        for (int i = start; i < end; i++) {
+            snapshots.put(files.get(i).getAbsolutePath(), new FileHashSnapshot(hashes[i]));
+        }
+    }
+
+    private void visit(FileTree tree, Map<String, FileSnapshot> snapshots, List<File> filesToHash) {
+        for (File file : tree) {
             if (file.isFile()) {
-                snapshots.put(file.getAbsolutePath(), new FileHashSnapshot(hasher.hash(file)));
+                filesToHash.add(file);
             } else if (file.isDirectory()) {
-                snapshots.put(file.getAbsolutePath(), new DirSnapshot());
+                snapshots.put(file.getAbsolutePath(), DirSnapshot.INSTANCE);
             } else {
-                snapshots.put(file.getAbsolutePath(), new MissingFileSnapshot());
+                snapshots.put(file.getAbsolutePath(), MissingFileSnapshot.INSTANCE);
             }
         }
-        return new FileCollectionSnapshotImpl(snapshots);
     }
 
-    private interface FileSnapshot extends Serializable {
+    private DirectoryFileTree toDirectoryTree(FileTree tree) {
+        if (tree instanceof FileTreeAdapter && ((FileTreeAdapter) tree).getTree() instanceof DirectoryFileTree) {
+            return (DirectoryFileTree) ((FileTreeAdapter) tree).getTree();
+        }
+        return null;
+    }
+
+    private byte[][] hash(List<File> files) {
+        if (executor == null || parallelism < 2 || files.size() < 2 * MIN_BATCH_SIZE) {
+            return hasher.hashAll(files);
+        }
+
+        // Use a few batches per thread, so that threads which hash small files can pick up more work
+        int batchSize = Math.max(MIN_BATCH_SIZE, files.size() / (parallelism * 4) + 1);
+        byte[][] hashes = new byte[files.size()][];
+        List<FutureTask<Object>> batches = new ArrayList<FutureTask<Object>>();
+        for (int start = 0; start < files.size(); start += batchSize) {
+            int end = Math.min(start + batchSize, files.size());
+            batches.add(new FutureTask<Object>(new HashBatch(files, hashes, start, end), null));
+        }
+
+        BatchQueue queue = new BatchQueue(batches);
+        int workers = Math.min(parallelism, batches.size()) - 1;
+        for (int i = 0; i < workers; i++) {
+            executor.execute(queue);
+        }
+        // Use the calling thread to hash as well, rather than just waiting
+        queue.run();
+
+        try {
+            for (FutureTask<Object> batch : batches) {
+                batch.get();
+            }
+        } catch (ExecutionException e) {
+            for (FutureTask<Object> batch : batches) {
+                batch.cancel(false);
+            }
+            throw UncheckedException.asUncheckedException(e.getCause());
+        } catch (InterruptedException e) {
+            throw UncheckedException.asUncheckedException(e);
+        }
+        return hashes;
+    }
+
+    private class HashBatch implements Runnable {
+        private final List<File> files;
+        private final byte[][] hashes;
+        private final int start;
+        private final int end;
+
+        public HashBatch(List<File> files, byte[][] hashes, int start, int end) {
+            this.files = files;
+            this.hashes = hashes;
+            this.start = start;
+            this.end = end;
+        }
+
+        public void run() {
+            byte[][] batchHashes = hasher.hashAll(files.subList(start, end));
+            System.arraycopy(batchHashes, 0, hashes, start, batchHashes.length);
+        }
+    }
+
+    /**
+     * The snapshot of a single directory tree, to be added to the tree snapshot cache once its files have been hashed.
+     */
+    private static class TreeSnapshot {
+        private final DirectoryFileTree tree;
+        private final long token;
+        private final int startFile;
+        private int endFile;
+        private final Map<String, FileSnapshot> snapshots = new HashMap<String, FileSnapshot>();
+
+        private TreeSnapshot(DirectoryFileTree tree, long token, int startFile) {
+            this.tree = tree;
+            this.token = token;
+            this.startFile = startFile;
+        }
+    }
+
+    /**
+     * Runs queued batches until there are none left. Several threads can run the queue at the same time.
+     */
+    private static class BatchQueue implements Runnable {
+        private final Iterator<FutureTask<Object>> batches;
+
+        public BatchQueue(List<FutureTask<Object>> batches) {
+            this.batches = batches.iterator();
+        }
+
+        public void run() {
+            while (true) {
+                FutureTask<Object> batch;
+                synchronized (this) {
+                    if (!batches.hasNext()) {
+                        return;
+                    }
+                    batch = batches.next();
+                }
+                batch.run();
+            }
+        }
+    }
+
+    interface FileSnapshot extends Serializable {
         boolean isUpToDate(FileSnapshot snapshot);
     }
 
-    private static class FileHashSnapshot implements FileSnapshot {
+    static class FileHashSnapshot implements FileSnapshot {
         private final byte[] hash;
 
         public FileHashSnapshot(byte[] hash) {
             this.hash = hash;
         }
 
+        public byte[] getHash() {
+            return hash;
+        }
+
         public boolean isUpToDate(FileSnapshot snapshot) {
             if (!(snapshot instanceof FileHashSnapshot)) {
                 return false;
@@ -77,25 +264,33 @@ public class DefaultFileSnapshotter implements FileSnapshotter {
         }
     }
 
-    private static class DirSnapshot implements FileSnapshot {
+    static class DirSnapshot implements FileSnapshot {
+        static final DirSnapshot INSTANCE = new DirSnapshot();
+
         public boolean isUpToDate(FileSnapshot snapshot) {
             return snapshot instanceof DirSnapshot;
         }
     }
 
-    private static class MissingFileSnapshot implements FileSnapshot {
+    static class MissingFileSnapshot implements FileSnapshot {
+        static final MissingFileSnapshot INSTANCE = new MissingFileSnapshot();
+
         public boolean isUpToDate(FileSnapshot snapshot) {
             return snapshot instanceof MissingFileSnapshot;
         }
     }
 
-    private static class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
+    static class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
         private final Map<String, FileSnapshot> snapshots;
 
         public FileCollectionSnapshotImpl(Map<String, FileSnapshot> snapshots) {
             this.snapshots = snapshots;
         }
 
+        public Map<String, FileSnapshot> getSnapshots() {
+            return snapshots;
+        }
+
         public FileCollection getFiles() {
             List<File> files = new ArrayList<File>();
             for (Map.Entry<String, FileSnapshot> entry : snapshots.entrySet()) {
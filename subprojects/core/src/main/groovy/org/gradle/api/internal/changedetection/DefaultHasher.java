@@ -18,9 +18,18 @@ package org.gradle.api.internal.changedetection;
 import org.gradle.util.HashUtil;
 
 import java.io.File;
+import java.util.List;
 
 public class DefaultHasher implements Hasher {
     public byte[] hash(File file) {
         return HashUtil.createHash(file);
     }
+
+    public byte[][] hashAll(List<File> files) {
+        byte[][] hashes = new byte[files.size()][];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = hash(files.get(i));
+        }
+        return hashes;
+    }
 }
\ No newline at end of file
@@ -22,10 +22,10 @@ import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.file.collections.SimpleFileCollection;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.util.ChangeListener;
 
-import java.util.ArrayList;
-import java.util.Formatter;
-import java.util.List;
+import java.io.File;
+import java.util.*;
 
 import static java.util.Collections.singletonList;
 
@@ -34,13 +34,15 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
     private static final Logger LOGGER = Logging.getLogger(DefaultTaskArtifactStateRepository.class);
     private final TaskHistoryRepository taskHistoryRepository;
     private final UpToDateRule upToDateRule;
+    private final UpToDateRule outputFilesRule;
 
     public DefaultTaskArtifactStateRepository(TaskHistoryRepository taskHistoryRepository, FileSnapshotter inputFilesSnapshotter, FileSnapshotter outputFilesSnapshotter) {
         this.taskHistoryRepository = taskHistoryRepository;
+        outputFilesRule = new OutputFilesChangedUpToDateRule(outputFilesSnapshotter);
         upToDateRule = new CompositeUpToDateRule(
                 new TaskTypeChangedUpToDateRule(),
                 new InputPropertiesChangedUpToDateRule(),
-                new OutputFilesChangedUpToDateRule(outputFilesSnapshotter),
+                outputFilesRule,
                 new InputFilesChangedUpToDateRule(inputFilesSnapshotter));
     }
 
@@ -54,6 +56,8 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         boolean snapshot();
 
         FileCollection getPreviousOutputFiles();
+
+        Set<File> getChangedInputFiles();
     }
 
     private static class HistoricExecution implements TaskExecutionState {
@@ -61,14 +65,16 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         private final TaskExecution lastExecution;
         private boolean upToDate;
         private final UpToDateRule rule;
+        private final UpToDateRule outputFilesRule;
         private TaskExecution thisExecution;
         private UpToDateRule.TaskUpToDateState upToDateState;
 
-        public HistoricExecution(TaskInternal task, TaskHistoryRepository.History history, UpToDateRule rule) {
+        public HistoricExecution(TaskInternal task, TaskHistoryRepository.History history, UpToDateRule rule, UpToDateRule outputFilesRule) {
             this.task = task;
             this.lastExecution = history.getPreviousExecution();
             this.thisExecution = history.getCurrentExecution();
             this.rule = rule;
+            this.outputFilesRule = outputFilesRule;
         }
 
         private void calcCurrentState() {
@@ -84,6 +90,33 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             return lastExecution != null && lastExecution.getOutputFilesSnapshot() != null ? lastExecution.getOutputFilesSnapshot().getFiles() : new SimpleFileCollection();
         }
 
+        public Set<File> getChangedInputFiles() {
+            calcCurrentState();
+            if (lastExecution == null || lastExecution.getInputFilesSnapshot() == null || thisExecution.getInputFilesSnapshot() == null) {
+                return null;
+            }
+            // The changes can only be applied to the output files as they were left by the previous execution
+            List<String> outputFileChanges = new ArrayList<String>();
+            outputFilesRule.create(task, lastExecution, thisExecution).checkUpToDate(outputFileChanges);
+            if (!outputFileChanges.isEmpty()) {
+                return null;
+            }
+            final Set<File> changedFiles = new HashSet<File>();
+            thisExecution.getInputFilesSnapshot().changesSince(lastExecution.getInputFilesSnapshot(), new ChangeListener<File>() {
+                public void added(File file) {
+                    changedFiles.add(file);
+                }
+
+                public void removed(File file) {
+                }
+
+                public void changed(File file) {
+                    changedFiles.add(file);
+                }
+            });
+            return changedFiles;
+        }
+
         public List<String> isUpToDate() {
             calcCurrentState();
 
@@ -149,12 +182,16 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             return execution.getPreviousOutputFiles();
         }
 
+        public Set<File> getChangedInputFiles() {
+            return execution.getChangedInputFiles();
+        }
+
         public TaskExecutionHistory getExecutionHistory() {
             return this;
         }
 
         public TaskExecutionState getExecution() {
-            return new HistoricExecution(task, history, upToDateRule);
+            return new HistoricExecution(task, history, upToDateRule, outputFilesRule);
         }
 
         public void afterTask() {
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.changedetection.DefaultFileSnapshotter.FileSnapshot;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.tasks.util.IntersectionPatternSet;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Caches the snapshots of directory trees, so that a long running process, such as the daemon, can reuse the snapshot
+ * of a tree which has not changed since it was last snapshotted, rather than walking the tree again. Uses a {@link
+ * FileWatcher} to discard the snapshot of a tree when any file in the tree changes.
+ *
+ * <p>The watcher reports changes some time after they happen. To deal with this, {@link #sync} waits for the changes
+ * made before a build starts, and snapshots are also discarded when this cache is told that files may have changed,
+ * for example because a task is about to write to them. Is thread-safe.</p>
+ */
+public class DirectoryTreeSnapshotCache implements FileCacheListener {
+    /**
+     * The system property used to enable this cache.
+     */
+    public static final String WATCH_PROPERTY = "org.gradle.daemon.watchfs";
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryTreeSnapshotCache.class);
+    private final FileWatcher watcher;
+    private final Map<TreeKey, Map<String, FileSnapshot>> snapshots = new HashMap<TreeKey, Map<String, FileSnapshot>>();
+    private final FileWatcher.Listener changeListener = new FileWatcher.Listener() {
+        public void changed(File file) {
+            invalidate(file);
+        }
+
+        public void overflowed() {
+            invalidateAll();
+        }
+    };
+    private long changeCount;
+
+    /**
+     * Creates a cache which uses the given watcher. When the watcher is null, nothing is cached.
+     */
+    public DirectoryTreeSnapshotCache(FileWatcher watcher) {
+        this.watcher = watcher;
+    }
+
+    /**
+     * Returns the snapshot of the given tree, or null if the tree has not been snapshotted or may have changed since.
+     */
+    synchronized Map<String, FileSnapshot> get(DirectoryFileTree tree) {
+        TreeKey key = keyFor(tree);
+        if (key == null) {
+            return null;
+        }
+        pollChanges();
+        return snapshots.get(key);
+    }
+
+    /**
+     * Starts watching the given tree. Must be called before the tree is walked to create the snapshot which is passed
+     * to {@link #put}.
+     *
+     * @return A token to pass to {@link #put}, or a negative value if the snapshot of the tree cannot be cached.
+     */
+    synchronized long startSnapshot(DirectoryFileTree tree) {
+        if (keyFor(tree) == null || !watcher.watch(tree.getDir())) {
+            return -1;
+        }
+        pollChanges();
+        return changeCount;
+    }
+
+    /**
+     * Caches the snapshot of the given tree, unless some file may have changed since {@link #startSnapshot} was
+     * called.
+     */
+    synchronized void put(DirectoryFileTree tree, long token, Map<String, FileSnapshot> snapshot) {
+        if (token < 0) {
+            return;
+        }
+        pollChanges();
+        if (token != changeCount) {
+            return;
+        }
+        snapshots.put(keyFor(tree), snapshot);
+    }
+
+    /**
+     * Discards the snapshots of any trees which have changed, waiting for the watcher to detect changes which have
+     * already been made. Should be called at the start of each build, so that the changes made since the previous
+     * build are always seen.
+     */
+    public synchronized void sync() {
+        if (watcher == null) {
+            return;
+        }
+        if (!watcher.sync()) {
+            LOGGER.debug("Could not sync with file watcher.");
+            invalidateAll();
+        }
+        pollChanges();
+    }
+
+    public void cacheable(FileCollection files) {
+    }
+
+    public void invalidate(FileCollection files) {
+        for (File file : files) {
+            invalidate(GFileUtils.canonicalise(file));
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        LOGGER.debug("Invalidate all cached directory tree snapshots");
+        changeCount++;
+        snapshots.clear();
+    }
+
+    private synchronized void invalidate(File file) {
+        changeCount++;
+        String path = file.getAbsolutePath();
+        Iterator<TreeKey> iterator = snapshots.keySet().iterator();
+        while (iterator.hasNext()) {
+            TreeKey key = iterator.next();
+            if (isSameOrAncestor(key.path, path) || isSameOrAncestor(path, key.path)) {
+                LOGGER.debug("Invalidate cached snapshot of directory '{}'", key.path);
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean isSameOrAncestor(String path, String other) {
+        return other.startsWith(path) && (other.length() == path.length() || other.charAt(path.length()) == File.separatorChar);
+    }
+
+    private void pollChanges() {
+        watcher.poll(changeListener);
+    }
+
+    public synchronized void close() {
+        if (watcher != null) {
+            watcher.stop();
+        }
+        snapshots.clear();
+    }
+
+    /**
+     * Returns the key for the given tree, or null if the snapshot of the tree cannot be cached. Trees whose patterns
+     * include specs cannot be cached, as specs cannot be compared.
+     */
+    private TreeKey keyFor(DirectoryFileTree tree) {
+        if (watcher == null) {
+            return null;
+        }
+        List<Object> patterns = new ArrayList<Object>();
+        PatternSet patternSet = tree.getPatterns();
+        while (patternSet != null) {
+            if (!patternSet.getIncludeSpecs().isEmpty() || !patternSet.getExcludeSpecs().isEmpty()) {
+                return null;
+            }
+            patterns.add(new HashSet<String>(patternSet.getIncludes()));
+            patterns.add(new HashSet<String>(patternSet.getExcludes()));
+            patterns.add(patternSet.isCaseSensitive());
+            if (patternSet instanceof IntersectionPatternSet) {
+                patternSet = ((IntersectionPatternSet) patternSet).getOther();
+            } else if (patternSet.getClass() == PatternSet.class) {
+                patternSet = null;
+            } else {
+                return null;
+            }
+        }
+        return new TreeKey(tree.getDir().getAbsolutePath(), patterns);
+    }
+
+    private static class TreeKey {
+        private final String path;
+        private final List<Object> patterns;
+
+        private TreeKey(String path, List<Object> patterns) {
+            this.path = path;
+            this.patterns = patterns;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            TreeKey other = (TreeKey) obj;
+            return path.equals(other.path) && patterns.equals(other.patterns);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() ^ patterns.hashCode();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.api.internal.changedetection.DefaultFileSnapshotter.*;
+import org.gradle.api.internal.changedetection.OutputFilesSnapshotter.OutputFilesSnapshot;
+import org.gradle.cache.Serializer;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A compact binary encoding for the snapshots created by {@link DefaultFileSnapshotter} and {@link
+ * OutputFilesSnapshotter}. Paths are written in sorted order, with each path encoded as the length of the prefix it
+ * shares with the previous path followed by the remaining characters. MD5 hashes are written as 16 bytes without a
+ * length.
+ */
+public class FileCollectionSnapshotSerializer implements Serializer<FileCollectionSnapshot> {
+    private static final byte FILE_COLLECTION_SNAPSHOT = 1;
+    private static final byte OUTPUT_FILES_SNAPSHOT = 2;
+
+    private static final byte FILE_MD5_HASH = 1;
+    private static final byte FILE_HASH = 2;
+    private static final byte DIRECTORY = 3;
+    private static final byte MISSING_FILE = 4;
+
+    private static final int MD5_LENGTH = 16;
+
+    public FileCollectionSnapshot read(InputStream instr) throws Exception {
+        return read(new DataInputStream(instr));
+    }
+
+    public void write(OutputStream outstr, FileCollectionSnapshot value) throws Exception {
+        DataOutputStream output = new DataOutputStream(outstr);
+        write(output, value);
+        output.flush();
+    }
+
+    FileCollectionSnapshot read(DataInputStream input) throws IOException {
+        byte type = input.readByte();
+        switch (type) {
+            case FILE_COLLECTION_SNAPSHOT:
+                return readFileCollectionSnapshot(input);
+            case OUTPUT_FILES_SNAPSHOT:
+                return readOutputFilesSnapshot(input);
+            default:
+                throw new StreamCorruptedException(String.format("Unexpected snapshot type %s found.", type));
+        }
+    }
+
+    void write(DataOutputStream output, FileCollectionSnapshot value) throws IOException {
+        if (value instanceof FileCollectionSnapshotImpl) {
+            output.writeByte(FILE_COLLECTION_SNAPSHOT);
+            writeFileCollectionSnapshot(output, (FileCollectionSnapshotImpl) value);
+        } else if (value instanceof OutputFilesSnapshot) {
+            output.writeByte(OUTPUT_FILES_SNAPSHOT);
+            writeOutputFilesSnapshot(output, (OutputFilesSnapshot) value);
+        } else {
+            throw new IllegalArgumentException(String.format("Don't know how to serialize snapshot of type %s.", value.getClass().getName()));
+        }
+    }
+
+    private FileCollectionSnapshot readFileCollectionSnapshot(DataInputStream input) throws IOException {
+        int count = readSize(input);
+        Map<String, FileSnapshot> snapshots = new HashMap<String, FileSnapshot>(count * 4 / 3 + 1);
+        PathReader paths = new PathReader();
+        for (int i = 0; i < count; i++) {
+            String path = paths.read(input);
+            byte type = input.readByte();
+            switch (type) {
+                case FILE_MD5_HASH:
+                    byte[] md5 = new byte[MD5_LENGTH];
+                    input.readFully(md5);
+                    snapshots.put(path, new FileHashSnapshot(md5));
+                    break;
+                case FILE_HASH:
+                    byte[] hash = new byte[readSize(input)];
+                    input.readFully(hash);
+                    snapshots.put(path, new FileHashSnapshot(hash));
+                    break;
+                case DIRECTORY:
+                    snapshots.put(path, DirSnapshot.INSTANCE);
+                    break;
+                case MISSING_FILE:
+                    snapshots.put(path, MissingFileSnapshot.INSTANCE);
+                    break;
+                default:
+                    throw new StreamCorruptedException(String.format("Unexpected file snapshot type %s found.", type));
+            }
+        }
+        return new FileCollectionSnapshotImpl(snapshots);
+    }
+
+    private void writeFileCollectionSnapshot(DataOutputStream output, FileCollectionSnapshotImpl snapshot) throws IOException {
+        Map<String, FileSnapshot> snapshots = new TreeMap<String, FileSnapshot>(snapshot.getSnapshots());
+        writeSize(output, snapshots.size());
+        PathWriter paths = new PathWriter();
+        for (Map.Entry<String, FileSnapshot> entry : snapshots.entrySet()) {
+            paths.write(output, entry.getKey());
+            FileSnapshot fileSnapshot = entry.getValue();
+            if (fileSnapshot instanceof FileHashSnapshot) {
+                byte[] hash = ((FileHashSnapshot) fileSnapshot).getHash();
+                if (hash.length == MD5_LENGTH) {
+                    output.writeByte(FILE_MD5_HASH);
+                } else {
+                    output.writeByte(FILE_HASH);
+                    writeSize(output, hash.length);
+                }
+                output.write(hash);
+            } else if (fileSnapshot instanceof DirSnapshot) {
+                output.writeByte(DIRECTORY);
+            } else if (fileSnapshot instanceof MissingFileSnapshot) {
+                output.writeByte(MISSING_FILE);
+            } else {
+                throw new IllegalArgumentException(String.format("Don't know how to serialize file snapshot of type %s.", fileSnapshot.getClass().getName()));
+            }
+        }
+    }
+
+    private FileCollectionSnapshot readOutputFilesSnapshot(DataInputStream input) throws IOException {
+        int count = readSize(input);
+        Map<String, Long> rootFileIds = new HashMap<String, Long>(count * 4 / 3 + 1);
+        PathReader paths = new PathReader();
+        for (int i = 0; i < count; i++) {
+            String path = paths.read(input);
+            rootFileIds.put(path, input.readBoolean() ? input.readLong() : null);
+        }
+        return new OutputFilesSnapshot(rootFileIds, read(input));
+    }
+
+    private void writeOutputFilesSnapshot(DataOutputStream output, OutputFilesSnapshot snapshot) throws IOException {
+        Map<String, Long> rootFileIds = new TreeMap<String, Long>(snapshot.getRootFileIds());
+        writeSize(output, rootFileIds.size());
+        PathWriter paths = new PathWriter();
+        for (Map.Entry<String, Long> entry : rootFileIds.entrySet()) {
+            paths.write(output, entry.getKey());
+            Long id = entry.getValue();
+            output.writeBoolean(id != null);
+            if (id != null) {
+                output.writeLong(id);
+            }
+        }
+        write(output, snapshot.getFilesSnapshot());
+    }
+
+    /**
+     * Writes a non-negative int using 1 byte for values less than 128, and up to 5 bytes for larger values.
+     */
+    static void writeSize(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    static int readSize(DataInputStream input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = input.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed size found.");
+    }
+
+    /**
+     * Writes a sequence of paths, encoding each path relative to the previous one. Works best when the paths are
+     * written in sorted order.
+     */
+    static class PathWriter {
+        private String previous = "";
+
+        public void write(DataOutputStream output, String path) throws IOException {
+            int max = Math.min(previous.length(), path.length());
+            int common = 0;
+            while (common < max && previous.charAt(common) == path.charAt(common)) {
+                common++;
+            }
+            writeSize(output, common);
+            output.writeUTF(path.substring(common));
+            previous = path;
+        }
+    }
+
+    /**
+     * Reads a sequence of paths written by a {@link PathWriter}.
+     */
+    static class PathReader {
+        private String previous = "";
+
+        public String read(DataInputStream input) throws IOException {
+            int common = readSize(input);
+            if (common > previous.length()) {
+                throw new StreamCorruptedException("Malformed path found.");
+            }
+            String suffix = input.readUTF();
+            previous = common == 0 ? suffix : previous.substring(0, common).concat(suffix);
+            return previous;
+        }
+    }
+}
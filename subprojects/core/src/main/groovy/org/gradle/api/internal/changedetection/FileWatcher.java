@@ -0,0 +1,61 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import java.io.File;
+
+/**
+ * Watches directory trees for changes to their contents. Implementations are not required to be thread-safe.
+ */
+public interface FileWatcher {
+    /**
+     * Starts watching the given directory and all of its descendants. Does nothing for those directories which are
+     * already being watched.
+     *
+     * @return true if the directory tree is now being watched, false if it could not be watched.
+     */
+    boolean watch(File dir);
+
+    /**
+     * Notifies the given listener of the changes which have been detected since the previous call. Does not block.
+     */
+    void poll(Listener listener);
+
+    /**
+     * Waits until all changes made before this method was called have been detected, so that they are reported by the
+     * next call to {@link #poll}. Changes are usually detected some time after they are made.
+     *
+     * @return true if all changes have been detected, false if this could not be determined in a timely manner.
+     */
+    boolean sync();
+
+    /**
+     * Stops watching all directory trees.
+     */
+    void stop();
+
+    interface Listener {
+        /**
+         * Called when the given file or directory may have been created, modified or removed.
+         */
+        void changed(File file);
+
+        /**
+         * Called when some changes may not have been detected, so that any file may have changed.
+         */
+        void overflowed();
+    }
+}
@@ -16,7 +16,15 @@
 package org.gradle.api.internal.changedetection;
 
 import java.io.File;
+import java.util.List;
 
 public interface Hasher {
     byte[] hash(File file);
+
+    /**
+     * Hashes the given files. This allows an implementation to batch up the work for a large number of files.
+     *
+     * @return The hashes, in the same order as the given files.
+     */
+    byte[][] hashAll(List<File> files);
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link Hasher} which looks up the hash of a file in an {@link InMemoryFileHashCache} before delegating to the
+ * backing hasher, usually a {@link CachingHasher}. Hashes calculated by the backing hasher are added to the in-memory
+ * cache, and are written through to the persistent cache by the backing hasher. Is thread-safe when the backing hasher
+ * is thread-safe.
+ */
+public class InMemoryCachingHasher implements Hasher {
+    private final Hasher hasher;
+    private final InMemoryFileHashCache cache;
+
+    public InMemoryCachingHasher(Hasher hasher, InMemoryFileHashCache cache) {
+        this.hasher = hasher;
+        this.cache = cache;
+    }
+
+    public byte[] hash(File file) {
+        long length = file.length();
+        long timestamp = file.lastModified();
+        byte[] hash = cache.get(file, length, timestamp);
+        if (hash == null) {
+            hash = hasher.hash(file);
+            cache.put(file, hash, length, timestamp);
+        }
+        return hash;
+    }
+
+    /**
+     * Delegates only those files which are not in the in-memory cache to the backing hasher, in a single batch.
+     */
+    public byte[][] hashAll(List<File> files) {
+        byte[][] hashes = new byte[files.size()][];
+        long[] lengths = new long[hashes.length];
+        long[] timestamps = new long[hashes.length];
+        List<File> missing = new ArrayList<File>();
+        List<Integer> missingIndexes = new ArrayList<Integer>();
+        for (int i = 0; i < hashes.length; i++) {
+            File file = files.get(i);
+            lengths[i] = file.length();
+            timestamps[i] = file.lastModified();
+            hashes[i] = cache.get(file, lengths[i], timestamps[i]);
+            if (hashes[i] == null) {
+                missing.add(file);
+                missingIndexes.add(i);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            byte[][] missingHashes = hasher.hashAll(missing);
+            for (int i = 0; i < missingHashes.length; i++) {
+                int index = missingIndexes.get(i);
+                hashes[index] = missingHashes[i];
+                cache.put(files.get(index), missingHashes[i], lengths[index], timestamps[index]);
+            }
+        }
+        return hashes;
+    }
+}
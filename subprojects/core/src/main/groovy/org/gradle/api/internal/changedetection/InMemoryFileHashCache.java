@@ -0,0 +1,89 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An in-memory cache of file hashes, keyed on the path of the file. A cached hash is only returned when the length and
+ * timestamp of the file have not changed since the hash was calculated. Holds at most a fixed number of entries,
+ * evicting the least recently used entries first.
+ *
+ * <p>A single instance is shared by all builds run by a process, so that builds run by a daemon can reuse the hashes
+ * calculated by earlier builds without reading the persistent cache. Is thread-safe.</p>
+ */
+public class InMemoryFileHashCache {
+    public static final int DEFAULT_MAX_ENTRIES = 50000;
+    private final Map<String, FileInfo> entries;
+
+    public InMemoryFileHashCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public InMemoryFileHashCache(final int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Maximum number of entries must be positive.");
+        }
+        entries = new LinkedHashMap<String, FileInfo>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FileInfo> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached hash of the given file, or null when the file has not been hashed or has changed since it
+     * was hashed.
+     */
+    public synchronized byte[] get(File file, long length, long timestamp) {
+        FileInfo info = entries.get(file.getAbsolutePath());
+        if (info == null) {
+            return null;
+        }
+        if (info.length != length || info.timestamp != timestamp) {
+            entries.remove(file.getAbsolutePath());
+            return null;
+        }
+        return info.hash;
+    }
+
+    public synchronized void put(File file, byte[] hash, long length, long timestamp) {
+        entries.put(file.getAbsolutePath(), new FileInfo(hash, length, timestamp));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private static class FileInfo {
+        private final byte[] hash;
+        private final long length;
+        private final long timestamp;
+
+        private FileInfo(byte[] hash, long length, long timestamp) {
+            this.hash = hash;
+            this.length = length;
+            this.timestamp = timestamp;
+        }
+    }
+}
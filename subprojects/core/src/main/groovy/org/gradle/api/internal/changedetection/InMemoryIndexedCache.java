@@ -15,11 +15,13 @@
  */
 package org.gradle.api.internal.changedetection;
 
-import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.DefaultSerializer;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.Serializer;
 import org.gradle.util.UncheckedException;
 
-import java.io.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -28,6 +30,15 @@ import java.util.Map;
  */
 public class InMemoryIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
     Map<Object, byte[]> entries = new HashMap<Object, byte[]>();
+    private final Serializer<V> serializer;
+
+    public InMemoryIndexedCache() {
+        this(new DefaultSerializer<V>());
+    }
+
+    public InMemoryIndexedCache(Serializer<V> serializer) {
+        this.serializer = serializer;
+    }
 
     public V get(K key) {
         byte[] serialised = entries.get(key);
@@ -35,8 +46,7 @@ public class InMemoryIndexedCache<K, V> implements PersistentIndexedCache<K, V>
             return null;
         }
         try {
-            ByteArrayInputStream instr = new ByteArrayInputStream(serialised);
-            return (V)new ObjectInputStream(instr).readObject();
+            return serializer.read(new ByteArrayInputStream(serialised));
         } catch (Exception e) {
             throw UncheckedException.asUncheckedException(e);
         }
@@ -45,11 +55,9 @@ public class InMemoryIndexedCache<K, V> implements PersistentIndexedCache<K, V>
     public void put(K key, V value) {
         ByteArrayOutputStream outstr = new ByteArrayOutputStream();
         try {
-            ObjectOutputStream objstr = new ObjectOutputStream(outstr);
-            objstr.writeObject(value);
-            objstr.close();
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+            serializer.write(outstr, value);
+        } catch (Exception e) {
+            throw UncheckedException.asUncheckedException(e);
         }
 
         entries.put(key, outstr.toByteArray());
@@ -58,4 +66,21 @@ public class InMemoryIndexedCache<K, V> implements PersistentIndexedCache<K, V>
     public void remove(K key) {
         entries.remove(key);
     }
+
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        Map<K, V> values = new HashMap<K, V>();
+        for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
 }
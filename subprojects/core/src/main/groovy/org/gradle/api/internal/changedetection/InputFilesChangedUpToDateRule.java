@@ -33,6 +33,8 @@ public class InputFilesChangedUpToDateRule implements UpToDateRule {
 
     public TaskUpToDateState create(final TaskInternal task, final TaskExecution previousExecution, final TaskExecution currentExecution) {
         final FileCollectionSnapshot inputFilesSnapshot = inputFilesSnapshotter.snapshot(task.getInputs().getFiles());
+        // Make the snapshot available to the task while it executes, so that it can find out which input files have changed
+        currentExecution.setInputFilesSnapshot(inputFilesSnapshot);
 
         return new TaskUpToDateState() {
             public void checkUpToDate(final Collection<String> messages) {
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.util.GFileUtils;
+import org.gradle.util.UncheckedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link FileWatcher} backed by a {@code java.nio.file.WatchService}. The watch service API is only available on
+ * Java 7 and later, so it is used reflectively. Only native watch services are used, as the polling watch service used
+ * on some platforms can take several seconds to notice a change.
+ *
+ * <p>To sync, a file is created in a private directory which is also watched, and changes are collected until the
+ * creation of that file is detected.</p>
+ */
+public class NioFileWatcher implements FileWatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NioFileWatcher.class);
+    private static final long SYNC_TIMEOUT_MILLIS = 5000;
+    private final Object watchService;
+    private final Object eventKinds;
+    private final Object overflowKind;
+    private final Method toPath;
+    private final Method register;
+    private final Method pollKey;
+    private final Method pollKeyWithTimeout;
+    private final Method pollEvents;
+    private final Method reset;
+    private final Method kind;
+    private final Method context;
+    private final Method close;
+    private final Map<Object, File> watchedDirs = new HashMap<Object, File>();
+    private final Set<File> changes = new LinkedHashSet<File>();
+    private boolean overflowed;
+    private File syncDir;
+    private int syncCount;
+
+    private NioFileWatcher() throws Exception {
+        Class<?> pathType = Class.forName("java.nio.file.Path");
+        Class<?> watchServiceType = Class.forName("java.nio.file.WatchService");
+        Class<?> watchKeyType = Class.forName("java.nio.file.WatchKey");
+        Class<?> watchEventType = Class.forName("java.nio.file.WatchEvent");
+        Class<?> kindType = Class.forName("java.nio.file.WatchEvent$Kind");
+        Class<?> kinds = Class.forName("java.nio.file.StandardWatchEventKinds");
+
+        eventKinds = Array.newInstance(kindType, 3);
+        Array.set(eventKinds, 0, kinds.getField("ENTRY_CREATE").get(null));
+        Array.set(eventKinds, 1, kinds.getField("ENTRY_DELETE").get(null));
+        Array.set(eventKinds, 2, kinds.getField("ENTRY_MODIFY").get(null));
+        overflowKind = kinds.getField("OVERFLOW").get(null);
+
+        toPath = File.class.getMethod("toPath");
+        register = pathType.getMethod("register", watchServiceType, eventKinds.getClass());
+        pollKey = watchServiceType.getMethod("poll");
+        pollKeyWithTimeout = watchServiceType.getMethod("poll", long.class, TimeUnit.class);
+        close = watchServiceType.getMethod("close");
+        pollEvents = watchKeyType.getMethod("pollEvents");
+        reset = watchKeyType.getMethod("reset");
+        kind = watchEventType.getMethod("kind");
+        context = watchEventType.getMethod("context");
+
+        Object fileSystem = Class.forName("java.nio.file.FileSystems").getMethod("getDefault").invoke(null);
+        watchService = Class.forName("java.nio.file.FileSystem").getMethod("newWatchService").invoke(fileSystem);
+    }
+
+    /**
+     * Creates a watcher, if a native watch service is available in this JVM.
+     *
+     * @return The watcher, or null if not available.
+     */
+    public static FileWatcher createIfAvailable() {
+        NioFileWatcher watcher;
+        try {
+            watcher = new NioFileWatcher();
+        } catch (Exception e) {
+            LOGGER.debug("File watching is not available in this JVM.", e);
+            return null;
+        }
+        if (watcher.watchService.getClass().getName().equals("sun.nio.fs.PollingWatchService")) {
+            LOGGER.debug("File watching is not available on this platform, as there is no native watch service.");
+            watcher.stop();
+            return null;
+        }
+        return watcher;
+    }
+
+    public boolean watch(File dir) {
+        if (!dir.isDirectory()) {
+            return false;
+        }
+        try {
+            register(dir);
+            return true;
+        } catch (Exception e) {
+            // Usually because the platform limit on the number of watched directories has been reached
+            LOGGER.debug(String.format("Could not watch directory '%s'.", dir), e);
+            return false;
+        }
+    }
+
+    private void register(File dir) throws Exception {
+        Object path = invoke(toPath, dir);
+        watchedDirs.put(invoke(register, path, watchService, eventKinds), dir);
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                register(child);
+            }
+        }
+    }
+
+    public void poll(Listener listener) {
+        while (true) {
+            Object key = invoke(pollKey, watchService);
+            if (key == null) {
+                break;
+            }
+            collectChanges(key, null);
+        }
+        if (overflowed) {
+            listener.overflowed();
+        }
+        for (File file : changes) {
+            listener.changed(file);
+        }
+        overflowed = false;
+        changes.clear();
+    }
+
+    public boolean sync() {
+        File syncFile;
+        try {
+            if (syncDir == null) {
+                syncDir = File.createTempFile("gradle", "watch");
+                if (!syncDir.delete() || !syncDir.mkdir() || !watch(syncDir)) {
+                    return false;
+                }
+            }
+            syncFile = new File(syncDir, String.valueOf(syncCount++));
+            if (!syncFile.createNewFile()) {
+                return false;
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not create file to sync with watch service.", e);
+            return false;
+        }
+
+        try {
+            long expiry = System.currentTimeMillis() + SYNC_TIMEOUT_MILLIS;
+            while (true) {
+                long timeout = expiry - System.currentTimeMillis();
+                if (timeout <= 0) {
+                    return false;
+                }
+                Object key = invoke(pollKeyWithTimeout, watchService, timeout, TimeUnit.MILLISECONDS);
+                if (key != null && collectChanges(key, syncFile)) {
+                    return true;
+                }
+            }
+        } finally {
+            syncFile.delete();
+        }
+    }
+
+    /**
+     * Collects the changes reported by the given key.
+     *
+     * @return true if the creation of the given sync file was reported.
+     */
+    private boolean collectChanges(Object key, File syncFile) {
+        boolean synced = false;
+        File dir = watchedDirs.get(key);
+        for (Object event : (List<?>) invoke(pollEvents, key)) {
+            if (invoke(kind, event) == overflowKind || dir == null) {
+                overflowed = true;
+            } else if (dir.equals(syncDir)) {
+                synced |= syncFile != null && syncFile.getName().equals(invoke(context, event).toString());
+            } else {
+                changes.add(new File(dir, invoke(context, event).toString()));
+            }
+        }
+        if (!(Boolean) invoke(reset, key)) {
+            // The directory has been removed, or can no longer be watched
+            watchedDirs.remove(key);
+            if (dir != null) {
+                changes.add(dir);
+            }
+        }
+        return synced;
+    }
+
+    public void stop() {
+        watchedDirs.clear();
+        changes.clear();
+        invoke(close, watchService);
+        if (syncDir != null) {
+            GFileUtils.deleteDirectory(syncDir);
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw UncheckedException.asUncheckedException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw UncheckedException.asUncheckedException(e);
+        }
+    }
+}
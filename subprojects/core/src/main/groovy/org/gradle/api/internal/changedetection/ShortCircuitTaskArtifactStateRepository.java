@@ -23,6 +23,9 @@ import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 
+import java.io.File;
+import java.util.Set;
+
 public class ShortCircuitTaskArtifactStateRepository implements TaskArtifactStateRepository {
     private static final Logger LOGGER = Logging.getLogger(ShortCircuitTaskArtifactStateRepository.class);
     private final StartParameter startParameter;
@@ -62,6 +65,10 @@ public class ShortCircuitTaskArtifactStateRepository implements TaskArtifactStat
         public FileCollection getOutputFiles() {
             throw new UnsupportedOperationException();
         }
+
+        public Set<File> getChangedInputFiles() {
+            return null;
+        }
     }
 
     private class ShortCircuitArtifactState implements TaskArtifactState {
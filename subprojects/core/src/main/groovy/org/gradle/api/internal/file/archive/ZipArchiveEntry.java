@@ -0,0 +1,143 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import java.util.Calendar;
+
+/**
+ * The details of an entry written to, or read from, a ZIP file by {@link ZipArchiveOutput}.
+ */
+public class ZipArchiveEntry {
+    public static final int STORED = 0;
+    public static final int DEFLATED = 8;
+    private static final long DOS_TIME_MIN = 0x00210000L;
+
+    private final String name;
+    private final int method;
+    private final long time;
+    private final int unixMode;
+    private long crc;
+    private long size;
+    private long compressedSize;
+    private long dataOffset = -1;
+
+    /**
+     * Creates an entry whose content has not been written yet.
+     */
+    public ZipArchiveEntry(String name, int method, long time, int unixMode) {
+        this.name = name;
+        this.method = method;
+        this.time = time;
+        this.unixMode = unixMode;
+    }
+
+    /**
+     * Creates an entry whose content has already been compressed.
+     */
+    public ZipArchiveEntry(String name, int method, long time, int unixMode, long crc, long size, long compressedSize) {
+        this(name, method, time, unixMode);
+        setContentDetails(crc, size, compressedSize);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isDirectory() {
+        return name.endsWith("/");
+    }
+
+    /**
+     * Returns the compression method of this entry, either {@link #STORED} or {@link #DEFLATED}.
+     */
+    public int getMethod() {
+        return method;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the Unix mode of this entry, including the file type bits.
+     */
+    public int getUnixMode() {
+        return unixMode;
+    }
+
+    public long getCrc() {
+        return crc;
+    }
+
+    /**
+     * Returns the uncompressed size of this entry.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public long getCompressedSize() {
+        return compressedSize;
+    }
+
+    /**
+     * Returns the offset of the compressed content of this entry within the ZIP file, or -1 if it has not been written.
+     */
+    public long getDataOffset() {
+        return dataOffset;
+    }
+
+    void setContentDetails(long crc, long size, long compressedSize) {
+        this.crc = crc;
+        this.size = size;
+        this.compressedSize = compressedSize;
+    }
+
+    void setDataOffset(long dataOffset) {
+        this.dataOffset = dataOffset;
+    }
+
+    /**
+     * Converts the given time to an MS-DOS date and time in the local time zone, which has a resolution of 2 seconds.
+     */
+    static long toDosTime(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return DOS_TIME_MIN;
+        }
+        return (long) (year - 1980) << 25
+                | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5
+                | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    static long fromDosTime(long dosTime) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set((int) ((dosTime >> 25) & 0x7f) + 1980, (int) ((dosTime >> 21) & 0x0f) - 1, (int) (dosTime >> 16) & 0x1f,
+                (int) (dosTime >> 11) & 0x1f, (int) (dosTime >> 5) & 0x3f, (int) (dosTime << 1) & 0x3e);
+        return calendar.getTimeInMillis();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the entries of a ZIP file, and provides access to their compressed content so that it can be copied to
+ * another ZIP file using {@link ZipArchiveOutput}. Only ZIP files which do not use the ZIP64 extensions are supported.
+ */
+public class ZipArchiveInput implements Closeable {
+    private static final int LOCAL_FILE_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_FILE_HEADER_SIG = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIR_SIG = 0x06054b50;
+    private static final int LOCAL_FILE_HEADER_LENGTH = 30;
+    private static final int CENTRAL_FILE_HEADER_LENGTH = 46;
+    private static final int END_OF_CENTRAL_DIR_LENGTH = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xffff;
+    private static final int PLATFORM_UNIX = 3;
+    private static final int ENCRYPTED_FLAG = 1;
+    private static final int LANGUAGE_ENCODING_FLAG = 1 << 11;
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final List<ZipArchiveEntry> entries = new ArrayList<ZipArchiveEntry>();
+
+    public ZipArchiveInput(File file) throws IOException {
+        this.file = file;
+        randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            readCentralDirectory();
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        } catch (RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the entries of this ZIP file, in the order they are listed in its central directory.
+     */
+    public List<ZipArchiveEntry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Opens a stream which reads the compressed content of the given entry. The stream is valid only until another
+     * stream is opened, or this ZIP file is closed.
+     */
+    public InputStream openCompressedContent(ZipArchiveEntry entry) throws IOException {
+        randomAccessFile.seek(entry.getDataOffset());
+        final long length = entry.getCompressedSize();
+        return new InputStream() {
+            private long remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                remaining--;
+                return randomAccessFile.read();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int nread = randomAccessFile.read(buffer, offset, (int) Math.min(length, remaining));
+                if (nread > 0) {
+                    remaining -= nread;
+                }
+                return nread;
+            }
+        };
+    }
+
+    public void close() throws IOException {
+        randomAccessFile.close();
+    }
+
+    private void readCentralDirectory() throws IOException {
+        byte[] buffer = new byte[CENTRAL_FILE_HEADER_LENGTH];
+        long endOfCentralDir = findEndOfCentralDirectory(buffer);
+        randomAccessFile.seek(endOfCentralDir);
+        randomAccessFile.readFully(buffer, 0, END_OF_CENTRAL_DIR_LENGTH);
+        int entryCount = readShort(buffer, 10);
+        long centralDirOffset = readInt(buffer, 16);
+        if (entryCount == 0xffff || centralDirOffset == 0xffffffffL) {
+            throw new ZipException(String.format("ZIP64 format is not supported for ZIP file '%s'.", file));
+        }
+
+        randomAccessFile.seek(centralDirOffset);
+        List<Long> headerOffsets = new ArrayList<Long>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            randomAccessFile.readFully(buffer, 0, CENTRAL_FILE_HEADER_LENGTH);
+            if (readInt(buffer, 0) != CENTRAL_FILE_HEADER_SIG) {
+                throw new ZipException(String.format("Unexpected central directory entry found in ZIP file '%s'.", file));
+            }
+            int madeBy = readShort(buffer, 4) >> 8;
+            int flags = readShort(buffer, 8);
+            int method = readShort(buffer, 10);
+            long dosTime = readInt(buffer, 12);
+            long crc = readInt(buffer, 16);
+            long compressedSize = readInt(buffer, 20);
+            long size = readInt(buffer, 24);
+            int nameLength = readShort(buffer, 28);
+            int extraLength = readShort(buffer, 30);
+            int commentLength = readShort(buffer, 32);
+            long externalAttributes = readInt(buffer, 38);
+            headerOffsets.add(readInt(buffer, 42));
+
+            byte[] name = new byte[nameLength];
+            randomAccessFile.readFully(name);
+            randomAccessFile.skipBytes(extraLength + commentLength);
+            if ((flags & ENCRYPTED_FLAG) != 0) {
+                throw new ZipException(String.format("Encrypted entries are not supported in ZIP file '%s'.", file));
+            }
+
+            String encoding = (flags & LANGUAGE_ENCODING_FLAG) != 0 ? "UTF-8" : Charset.defaultCharset().name();
+            int unixMode = madeBy == PLATFORM_UNIX ? (int) (externalAttributes >> 16) : 0;
+            entries.add(new ZipArchiveEntry(new String(name, encoding), method, ZipArchiveEntry.fromDosTime(dosTime), unixMode, crc, size, compressedSize));
+        }
+
+        for (int i = 0; i < entryCount; i++) {
+            long headerOffset = headerOffsets.get(i);
+            randomAccessFile.seek(headerOffset);
+            randomAccessFile.readFully(buffer, 0, LOCAL_FILE_HEADER_LENGTH);
+            if (readInt(buffer, 0) != LOCAL_FILE_HEADER_SIG) {
+                throw new ZipException(String.format("Unexpected local file header found in ZIP file '%s'.", file));
+            }
+            entries.get(i).setDataOffset(headerOffset + LOCAL_FILE_HEADER_LENGTH + readShort(buffer, 26) + readShort(buffer, 28));
+        }
+    }
+
+    private long findEndOfCentralDirectory(byte[] buffer) throws IOException {
+        long length = randomAccessFile.length();
+        long minOffset = Math.max(0, length - END_OF_CENTRAL_DIR_LENGTH - MAX_COMMENT_LENGTH);
+        for (long offset = length - END_OF_CENTRAL_DIR_LENGTH; offset >= minOffset; offset--) {
+            randomAccessFile.seek(offset);
+            randomAccessFile.readFully(buffer, 0, 4);
+            if (readInt(buffer, 0) == END_OF_CENTRAL_DIR_SIG) {
+                return offset;
+            }
+        }
+        throw new ZipException(String.format("Could not find the central directory of ZIP file '%s'.", file));
+    }
+
+    private static int readShort(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xff) | (buffer[offset + 1] & 0xff) << 8;
+    }
+
+    private static long readInt(byte[] buffer, int offset) {
+        return readShort(buffer, offset) | (long) readShort(buffer, offset + 2) << 16;
+    }
+}
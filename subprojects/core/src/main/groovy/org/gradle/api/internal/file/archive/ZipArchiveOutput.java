@@ -0,0 +1,288 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a ZIP file one entry at a time. Unlike {@link org.apache.tools.zip.ZipOutputStream}, the content of an entry
+ * can be given in its compressed form, so that it can be compressed elsewhere or copied unchanged from another ZIP
+ * file. Entry names are encoded using the platform's default encoding, in the same way as the Ant implementation.
+ */
+public class ZipArchiveOutput implements Closeable {
+    private static final int LOCAL_FILE_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_FILE_HEADER_SIG = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIR_SIG = 0x06054b50;
+    private static final int LOCAL_FILE_HEADER_LENGTH = 30;
+    private static final int CRC_OFFSET = 14;
+    private static final int VERSION_MADE_BY_UNIX = (3 << 8) | 20;
+    private static final int LANGUAGE_ENCODING_FLAG = 1 << 11;
+
+    private final File file;
+    private final FileOutputStream fileStream;
+    private final OutputStream outstr;
+    private final Charset encoding = Charset.defaultCharset();
+    private final int flags = encoding.name().equals("UTF-8") ? LANGUAGE_ENCODING_FLAG : 0;
+    private final List<ZipArchiveEntry> entries = new ArrayList<ZipArchiveEntry>();
+    private final byte[] buffer = new byte[8];
+    private long offset;
+    private EntryOutputStream currentEntry;
+
+    public ZipArchiveOutput(File file) throws IOException {
+        this.file = file;
+        fileStream = new FileOutputStream(file);
+        outstr = new BufferedOutputStream(fileStream, 65536);
+    }
+
+    /**
+     * Returns the entries written so far, in the order they were written.
+     */
+    public List<ZipArchiveEntry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Writes an entry whose content has already been compressed using the entry's compression method.
+     */
+    public void write(ZipArchiveEntry entry, byte[] compressedContent, int offset, int length) throws IOException {
+        if (length != entry.getCompressedSize()) {
+            throw new IllegalArgumentException(String.format("Expected %s bytes of content for ZIP entry '%s' but got %s.", entry.getCompressedSize(), entry, length));
+        }
+        writeLocalHeader(entry);
+        write(compressedContent, offset, length);
+    }
+
+    /**
+     * Writes an entry whose content has already been compressed, reading exactly {@link
+     * ZipArchiveEntry#getCompressedSize()} bytes of compressed content from the given stream.
+     */
+    public void write(ZipArchiveEntry entry, InputStream compressedContent) throws IOException {
+        writeLocalHeader(entry);
+        byte[] copyBuffer = new byte[8192];
+        long remaining = entry.getCompressedSize();
+        while (remaining > 0) {
+            int nread = compressedContent.read(copyBuffer, 0, (int) Math.min(copyBuffer.length, remaining));
+            if (nread < 0) {
+                throw new EOFException(String.format("Unexpected end of content for ZIP entry '%s'.", entry));
+            }
+            write(copyBuffer, 0, nread);
+            remaining -= nread;
+        }
+    }
+
+    /**
+     * Starts an entry whose content is not known yet. The content should be written to the returned stream, which
+     * compresses it using the entry's compression method. The entry is finished when the stream is closed.
+     */
+    public OutputStream startEntry(ZipArchiveEntry entry, Deflater deflater) throws IOException {
+        if (entry.getMethod() == ZipArchiveEntry.DEFLATED) {
+            deflater.reset();
+        }
+        writeLocalHeader(entry);
+        currentEntry = new EntryOutputStream(entry, deflater);
+        return currentEntry;
+    }
+
+    /**
+     * Writes the central directory and closes the file.
+     */
+    public void close() throws IOException {
+        try {
+            if (currentEntry != null) {
+                throw new IllegalStateException(String.format("ZIP entry '%s' has not been finished.", currentEntry.entry));
+            }
+            long centralDirOffset = offset;
+            for (ZipArchiveEntry entry : entries) {
+                byte[] name = entry.getName().getBytes(encoding.name());
+                writeInt(CENTRAL_FILE_HEADER_SIG);
+                writeShort(VERSION_MADE_BY_UNIX);
+                writeShort(versionNeededToExtract(entry));
+                writeShort(flags);
+                writeShort(entry.getMethod());
+                writeInt(ZipArchiveEntry.toDosTime(entry.getTime()));
+                writeInt(entry.getCrc());
+                writeInt(entry.getCompressedSize());
+                writeInt(entry.getSize());
+                writeShort(name.length);
+                writeShort(0);
+                writeShort(0);
+                writeShort(0);
+                writeShort(0);
+                writeInt(externalAttributes(entry));
+                writeInt(entry.getDataOffset() - LOCAL_FILE_HEADER_LENGTH - name.length);
+                write(name, 0, name.length);
+            }
+            long centralDirLength = offset - centralDirOffset;
+            writeInt(END_OF_CENTRAL_DIR_SIG);
+            writeShort(0);
+            writeShort(0);
+            writeShort(entries.size());
+            writeShort(entries.size());
+            writeInt(centralDirLength);
+            writeInt(centralDirOffset);
+            writeShort(0);
+            outstr.flush();
+        } finally {
+            fileStream.close();
+        }
+    }
+
+    /**
+     * Closes the file without writing the central directory, so that the file is not a valid ZIP.
+     */
+    public void discard() throws IOException {
+        currentEntry = null;
+        fileStream.close();
+    }
+
+    private void writeLocalHeader(ZipArchiveEntry entry) throws IOException {
+        if (currentEntry != null) {
+            throw new IllegalStateException(String.format("ZIP entry '%s' has not been finished.", currentEntry.entry));
+        }
+        byte[] name = entry.getName().getBytes(encoding.name());
+        writeInt(LOCAL_FILE_HEADER_SIG);
+        writeShort(versionNeededToExtract(entry));
+        writeShort(flags);
+        writeShort(entry.getMethod());
+        writeInt(ZipArchiveEntry.toDosTime(entry.getTime()));
+        writeInt(entry.getCrc());
+        writeInt(entry.getCompressedSize());
+        writeInt(entry.getSize());
+        writeShort(name.length);
+        writeShort(0);
+        write(name, 0, name.length);
+        entry.setDataOffset(offset);
+        entries.add(entry);
+    }
+
+    private void finishEntry(ZipArchiveEntry entry, long crc, long size) throws IOException {
+        currentEntry = null;
+        entry.setContentDetails(crc, size, offset - entry.getDataOffset());
+
+        // Fill in the details in the local header, which were not known when it was written
+        outstr.flush();
+        ByteBuffer details = ByteBuffer.allocate(12);
+        putInt(details, crc);
+        putInt(details, entry.getCompressedSize());
+        putInt(details, size);
+        details.flip();
+        FileChannel channel = fileStream.getChannel();
+        long position = entry.getDataOffset() - entry.getName().getBytes(encoding.name()).length - LOCAL_FILE_HEADER_LENGTH + CRC_OFFSET;
+        while (details.hasRemaining()) {
+            position += channel.write(details, position);
+        }
+    }
+
+    private static int versionNeededToExtract(ZipArchiveEntry entry) {
+        return entry.getMethod() == ZipArchiveEntry.DEFLATED || entry.isDirectory() ? 20 : 10;
+    }
+
+    /**
+     * Encodes the Unix mode in the same way as {@link org.apache.tools.zip.ZipEntry#setUnixMode(int)}.
+     */
+    private static long externalAttributes(ZipArchiveEntry entry) {
+        int mode = entry.getUnixMode();
+        return ((long) mode << 16) | ((mode & 0200) == 0 ? 1 : 0) | (entry.isDirectory() ? 0x10 : 0);
+    }
+
+    private void writeShort(int value) throws IOException {
+        buffer[0] = (byte) value;
+        buffer[1] = (byte) (value >> 8);
+        write(buffer, 0, 2);
+    }
+
+    private void writeInt(long value) throws IOException {
+        buffer[0] = (byte) value;
+        buffer[1] = (byte) (value >> 8);
+        buffer[2] = (byte) (value >> 16);
+        buffer[3] = (byte) (value >> 24);
+        write(buffer, 0, 4);
+    }
+
+    private static void putInt(ByteBuffer buffer, long value) {
+        buffer.put((byte) value);
+        buffer.put((byte) (value >> 8));
+        buffer.put((byte) (value >> 16));
+        buffer.put((byte) (value >> 24));
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        outstr.write(bytes, offset, length);
+        this.offset += length;
+    }
+
+    @Override
+    public String toString() {
+        return file.toString();
+    }
+
+    private class EntryOutputStream extends OutputStream {
+        private final ZipArchiveEntry entry;
+        private final CRC32 crc = new CRC32();
+        private final OutputStream target;
+        private long size;
+        private boolean closed;
+
+        private EntryOutputStream(ZipArchiveEntry entry, Deflater deflater) {
+            this.entry = entry;
+            OutputStream rawOutput = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    ZipArchiveOutput.this.write(bytes, offset, length);
+                }
+            };
+            target = entry.getMethod() == ZipArchiveEntry.DEFLATED ? new DeflaterOutputStream(rawOutput, deflater, 8192) : rawOutput;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            crc.update(bytes, offset, length);
+            size += length;
+            target.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (target instanceof DeflaterOutputStream) {
+                ((DeflaterOutputStream) target).finish();
+            }
+            finishEntry(entry, crc.getValue(), size);
+        }
+    }
+}
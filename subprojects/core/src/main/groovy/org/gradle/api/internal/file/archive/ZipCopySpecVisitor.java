@@ -15,41 +15,219 @@
  */
 package org.gradle.api.internal.file.archive;
 
-import org.apache.tools.zip.*;
+import org.apache.tools.zip.UnixStat;
 import org.gradle.api.GradleException;
 import org.gradle.api.UncheckedIOException;
-import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.file.FileVisitDetails;
-import org.gradle.api.internal.file.copy.ArchiveCopyAction;
+import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.EmptyCopySpecVisitor;
 import org.gradle.api.internal.file.copy.ReadableCopySpec;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
 
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
+/**
+ * Writes the files of a copy spec to a ZIP file. The content of each file is read by the visiting thread and then
+ * compressed by a worker thread, so that several entries can be compressed at the same time. The compressed entries
+ * are written to the ZIP file in the order they were visited. Large files are compressed by the visiting thread as
+ * they are read, to limit the amount of content held in memory.
+ *
+ * <p>When a reproducible file order is requested, the entries are first written to a temporary file, then copied
+ * to the ZIP file sorted by path, without being compressed again.</p>
+ *
+ * <p>When the changed input files of the task are known, the previous ZIP file is updated incrementally. The
+ * compressed content of each entry whose file has not changed is copied from the previous ZIP file, and only the
+ * other entries are compressed. Entries whose content is filtered are always compressed.</p>
+ */
 public class ZipCopySpecVisitor extends EmptyCopySpecVisitor {
-    private ZipOutputStream zipOutStr;
+    private static final Logger LOGGER = Logging.getLogger(ZipCopySpecVisitor.class);
+
+    /**
+     * The timestamp used for every entry when file timestamps are not preserved. This is 1980-02-01 00:00 in the
+     * local time zone, which is representable in a ZIP file in every time zone.
+     */
+    public static final long CONSTANT_TIME_FOR_ZIP_ENTRIES = new GregorianCalendar(1980, Calendar.FEBRUARY, 1, 0, 0, 0).getTimeInMillis();
+
+    /**
+     * The extensions of files which are stored without compression when compressed files are to be stored.
+     */
+    public static final Set<String> COMPRESSED_FILE_EXTENSIONS = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "jar", "war", "ear", "zip", "gz", "tgz", "bz2", "png", "jpg", "jpeg", "gif")));
+
+    private static final int MAX_BUFFERED_ENTRY_SIZE = 4 * 1024 * 1024;
+    private static final long MAX_PENDING_BYTES = 32 * 1024 * 1024;
+
+    private final ExecutorFactory executorFactory;
+    private final int maxConcurrentCompressions;
+    private final LinkedList<PendingEntry> pending = new LinkedList<PendingEntry>();
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<Deflater>();
+    private final Queue<Deflater> allDeflaters = new ConcurrentLinkedQueue<Deflater>();
+    private long pendingBytes;
+    private StoppableExecutor executor;
+    private ZipArchiveOutput zipOutput;
+    private ZipArchiveOutput entryOutput;
     private File zipFile;
+    private File spillFile;
+    private File previousZipFile;
+    private ZipArchiveInput previousZip;
+    private Map<String, ZipArchiveEntry> previousEntries;
+    private Set<File> changedInputFiles;
+    private int copiedEntries;
+    private boolean storeCompressedFiles;
+    private boolean preserveFileTimestamps;
     private ReadableCopySpec spec;
 
+    public ZipCopySpecVisitor(ExecutorFactory executorFactory) {
+        this(executorFactory, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ZipCopySpecVisitor(ExecutorFactory executorFactory, int maxConcurrentCompressions) {
+        this.executorFactory = executorFactory;
+        this.maxConcurrentCompressions = maxConcurrentCompressions;
+    }
+
     public void startVisit(CopyAction action) {
-        ArchiveCopyAction archiveAction = (ArchiveCopyAction) action;
+        ZipCopyAction archiveAction = (ZipCopyAction) action;
         zipFile = archiveAction.getArchivePath();
+        storeCompressedFiles = archiveAction.isStoreCompressedFiles();
+        preserveFileTimestamps = archiveAction.isPreserveFileTimestamps();
+        Set<File> changedInputFiles = archiveAction.getChangedInputFiles();
+        if (changedInputFiles != null && zipFile.isFile()) {
+            openPreviousZip(changedInputFiles);
+        }
         try {
-            zipOutStr = new ZipOutputStream(zipFile);
+            zipOutput = new ZipArchiveOutput(zipFile);
+            entryOutput = zipOutput;
+            if (archiveAction.isReproducibleFileOrder()) {
+                spillFile = File.createTempFile(zipFile.getName(), ".tmp", zipFile.getParentFile());
+                entryOutput = new ZipArchiveOutput(spillFile);
+            }
         } catch (Exception e) {
+            cleanup();
             throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
         }
     }
 
     public void endVisit() {
         try {
-            zipOutStr.close();
+            writePending(0, 0);
+            if (entryOutput != zipOutput) {
+                ZipArchiveOutput spillOutput = entryOutput;
+                entryOutput = zipOutput;
+                spillOutput.close();
+                copySortedEntries(spillOutput.getEntries());
+            }
+            ZipArchiveOutput output = zipOutput;
+            output.close();
+            zipOutput = null;
+            entryOutput = null;
+            if (previousZip != null) {
+                LOGGER.info("Updated {} incrementally. Copied {} of {} entries from the previous ZIP.", new Object[]{zipFile, copiedEntries, output.getEntries().size()});
+            }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         } finally {
-            spec = null;
-            zipOutStr = null;
+            cleanup();
+        }
+    }
+
+    private void openPreviousZip(Set<File> changedInputFiles) {
+        try {
+            previousZipFile = File.createTempFile(zipFile.getName(), ".previous", zipFile.getParentFile());
+            if (!previousZipFile.delete() || !zipFile.renameTo(previousZipFile)) {
+                LOGGER.info("Could not move {} aside to update it incrementally.", zipFile);
+                discardPreviousZip();
+                return;
+            }
+            previousZip = new ZipArchiveInput(previousZipFile);
+
+            // Entries which appear more than once cannot be matched to a file
+            Map<String, ZipArchiveEntry> entries = new HashMap<String, ZipArchiveEntry>();
+            Set<String> duplicates = new HashSet<String>();
+            for (ZipArchiveEntry entry : previousZip.getEntries()) {
+                if (entries.put(entry.getName(), entry) != null) {
+                    duplicates.add(entry.getName());
+                }
+            }
+            entries.keySet().removeAll(duplicates);
+            previousEntries = entries;
+            this.changedInputFiles = changedInputFiles;
+        } catch (Exception e) {
+            LOGGER.info(String.format("Could not read %s to update it incrementally.", zipFile), e);
+            discardPreviousZip();
+        }
+    }
+
+    private void discardPreviousZip() {
+        if (previousZip != null) {
+            try {
+                previousZip.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            previousZip = null;
+        }
+        if (previousZipFile != null) {
+            previousZipFile.delete();
+            previousZipFile = null;
+        }
+        previousEntries = null;
+        changedInputFiles = null;
+    }
+
+    /**
+     * Releases the resources used to write the ZIP file. Called when the visit completes or fails. When the visit
+     * fails, the partially written ZIP file is removed.
+     */
+    private void cleanup() {
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+        if (entryOutput != null && entryOutput != zipOutput) {
+            discardQuietly(entryOutput);
+        }
+        if (zipOutput != null) {
+            discardQuietly(zipOutput);
+            zipFile.delete();
+        }
+        deflaters.clear();
+        for (Deflater deflater = allDeflaters.poll(); deflater != null; deflater = allDeflaters.poll()) {
+            deflater.end();
+        }
+        if (spillFile != null) {
+            spillFile.delete();
+            spillFile = null;
+        }
+        discardPreviousZip();
+        copiedEntries = 0;
+        pending.clear();
+        pendingBytes = 0;
+        spec = null;
+        zipOutput = null;
+        entryOutput = null;
+    }
+
+    private void discardQuietly(ZipArchiveOutput output) {
+        try {
+            output.discard();
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not close %s.", output), e);
         }
     }
 
@@ -59,14 +237,20 @@ public class ZipCopySpecVisitor extends EmptyCopySpecVisitor {
 
     public void visitFile(FileVisitDetails fileDetails) {
         try {
-            ZipEntry archiveEntry = new ZipEntry(fileDetails.getRelativePath().getPathString());
-            archiveEntry.setMethod(ZipEntry.DEFLATED);
-            archiveEntry.setTime(fileDetails.getLastModified());
-            archiveEntry.setUnixMode(UnixStat.FILE_FLAG | spec.getFileMode());
-            zipOutStr.putNextEntry(archiveEntry);
-            fileDetails.copyTo(zipOutStr);
-            zipOutStr.closeEntry();
+            String path = fileDetails.getRelativePath().getPathString();
+            int method = storeCompressedFiles && isCompressedFile(path) ? ZipArchiveEntry.STORED : ZipArchiveEntry.DEFLATED;
+            ZipArchiveEntry archiveEntry = new ZipArchiveEntry(path, method, getTime(fileDetails), UnixStat.FILE_FLAG | spec.getFileMode());
+            ZipArchiveEntry previousEntry = findPreviousEntry(fileDetails, archiveEntry);
+            if (previousEntry != null) {
+                copyPreviousEntry(previousEntry, archiveEntry, fileDetails.toString());
+                return;
+            }
+            EntryContent content = new EntryContent(archiveEntry, fileDetails.toString());
+            fileDetails.copyTo(content);
+            content.close();
         } catch (Exception e) {
+            // The visit is not ended when a file cannot be added, so clean up here
+            cleanup();
             throw new GradleException(String.format("Could not add %s to ZIP '%s'.", fileDetails, zipFile), e);
         }
     }
@@ -74,12 +258,11 @@ public class ZipCopySpecVisitor extends EmptyCopySpecVisitor {
     public void visitDir(FileVisitDetails dirDetails) {
         try {
             // Trailing slash in name indicates that entry is a directory
-            ZipEntry archiveEntry = new ZipEntry(dirDetails.getRelativePath().getPathString() + '/');
-            archiveEntry.setTime(dirDetails.getLastModified());
-            archiveEntry.setUnixMode(UnixStat.DIR_FLAG | spec.getDirMode());
-            zipOutStr.putNextEntry(archiveEntry);
-            zipOutStr.closeEntry();
+            ZipArchiveEntry archiveEntry = new ZipArchiveEntry(dirDetails.getRelativePath().getPathString() + '/', ZipArchiveEntry.STORED, getTime(dirDetails), UnixStat.DIR_FLAG | spec.getDirMode());
+            archiveEntry.setContentDetails(0, 0, 0);
+            addCompleted(dirDetails.toString(), new CompressedContent(archiveEntry, new byte[0], 0));
         } catch (Exception e) {
+            cleanup();
             throw new GradleException(String.format("Could not add %s to ZIP '%s'.", dirDetails, zipFile), e);
         }
     }
@@ -87,4 +270,264 @@ public class ZipCopySpecVisitor extends EmptyCopySpecVisitor {
     public boolean getDidWork() {
         return true;
     }
+
+    private long getTime(FileVisitDetails details) {
+        return preserveFileTimestamps ? details.getLastModified() : CONSTANT_TIME_FOR_ZIP_ENTRIES;
+    }
+
+    private static boolean isCompressedFile(String path) {
+        int index = path.lastIndexOf('.');
+        return index > path.lastIndexOf('/') && COMPRESSED_FILE_EXTENSIONS.contains(path.substring(index + 1).toLowerCase());
+    }
+
+    /**
+     * Returns the entry of the previous ZIP file which can be reused for the given file, or null if there is none.
+     */
+    private ZipArchiveEntry findPreviousEntry(FileVisitDetails fileDetails, ZipArchiveEntry entry) {
+        if (previousEntries == null) {
+            return null;
+        }
+        ZipArchiveEntry previousEntry = previousEntries.get(entry.getName());
+        if (previousEntry == null
+                || previousEntry.getMethod() != entry.getMethod()
+                || previousEntry.getUnixMode() != entry.getUnixMode()
+                || ZipArchiveEntry.toDosTime(previousEntry.getTime()) != ZipArchiveEntry.toDosTime(entry.getTime())) {
+            return null;
+        }
+        File file;
+        try {
+            file = fileDetails.getFile();
+        } catch (UnsupportedOperationException e) {
+            // The content of the file is filtered
+            return null;
+        }
+        if (changedInputFiles.contains(file.getAbsoluteFile()) || previousEntry.getSize() != fileDetails.getSize()) {
+            return null;
+        }
+        return previousEntry;
+    }
+
+    private void copyPreviousEntry(ZipArchiveEntry previousEntry, ZipArchiveEntry entry, String displayName) throws IOException {
+        ZipArchiveEntry copy = new ZipArchiveEntry(entry.getName(), entry.getMethod(), entry.getTime(), entry.getUnixMode(), previousEntry.getCrc(), previousEntry.getSize(), previousEntry.getCompressedSize());
+        long length = previousEntry.getCompressedSize();
+        if (length > MAX_BUFFERED_ENTRY_SIZE) {
+            writePending(0, 0);
+            entryOutput.write(copy, previousZip.openCompressedContent(previousEntry));
+        } else {
+            byte[] content = new byte[(int) length];
+            new DataInputStream(previousZip.openCompressedContent(previousEntry)).readFully(content);
+            addCompleted(displayName, new CompressedContent(copy, content, content.length));
+        }
+        copiedEntries++;
+    }
+
+    private void addCompleted(String displayName, final CompressedContent content) {
+        writePending(MAX_PENDING_BYTES - content.length, Integer.MAX_VALUE);
+        FutureTask<CompressedContent> result = new FutureTask<CompressedContent>(new Callable<CompressedContent>() {
+            public CompressedContent call() {
+                return content;
+            }
+        });
+        result.run();
+        pending.add(new PendingEntry(displayName, result, content.length));
+        pendingBytes += content.length;
+    }
+
+    private void submit(final ZipArchiveEntry entry, String displayName, final byte[] content, final int length) {
+        writePending(MAX_PENDING_BYTES - length, maxConcurrentCompressions - 1);
+        FutureTask<CompressedContent> result = new FutureTask<CompressedContent>(new Callable<CompressedContent>() {
+            public CompressedContent call() {
+                return compress(entry, content, length);
+            }
+        });
+        pending.add(new PendingEntry(displayName, result, length));
+        pendingBytes += length;
+        if (maxConcurrentCompressions <= 1) {
+            result.run();
+            return;
+        }
+        if (executor == null) {
+            executor = executorFactory.create(String.format("Compress entries for %s", zipFile.getName()));
+        }
+        executor.execute(result);
+    }
+
+    /**
+     * Writes pending entries, in order, until no more than the given number of entries and bytes are pending.
+     */
+    private void writePending(long maxPendingBytes, int maxPendingEntries) {
+        while (!pending.isEmpty() && (pendingBytes > maxPendingBytes || pending.size() > maxPendingEntries)) {
+            PendingEntry next = pending.removeFirst();
+            pendingBytes -= next.size;
+            try {
+                CompressedContent content = next.result.get();
+                entryOutput.write(content.entry, content.data, 0, content.length);
+            } catch (ExecutionException e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", next.displayName, zipFile), e.getCause());
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", next.displayName, zipFile), e);
+            }
+        }
+    }
+
+    private CompressedContent compress(ZipArchiveEntry entry, byte[] content, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, length);
+        if (entry.getMethod() == ZipArchiveEntry.STORED) {
+            entry.setContentDetails(crc.getValue(), length, length);
+            return new CompressedContent(entry, content, length);
+        }
+
+        Deflater deflater = acquireDeflater();
+        try {
+            deflater.setInput(content, 0, length);
+            deflater.finish();
+            byte[] compressed = new byte[Math.max(64, length / 2)];
+            int count = 0;
+            while (!deflater.finished()) {
+                if (count == compressed.length) {
+                    compressed = grow(compressed, compressed.length * 2);
+                }
+                count += deflater.deflate(compressed, count, compressed.length - count);
+            }
+            entry.setContentDetails(crc.getValue(), length, count);
+            return new CompressedContent(entry, compressed, count);
+        } finally {
+            releaseDeflater(deflater);
+        }
+    }
+
+    private void copySortedEntries(List<ZipArchiveEntry> spilledEntries) throws IOException {
+        List<ZipArchiveEntry> entries = new ArrayList<ZipArchiveEntry>(spilledEntries);
+        Collections.sort(entries, new Comparator<ZipArchiveEntry>() {
+            public int compare(ZipArchiveEntry entry1, ZipArchiveEntry entry2) {
+                int diff = sortRank(entry1.getName()) - sortRank(entry2.getName());
+                if (diff != 0) {
+                    return diff;
+                }
+                return entry1.getName().compareTo(entry2.getName());
+            }
+        });
+        RandomAccessFile spill = new RandomAccessFile(spillFile, "r");
+        try {
+            for (ZipArchiveEntry entry : entries) {
+                spill.seek(entry.getDataOffset());
+                ZipArchiveEntry copy = new ZipArchiveEntry(entry.getName(), entry.getMethod(), entry.getTime(), entry.getUnixMode(), entry.getCrc(), entry.getSize(), entry.getCompressedSize());
+                zipOutput.write(copy, Channels.newInputStream(spill.getChannel()));
+            }
+        } finally {
+            spill.close();
+        }
+    }
+
+    /**
+     * The manifest must stay at the start of the archive, where {@link java.util.jar.JarInputStream} looks for it.
+     */
+    private static int sortRank(String name) {
+        if (name.equals("META-INF/")) {
+            return 0;
+        }
+        if (name.equals("META-INF/MANIFEST.MF")) {
+            return 1;
+        }
+        return 2;
+    }
+
+    private static byte[] grow(byte[] buffer, int length) {
+        byte[] newBuffer = new byte[length];
+        System.arraycopy(buffer, 0, newBuffer, 0, buffer.length);
+        return newBuffer;
+    }
+
+    private Deflater acquireDeflater() {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            allDeflaters.add(deflater);
+            return deflater;
+        }
+        deflater.reset();
+        return deflater;
+    }
+
+    private void releaseDeflater(Deflater deflater) {
+        deflaters.add(deflater);
+    }
+
+    private static class PendingEntry {
+        private final String displayName;
+        private final FutureTask<CompressedContent> result;
+        private final long size;
+
+        private PendingEntry(String displayName, FutureTask<CompressedContent> result, long size) {
+            this.displayName = displayName;
+            this.result = result;
+            this.size = size;
+        }
+    }
+
+    private static class CompressedContent {
+        private final ZipArchiveEntry entry;
+        private final byte[] data;
+        private final int length;
+
+        private CompressedContent(ZipArchiveEntry entry, byte[] data, int length) {
+            this.entry = entry;
+            this.data = data;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Collects the content of a file. The content is buffered in memory, and then handed off to be compressed, unless
+     * it turns out to be too large. In which case the content is compressed as it is written.
+     */
+    private class EntryContent extends OutputStream {
+        private final ZipArchiveEntry entry;
+        private final String displayName;
+        private byte[] buffer = new byte[8192];
+        private int count;
+        private Deflater deflater;
+        private OutputStream streamed;
+
+        private EntryContent(ZipArchiveEntry entry, String displayName) {
+            this.entry = entry;
+            this.displayName = displayName;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (streamed == null && count + length > MAX_BUFFERED_ENTRY_SIZE) {
+                writePending(0, 0);
+                deflater = acquireDeflater();
+                streamed = entryOutput.startEntry(entry, deflater);
+                streamed.write(buffer, 0, count);
+                buffer = null;
+            }
+            if (streamed != null) {
+                streamed.write(bytes, offset, length);
+                return;
+            }
+            if (count + length > buffer.length) {
+                buffer = grow(buffer, Math.max(count + length, buffer.length * 2));
+            }
+            System.arraycopy(bytes, offset, buffer, count, length);
+            count += length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (streamed != null) {
+                streamed.close();
+                releaseDeflater(deflater);
+            } else {
+                submit(entry, displayName, buffer, count);
+            }
+        }
+    }
 }
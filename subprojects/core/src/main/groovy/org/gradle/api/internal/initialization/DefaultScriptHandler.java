@@ -19,26 +19,38 @@ import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.artifacts.dsl.DependencyHandler;
 import org.gradle.api.artifacts.dsl.RepositoryHandler;
 import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.initialization.InMemoryClassLoaderCache;
+import org.gradle.util.ClassLoaderCanonicaliser;
+import org.gradle.util.MultiParentClassLoader;
 import org.gradle.util.ObservableUrlClassLoader;
 
 import java.io.File;
-import java.net.MalformedURLException;
+import java.util.Set;
 
+/**
+ * A script handler which adds the classpath of the script to its ClassLoader by adding a ClassLoader for the classpath to
+ * the given classpath ClassLoader, which should be an ancestor of the script ClassLoader. The ClassLoader for the classpath
+ * is taken from an {@link InMemoryClassLoaderCache}, so that it can be reused by later builds.
+ */
 public class DefaultScriptHandler extends AbstractScriptHandler {
+    private final MultiParentClassLoader classPathClassLoader;
+    private final InMemoryClassLoaderCache classLoaderCache;
 
     public DefaultScriptHandler(ScriptSource scriptSource, RepositoryHandler repositoryHandler,
                                 DependencyHandler dependencyHandler, ConfigurationContainer configContainer,
-                                ObservableUrlClassLoader classLoader) {
+                                ObservableUrlClassLoader classLoader, MultiParentClassLoader classPathClassLoader,
+                                InMemoryClassLoaderCache classLoaderCache) {
         super(classLoader, repositoryHandler, dependencyHandler, scriptSource, configContainer);
+        this.classPathClassLoader = classPathClassLoader;
+        this.classLoaderCache = classLoaderCache;
     }
 
     public void updateClassPath() {
-        for (File file : getClasspathConfiguration().getFiles()) {
-            try {
-                getClassLoader().addURL(file.toURI().toURL());
-            } catch (MalformedURLException e) {
-                throw new RuntimeException(e);
-            }
+        Set<File> classpath = getClasspathConfiguration().getFiles();
+        if (classpath.isEmpty()) {
+            return;
         }
+        ClassLoader parent = ClassLoaderCanonicaliser.canonicalise(classPathClassLoader);
+        classPathClassLoader.addParent(classLoaderCache.get(parent, classpath));
     }
 }
@@ -28,6 +28,8 @@ import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.initialization.InMemoryClassLoaderCache;
+import org.gradle.util.MultiParentClassLoader;
 import org.gradle.util.ObservableUrlClassLoader;
 
 import java.util.Arrays;
@@ -38,8 +40,9 @@ import java.util.Map;
 public class DefaultScriptHandlerFactory implements ScriptHandlerFactory {
     private final DependencyManagementServices dependencyManagementServices;
     private final DependencyMetaDataProvider dependencyMetaDataProvider;
-    private final Map<Collection<Object>, ObservableUrlClassLoader> classLoaderCache = new HashMap<Collection<Object>, ObservableUrlClassLoader>();
+    private final Map<Collection<Object>, ObservableUrlClassLoader> scriptClassLoaders = new HashMap<Collection<Object>, ObservableUrlClassLoader>();
     private final FileResolver fileResolver;
+    private final InMemoryClassLoaderCache classLoaderCache;
     private final ProjectFinder projectFinder = new ProjectFinder() {
         public ProjectInternal getProject(String path) {
             throw new UnknownProjectException("Cannot use project dependencies in a script classpath definition.");
@@ -48,10 +51,12 @@ public class DefaultScriptHandlerFactory implements ScriptHandlerFactory {
 
     public DefaultScriptHandlerFactory(DependencyManagementServices dependencyManagementServices,
                                        FileResolver fileResolver,
-                                       DependencyMetaDataProvider dependencyMetaDataProvider) {
+                                       DependencyMetaDataProvider dependencyMetaDataProvider,
+                                       InMemoryClassLoaderCache classLoaderCache) {
         this.dependencyManagementServices = dependencyManagementServices;
         this.fileResolver = fileResolver;
         this.dependencyMetaDataProvider = dependencyMetaDataProvider;
+        this.classLoaderCache = classLoaderCache;
     }
 
     public ScriptHandlerInternal create(ScriptSource scriptSource, ClassLoader parentClassLoader) {
@@ -64,11 +69,12 @@ public class DefaultScriptHandlerFactory implements ScriptHandlerFactory {
         ConfigurationContainer configurationContainer = services.getConfigurationContainer();
         DependencyHandler dependencyHandler = services.getDependencyHandler();
         Collection<Object> key = Arrays.asList(scriptSource.getClassName(), parentClassLoader);
-        ObservableUrlClassLoader classLoader = classLoaderCache.get(key);
+        ObservableUrlClassLoader classLoader = scriptClassLoaders.get(key);
         if (classLoader == null) {
-            classLoader = new ObservableUrlClassLoader(parentClassLoader);
-            classLoaderCache.put(key, classLoader);
-            return new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader);
+            MultiParentClassLoader classPathClassLoader = new MultiParentClassLoader(parentClassLoader);
+            classLoader = new ObservableUrlClassLoader(classPathClassLoader);
+            scriptClassLoaders.put(key, classLoader);
+            return new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader, classPathClassLoader, classLoaderCache);
         }
 
         return new NoClassLoaderUpdateScriptHandler(classLoader, repositoryHandler, dependencyHandler, scriptSource, configurationContainer);
@@ -447,11 +447,38 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
 
     public <T> Iterable<T> configure(Iterable<T> objects, Action<? super T> configureAction) {
         for (T object : objects) {
+            assertCanConfigure(object);
             configureAction.execute(object);
         }
         return objects;
     }
 
+    /**
+     * Fails when the given object is another project which may be configured concurrently by another thread. When
+     * projects are configured in parallel, a project can only configure the projects which have already been
+     * configured, and its own descendants, whose configuration starts only once this project has been configured.
+     *
+     * <p>Only configuration through {@code configure()} and {@code project(path, closure)} is checked. Reading or
+     * setting a property of a project which has not been configured yet is not detected.</p>
+     */
+    private void assertCanConfigure(Object object) {
+        if (!(object instanceof AbstractProject) || object == this || !gradle.getStartParameter().isParallelProjectConfiguration()) {
+            return;
+        }
+        AbstractProject target = (AbstractProject) object;
+        if (target.getState().getExecuted() || target.getState().isExecutingInCurrentThread()) {
+            return;
+        }
+        for (Project parent = target.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent == this) {
+                return;
+            }
+        }
+        throw new InvalidUserDataException(String.format(
+                "Cannot configure %s from %s, as projects are configured in parallel and %s has not been configured yet. Use evaluationDependsOn('%s') to configure it first.",
+                target, this, target, target.getPath()));
+    }
+
     public AntBuilder getAnt() {
         if (ant == null) {
             ant = createAntBuilder();
@@ -586,7 +613,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
             throw new InvalidUserDataException("You must specify a project!");
         }
         DefaultProject projectToEvaluate = (DefaultProject) project(path);
-        if (projectToEvaluate.getState().getExecuting()) {
+        if (projectToEvaluate.getState().isExecutingInCurrentThread()) {
             throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
                     projectToEvaluate));
         }
@@ -623,6 +650,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
         final Map<Project, Set<Task>> foundTargets = new TreeMap<Project, Set<Task>>();
         Action<Project> action = new Action<Project>() {
             public void execute(Project project) {
+                configureOnDemand(project);
                 foundTargets.put(project, new TreeSet<Task>(project.getTasks()));
             }
         };
@@ -641,6 +669,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
         final Set<Task> foundTasks = new HashSet<Task>();
         Action<Project> action = new Action<Project>() {
             public void execute(Project project) {
+                configureOnDemand(project);
                 Task task = project.getTasks().findByName(name);
                 if (task != null) {
                     foundTasks.add(task);
@@ -655,6 +684,15 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
         return foundTasks;
     }
 
+    /**
+     * Configures the given project when projects are configured on demand, so that its tasks can be queried.
+     */
+    private void configureOnDemand(Project project) {
+        if (gradle.getStartParameter().isConfigureOnDemand()) {
+            ((ProjectInternal) project).evaluate();
+        }
+    }
+
     public File file(Object path) {
         return fileOperations.file(path);
     }
@@ -854,10 +892,13 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public Project project(String path, Closure configureClosure) {
-        return ConfigureUtil.configure(configureClosure, project(path));
+        ProjectInternal project = project(path);
+        assertCanConfigure(project);
+        return ConfigureUtil.configure(configureClosure, project);
     }
 
     public Object configure(Object object, Closure configureClosure) {
+        assertCanConfigure(object);
         return ConfigureUtil.configure(configureClosure, object);
     }
 
@@ -18,15 +18,28 @@ package org.gradle.api.internal.project;
 
 import org.gradle.StartParameter;
 import org.gradle.api.internal.*;
+import org.gradle.api.internal.changedetection.DefaultHasher;
+import org.gradle.api.internal.changedetection.DirectoryTreeSnapshotCache;
+import org.gradle.api.internal.changedetection.InMemoryCachingHasher;
+import org.gradle.api.internal.changedetection.InMemoryFileHashCache;
+import org.gradle.api.internal.changedetection.NioFileWatcher;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.DefaultPluginModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.classpath.PluginModuleRegistry;
+import org.gradle.api.internal.project.taskfactory.AnnotationProcessingTaskFactory;
+import org.gradle.api.internal.project.taskfactory.DependencyAutoWireTaskFactory;
+import org.gradle.api.internal.project.taskfactory.ITaskFactory;
+import org.gradle.api.internal.project.taskfactory.TaskFactory;
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonStarter;
 import org.gradle.cache.internal.*;
 import org.gradle.cli.CommandLineConverter;
+import org.gradle.groovy.scripts.internal.InMemoryScriptClassCache;
 import org.gradle.initialization.ClassLoaderRegistry;
 import org.gradle.initialization.DefaultClassLoaderRegistry;
 import org.gradle.initialization.DefaultCommandLineConverter;
+import org.gradle.initialization.InMemoryClassLoaderCache;
 import org.gradle.listener.DefaultListenerManager;
 import org.gradle.listener.ListenerManager;
 import org.gradle.logging.LoggingServiceRegistry;
@@ -36,6 +49,7 @@ import org.gradle.os.*;
 import org.gradle.os.jna.NativeEnvironment;
 import org.gradle.util.ClassLoaderFactory;
 import org.gradle.util.DefaultClassLoaderFactory;
+import org.gradle.util.TrueTimeProvider;
 
 /**
  * Contains the services shared by all builds in a given process.
@@ -97,6 +111,13 @@ public class GlobalServicesRegistry extends DefaultServiceRegistry {
         return new ClassGeneratorBackedInstantiator(get(ClassGenerator.class), new DirectInstantiator());
     }
 
+    protected ITaskFactory createITaskFactory() {
+        return new DependencyAutoWireTaskFactory(
+                new AnnotationProcessingTaskFactory(
+                        new TaskFactory(
+                                get(ClassGenerator.class))));
+    }
+
     protected ProcessEnvironment createProcessEnvironment() {
         return NativeEnvironment.current();
     }
@@ -104,4 +125,33 @@ public class GlobalServicesRegistry extends DefaultServiceRegistry {
     protected FileLockManager createFileLockManager() {
         return new DefaultFileLockManager(new DefaultProcessMetaDataProvider(get(ProcessEnvironment.class)));
     }
+
+    protected InMemoryFileHashCache createInMemoryFileHashCache() {
+        return new InMemoryFileHashCache();
+    }
+
+    protected DirectoryTreeSnapshotCache createDirectoryTreeSnapshotCache() {
+        return new DirectoryTreeSnapshotCache(NioFileWatcher.createIfAvailable());
+    }
+
+    protected InMemoryScriptClassCache createInMemoryScriptClassCache() {
+        return new InMemoryScriptClassCache();
+    }
+
+    protected InMemoryClassLoaderCache createInMemoryClassLoaderCache() {
+        return new InMemoryClassLoaderCache(
+                new InMemoryCachingHasher(
+                        new DefaultHasher(),
+                        get(InMemoryFileHashCache.class)));
+    }
+
+    protected CompilerDaemonManager createCompilerDaemonManager() {
+        return new CompilerDaemonManager(
+                new CompilerDaemonStarter(),
+                new InMemoryCachingHasher(
+                        new DefaultHasher(),
+                        get(InMemoryFileHashCache.class)),
+                new TrueTimeProvider(),
+                CompilerDaemonManager.DEFAULT_IDLE_TIMEOUT);
+    }
 }
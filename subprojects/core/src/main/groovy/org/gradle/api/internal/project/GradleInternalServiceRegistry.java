@@ -22,6 +22,7 @@ import org.gradle.api.internal.plugins.PluginRegistry;
 import org.gradle.execution.DefaultTaskGraphExecuter;
 import org.gradle.execution.TaskGraphExecuter;
 import org.gradle.listener.ListenerManager;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 
 /**
  * Contains the services for a given {@link GradleInternal} instance.
@@ -48,7 +49,8 @@ public class GradleInternalServiceRegistry extends DefaultServiceRegistry implem
     }
 
     protected TaskGraphExecuter createTaskGraphExecuter() {
-        return new DefaultTaskGraphExecuter(get(ListenerManager.class));
+        return new DefaultTaskGraphExecuter(get(ListenerManager.class), get(ExecutorFactory.class),
+                gradle.getStartParameter().getParallelThreadCount());
     }
 
     protected PluginRegistry createPluginRegistry() {
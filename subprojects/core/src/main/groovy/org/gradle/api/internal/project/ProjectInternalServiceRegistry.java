@@ -48,6 +48,7 @@ import org.gradle.api.internal.tasks.DefaultTaskContainerFactory;
 import org.gradle.api.internal.tasks.TaskContainerInternal;
 import org.gradle.api.plugins.Convention;
 import org.gradle.api.plugins.PluginContainer;
+import org.gradle.initialization.InMemoryClassLoaderCache;
 import org.gradle.logging.LoggingManagerInternal;
 
 import java.io.File;
@@ -143,7 +144,8 @@ public class ProjectInternalServiceRegistry extends DefaultServiceRegistry imple
         ScriptHandlerFactory factory = new DefaultScriptHandlerFactory(
                 get(DependencyManagementServices.class),
                 get(FileResolver.class),
-                get(DependencyMetaDataProvider.class));
+                get(DependencyMetaDataProvider.class),
+                get(InMemoryClassLoaderCache.class));
         ClassLoader parentClassLoader;
         if (project.getParent() != null) {
             parentClassLoader = project.getParent().getBuildscript().getClassLoader();
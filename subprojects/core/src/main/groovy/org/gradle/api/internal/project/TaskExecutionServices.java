@@ -23,6 +23,7 @@ import org.gradle.api.internal.tasks.execution.*;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
 import org.gradle.listener.ListenerManager;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 import org.gradle.util.RandomLongIdGenerator;
 
 public class TaskExecutionServices extends DefaultServiceRegistry {
@@ -48,11 +49,24 @@ public class TaskExecutionServices extends DefaultServiceRegistry {
 
     protected TaskArtifactStateRepository createTaskArtifactStateRepository() {
         CacheRepository cacheRepository = get(CacheRepository.class);
+        DirectoryTreeSnapshotCache treeSnapshotCache = null;
+        FileCacheListener fileCacheListener = new DefaultFileCacheListener();
+        if (Boolean.getBoolean(DirectoryTreeSnapshotCache.WATCH_PROPERTY)) {
+            treeSnapshotCache = get(DirectoryTreeSnapshotCache.class);
+            treeSnapshotCache.sync();
+            fileCacheListener = treeSnapshotCache;
+        }
+
         FileSnapshotter fileSnapshotter = new DefaultFileSnapshotter(
-                new CachingHasher(
-                        new DefaultHasher(),
-                        cacheRepository,
-                        gradle));
+                new InMemoryCachingHasher(
+                        new CachingHasher(
+                                new DefaultHasher(),
+                                cacheRepository,
+                                gradle),
+                        get(InMemoryFileHashCache.class)),
+                get(ExecutorFactory.class).create("File hasher"),
+                Runtime.getRuntime().availableProcessors(),
+                treeSnapshotCache);
 
         FileSnapshotter outputFilesSnapshotter = new OutputFilesSnapshotter(fileSnapshotter, new RandomLongIdGenerator(), cacheRepository, gradle);
 
@@ -65,6 +79,6 @@ public class TaskExecutionServices extends DefaultServiceRegistry {
                                 taskHistoryRepository,
                                 fileSnapshotter,
                                 outputFilesSnapshotter)),
-                new DefaultFileCacheListener());
+                fileCacheListener);
     }
 }
@@ -31,10 +31,8 @@ import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.IdentityFileResolver;
 import org.gradle.api.internal.initialization.DefaultScriptHandlerFactory;
 import org.gradle.api.internal.initialization.ScriptHandlerFactory;
-import org.gradle.api.internal.project.taskfactory.AnnotationProcessingTaskFactory;
-import org.gradle.api.internal.project.taskfactory.DependencyAutoWireTaskFactory;
-import org.gradle.api.internal.project.taskfactory.ITaskFactory;
-import org.gradle.api.internal.project.taskfactory.TaskFactory;
+import org.gradle.api.internal.tasks.compile.CompilerPool;
+import org.gradle.api.internal.tasks.compile.DefaultCompilerPool;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.internal.CacheFactory;
 import org.gradle.cache.internal.DefaultCacheRepository;
@@ -89,6 +87,10 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
         return new DefaultExecutorFactory();
     }
 
+    protected CompilerPool createCompilerPool() {
+        return new DefaultCompilerPool(get(ExecutorFactory.class), Runtime.getRuntime().availableProcessors());
+    }
+
     protected IProjectFactory createProjectFactory() {
         return new ProjectFactory(
                 startParameter.getBuildScriptSource(),
@@ -135,29 +137,36 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
     }
 
     protected ProjectEvaluator createProjectEvaluator() {
-        return new LifecycleProjectEvaluator(
+        ProjectEvaluator evaluator = new LifecycleProjectEvaluator(
                 new BuildScriptProcessor(
                         get(ScriptPluginFactory.class)));
+        if (startParameter.isParallelProjectConfiguration()) {
+            evaluator = new ParallelProjectEvaluator(evaluator);
+        }
+        if (startParameter.isConfigureOnDemand()) {
+            evaluator = new ConfigureOnDemandProjectEvaluator(evaluator,
+                    new ProjectDependencies2TaskResolver(),
+                    new ImplicitTasksConfigurer());
+        }
+        return evaluator;
     }
 
-    protected ITaskFactory createITaskFactory() {
-        return new DependencyAutoWireTaskFactory(
-                new AnnotationProcessingTaskFactory(
-                        new TaskFactory(
-                                get(ClassGenerator.class))));
+    protected ScriptClassCompiler createScriptClassCompiler() {
+        EmptyScriptGenerator emptyScriptGenerator = new AsmBackedEmptyScriptGenerator();
+        return new CachingScriptClassCompiler(
+                get(InMemoryScriptClassCache.class),
+                new ShortCircuitEmptyScriptCompiler(
+                        new FileCacheBackedScriptClassCompiler(
+                                get(CacheRepository.class),
+                                new DefaultScriptCompilationHandler(
+                                        emptyScriptGenerator)),
+                        emptyScriptGenerator));
     }
 
     protected ScriptCompilerFactory createScriptCompileFactory() {
         ScriptExecutionListener scriptExecutionListener = get(ListenerManager.class).getBroadcaster(ScriptExecutionListener.class);
-        EmptyScriptGenerator emptyScriptGenerator = new AsmBackedEmptyScriptGenerator();
         return new DefaultScriptCompilerFactory(
-                new CachingScriptClassCompiler(
-                        new ShortCircuitEmptyScriptCompiler(
-                                new FileCacheBackedScriptClassCompiler(
-                                        get(CacheRepository.class),
-                                        new DefaultScriptCompilationHandler(
-                                                emptyScriptGenerator)),
-                                emptyScriptGenerator)),
+                get(ScriptClassCompiler.class),
                 new DefaultScriptRunnerFactory(scriptExecutionListener));
     }
 
@@ -201,7 +210,8 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
         return new DefaultScriptHandlerFactory(
                 get(DependencyManagementServices.class),
                 get(FileResolver.class),
-                new DependencyMetaDataProviderImpl());
+                new DependencyMetaDataProviderImpl(),
+                get(InMemoryClassLoaderCache.class));
     }
 
     protected FileResolver createFileResolver() {
@@ -215,10 +225,25 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
     }
 
     protected BuildConfigurer createBuildConfigurer() {
-        return new DefaultBuildConfigurer(
+        if (startParameter.isConfigureOnDemand()) {
+            return new ConfigureOnDemandBuildConfigurer();
+        }
+        BuildConfigurer configurer = new DefaultBuildConfigurer(
                 new ProjectEvaluationConfigurer(),
                 new ProjectDependencies2TaskResolver(),
                 new ImplicitTasksConfigurer());
+        if (startParameter.isParallelProjectConfiguration()) {
+            int threadCount = startParameter.getParallelThreadCount() > 0
+                    ? startParameter.getParallelThreadCount()
+                    : Runtime.getRuntime().availableProcessors();
+            return new PrecompilingBuildConfigurer(
+                    new ParallelBuildConfigurer(configurer, get(ExecutorFactory.class), threadCount),
+                    get(ScriptClassCompiler.class),
+                    get(ImportsReader.class),
+                    get(ExecutorFactory.class),
+                    threadCount);
+        }
+        return configurer;
     }
 
     protected BuildExecuter createBuildExecuter() {
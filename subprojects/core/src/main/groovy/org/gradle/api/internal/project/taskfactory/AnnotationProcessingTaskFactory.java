@@ -27,6 +27,7 @@ import org.gradle.api.tasks.TaskAction;
 import org.gradle.util.ReflectionUtil;
 
 import java.lang.annotation.Annotation;
+import java.lang.ref.SoftReference;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -36,10 +37,15 @@ import java.util.concurrent.Callable;
 
 /**
  * A {@link ITaskFactory} which determines task actions, inputs and outputs based on annotation attached to the task properties. Also provides some validation based on these annotations.
+ *
+ * <p>The actions for each task type are determined once and reused by all builds in the process. The actions are softly
+ * referenced and the task types weakly referenced, so that this factory does not by itself keep the task types declared
+ * by a build script or in buildSrc, and their ClassLoader, reachable once the build which loaded them has finished. Can
+ * be used by multiple threads concurrently.</p>
  */
 public class AnnotationProcessingTaskFactory implements ITaskFactory {
     private final ITaskFactory taskFactory;
-    private final Map<Class, List<Action<Task>>> actionsForType = new HashMap<Class, List<Action<Task>>>();
+    private final Map<Class, SoftReference<List<Action<Task>>>> actionsForType = new WeakHashMap<Class, SoftReference<List<Action<Task>>>>();
     private final List<? extends PropertyAnnotationHandler> handlers = Arrays.asList(
             new InputFilePropertyAnnotationHandler(),
             new InputDirectoryPropertyAnnotationHandler(),
@@ -63,13 +69,7 @@ public class AnnotationProcessingTaskFactory implements ITaskFactory {
     public TaskInternal createTask(ProjectInternal project, Map<String, ?> args) {
         TaskInternal task = taskFactory.createTask(project, args);
 
-        Class<? extends Task> type = task.getClass();
-        List<Action<Task>> actions = actionsForType.get(type);
-        if (actions == null) {
-            actions = createActionsForType(type);
-            actionsForType.put(type, actions);
-        }
-
+        List<Action<Task>> actions = getActionsForType(task.getClass());
         for (Action<Task> action : actions) {
             task.doFirst(action);
             if (action instanceof Validator) {
@@ -81,6 +81,18 @@ public class AnnotationProcessingTaskFactory implements ITaskFactory {
         return task;
     }
 
+    private List<Action<Task>> getActionsForType(Class<? extends Task> type) {
+        synchronized (actionsForType) {
+            SoftReference<List<Action<Task>>> cached = actionsForType.get(type);
+            List<Action<Task>> actions = cached == null ? null : cached.get();
+            if (actions == null) {
+                actions = createActionsForType(type);
+                actionsForType.put(type, new SoftReference<List<Action<Task>>>(actions));
+            }
+            return actions;
+        }
+    }
+
     private List<Action<Task>> createActionsForType(Class<? extends Task> type) {
         List<Action<Task>> actions = new ArrayList<Action<Task>>();
         findTaskActions(type, actions);
@@ -109,6 +109,9 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
         if (project == null) {
             return null;
         }
+        if (project != this.project && this.project.getGradle().getStartParameter().isConfigureOnDemand()) {
+            ((ProjectInternal) project).evaluate();
+        }
         return project.getTasks().findByName(StringUtils.substringAfterLast(path, Project.PATH_SEPARATOR));
     }
 
@@ -28,6 +28,9 @@ import org.gradle.api.specs.AndSpec;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.TaskOutputs;
 
+import java.io.File;
+import java.util.Set;
+
 public class DefaultTaskOutputs implements TaskOutputsInternal {
     private final DefaultConfigurableFileCollection outputFiles;
     private AndSpec<TaskInternal> upToDateSpec = new AndSpec<TaskInternal>();
@@ -80,6 +83,10 @@ public class DefaultTaskOutputs implements TaskOutputsInternal {
         return history.getOutputFiles();
     }
 
+    public Set<File> getChangedInputFiles() {
+        return history == null ? null : history.getChangedInputFiles();
+    }
+
     public void setHistory(TaskExecutionHistory history) {
         this.history = history;
     }
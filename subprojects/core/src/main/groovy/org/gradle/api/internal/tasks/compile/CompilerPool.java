@@ -0,0 +1,33 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * A pool of compiler worker threads, shared by all compile tasks of a build. Limits the number of compilations which
+ * run at the same time, so that compile tasks which execute concurrently do not compete for processors and memory.
+ */
+public interface CompilerPool {
+    /**
+     * Submits a compilation to the pool. The compilation runs once a worker is free, in the order that compilations are
+     * submitted.
+     *
+     * @return The result of the compilation. The caller blocks on this only when it needs the result.
+     */
+    <T> Future<T> submit(Callable<T> compilation);
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A {@link CompilerPool} which runs at most a fixed number of compilations at the same time. Worker threads are
+ * started as compilations are submitted, and finish once there are no more compilations waiting to run.
+ */
+public class DefaultCompilerPool implements CompilerPool {
+    private final ExecutorFactory executorFactory;
+    private final int maxWorkers;
+    private final LinkedList<FutureTask<?>> queue = new LinkedList<FutureTask<?>>();
+    private StoppableExecutor executor;
+    private int workers;
+
+    public DefaultCompilerPool(ExecutorFactory executorFactory, int maxWorkers) {
+        if (maxWorkers < 1) {
+            throw new IllegalArgumentException("Worker count must be positive.");
+        }
+        this.executorFactory = executorFactory;
+        this.maxWorkers = maxWorkers;
+    }
+
+    public <T> Future<T> submit(Callable<T> compilation) {
+        FutureTask<T> future = new FutureTask<T>(compilation);
+        synchronized (queue) {
+            queue.add(future);
+            if (workers < maxWorkers) {
+                if (executor == null) {
+                    executor = executorFactory.create("Compiler worker");
+                }
+                workers++;
+                executor.execute(new Worker());
+            }
+        }
+        return future;
+    }
+
+    private class Worker implements Runnable {
+        public void run() {
+            while (true) {
+                FutureTask<?> next;
+                synchronized (queue) {
+                    next = queue.poll();
+                    if (next == null) {
+                        workers--;
+                        return;
+                    }
+                }
+                next.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.daemon;
+
+import java.io.Serializable;
+
+/**
+ * A compilation which is executed in a compiler daemon. Implementations are serialized and sent to the daemon process,
+ * so should hold only the values needed to run the compiler.
+ */
+public interface CompileAction extends Serializable {
+    /**
+     * Runs the compiler. Called in the daemon process.
+     *
+     * @param compilerClassLoader The ClassLoader which loads the daemon's compiler classpath.
+     * @return true if any source files were compiled.
+     */
+    boolean execute(ClassLoader compilerClassLoader);
+}
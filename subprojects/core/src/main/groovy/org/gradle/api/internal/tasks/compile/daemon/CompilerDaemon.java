@@ -0,0 +1,104 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.daemon;
+
+import org.gradle.api.GradleException;
+import org.gradle.messaging.concurrent.Stoppable;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ExecHandle;
+import org.gradle.process.internal.ExecHandleListener;
+import org.gradle.process.internal.WorkerProcess;
+import org.gradle.util.UncheckedException;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The build process side of a compiler daemon. Executes one compilation at a time.
+ */
+public class CompilerDaemon implements CompilerDaemonClientProtocol, ExecHandleListener, Stoppable {
+    private final DaemonForkOptions forkOptions;
+    private final BlockingQueue<CompileResult> results = new LinkedBlockingQueue<CompileResult>();
+    private WorkerProcess workerProcess;
+    private CompilerDaemonServerProtocol server;
+    private volatile boolean stopped;
+
+    public CompilerDaemon(DaemonForkOptions forkOptions) {
+        this.forkOptions = forkOptions;
+    }
+
+    public DaemonForkOptions getForkOptions() {
+        return forkOptions;
+    }
+
+    /**
+     * Returns true when the daemon process has stopped, or been asked to stop, and so cannot be used for further
+     * compilations.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    void connect(WorkerProcess workerProcess) {
+        this.workerProcess = workerProcess;
+        workerProcess.getConnection().addIncoming(CompilerDaemonClientProtocol.class, this);
+        server = workerProcess.getConnection().addOutgoing(CompilerDaemonServerProtocol.class);
+    }
+
+    public CompileResult execute(CompileAction action) {
+        if (stopped) {
+            throw new IllegalStateException("This compiler daemon has stopped.");
+        }
+        server.execute(action);
+        try {
+            return results.take();
+        } catch (InterruptedException e) {
+            throw UncheckedException.asUncheckedException(e);
+        }
+    }
+
+    public void executed(CompileResult result) {
+        results.add(result);
+    }
+
+    public void stop() {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        server.stop();
+        workerProcess.waitForStop();
+    }
+
+    public void executionStarted(ExecHandle execHandle) {
+    }
+
+    public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+        if (stopped) {
+            return;
+        }
+        // The process has exited without being asked to, for example because it ran out of memory. Fail any
+        // compilation which is waiting for a result
+        stopped = true;
+        results.add(new CompileResult(true, new GradleException(String.format(
+                "Compiler daemon stopped unexpectedly with exit value %s.", execResult.getExitValue()))));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("compiler daemon (%s)", forkOptions);
+    }
+}
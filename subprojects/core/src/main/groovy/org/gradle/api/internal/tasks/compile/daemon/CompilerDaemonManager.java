@@ -0,0 +1,202 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.daemon;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.Factory;
+import org.gradle.api.internal.changedetection.Hasher;
+import org.gradle.messaging.concurrent.Stoppable;
+import org.gradle.process.internal.WorkerProcessBuilder;
+import org.gradle.util.TimeProvider;
+import org.gradle.util.UncheckedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Keeps compiler daemons running between compilations, so that the compiler classes are loaded and warmed up once
+ * rather than for every compile task. There is a single instance per build process, provided by the global services,
+ * so that when running in the Gradle daemon the compiler daemons are reused across builds.
+ *
+ * <p>A compilation reuses an idle compiler daemon which was started with the same {@link DaemonForkOptions}, or starts
+ * a new daemon if there is none. The content of the compiler classpath is part of the settings, so a daemon is not
+ * reused once its compiler classpath has changed. Compilations which run concurrently use separate daemons. A daemon
+ * which has been idle for longer than the idle timeout is stopped.</p>
+ */
+public class CompilerDaemonManager implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompilerDaemonManager.class);
+    public static final int DEFAULT_IDLE_TIMEOUT = 15 * 60 * 1000;
+    private final CompilerDaemonStarter starter;
+    private final Hasher hasher;
+    private final TimeProvider timeProvider;
+    private final long idleTimeout;
+    private final Map<CompilerDaemon, Long> idleDaemons = new LinkedHashMap<CompilerDaemon, Long>();
+    private Timer expiryTimer;
+    private boolean stopped;
+
+    public CompilerDaemonManager(CompilerDaemonStarter starter, Hasher hasher, TimeProvider timeProvider, long idleTimeout) {
+        this.starter = starter;
+        this.hasher = hasher;
+        this.timeProvider = timeProvider;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Executes the given compilation in a compiler daemon with the given settings.
+     */
+    public CompileResult execute(DaemonForkOptions forkOptions, Factory<WorkerProcessBuilder> workerFactory, CompileAction action) {
+        CompilerDaemon daemon = acquire(daemonOptions(forkOptions), workerFactory);
+        try {
+            return daemon.execute(action);
+        } finally {
+            release(daemon);
+        }
+    }
+
+    /**
+     * Returns the settings used to start and look up the daemon for the given settings.
+     */
+    DaemonForkOptions daemonOptions(DaemonForkOptions forkOptions) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw UncheckedException.asUncheckedException(e);
+        }
+        for (File file : forkOptions.getClasspath()) {
+            hash(file, file.getAbsolutePath(), digest);
+        }
+        return forkOptions.withClasspathHash(new BigInteger(1, digest.digest()).toString(32));
+    }
+
+    private void hash(File file, String path, MessageDigest digest) {
+        digest.update(path.getBytes());
+        if (file.isFile()) {
+            digest.update((byte) 1);
+            digest.update(hasher.hash(file));
+        } else if (file.isDirectory()) {
+            digest.update((byte) 2);
+            File[] children = file.listFiles();
+            if (children == null) {
+                throw new UncheckedIOException(String.format("Could not list contents of directory '%s'.", file));
+            }
+            Arrays.sort(children);
+            for (File child : children) {
+                hash(child, child.getName(), digest);
+            }
+            digest.update((byte) 3);
+        } else {
+            digest.update((byte) 0);
+        }
+    }
+
+    private CompilerDaemon acquire(DaemonForkOptions forkOptions, Factory<WorkerProcessBuilder> workerFactory) {
+        synchronized (idleDaemons) {
+            Iterator<CompilerDaemon> iterator = idleDaemons.keySet().iterator();
+            while (iterator.hasNext()) {
+                CompilerDaemon daemon = iterator.next();
+                if (daemon.isStopped()) {
+                    iterator.remove();
+                } else if (daemon.getForkOptions().equals(forkOptions)) {
+                    iterator.remove();
+                    LOGGER.debug("Reusing {}.", daemon);
+                    return daemon;
+                }
+            }
+        }
+        return starter.startDaemon(workerFactory, forkOptions);
+    }
+
+    private void release(CompilerDaemon daemon) {
+        if (daemon.isStopped()) {
+            return;
+        }
+        synchronized (idleDaemons) {
+            if (!stopped) {
+                idleDaemons.put(daemon, timeProvider.getCurrentTime());
+                if (expiryTimer == null) {
+                    expiryTimer = new Timer("Compiler daemon expiry", true);
+                    expiryTimer.schedule(new TimerTask() {
+                        @Override
+                        public void run() {
+                            stopExpiredDaemons();
+                        }
+                    }, idleTimeout / 4, idleTimeout / 4);
+                }
+                return;
+            }
+        }
+        // The manager was stopped while the compilation was running
+        stop(daemon);
+    }
+
+    /**
+     * Stops the daemons which have been idle for longer than the idle timeout.
+     */
+    void stopExpiredDaemons() {
+        long expiry = timeProvider.getCurrentTime() - idleTimeout;
+        List<CompilerDaemon> expired = new ArrayList<CompilerDaemon>();
+        synchronized (idleDaemons) {
+            Iterator<Map.Entry<CompilerDaemon, Long>> iterator = idleDaemons.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<CompilerDaemon, Long> entry = iterator.next();
+                if (entry.getKey().isStopped() || entry.getValue() <= expiry) {
+                    expired.add(entry.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+        for (CompilerDaemon daemon : expired) {
+            LOGGER.info("Stopping {}, as it has been idle for more than {} ms.", daemon, idleTimeout);
+            stop(daemon);
+        }
+    }
+
+    /**
+     * Stops all idle daemons. Daemons which are in use are stopped when their compilation completes.
+     */
+    public void stop() {
+        List<CompilerDaemon> daemons;
+        synchronized (idleDaemons) {
+            stopped = true;
+            if (expiryTimer != null) {
+                expiryTimer.cancel();
+                expiryTimer = null;
+            }
+            daemons = new ArrayList<CompilerDaemon>(idleDaemons.keySet());
+            idleDaemons.clear();
+        }
+        for (CompilerDaemon daemon : daemons) {
+            stop(daemon);
+        }
+    }
+
+    private void stop(CompilerDaemon daemon) {
+        if (daemon.isStopped()) {
+            return;
+        }
+        try {
+            daemon.stop();
+        } catch (Throwable t) {
+            LOGGER.warn(String.format("Could not stop %s.", daemon), t);
+        }
+    }
+}
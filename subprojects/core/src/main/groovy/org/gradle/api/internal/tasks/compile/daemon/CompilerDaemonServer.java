@@ -0,0 +1,79 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.daemon;
+
+import org.gradle.api.Action;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.internal.WorkerProcessContext;
+import org.gradle.util.UncheckedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * The worker action of a compiler daemon. Runs each {@link CompileAction} it receives, one at a time, with the
+ * compiler classpath as the context ClassLoader, until asked to stop or until the connection to the build process is
+ * closed. The compiler classes stay loaded, and warmed up, between compilations.
+ */
+public class CompilerDaemonServer implements Action<WorkerProcessContext>, CompilerDaemonServerProtocol, Serializable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompilerDaemonServer.class);
+    private transient volatile CompilerDaemonClientProtocol client;
+    private transient volatile ClassLoader compilerClassLoader;
+    private transient CountDownLatch stop;
+
+    public void execute(WorkerProcessContext context) {
+        LOGGER.info("{} started as a compiler daemon.", context.getDisplayName());
+
+        stop = new CountDownLatch(1);
+        compilerClassLoader = context.getApplicationClassLoader();
+
+        ObjectConnection connection = context.getServerConnection();
+        client = connection.addOutgoing(CompilerDaemonClientProtocol.class);
+        connection.addIncoming(CompilerDaemonServerProtocol.class, this);
+        connection.onDisconnect(new Runnable() {
+            public void run() {
+                stop();
+            }
+        });
+
+        try {
+            stop.await();
+        } catch (InterruptedException e) {
+            throw UncheckedException.asUncheckedException(e);
+        }
+        LOGGER.info("{} stopped.", context.getDisplayName());
+    }
+
+    public void execute(CompileAction action) {
+        CompileResult result;
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(compilerClassLoader);
+        try {
+            result = new CompileResult(action.execute(compilerClassLoader), null);
+        } catch (Throwable t) {
+            result = new CompileResult(true, t);
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+        client.executed(result);
+    }
+
+    public void stop() {
+        stop.countDown();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.daemon;
+
+import org.gradle.api.internal.Factory;
+import org.gradle.process.internal.JavaExecHandleBuilder;
+import org.gradle.process.internal.WorkerProcess;
+import org.gradle.process.internal.WorkerProcessBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Starts compiler daemons as worker processes.
+ */
+public class CompilerDaemonStarter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompilerDaemonStarter.class);
+
+    public CompilerDaemon startDaemon(Factory<WorkerProcessBuilder> workerFactory, DaemonForkOptions forkOptions) {
+        LOGGER.info("Starting compiler daemon with {}.", forkOptions);
+
+        CompilerDaemon daemon = new CompilerDaemon(forkOptions);
+
+        WorkerProcessBuilder builder = workerFactory.create();
+        builder.applicationClasspath(forkOptions.getClasspath());
+        builder.sharedPackages(forkOptions.getSharedPackages());
+        builder.worker(new CompilerDaemonServer());
+        JavaExecHandleBuilder javaCommand = builder.getJavaCommand();
+        if (forkOptions.getMinHeapSize() != null) {
+            javaCommand.jvmArgs("-Xms" + forkOptions.getMinHeapSize());
+        }
+        if (forkOptions.getMaxHeapSize() != null) {
+            javaCommand.setMaxHeapSize(forkOptions.getMaxHeapSize());
+        }
+        // The daemon outlives the build which starts it, so send its output to whatever the current System.out and
+        // System.err are when the output is written, rather than when the daemon is started
+        javaCommand.setStandardOutput(new CurrentSystemStreamOutputStream(false));
+        javaCommand.setErrorOutput(new CurrentSystemStreamOutputStream(true));
+        javaCommand.listener(daemon);
+
+        WorkerProcess workerProcess = builder.build();
+        workerProcess.start();
+        daemon.connect(workerProcess);
+        return daemon;
+    }
+
+    private static class CurrentSystemStreamOutputStream extends OutputStream {
+        private final boolean error;
+
+        private CurrentSystemStreamOutputStream(boolean error) {
+            this.error = error;
+        }
+
+        private PrintStream getTarget() {
+            return error ? System.err : System.out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            getTarget().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            getTarget().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            getTarget().flush();
+        }
+    }
+}
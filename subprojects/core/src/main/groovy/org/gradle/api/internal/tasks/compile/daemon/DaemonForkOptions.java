@@ -0,0 +1,109 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.daemon;
+
+import org.gradle.util.GUtil;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * The settings used to start a compiler daemon. A daemon is only reused for a compilation which requires exactly the
+ * same settings. The settings may include a hash of the content of the classpath, so that a daemon is not reused once
+ * the compiler classpath has been replaced in place.
+ */
+public class DaemonForkOptions {
+    private final List<File> classpath;
+    private final Set<String> sharedPackages;
+    private final String minHeapSize;
+    private final String maxHeapSize;
+    private final String classpathHash;
+
+    public DaemonForkOptions(Iterable<File> classpath, Iterable<String> sharedPackages, String minHeapSize, String maxHeapSize) {
+        this(GUtil.addToCollection(new ArrayList<File>(), classpath), GUtil.addToCollection(new TreeSet<String>(), sharedPackages),
+                minHeapSize, maxHeapSize, null);
+    }
+
+    private DaemonForkOptions(List<File> classpath, Set<String> sharedPackages, String minHeapSize, String maxHeapSize, String classpathHash) {
+        this.classpath = classpath;
+        this.sharedPackages = sharedPackages;
+        this.minHeapSize = minHeapSize;
+        this.maxHeapSize = maxHeapSize;
+        this.classpathHash = classpathHash;
+    }
+
+    /**
+     * Returns a copy of these settings which includes the given hash of the content of the classpath.
+     */
+    public DaemonForkOptions withClasspathHash(String classpathHash) {
+        return new DaemonForkOptions(classpath, sharedPackages, minHeapSize, maxHeapSize, classpathHash);
+    }
+
+    /**
+     * Returns the compiler classpath, which is loaded into the application ClassLoader of the daemon.
+     */
+    public List<File> getClasspath() {
+        return classpath;
+    }
+
+    /**
+     * Returns the packages of the compiler classpath which are visible to the daemon implementation.
+     */
+    public Set<String> getSharedPackages() {
+        return sharedPackages;
+    }
+
+    public String getMinHeapSize() {
+        return minHeapSize;
+    }
+
+    public String getMaxHeapSize() {
+        return maxHeapSize;
+    }
+
+    public String getClasspathHash() {
+        return classpathHash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        DaemonForkOptions other = (DaemonForkOptions) obj;
+        return classpath.equals(other.classpath) && sharedPackages.equals(other.sharedPackages)
+                && equal(minHeapSize, other.minHeapSize) && equal(maxHeapSize, other.maxHeapSize)
+                && equal(classpathHash, other.classpathHash);
+    }
+
+    @Override
+    public int hashCode() {
+        return classpath.hashCode() ^ sharedPackages.hashCode() ^ (classpathHash == null ? 0 : classpathHash.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("classpath: %s, shared packages: %s, min heap: %s, max heap: %s", classpath, sharedPackages,
+                minHeapSize, maxHeapSize);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -16,11 +16,14 @@
 package org.gradle.api.tasks.bundling;
 
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.file.archive.ZipCopyAction;
 import org.gradle.api.internal.file.archive.ZipCopySpecVisitor;
-import org.gradle.api.internal.file.copy.ArchiveCopyAction;
 import org.gradle.api.internal.file.copy.CopyActionImpl;
+import org.gradle.api.tasks.Input;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 
 import java.io.File;
+import java.util.Set;
 
 /**
  * Assembles a ZIP archive.
@@ -30,23 +33,108 @@ import java.io.File;
 public class Zip extends AbstractArchiveTask {
     public static final String ZIP_EXTENSION = "zip";
     private final CopyActionImpl action;
+    private boolean storeCompressedFiles;
+    private boolean preserveFileTimestamps = true;
+    private boolean reproducibleFileOrder;
+    private boolean incremental;
 
     public Zip() {
         setExtension(ZIP_EXTENSION);
-        action = new ZipCopyAction(getServices().get(FileResolver.class));
+        action = new ZipCopyActionImpl(getServices().get(FileResolver.class), getServices().get(ExecutorFactory.class));
     }
 
     protected CopyActionImpl getCopyAction() {
         return action;
     }
 
-    private class ZipCopyAction extends CopyActionImpl implements ArchiveCopyAction {
-        public ZipCopyAction(FileResolver fileResolver) {
-            super(fileResolver, new ZipCopySpecVisitor());
+    /**
+     * Specifies whether files which are already compressed, such as JARs and images, should be stored in this archive
+     * without compressing them again. Whether a file is already compressed is determined from its extension. Defaults
+     * to {@code false}.
+     *
+     * @return true if already compressed files are stored without compression.
+     */
+    @Input
+    public boolean isStoreCompressedFiles() {
+        return storeCompressedFiles;
+    }
+
+    public void setStoreCompressedFiles(boolean storeCompressedFiles) {
+        this.storeCompressedFiles = storeCompressedFiles;
+    }
+
+    /**
+     * Specifies whether the last modified time of each file should be used as the timestamp of its entry in this
+     * archive. When {@code false}, every entry is given the same timestamp, so that the archive does not change
+     * when its files are recreated with the same content. Defaults to {@code true}.
+     *
+     * @return true if file timestamps are preserved.
+     */
+    @Input
+    public boolean isPreserveFileTimestamps() {
+        return preserveFileTimestamps;
+    }
+
+    public void setPreserveFileTimestamps(boolean preserveFileTimestamps) {
+        this.preserveFileTimestamps = preserveFileTimestamps;
+    }
+
+    /**
+     * Specifies whether the entries of this archive should be sorted by path, rather than added in the order the
+     * files are found. When {@code true}, the order of the entries does not depend on the order in which the file
+     * system lists the files of a directory. Defaults to {@code false}.
+     *
+     * @return true if the entries are sorted by path.
+     */
+    @Input
+    public boolean isReproducibleFileOrder() {
+        return reproducibleFileOrder;
+    }
+
+    public void setReproducibleFileOrder(boolean reproducibleFileOrder) {
+        this.reproducibleFileOrder = reproducibleFileOrder;
+    }
+
+    /**
+     * Specifies whether this archive should be updated incrementally, when the archive and the input files from which
+     * it was created are known. When {@code true}, the compressed content of the files which have not changed is
+     * copied from the existing archive, and only the files which have been added or changed are compressed. Files
+     * whose content is filtered are always compressed. The archive is created from scratch when it has been modified
+     * since this task created it. Defaults to {@code false}.
+     *
+     * @return true if this archive is updated incrementally.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    private class ZipCopyActionImpl extends CopyActionImpl implements ZipCopyAction {
+        public ZipCopyActionImpl(FileResolver fileResolver, ExecutorFactory executorFactory) {
+            super(fileResolver, new ZipCopySpecVisitor(executorFactory));
         }
 
         public File getArchivePath() {
             return Zip.this.getArchivePath();
         }
+
+        public boolean isStoreCompressedFiles() {
+            return Zip.this.isStoreCompressedFiles();
+        }
+
+        public boolean isPreserveFileTimestamps() {
+            return Zip.this.isPreserveFileTimestamps();
+        }
+
+        public boolean isReproducibleFileOrder() {
+            return Zip.this.isReproducibleFileOrder();
+        }
+
+        public Set<File> getChangedInputFiles() {
+            return isIncremental() ? getOutputs().getChangedInputFiles() : null;
+        }
     }
 }
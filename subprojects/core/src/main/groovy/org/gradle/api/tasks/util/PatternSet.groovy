@@ -235,6 +235,10 @@ class IntersectionPatternSet extends PatternSet {
         this.other = other
     }
 
+    def PatternSet getOther() {
+        return other
+    }
+
     def Spec<FileTreeElement> getAsSpec() {
         return new AndSpec<FileTreeElement>([super.getAsSpec(), other.getAsSpec()] as Spec[])
     }
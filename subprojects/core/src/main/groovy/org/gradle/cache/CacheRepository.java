@@ -76,5 +76,5 @@ public interface CacheRepository {
      * @param elementType The type of element kept in the cache.
      * @return The builder.
      */
-    <K, V> ObjectCacheBuilder<V, PersistentIndexedCache<K, V>> indexedCache(Class<K> keyType, Class<V> elementType, String key);
+    <K, V> IndexedCacheBuilder<K, V> indexedCache(Class<K> keyType, Class<V> elementType, String key);
 }
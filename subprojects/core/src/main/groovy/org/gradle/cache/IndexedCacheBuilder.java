@@ -0,0 +1,39 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache;
+
+import java.util.Map;
+
+public interface IndexedCacheBuilder<K, V> extends ObjectCacheBuilder<V, PersistentIndexedCache<K, V>> {
+    IndexedCacheBuilder<K, V> forObject(Object target);
+
+    IndexedCacheBuilder<K, V> withProperties(Map<String, ?> properties);
+
+    IndexedCacheBuilder<K, V> withVersionStrategy(VersionStrategy strategy);
+
+    IndexedCacheBuilder<K, V> withSerializer(Serializer<V> serializer);
+
+    /**
+     * Specifies the approximate maximum number of bytes of the cache contents to keep in memory. The default is 4MB.
+     */
+    IndexedCacheBuilder<K, V> withMaxInMemorySize(long maxInMemorySize);
+
+    /**
+     * Specifies whether the cache file should be read through memory mapped regions, where the platform allows this. The
+     * default is false.
+     */
+    IndexedCacheBuilder<K, V> withMemoryMappedReads(boolean memoryMapped);
+}
@@ -15,6 +15,8 @@
  */
 package org.gradle.cache;
 
+import java.util.Map;
+
 /**
  * A persistent store of objects of type V indexed by a key of type K.
  */
@@ -35,4 +37,19 @@ public interface PersistentIndexedCache<K, V> {
      * Removes a key-value mapping from this cache. A shared lock is held while updating the value.
      */
     void remove(K key);
+
+    /**
+     * Fetches the values of the given keys from this cache. The lock is acquired once for all the keys, which is
+     * generally cheaper than calling {@link #get(Object)} for each key.
+     *
+     * @return The values, keyed by key. Contains no entry for those keys which have no value associated with them.
+     */
+    Map<K, V> getAll(Iterable<? extends K> keys);
+
+    /**
+     * Puts/replaces the values of the given keys in this cache. The lock is acquired once and the updates are
+     * written once for all the keys, which is generally cheaper than calling {@link #put(Object, Object)} for each
+     * key.
+     */
+    void putAll(Map<? extends K, ? extends V> entries);
 }
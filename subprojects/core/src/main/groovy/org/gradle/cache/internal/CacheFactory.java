@@ -36,8 +36,15 @@ public interface CacheFactory {
     <E> PersistentStateCache<E> openStateCache(File cacheDir, CacheUsage usage, Map<String, ?> properties, LockMode lockMode, CrossVersionMode crossVersionMode,
                                                Serializer<E> serializer) throws CacheOpenException;
 
+    /**
+     * Opens an indexed cache. The in-memory size and memory mapping settings are used only when the cache is first
+     * opened by this process.
+     *
+     * @param maxInMemorySize The approximate maximum number of bytes of the cache contents to keep in memory.
+     * @param memoryMapped Whether to read the cache file through memory mapped regions, where the platform allows this.
+     */
     <K, V> PersistentIndexedCache<K, V> openIndexedCache(File cacheDir, CacheUsage usage, Map<String, ?> properties, LockMode lockMode, CrossVersionMode crossVersionMode,
-                                                         Serializer<V> serializer) throws CacheOpenException;
+                                                         Serializer<V> serializer, long maxInMemorySize, boolean memoryMapped) throws CacheOpenException;
 }
 
 
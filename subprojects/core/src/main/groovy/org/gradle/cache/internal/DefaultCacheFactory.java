@@ -27,8 +27,14 @@ import java.util.*;
 
 import static org.gradle.cache.internal.FileLockManager.LockMode;
 
+/**
+ * A factory for caches which may be used by several threads. A directory cache is opened at most once, but different
+ * directory caches may be opened and initialized concurrently.
+ */
 public class DefaultCacheFactory implements Factory<CacheFactory> {
+    private final Object lock = new Object();
     private final Map<File, DirCacheReference> dirCaches = new HashMap<File, DirCacheReference>();
+    private final Map<File, Object> openLocks = new HashMap<File, Object>();
     private final FileLockManager lockManager;
 
     public DefaultCacheFactory(FileLockManager fileLockManager) {
@@ -46,8 +52,21 @@ public class DefaultCacheFactory implements Factory<CacheFactory> {
     }
 
     public void close() {
-        for (DirCacheReference dirCacheReference : dirCaches.values()) {
-            dirCacheReference.close();
+        synchronized (lock) {
+            for (DirCacheReference dirCacheReference : new ArrayList<DirCacheReference>(dirCaches.values())) {
+                dirCacheReference.close();
+            }
+        }
+    }
+
+    private Object openLock(File cacheDir) {
+        synchronized (lock) {
+            Object openLock = openLocks.get(cacheDir);
+            if (openLock == null) {
+                openLock = new Object();
+                openLocks.put(cacheDir, openLock);
+            }
+            return openLock;
         }
     }
 
@@ -56,22 +75,34 @@ public class DefaultCacheFactory implements Factory<CacheFactory> {
 
         private DirCacheReference doOpenDir(File cacheDir, CacheUsage usage, Map<String, ?> properties, FileLockManager.LockMode lockMode, Action<? super PersistentCache> action) {
             File canonicalDir = GFileUtils.canonicalise(cacheDir);
-            DirCacheReference dirCacheReference = dirCaches.get(canonicalDir);
-            if (dirCacheReference == null) {
-                DefaultPersistentDirectoryCache cache = new DefaultPersistentDirectoryCache(canonicalDir, usage, properties, lockMode, action, lockManager);
-                dirCacheReference = new DirCacheReference(cache, properties, lockMode);
-                dirCaches.put(canonicalDir, dirCacheReference);
-            } else {
-                if (usage == CacheUsage.REBUILD && dirCacheReference.rebuiltBy != this) {
-                    throw new IllegalStateException(String.format("Cannot rebuild cache '%s' as it is already open.", cacheDir));
+            synchronized (openLock(canonicalDir)) {
+                synchronized (lock) {
+                    DirCacheReference dirCacheReference = dirCaches.get(canonicalDir);
+                    if (dirCacheReference != null) {
+                        if (usage == CacheUsage.REBUILD && dirCacheReference.rebuiltBy != this) {
+                            throw new IllegalStateException(String.format("Cannot rebuild cache '%s' as it is already open.", cacheDir));
+                        }
+                        if (lockMode != dirCacheReference.lockMode) {
+                            throw new IllegalStateException(String.format("Cannot open cache '%s' with %s lock mode as it is already open with %s lock mode.", cacheDir, lockMode.toString().toLowerCase(), dirCacheReference.lockMode.toString().toLowerCase()));
+                        }
+                        if (!properties.equals(dirCacheReference.properties)) {
+                            throw new IllegalStateException(String.format("Cache '%s' is already open with different state.", cacheDir));
+                        }
+                        return addReference(dirCacheReference, usage);
+                    }
                 }
-                if (lockMode != dirCacheReference.lockMode) {
-                    throw new IllegalStateException(String.format("Cannot open cache '%s' with %s lock mode as it is already open with %s lock mode.", cacheDir, lockMode.toString().toLowerCase(), dirCacheReference.lockMode.toString().toLowerCase()));
-                }
-                if (!properties.equals(dirCacheReference.properties)) {
-                    throw new IllegalStateException(String.format("Cache '%s' is already open with different state.", cacheDir));
+
+                // Initialize the cache without holding the lock, so that other caches can be opened in the meantime
+                DefaultPersistentDirectoryCache cache = new DefaultPersistentDirectoryCache(canonicalDir, usage, properties, lockMode, action, lockManager);
+                synchronized (lock) {
+                    DirCacheReference dirCacheReference = new DirCacheReference(cache, properties, lockMode);
+                    dirCaches.put(canonicalDir, dirCacheReference);
+                    return addReference(dirCacheReference, usage);
                 }
             }
+        }
+
+        private DirCacheReference addReference(DirCacheReference dirCacheReference, CacheUsage usage) {
             if (usage == CacheUsage.REBUILD) {
                 dirCacheReference.rebuiltBy = this;
             }
@@ -95,32 +126,40 @@ public class DefaultCacheFactory implements Factory<CacheFactory> {
         }
 
         public <E> PersistentStateCache<E> openStateCache(File cacheDir, CacheUsage usage, Map<String, ?> properties, LockMode lockMode, CrossVersionMode crossVersionMode, Serializer<E> serializer) {
-            StateCacheReference<E> cacheReference = doOpenDir(cacheDir, usage, properties, lockMode, null).getStateCache(serializer);
-            cacheReference.addReference(this);
-            return cacheReference.getCache();
+            DirCacheReference dirCacheReference = doOpenDir(cacheDir, usage, properties, lockMode, null);
+            synchronized (lock) {
+                StateCacheReference<E> cacheReference = dirCacheReference.getStateCache(serializer);
+                cacheReference.addReference(this);
+                return cacheReference.getCache();
+            }
         }
 
-        public <K, V> PersistentIndexedCache<K, V> openIndexedCache(File cacheDir, CacheUsage usage, Map<String, ?> properties, LockMode lockMode, CrossVersionMode crossVersionMode, Serializer<V> serializer) {
+        public <K, V> PersistentIndexedCache<K, V> openIndexedCache(File cacheDir, CacheUsage usage, Map<String, ?> properties, LockMode lockMode, CrossVersionMode crossVersionMode, Serializer<V> serializer, long maxInMemorySize, boolean memoryMapped) {
             if (lockMode == LockMode.Shared) {
                 throw new UnsupportedOperationException("No indexed cache implementation is available that can be shared by multiple processes.");
             }
             if (crossVersionMode == CrossVersionMode.CrossVersion) {
                 throw new UnsupportedOperationException("No indexed cache implementation is available that can be used by multiple Gradle versions.");
             }
-            IndexedCacheReference<K, V> cacheReference = doOpenDir(cacheDir, usage, properties, LockMode.Exclusive, null).getIndexedCache(serializer);
-            cacheReference.addReference(this);
-            return cacheReference.getCache();
+            DirCacheReference dirCacheReference = doOpenDir(cacheDir, usage, properties, LockMode.Exclusive, null);
+            synchronized (lock) {
+                IndexedCacheReference<K, V> cacheReference = dirCacheReference.getIndexedCache(serializer, maxInMemorySize, memoryMapped);
+                cacheReference.addReference(this);
+                return cacheReference.getCache();
+            }
         }
 
         public void close() {
-            try {
-                List<BasicCacheReference<?>> caches = new ArrayList<BasicCacheReference<?>>(this.caches);
-                Collections.reverse(caches);
-                for (BasicCacheReference cache : caches) {
-                    cache.release(this);
+            synchronized (lock) {
+                try {
+                    List<BasicCacheReference<?>> caches = new ArrayList<BasicCacheReference<?>>(this.caches);
+                    Collections.reverse(caches);
+                    for (BasicCacheReference cache : caches) {
+                        cache.release(this);
+                    }
+                } finally {
+                    caches.clear();
                 }
-            } finally {
-                caches.clear();
             }
         }
     }
@@ -177,9 +216,9 @@ public class DefaultCacheFactory implements Factory<CacheFactory> {
             return stateCache;
         }
 
-        public <K, V> IndexedCacheReference<K, V> getIndexedCache(Serializer<V> serializer) {
+        public <K, V> IndexedCacheReference<K, V> getIndexedCache(Serializer<V> serializer, long maxInMemorySize, boolean memoryMapped) {
             if (indexedCache == null) {
-                BTreePersistentIndexedCache<K, V> indexedCache = new BTreePersistentIndexedCache<K, V>(new File(getCache().getBaseDir(), "cache.bin"), getCache().getLock(), serializer);
+                BTreePersistentIndexedCache<K, V> indexedCache = new BTreePersistentIndexedCache<K, V>(new File(getCache().getBaseDir(), "cache.bin"), getCache().getLock(), serializer, maxInMemorySize, memoryMapped);
                 this.indexedCache = new IndexedCacheReference<K, V>(indexedCache, this);
             }
             return indexedCache;
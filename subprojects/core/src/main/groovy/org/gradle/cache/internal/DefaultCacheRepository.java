@@ -19,6 +19,7 @@ import org.gradle.CacheUsage;
 import org.gradle.api.Action;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.*;
+import org.gradle.cache.internal.btree.CachingBlockStore;
 import org.gradle.util.GradleVersion;
 
 import java.io.File;
@@ -55,8 +56,8 @@ public class DefaultCacheRepository implements CacheRepository {
         return new StateCacheBuilder<E>(key);
     }
 
-    public <K, V> ObjectCacheBuilder<V, PersistentIndexedCache<K, V>> indexedCache(Class<K> keyType, Class<V> elementType, String key) {
-        return new IndexedCacheBuilder<K, V>(key);
+    public <K, V> IndexedCacheBuilder<K, V> indexedCache(Class<K> keyType, Class<V> elementType, String key) {
+        return new PersistentIndexedCacheBuilder<K, V>(key);
     }
 
     private abstract class AbstractCacheBuilder<T> implements CacheBuilder<T> {
@@ -220,14 +221,51 @@ public class DefaultCacheRepository implements CacheRepository {
         }
     }
 
-    private class IndexedCacheBuilder<K, V> extends AbstractObjectCacheBuilder<V, PersistentIndexedCache<K, V>> {
-        private IndexedCacheBuilder(String key) {
+    private class PersistentIndexedCacheBuilder<K, V> extends AbstractObjectCacheBuilder<V, PersistentIndexedCache<K, V>> implements IndexedCacheBuilder<K, V> {
+        private long maxInMemorySize = CachingBlockStore.DEFAULT_MAX_CACHE_SIZE;
+        private boolean memoryMapped;
+
+        private PersistentIndexedCacheBuilder(String key) {
             super(key);
         }
 
+        @Override
+        public IndexedCacheBuilder<K, V> forObject(Object target) {
+            super.forObject(target);
+            return this;
+        }
+
+        @Override
+        public IndexedCacheBuilder<K, V> withProperties(Map<String, ?> properties) {
+            super.withProperties(properties);
+            return this;
+        }
+
+        @Override
+        public IndexedCacheBuilder<K, V> withVersionStrategy(VersionStrategy strategy) {
+            super.withVersionStrategy(strategy);
+            return this;
+        }
+
+        @Override
+        public IndexedCacheBuilder<K, V> withSerializer(Serializer<V> serializer) {
+            super.withSerializer(serializer);
+            return this;
+        }
+
+        public IndexedCacheBuilder<K, V> withMaxInMemorySize(long maxInMemorySize) {
+            this.maxInMemorySize = maxInMemorySize;
+            return this;
+        }
+
+        public IndexedCacheBuilder<K, V> withMemoryMappedReads(boolean memoryMapped) {
+            this.memoryMapped = memoryMapped;
+            return this;
+        }
+
         @Override
         protected PersistentIndexedCache<K, V> doOpen(File cacheDir, Map<String, ?> properties) {
-            return factory.openIndexedCache(cacheDir, cacheUsage, properties, LockMode.Exclusive, getCrossVersionMode(), serializer);
+            return factory.openIndexedCache(cacheDir, cacheUsage, properties, LockMode.Exclusive, getCrossVersionMode(), serializer, maxInMemorySize, memoryMapped);
         }
     }
 }
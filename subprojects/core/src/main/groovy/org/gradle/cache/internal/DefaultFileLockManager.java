@@ -76,6 +76,7 @@ public class DefaultFileLockManager implements FileLockManager {
         private final String operationDisplayName;
         private java.nio.channels.FileLock lock;
         private RandomAccessFile lockFileAccess;
+        private final ThreadLocal<Boolean> writing = new ThreadLocal<Boolean>();
 
         public DefaultFileLock(File target, LockMode mode, String displayName, String operationDisplayName) throws Throwable {
             this.target = target;
@@ -130,15 +131,20 @@ public class DefaultFileLockManager implements FileLockManager {
             }
         }
 
-        public void writeToFile(Runnable action) {
+        public synchronized void writeToFile(Runnable action) {
             assertOpen();
+            if (writing.get() != null) {
+                // Already updating the target file in this thread, so already hold an exclusive lock
+                action.run();
+                return;
+            }
+            writing.set(true);
             try {
                 // TODO - need to escalate without releasing lock
-                java.nio.channels.FileLock updateLock = null;
                 if (mode != LockMode.Exclusive) {
                     lock.release();
                     lock = null;
-                    updateLock = lock(LockMode.Exclusive);
+                    lock = lock(LockMode.Exclusive);
                 }
                 try {
                     markDirty();
@@ -146,12 +152,15 @@ public class DefaultFileLockManager implements FileLockManager {
                     markClean();
                 } finally {
                     if (mode != LockMode.Exclusive) {
-                        updateLock.release();
+                        lock.release();
+                        lock = null;
                         lock = lock(mode);
                     }
                 }
             } catch (Throwable t) {
                 throw UncheckedException.asUncheckedException(t);
+            } finally {
+                writing.remove();
             }
         }
 
@@ -49,6 +49,9 @@ public interface FileLock extends Closeable {
      * the lock is escalated to an exclusive lock, and reverted back to a shared lock when the action completes. If no lock is already held, an
      * exclusive lock is acquired, the action executed, and the lock released.
      *
+     * <p>If this method is called from an action which is already running under this method, the given action is
+     * simply executed as part of the outer update.</p>
+     *
      * @throws LockTimeoutException On timeout acquiring lock, if required.
      * @throws IllegalStateException When this lock has been closed.
      */
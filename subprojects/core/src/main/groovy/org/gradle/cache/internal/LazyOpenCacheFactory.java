@@ -59,10 +59,10 @@ public class LazyOpenCacheFactory implements CacheFactory {
         return new LazyCreationProxy<PersistentStateCache>(PersistentStateCache.class, factory).getSource();
     }
 
-    public <K, V> PersistentIndexedCache<K, V> openIndexedCache(final File cacheDir, final CacheUsage usage, final Map<String, ?> properties, final FileLockManager.LockMode lockMode, final CrossVersionMode crossVersionMode, final Serializer<V> serializer) throws CacheOpenException {
+    public <K, V> PersistentIndexedCache<K, V> openIndexedCache(final File cacheDir, final CacheUsage usage, final Map<String, ?> properties, final FileLockManager.LockMode lockMode, final CrossVersionMode crossVersionMode, final Serializer<V> serializer, final long maxInMemorySize, final boolean memoryMapped) throws CacheOpenException {
         Factory<PersistentIndexedCache<K, V>> factory = new Factory<PersistentIndexedCache<K, V>>() {
             public PersistentIndexedCache<K, V> create() {
-                return cacheFactory.openIndexedCache(cacheDir, usage, new HashMap<String, Object>(properties), lockMode, crossVersionMode, serializer);
+                return cacheFactory.openIndexedCache(cacheDir, usage, new HashMap<String, Object>(properties), lockMode, crossVersionMode, serializer, maxInMemorySize, memoryMapped);
             }
         };
         return new LazyCreationProxy<PersistentIndexedCache>(PersistentIndexedCache.class, factory).getSource();
@@ -22,6 +22,7 @@ public class OnDemandFileLock implements FileLock {
     private final String displayName;
     private final FileLockManager manager;
     private final File targetFile;
+    private FileLock exclusiveLock;
 
     public OnDemandFileLock(File targetFile, String displayName, FileLockManager manager) {
         this.targetFile = targetFile;
@@ -37,7 +38,10 @@ public class OnDemandFileLock implements FileLock {
         throw new UnsupportedOperationException();
     }
 
-    public <T> T readFromFile(Callable<T> action) throws LockTimeoutException {
+    public synchronized <T> T readFromFile(Callable<T> action) throws LockTimeoutException {
+        if (exclusiveLock != null) {
+            return exclusiveLock.readFromFile(action);
+        }
         FileLock lock = manager.lock(targetFile, FileLockManager.LockMode.Shared, displayName);
         try {
             return lock.readFromFile(action);
@@ -46,12 +50,20 @@ public class OnDemandFileLock implements FileLock {
         }
     }
 
-    public void writeToFile(Runnable action) throws LockTimeoutException {
-        FileLock lock = manager.lock(targetFile, FileLockManager.LockMode.Exclusive, displayName);
+    public synchronized void writeToFile(Runnable action) throws LockTimeoutException {
+        if (exclusiveLock != null) {
+            exclusiveLock.writeToFile(action);
+            return;
+        }
+        exclusiveLock = manager.lock(targetFile, FileLockManager.LockMode.Exclusive, displayName);
         try {
-            lock.writeToFile(action);
+            exclusiveLock.writeToFile(action);
         } finally {
-            lock.close();
+            try {
+                exclusiveLock.close();
+            } finally {
+                exclusiveLock = null;
+            }
         }
     }
 
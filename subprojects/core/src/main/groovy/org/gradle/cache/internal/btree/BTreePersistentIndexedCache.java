@@ -24,6 +24,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 // todo - stream serialised value to file
 // todo - handle hash collisions
@@ -40,23 +41,43 @@ import java.util.*;
 public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
     private static final Logger LOGGER = LoggerFactory.getLogger(BTreePersistentIndexedCache.class);
     private final File cacheFile;
+    private final FileLock fileLock;
     private final Serializer<V> serializer;
     private final short maxChildIndexEntries;
     private final int minIndexChildNodes;
     private final StateCheckBlockStore store;
+    private final BlockStoreStatistics statistics = new BlockStoreStatistics();
     private HeaderBlock header;
 
     public BTreePersistentIndexedCache(File cacheFile, FileLock fileLock, Serializer<V> serializer) {
-        this(cacheFile, fileLock, serializer, (short) 512, 512);
+        this(cacheFile, fileLock, serializer, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, false);
+    }
+
+    /**
+     * @param maxBlockCacheSize The approximate maximum number of bytes of index and data blocks to keep in memory.
+     * @param memoryMapped Whether to read blocks through memory mapped regions of the cache file.
+     */
+    public BTreePersistentIndexedCache(File cacheFile, FileLock fileLock, Serializer<V> serializer,
+                                       long maxBlockCacheSize, boolean memoryMapped) {
+        this(cacheFile, fileLock, serializer, (short) 512, 512, maxBlockCacheSize, memoryMapped);
     }
 
     public BTreePersistentIndexedCache(File cacheFile, FileLock fileLock, Serializer<V> serializer,
                                        short maxChildIndexEntries, int maxFreeListEntries) {
+        this(cacheFile, fileLock, serializer, maxChildIndexEntries, maxFreeListEntries, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, false);
+    }
+
+    public BTreePersistentIndexedCache(File cacheFile, FileLock fileLock, Serializer<V> serializer,
+                                       short maxChildIndexEntries, int maxFreeListEntries,
+                                       long maxBlockCacheSize, boolean memoryMapped) {
         this.cacheFile = cacheFile;
+        this.fileLock = fileLock;
         this.serializer = serializer;
         this.maxChildIndexEntries = maxChildIndexEntries;
         this.minIndexChildNodes = maxChildIndexEntries / 2;
-        BlockStore cachingStore = new CachingBlockStore(new LockingBlockStore(new FileBackedBlockStore(cacheFile), fileLock), IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
+        BlockStore fileStore = new FileBackedBlockStore(cacheFile, memoryMapped, statistics);
+        BlockStore cachingStore = new CachingBlockStore(new LockingBlockStore(fileStore, fileLock), maxBlockCacheSize, statistics,
+                IndexBlock.class, DataBlock.class, FreeListBlockStore.FreeListBlock.class);
 //        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile), IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
         store = new StateCheckBlockStore(new FreeListBlockStore(cachingStore, maxFreeListEntries));
         try {
@@ -124,30 +145,114 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
-    public void put(K key, V value) {
-        try {
-            String keyString = key.toString();
-            long hashCode = keyString.hashCode();
-            Lookup lookup = header.getRoot().find(hashCode);
-            boolean needNewBlock = true;
-            if (lookup.entry != null) {
-                DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
-                needNewBlock = !block.useNewValue(value);
-                if (needNewBlock) {
-                    store.remove(block);
+    public Map<K, V> getAll(final Iterable<? extends K> keys) {
+        return fileLock.readFromFile(new Callable<Map<K, V>>() {
+            public Map<K, V> call() throws Exception {
+                Map<K, V> values = new HashMap<K, V>();
+                K currentKey = null;
+                try {
+                    for (K key : sortByIndexOrder(keys)) {
+                        currentKey = key;
+                        DataBlock block = header.getRoot().get(key);
+                        if (block != null) {
+                            values.put(key, block.getValue());
+                        }
+                    }
+                } catch (CorruptedCacheException e) {
+                    // Only a shared lock is held, so the file cannot be discarded here
+                    throw e;
+                } catch (Exception e) {
+                    throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", currentKey, BTreePersistentIndexedCache.this), e);
                 }
+                return values;
             }
-            if (needNewBlock) {
-                DataBlock block = new DataBlock(keyString, value);
-                store.write(block);
-                lookup.indexBlock.put(hashCode, block.getPos());
+        });
+    }
+
+    public void put(final K key, V value) {
+        // Serialize the value before updating the file, so that a value which cannot be serialized does not leave
+        // the file marked as partially updated
+        final byte[] serialisedValue = serialise(key, value);
+        fileLock.writeToFile(new Runnable() {
+            public void run() {
+                try {
+                    doPut(key, serialisedValue);
+                    store.flush();
+                } catch (Exception e) {
+                    throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, BTreePersistentIndexedCache.this), e);
+                }
             }
-            store.flush();
+        });
+    }
+
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        final List<K> keys = sortByIndexOrder(entries.keySet());
+        final List<byte[]> serialisedValues = new ArrayList<byte[]>(keys.size());
+        for (K key : keys) {
+            serialisedValues.add(serialise(key, entries.get(key)));
+        }
+        fileLock.writeToFile(new Runnable() {
+            public void run() {
+                K currentKey = null;
+                try {
+                    for (int i = 0; i < keys.size(); i++) {
+                        currentKey = keys.get(i);
+                        doPut(currentKey, serialisedValues.get(i));
+                    }
+                    store.flush();
+                } catch (Exception e) {
+                    throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", currentKey, BTreePersistentIndexedCache.this), e);
+                }
+            }
+        });
+    }
+
+    private byte[] serialise(K key, V value) {
+        try {
+            ByteArrayOutputStream outStr = new ByteArrayOutputStream();
+            serializer.write(outStr, value);
+            return outStr.toByteArray();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
         }
     }
 
+    private void doPut(K key, byte[] serialisedValue) throws Exception {
+        long hashCode = key.toString().hashCode();
+        Lookup lookup = header.getRoot().find(hashCode);
+        boolean needNewBlock = true;
+        if (lookup.entry != null) {
+            DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
+            needNewBlock = !block.useNewValue(serialisedValue);
+            if (needNewBlock) {
+                store.remove(block);
+            }
+        }
+        if (needNewBlock) {
+            DataBlock block = new DataBlock(serialisedValue);
+            store.write(block);
+            lookup.indexBlock.put(hashCode, block.getPos());
+        }
+    }
+
+    /**
+     * Sorts the given keys into the order of their index entries, so that the index is traversed sequentially.
+     */
+    private List<K> sortByIndexOrder(Iterable<? extends K> keys) {
+        List<K> sorted = new ArrayList<K>();
+        for (K key : keys) {
+            sorted.add(key);
+        }
+        Collections.sort(sorted, new Comparator<K>() {
+            public int compare(K key1, K key2) {
+                int hashCode1 = key1.toString().hashCode();
+                int hashCode2 = key2.toString().hashCode();
+                return hashCode1 < hashCode2 ? -1 : hashCode1 == hashCode2 ? 0 : 1;
+            }
+        });
+        return sorted;
+    }
+
     public void remove(K key) {
         try {
             Lookup lookup = header.getRoot().find(key.toString());
@@ -180,7 +285,15 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
+    /**
+     * Returns the block read statistics for this cache, accumulated since this cache was created.
+     */
+    public BlockStoreStatistics getStatistics() {
+        return statistics;
+    }
+
     public void close() {
+        LOGGER.debug("Closing {}. Block statistics: {}", this, statistics);
         try {
             store.close();
         } catch (Exception e) {
@@ -623,28 +736,21 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     private class DataBlock extends BlockPayload {
         private int size;
         private byte[] serialisedValue;
-        private V value;
 
         private DataBlock() {
         }
 
-        public DataBlock(String key, V value) throws Exception {
-            this.value = value;
-            setValue(value);
+        public DataBlock(byte[] serialisedValue) {
+            this.serialisedValue = serialisedValue;
             size = serialisedValue.length;
         }
 
-        public void setValue(V value) throws Exception {
-            ByteArrayOutputStream outStr = new ByteArrayOutputStream();
-            serializer.write(outStr, value);
-            this.serialisedValue = outStr.toByteArray();
-        }
-
+        /**
+         * Deserializes the value on each call, as this block may be cached and callers are free to modify the
+         * returned value.
+         */
         public V getValue() throws Exception {
-            if (value == null) {
-                value = serializer.read(new ByteArrayInputStream(serialisedValue));
-            }
-            return value;
+            return serializer.read(new ByteArrayInputStream(serialisedValue));
         }
 
         @Override
@@ -670,10 +776,10 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             outstr.write(serialisedValue);
         }
 
-        public boolean useNewValue(V value) throws Exception {
-            setValue(value);
+        public boolean useNewValue(byte[] serialisedValue) throws Exception {
             boolean ok = serialisedValue.length <= size;
             if (ok) {
+                this.serialisedValue = serialisedValue;
                 store.write(this);
             }
             return ok;
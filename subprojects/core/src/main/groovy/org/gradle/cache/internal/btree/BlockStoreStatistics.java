@@ -0,0 +1,70 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+/**
+ * Counters for the block reads made by a stack of block stores, used to tune the size of the block cache.
+ */
+public class BlockStoreStatistics {
+    private long cacheHits;
+    private long cacheMisses;
+    private long cacheEvictions;
+    private long blocksRead;
+    private long bytesRead;
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public long getCacheEvictions() {
+        return cacheEvictions;
+    }
+
+    public long getBlocksRead() {
+        return blocksRead;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    void cacheHit() {
+        cacheHits++;
+    }
+
+    void cacheMiss() {
+        cacheMisses++;
+    }
+
+    void cacheEviction() {
+        cacheEvictions++;
+    }
+
+    void blockRead(int size) {
+        blocksRead++;
+        bytesRead += size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache hits: %s, cache misses: %s, cache evictions: %s, blocks read: %s, bytes read: %s",
+                cacheHits, cacheMisses, cacheEvictions, blocksRead, bytesRead);
+    }
+}
@@ -15,18 +15,30 @@
  */
 package org.gradle.cache.internal.btree;
 
-import org.apache.commons.collections.map.LRUMap;
-
 import java.util.*;
 
+/**
+ * Caches recently used blocks of the given types in memory, up to an approximate total size in bytes. Also defers
+ * writing blocks until the store is flushed.
+ */
 public class CachingBlockStore implements BlockStore {
+    public static final long DEFAULT_MAX_CACHE_SIZE = 4 * 1024 * 1024;
     private final BlockStore store;
     private final Map<BlockPointer, BlockPayload> dirty = new LinkedHashMap<BlockPointer, BlockPayload>();
-    private final Map<BlockPointer, BlockPayload> indexBlockCache = new LRUMap(100);
+    private final LinkedHashMap<BlockPointer, CachedBlock> blockCache = new LinkedHashMap<BlockPointer, CachedBlock>(16, 0.75f, true);
     private final Set<Class<?>> cachableTypes = new HashSet<Class<?>>();
+    private final long maxCacheSize;
+    private final BlockStoreStatistics statistics;
+    private long cacheSize;
 
     public CachingBlockStore(BlockStore store, Class<? extends BlockPayload>... cacheableBlockTypes) {
+        this(store, DEFAULT_MAX_CACHE_SIZE, new BlockStoreStatistics(), cacheableBlockTypes);
+    }
+
+    public CachingBlockStore(BlockStore store, long maxCacheSize, BlockStoreStatistics statistics, Class<? extends BlockPayload>... cacheableBlockTypes) {
         this.store = store;
+        this.maxCacheSize = maxCacheSize;
+        this.statistics = statistics;
         cachableTypes.addAll(Arrays.asList(cacheableBlockTypes));
     }
 
@@ -36,13 +48,13 @@ public class CachingBlockStore implements BlockStore {
 
     public void close() {
         flush();
-        indexBlockCache.clear();
+        clearCache();
         store.close();
     }
 
     public void clear() {
         dirty.clear();
-        indexBlockCache.clear();
+        clearCache();
         store.clear();
     }
 
@@ -62,7 +74,7 @@ public class CachingBlockStore implements BlockStore {
 
     public void remove(BlockPayload block) {
         dirty.remove(block.getPos());
-        indexBlockCache.remove(block.getPos());
+        removeFromCache(block.getPos());
         store.remove(block);
     }
 
@@ -75,12 +87,15 @@ public class CachingBlockStore implements BlockStore {
     public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
         T block = payloadType.cast(dirty.get(pos));
         if (block != null) {
+            statistics.cacheHit();
             return block;
         }
-        block = payloadType.cast(indexBlockCache.get(pos));
-        if (block != null) {
-            return block;
+        CachedBlock cachedBlock = blockCache.get(pos);
+        if (cachedBlock != null) {
+            statistics.cacheHit();
+            return payloadType.cast(cachedBlock.block);
         }
+        statistics.cacheMiss();
         block = store.read(pos, payloadType);
         maybeCache(block);
         return block;
@@ -93,8 +108,49 @@ public class CachingBlockStore implements BlockStore {
     }
 
     private <T extends BlockPayload> void maybeCache(T block) {
-        if (cachableTypes.contains(block.getClass())) {
-            indexBlockCache.put(block.getPos(), block);
+        if (!cachableTypes.contains(block.getClass())) {
+            return;
+        }
+        CachedBlock cachedBlock = new CachedBlock(block);
+        if (cachedBlock.size > maxCacheSize) {
+            removeFromCache(block.getPos());
+            return;
+        }
+        CachedBlock previous = blockCache.put(block.getPos(), cachedBlock);
+        if (previous != null) {
+            cacheSize -= previous.size;
+        }
+        cacheSize += cachedBlock.size;
+
+        // Evict the least recently used blocks
+        Iterator<CachedBlock> iterator = blockCache.values().iterator();
+        while (cacheSize > maxCacheSize) {
+            CachedBlock eldest = iterator.next();
+            iterator.remove();
+            cacheSize -= eldest.size;
+            statistics.cacheEviction();
+        }
+    }
+
+    private void removeFromCache(BlockPointer pos) {
+        CachedBlock cachedBlock = blockCache.remove(pos);
+        if (cachedBlock != null) {
+            cacheSize -= cachedBlock.size;
+        }
+    }
+
+    private void clearCache() {
+        blockCache.clear();
+        cacheSize = 0;
+    }
+
+    private static class CachedBlock {
+        final BlockPayload block;
+        final int size;
+
+        private CachedBlock(BlockPayload block) {
+            this.block = block;
+            this.size = block.getSize();
         }
     }
 }
@@ -16,18 +16,38 @@
 package org.gradle.cache.internal.btree;
 
 import org.gradle.api.UncheckedIOException;
+import org.gradle.os.OperatingSystem;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.zip.CRC32;
 
+/**
+ * A {@link BlockStore} backed by a single file. Blocks can optionally be read through memory mapped regions of the
+ * file, rather than using a seek and read for each block. Only complete regions are mapped, the tail of the file is
+ * always read directly. Memory mapping is not used on Windows, where a file cannot be truncated while it is mapped.
+ */
 public class FileBackedBlockStore implements BlockStore {
+    static final int REGION_SIZE = 4 * 1024 * 1024;
     private RandomAccessFile file;
     private final File cacheFile;
+    private final boolean memoryMapped;
+    private final BlockStoreStatistics statistics;
+    private final List<ByteBuffer> regions = new ArrayList<ByteBuffer>();
     private long nextBlock;
     private Factory factory;
 
     public FileBackedBlockStore(File cacheFile) {
+        this(cacheFile, false, new BlockStoreStatistics());
+    }
+
+    public FileBackedBlockStore(File cacheFile, boolean memoryMapped, BlockStoreStatistics statistics) {
         this.cacheFile = cacheFile;
+        this.memoryMapped = memoryMapped && !OperatingSystem.current().isWindows();
+        this.statistics = statistics;
     }
 
     @Override
@@ -49,6 +69,7 @@ public class FileBackedBlockStore implements BlockStore {
     }
 
     public void close() {
+        regions.clear();
         try {
             file.close();
         } catch (IOException e) {
@@ -57,6 +78,7 @@ public class FileBackedBlockStore implements BlockStore {
     }
 
     public void clear() {
+        regions.clear();
         try {
             file.setLength(0);
         } catch (IOException e) {
@@ -201,10 +223,15 @@ public class FileBackedBlockStore implements BlockStore {
             if (pos + HEADER_SIZE >= file.length()) {
                 throw blockCorruptedException();
             }
-            file.seek(pos);
 
-            Crc32InputStream checkSumInputStream = new Crc32InputStream(new BufferedInputStream(
-                    new RandomAccessFileInputStream(file)));
+            InputStream blockInputStream;
+            if (memoryMapped) {
+                blockInputStream = new MappedFileInputStream(pos);
+            } else {
+                file.seek(pos);
+                blockInputStream = new BufferedInputStream(new RandomAccessFileInputStream(file));
+            }
+            Crc32InputStream checkSumInputStream = new Crc32InputStream(blockInputStream);
             DataInputStream inputStream = new DataInputStream(checkSumInputStream);
 
             BlockPayload payload = getPayload();
@@ -233,6 +260,7 @@ public class FileBackedBlockStore implements BlockStore {
                 throw blockCorruptedException();
             }
             inputStream.close();
+            statistics.blockRead(HEADER_SIZE + payloadSize + TAIL_SIZE);
         }
 
         public RuntimeException blockCorruptedException() {
@@ -241,6 +269,77 @@ public class FileBackedBlockStore implements BlockStore {
         }
     }
 
+    /**
+     * Returns the mapped region which contains the given position, or null when the position is in the incomplete
+     * region at the end of the file.
+     */
+    private ByteBuffer regionFor(long pos) throws IOException {
+        long length = file.length();
+        if ((long) regions.size() * REGION_SIZE > length) {
+            // The file has been truncated, so some mapped regions are no longer backed by the file
+            regions.clear();
+        }
+        int index = (int) (pos / REGION_SIZE);
+        if (index < regions.size()) {
+            return regions.get(index);
+        }
+        if ((long) (index + 1) * REGION_SIZE > length) {
+            return null;
+        }
+        FileChannel channel = file.getChannel();
+        while (regions.size() <= index) {
+            regions.add(channel.map(FileChannel.MapMode.READ_ONLY, (long) regions.size() * REGION_SIZE, REGION_SIZE));
+        }
+        return regions.get(index);
+    }
+
+    /**
+     * Reads from the mapped regions of the file, falling back to reading the file directly for the unmapped tail.
+     */
+    private class MappedFileInputStream extends InputStream {
+        private long pos;
+
+        private MappedFileInputStream(long pos) {
+            this.pos = pos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            ByteBuffer region = regionFor(pos);
+            int b;
+            if (region != null) {
+                b = region.get((int) (pos % REGION_SIZE)) & 0xFF;
+            } else {
+                file.seek(pos);
+                b = file.read();
+            }
+            if (b >= 0) {
+                pos++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            ByteBuffer region = regionFor(pos);
+            int count;
+            if (region != null) {
+                int regionOffset = (int) (pos % REGION_SIZE);
+                count = Math.min(length, REGION_SIZE - regionOffset);
+                ByteBuffer view = region.duplicate();
+                view.position(regionOffset);
+                view.get(bytes, offset, count);
+            } else {
+                file.seek(pos);
+                count = file.read(bytes, offset, length);
+            }
+            if (count > 0) {
+                pos += count;
+            }
+            return count;
+        }
+    }
+
     private static class RandomAccessFileInputStream extends InputStream {
         private final RandomAccessFile file;
 
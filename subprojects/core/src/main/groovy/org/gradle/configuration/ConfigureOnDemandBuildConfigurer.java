@@ -0,0 +1,51 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration;
+
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link BuildConfigurer} which configures only the root project, and the default project and its parents. The
+ * remaining projects are configured as they are needed, by a {@link ConfigureOnDemandProjectEvaluator}. Falls back to
+ * configuring all projects when a script needs every project to be configured.
+ *
+ * @see org.gradle.api.internal.GradleInternal#isFullConfigurationRequired()
+ */
+public class ConfigureOnDemandBuildConfigurer implements BuildConfigurer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigureOnDemandBuildConfigurer.class);
+
+    public void configure(GradleInternal gradle) {
+        gradle.getRootProject().evaluate();
+        if (!gradle.isFullConfigurationRequired()) {
+            gradle.getDefaultProject().evaluate();
+        }
+        if (!gradle.isFullConfigurationRequired()) {
+            return;
+        }
+
+        LOGGER.info("A projectsEvaluated hook has been registered for {}. Configuring all projects.", gradle);
+        gradle.getRootProject().allprojects(new Action<Project>() {
+            public void execute(Project project) {
+                ((ProjectInternal) project).evaluate();
+            }
+        });
+    }
+}
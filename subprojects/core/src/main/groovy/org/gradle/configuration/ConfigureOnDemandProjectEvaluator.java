@@ -0,0 +1,69 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration;
+
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectStateInternal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link ProjectEvaluator} used when projects are configured on demand. Evaluates the parent of a project before the
+ * project itself. Once the project has been evaluated, evaluates the projects it depends on and then applies the given
+ * actions to it, which {@link DefaultBuildConfigurer} would otherwise do once all projects have been evaluated.
+ *
+ * <p>A project may be needed again while its build script is still running, for example when the script resolves a
+ * configuration which depends on the project. Such a request is ignored.</p>
+ */
+public class ConfigureOnDemandProjectEvaluator implements ProjectEvaluator {
+    private final ProjectEvaluator evaluator;
+    private final List<Action<? super ProjectInternal>> actions;
+
+    public ConfigureOnDemandProjectEvaluator(ProjectEvaluator evaluator, Action<? super ProjectInternal>... actions) {
+        this.evaluator = evaluator;
+        this.actions = new ArrayList<Action<? super ProjectInternal>>(Arrays.asList(actions));
+    }
+
+    public void evaluate(ProjectInternal project, ProjectStateInternal state) {
+        if (state.getExecuted() || state.isExecutingInCurrentThread()) {
+            return;
+        }
+
+        if (project.getParent() != null) {
+            project.getParent().evaluate();
+            if (state.getExecuted()) {
+                // The parent has evaluated this project
+                return;
+            }
+        }
+
+        evaluator.evaluate(project, state);
+        if (state.getFailure() != null) {
+            return;
+        }
+
+        for (Project dependsOnProject : project.getDependsOnProjects()) {
+            ((ProjectInternal) dependsOnProject).evaluate();
+        }
+        for (Action<? super ProjectInternal> action : actions) {
+            action.execute(project);
+        }
+    }
+}
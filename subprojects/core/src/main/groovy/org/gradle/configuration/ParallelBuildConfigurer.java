@@ -0,0 +1,130 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration;
+
+import org.gradle.api.Project;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+import org.gradle.util.UncheckedException;
+
+import java.util.LinkedList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link BuildConfigurer} which evaluates the projects of the build using a pool of threads, and then hands the build
+ * to another configurer to complete its configuration. A project is evaluated once its parent has been evaluated, so
+ * that a project can configure its descendants, in the same way as when projects are evaluated one at a time.
+ */
+public class ParallelBuildConfigurer implements BuildConfigurer {
+    private final BuildConfigurer configurer;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
+
+    public ParallelBuildConfigurer(BuildConfigurer configurer, ExecutorFactory executorFactory, int maxThreads) {
+        this.configurer = configurer;
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
+    }
+
+    public void configure(GradleInternal gradle) {
+        new ParallelEvaluation(gradle.getRootProject()).run();
+        configurer.configure(gradle);
+    }
+
+    private class ParallelEvaluation implements Runnable {
+        private final Lock lock = new ReentrantLock();
+        private final Condition condition = lock.newCondition();
+        private final LinkedList<ProjectInternal> queue = new LinkedList<ProjectInternal>();
+        private int running;
+        private Throwable failure;
+
+        private ParallelEvaluation(ProjectInternal rootProject) {
+            queue.add(rootProject);
+        }
+
+        public void run() {
+            StoppableExecutor executor = executorFactory.create("configure projects");
+            try {
+                for (int i = 0; i < maxThreads; i++) {
+                    executor.execute(new Runnable() {
+                        public void run() {
+                            ProjectInternal project;
+                            while ((project = takeNext()) != null) {
+                                evaluate(project);
+                            }
+                        }
+                    });
+                }
+            } finally {
+                executor.stop();
+            }
+            if (failure != null) {
+                throw UncheckedException.asUncheckedException(failure);
+            }
+        }
+
+        /**
+         * Returns the next project to evaluate, or null when there are no more projects to evaluate.
+         */
+        private ProjectInternal takeNext() {
+            lock.lock();
+            try {
+                while (queue.isEmpty() && running > 0 && failure == null) {
+                    condition.await();
+                }
+                if (queue.isEmpty() || failure != null) {
+                    return null;
+                }
+                running++;
+                return queue.removeFirst();
+            } catch (InterruptedException e) {
+                throw UncheckedException.asUncheckedException(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void evaluate(ProjectInternal project) {
+            Throwable evaluationFailure = null;
+            try {
+                project.evaluate();
+            } catch (Throwable t) {
+                evaluationFailure = t;
+            }
+
+            lock.lock();
+            try {
+                running--;
+                if (evaluationFailure != null) {
+                    if (failure == null) {
+                        failure = evaluationFailure;
+                    }
+                } else {
+                    for (Project child : project.getChildProjects().values()) {
+                        queue.add((ProjectInternal) child);
+                    }
+                }
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
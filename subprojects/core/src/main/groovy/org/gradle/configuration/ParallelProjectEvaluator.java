@@ -0,0 +1,102 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration;
+
+import org.gradle.api.CircularReferenceException;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectStateInternal;
+import org.gradle.util.UncheckedException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link ProjectEvaluator} which allows projects to be evaluated by several threads at once. A thread which needs a
+ * project that is being evaluated by another thread, for example using {@code evaluationDependsOn()}, waits for that
+ * evaluation to complete. Fails when threads would end up waiting for each other.
+ */
+public class ParallelProjectEvaluator implements ProjectEvaluator {
+    private final ProjectEvaluator evaluator;
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private final Map<ProjectInternal, Thread> evaluating = new HashMap<ProjectInternal, Thread>();
+    private final Map<Thread, ProjectInternal> waiting = new HashMap<Thread, ProjectInternal>();
+
+    public ParallelProjectEvaluator(ProjectEvaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    public void evaluate(ProjectInternal project, ProjectStateInternal state) {
+        Thread currentThread = Thread.currentThread();
+        boolean owner = false;
+        lock.lock();
+        try {
+            while (!state.getExecuted()) {
+                Thread evaluatingThread = evaluating.get(project);
+                if (evaluatingThread == null) {
+                    evaluating.put(project, currentThread);
+                    owner = true;
+                    break;
+                }
+                if (evaluatingThread == currentThread) {
+                    break;
+                }
+                assertNotWaitingFor(evaluatingThread, project);
+                waiting.put(currentThread, project);
+                try {
+                    condition.await();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.asUncheckedException(e);
+                } finally {
+                    waiting.remove(currentThread);
+                }
+            }
+            if (state.getExecuted()) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            evaluator.evaluate(project, state);
+        } finally {
+            if (owner) {
+                lock.lock();
+                try {
+                    evaluating.remove(project);
+                    condition.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void assertNotWaitingFor(Thread evaluatingThread, ProjectInternal project) {
+        Thread thread = evaluatingThread;
+        while (thread != null) {
+            if (thread == Thread.currentThread()) {
+                throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.", project));
+            }
+            ProjectInternal waitingFor = waiting.get(thread);
+            thread = waitingFor == null ? null : evaluating.get(waitingFor);
+        }
+    }
+}
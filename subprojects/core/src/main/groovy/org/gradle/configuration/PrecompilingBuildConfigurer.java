@@ -0,0 +1,121 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration;
+
+import org.gradle.api.Project;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.artifacts.dsl.BuildScriptClasspathScriptTransformer;
+import org.gradle.api.internal.artifacts.dsl.BuildScriptTransformer;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectScript;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.internal.ScriptClassCompiler;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A {@link BuildConfigurer} which compiles the build scripts of the projects of the build using a pool of threads, and
+ * then hands the build to another configurer. The compiled script classes end up in the script caches, so that the
+ * scripts are not compiled again as each project is evaluated.
+ *
+ * <p>A build script is compiled ahead of time only when neither it nor the build script of any ancestor project
+ * declares build script dependencies, as these change the classes the script is compiled against. Failures are
+ * ignored, and are reported instead when the project is evaluated.</p>
+ */
+public class PrecompilingBuildConfigurer implements BuildConfigurer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrecompilingBuildConfigurer.class);
+    private static final String CLASSPATH_CLOSURE_NAME = "buildscript";
+    private final BuildConfigurer configurer;
+    private final ScriptClassCompiler scriptClassCompiler;
+    private final ImportsReader importsReader;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
+
+    public PrecompilingBuildConfigurer(BuildConfigurer configurer, ScriptClassCompiler scriptClassCompiler, ImportsReader importsReader,
+                                       ExecutorFactory executorFactory, int maxThreads) {
+        this.configurer = configurer;
+        this.scriptClassCompiler = scriptClassCompiler;
+        this.importsReader = importsReader;
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
+    }
+
+    public void configure(GradleInternal gradle) {
+        List<ProjectInternal> projects = new ArrayList<ProjectInternal>();
+        collectProjects(gradle.getRootProject(), projects);
+        if (projects.size() > 1) {
+            compile(projects);
+        }
+        configurer.configure(gradle);
+    }
+
+    private void collectProjects(ProjectInternal project, List<ProjectInternal> projects) {
+        if (declaresClasspath(project)) {
+            return;
+        }
+        projects.add(project);
+        for (Project child : project.getChildProjects().values()) {
+            collectProjects((ProjectInternal) child, projects);
+        }
+    }
+
+    private boolean declaresClasspath(ProjectInternal project) {
+        try {
+            return project.getBuildScriptSource().getResource().getText().contains(CLASSPATH_CLOSURE_NAME);
+        } catch (Exception e) {
+            // Leave it to the project evaluation to report the problem
+            return true;
+        }
+    }
+
+    private void compile(List<ProjectInternal> projects) {
+        final Queue<ProjectInternal> queue = new ConcurrentLinkedQueue<ProjectInternal>(projects);
+        StoppableExecutor executor = executorFactory.create("compile build scripts");
+        try {
+            for (int i = 0; i < Math.min(maxThreads, projects.size()); i++) {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        ProjectInternal project;
+                        while ((project = queue.poll()) != null) {
+                            compile(project);
+                        }
+                    }
+                });
+            }
+        } finally {
+            executor.stop();
+        }
+    }
+
+    private void compile(ProjectInternal project) {
+        try {
+            ScriptSource source = importsReader.withImports(project.getBuildScriptSource());
+            ClassLoader classLoader = project.getBuildscript().getClassLoader();
+            BuildScriptClasspathScriptTransformer classpathScriptTransformer = new BuildScriptClasspathScriptTransformer(CLASSPATH_CLOSURE_NAME);
+            scriptClassCompiler.compile(source, classLoader, classpathScriptTransformer, ProjectScript.class);
+            scriptClassCompiler.compile(source, classLoader, new BuildScriptTransformer(classpathScriptTransformer), ProjectScript.class);
+        } catch (Throwable t) {
+            LOGGER.debug(String.format("Could not compile %s ahead of time.", project.getBuildScriptSource().getDisplayName()), t);
+        }
+    }
+}
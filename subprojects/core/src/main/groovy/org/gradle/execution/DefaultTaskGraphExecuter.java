@@ -27,6 +27,7 @@ import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
 import org.gradle.listener.ListenerBroadcast;
 import org.gradle.listener.ListenerManager;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 import org.gradle.util.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,7 +51,24 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         }
     };
 
+    private final TaskPlanExecutor taskPlanExecutor;
+
     public DefaultTaskGraphExecuter(ListenerManager listenerManager) {
+        this(listenerManager, new DefaultTaskPlanExecutor());
+    }
+
+    /**
+     * Creates an executer which uses the given number of worker threads to execute independent tasks concurrently.
+     * Uses the calling thread to execute all tasks when the thread count is less than 2.
+     */
+    public DefaultTaskGraphExecuter(ListenerManager listenerManager, ExecutorFactory executorFactory, int parallelThreadCount) {
+        this(listenerManager, parallelThreadCount > 1
+                ? new ParallelTaskPlanExecutor(executorFactory, parallelThreadCount)
+                : new DefaultTaskPlanExecutor());
+    }
+
+    DefaultTaskGraphExecuter(ListenerManager listenerManager, TaskPlanExecutor taskPlanExecutor) {
+        this.taskPlanExecutor = taskPlanExecutor;
         graphListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionGraphListener.class);
         taskListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionListener.class);
     }
@@ -80,7 +98,7 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         graphListeners.getSource().graphPopulated(this);
 
         try {
-            doExecute(executionPlan.values());
+            taskPlanExecutor.process(executionPlan.values(), taskListeners.getSource(), failureHandler);
             logger.debug("Timing: Executing the DAG took " + clock.getTime());
         } finally {
             executionPlan.clear();
@@ -172,34 +190,6 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         this.failureHandler = handler;
     }
 
-    private void doExecute(Iterable<? extends TaskInfo> tasks) {
-        for (TaskInfo task : tasks) {
-            executeTask(task);
-        }
-    }
-
-    private void executeTask(TaskInfo taskInfo) {
-        TaskInternal task = taskInfo.task;
-        for (TaskInfo dependency : taskInfo.dependencies) {
-            if (!dependency.executed) {
-                // Cannot execute this task, as some dependencies have not been executed
-                return;
-            }
-        }
-        
-        taskListeners.getSource().beforeExecute(task);
-        try {
-            task.executeWithoutThrowingTaskFailure();
-            if (task.getState().getFailure() != null) {
-                failureHandler.onTaskFailure(task);
-            } else {
-                taskInfo.executed = true;
-            }
-        } finally {
-            taskListeners.getSource().afterExecute(task, task.getState());
-        }
-    }
-
     public boolean hasTask(Task task) {
         assertPopulated();
         return executionPlan.containsKey(task);
@@ -227,15 +217,4 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
                     "Task information is not available, as this task execution graph has not been populated.");
         }
     }
-    
-    private static class TaskInfo {
-        private final TaskInternal task;
-        private final Set<TaskInfo> dependencies;
-        private boolean executed;
-
-        private TaskInfo(TaskInternal task, Set<TaskInfo> dependencies) {
-            this.task = task;
-            this.dependencies = dependencies;
-        }
-    }
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.execution.TaskExecutionListener;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+import org.gradle.util.UncheckedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Executes the tasks of the plan using a fixed number of worker threads. Each worker picks the first task in the plan
+ * whose dependencies have all executed successfully, so that independent tasks execute concurrently.
+ *
+ * <p>Task listeners and the failure handler are never called concurrently. When the failure handler throws an
+ * exception, no further tasks are started and the exception is rethrown once the currently executing tasks have
+ * completed.</p>
+ */
+class ParallelTaskPlanExecutor implements TaskPlanExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelTaskPlanExecutor.class);
+    private final ExecutorFactory executorFactory;
+    private final int workerCount;
+
+    public ParallelTaskPlanExecutor(ExecutorFactory executorFactory, int workerCount) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be positive.");
+        }
+        this.executorFactory = executorFactory;
+        this.workerCount = workerCount;
+    }
+
+    public void process(Collection<TaskInfo> plan, TaskExecutionListener taskListener, TaskFailureHandler failureHandler) {
+        ExecutionState state = new ExecutionState(plan, taskListener, failureHandler);
+        StoppableExecutor executor = executorFactory.create("Task worker");
+        try {
+            int workers = Math.min(workerCount, Math.max(1, plan.size()));
+            LOGGER.debug("Using {} worker threads to execute {} tasks.", workers, plan.size());
+            for (int i = 0; i < workers; i++) {
+                executor.execute(new TaskWorker(state));
+            }
+        } finally {
+            executor.stop();
+        }
+        state.rethrowFailure();
+    }
+
+    private static class ExecutionState {
+        private final Lock lock = new ReentrantLock();
+        private final Condition stateChanged = lock.newCondition();
+        private final Object listenerLock = new Object();
+        private final List<TaskInfo> pending;
+        private final TaskExecutionListener taskListener;
+        private final TaskFailureHandler failureHandler;
+        private Throwable failure;
+
+        private ExecutionState(Collection<TaskInfo> plan, TaskExecutionListener taskListener, TaskFailureHandler failureHandler) {
+            this.pending = new LinkedList<TaskInfo>(plan);
+            this.taskListener = taskListener;
+            this.failureHandler = failureHandler;
+        }
+
+        /**
+         * Blocks until a task is ready to execute. Returns null when there are no more tasks to execute.
+         */
+        public TaskInfo takeNextTask() {
+            lock.lock();
+            try {
+                while (true) {
+                    if (failure != null || pending.isEmpty()) {
+                        return null;
+                    }
+                    TaskInfo next = selectNextTask();
+                    if (next != null) {
+                        return next;
+                    }
+                    if (pending.isEmpty()) {
+                        // Skipped all remaining tasks
+                        stateChanged.signalAll();
+                        return null;
+                    }
+                    stateChanged.await();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.asUncheckedException(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private TaskInfo selectNextTask() {
+            Iterator<TaskInfo> iterator = pending.iterator();
+            while (iterator.hasNext()) {
+                TaskInfo taskInfo = iterator.next();
+                if (!taskInfo.allDependenciesComplete()) {
+                    continue;
+                }
+                iterator.remove();
+                if (taskInfo.allDependenciesExecuted()) {
+                    taskInfo.setState(TaskInfo.State.EXECUTING);
+                    return taskInfo;
+                }
+                // Cannot execute this task, as some dependencies have not been executed. The plan is ordered, so any
+                // tasks which depend on this task appear later and will also be skipped by this loop.
+                taskInfo.setState(TaskInfo.State.SKIPPED);
+            }
+            return null;
+        }
+
+        public void execute(TaskInfo taskInfo) {
+            TaskInternal task = taskInfo.getTask();
+            try {
+                synchronized (listenerLock) {
+                    taskListener.beforeExecute(task);
+                }
+                try {
+                    task.executeWithoutThrowingTaskFailure();
+                } finally {
+                    synchronized (listenerLock) {
+                        taskListener.afterExecute(task, task.getState());
+                    }
+                }
+            } catch (Throwable t) {
+                taskFinished(taskInfo, t);
+                return;
+            }
+            taskFinished(taskInfo, null);
+        }
+
+        private void taskFinished(TaskInfo taskInfo, Throwable executionFailure) {
+            lock.lock();
+            try {
+                if (executionFailure != null) {
+                    taskInfo.setState(TaskInfo.State.FAILED);
+                    abort(executionFailure);
+                } else if (taskInfo.getTask().getState().getFailure() != null) {
+                    taskInfo.setState(TaskInfo.State.FAILED);
+                    try {
+                        failureHandler.onTaskFailure(taskInfo.getTask());
+                    } catch (Throwable t) {
+                        abort(t);
+                    }
+                } else {
+                    taskInfo.setState(TaskInfo.State.EXECUTED);
+                }
+                stateChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void abort(Throwable t) {
+            if (failure == null) {
+                failure = t;
+            }
+        }
+
+        public void rethrowFailure() {
+            lock.lock();
+            try {
+                if (failure != null) {
+                    throw UncheckedException.asUncheckedException(failure);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static class TaskWorker implements Runnable {
+        private final ExecutionState state;
+
+        private TaskWorker(ExecutionState state) {
+            this.state = state;
+        }
+
+        public void run() {
+            while (true) {
+                TaskInfo taskInfo = state.takeNextTask();
+                if (taskInfo == null) {
+                    return;
+                }
+                state.execute(taskInfo);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.internal.TaskInternal;
+
+import java.util.Set;
+
+/**
+ * An entry in the task execution plan. Holds the task and the plan entries for the tasks it depends on.
+ */
+class TaskInfo {
+    enum State { NOT_STARTED, EXECUTING, EXECUTED, FAILED, SKIPPED }
+
+    private final TaskInternal task;
+    private final Set<TaskInfo> dependencies;
+    private State state = State.NOT_STARTED;
+
+    TaskInfo(TaskInternal task, Set<TaskInfo> dependencies) {
+        this.task = task;
+        this.dependencies = dependencies;
+    }
+
+    public TaskInternal getTask() {
+        return task;
+    }
+
+    public Set<TaskInfo> getDependencies() {
+        return dependencies;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public boolean isComplete() {
+        return state == State.EXECUTED || state == State.FAILED || state == State.SKIPPED;
+    }
+
+    /**
+     * Returns true when all dependencies of this task have executed successfully.
+     */
+    public boolean allDependenciesExecuted() {
+        for (TaskInfo dependency : dependencies) {
+            if (dependency.state != State.EXECUTED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true when all dependencies of this task have completed, whether successfully or not.
+     */
+    public boolean allDependenciesComplete() {
+        for (TaskInfo dependency : dependencies) {
+            if (!dependency.isComplete()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
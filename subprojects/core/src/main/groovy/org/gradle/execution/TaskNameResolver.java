@@ -34,6 +34,12 @@ public class TaskNameResolver {
     }
 
     private SetMultimap<String, Task> select(String name, ProjectInternal project, Iterable<Project> additionalProjects) {
+        // Make sure the projects have been configured, as they may be configured on demand
+        project.evaluate();
+        for (Project additionalProject : additionalProjects) {
+            ((ProjectInternal) additionalProject).evaluate();
+        }
+
         SetMultimap<String, Task> selected = LinkedHashMultimap.create();
         Task task = project.getTasks().findByName(name);
         if (task != null) {
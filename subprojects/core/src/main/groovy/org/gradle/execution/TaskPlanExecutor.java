@@ -0,0 +1,36 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.execution.TaskExecutionListener;
+
+import java.util.Collection;
+
+/**
+ * Executes the tasks of an execution plan.
+ */
+interface TaskPlanExecutor {
+    /**
+     * Executes the given plan. The plan is ordered so that each task appears after all of its dependencies. A task is
+     * executed only when all of its dependencies have executed successfully.
+     *
+     * @param plan The plan to execute.
+     * @param taskListener The listener to notify of task execution.
+     * @param failureHandler The handler to notify of task failures. May throw an exception to abort execution.
+     */
+    void process(Collection<TaskInfo> plan, TaskExecutionListener taskListener, TaskFailureHandler failureHandler);
+}
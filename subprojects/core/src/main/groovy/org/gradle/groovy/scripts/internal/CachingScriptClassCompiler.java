@@ -18,23 +18,48 @@ package org.gradle.groovy.scripts.internal;
 import groovy.lang.Script;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.groovy.scripts.Transformer;
+import org.gradle.util.ClassLoaderCanonicaliser;
+import org.gradle.util.HashUtil;
 
 import java.util.*;
 
+/**
+ * A {@link ScriptClassCompiler} which reuses the script classes already loaded by this build and, through an {@link
+ * InMemoryScriptClassCache}, by earlier builds run in the same process. Can be used by multiple threads concurrently.
+ */
 public class CachingScriptClassCompiler implements ScriptClassCompiler {
     private final Map<Collection<Object>, Class<?>> cachedClasses = new HashMap<Collection<Object>, Class<?>>();
+    private final InMemoryScriptClassCache classCache;
     private final ScriptClassCompiler scriptClassCompiler;
 
-    public CachingScriptClassCompiler(ScriptClassCompiler scriptClassCompiler) {
+    public CachingScriptClassCompiler(InMemoryScriptClassCache classCache, ScriptClassCompiler scriptClassCompiler) {
+        this.classCache = classCache;
         this.scriptClassCompiler = scriptClassCompiler;
     }
 
     public <T extends Script> Class<? extends T> compile(ScriptSource source, ClassLoader classLoader, Transformer transformer, Class<T> scriptBaseClass) {
-        List<Object> key = Arrays.asList(source.getClassName(), classLoader, transformer.getId(), scriptBaseClass.getName());
-        Class<?> c = cachedClasses.get(key);
+        ClassLoader parent = ClassLoaderCanonicaliser.canonicalise(classLoader);
+        List<Object> key = Arrays.asList(source.getClassName(), parent, transformer.getId(), scriptBaseClass.getName());
+        Class<?> c;
+        synchronized (cachedClasses) {
+            c = cachedClasses.get(key);
+        }
         if (c == null) {
-            c = scriptClassCompiler.compile(source, classLoader, transformer, scriptBaseClass);
-            cachedClasses.put(key, c);
+            List<Object> scriptKey = Arrays.<Object>asList(source.getClassName(), transformer.getId(), scriptBaseClass.getName());
+            String hash = HashUtil.createHash(source.getResource().getText());
+            c = classCache.get(parent, scriptKey, hash);
+            if (c == null) {
+                c = scriptClassCompiler.compile(source, parent, transformer, scriptBaseClass);
+                classCache.put(parent, scriptKey, hash, c);
+            }
+            synchronized (cachedClasses) {
+                Class<?> existing = cachedClasses.get(key);
+                if (existing != null) {
+                    c = existing;
+                } else {
+                    cachedClasses.put(key, c);
+                }
+            }
         }
         return c.asSubclass(scriptBaseClass);
     }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.groovy.scripts.internal;
+
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Holds the script classes loaded by the builds run in this process, so that a long-lived process such as the daemon
+ * does not have to load a script class again for each build. A class is reused only when it is requested with the same
+ * parent ClassLoader and the script source has not changed. Classes are softly referenced, so they are discarded when
+ * memory is low, and are discarded along with their parent ClassLoader once it is no longer used.
+ */
+public class InMemoryScriptClassCache {
+    private final Map<ClassLoader, Map<List<Object>, CachedClass>> classes = new WeakHashMap<ClassLoader, Map<List<Object>, CachedClass>>();
+
+    /**
+     * Returns the class with the given key and source hash which has been loaded using the given parent ClassLoader,
+     * or null if there is no such class.
+     */
+    public synchronized Class<?> get(ClassLoader parent, List<Object> key, String hash) {
+        Map<List<Object>, CachedClass> classesForParent = classes.get(parent);
+        if (classesForParent == null) {
+            return null;
+        }
+        CachedClass cachedClass = classesForParent.get(key);
+        if (cachedClass == null || !cachedClass.hash.equals(hash)) {
+            return null;
+        }
+        Class<?> scriptClass = cachedClass.scriptClass.get();
+        if (scriptClass == null) {
+            classesForParent.remove(key);
+        }
+        return scriptClass;
+    }
+
+    public synchronized void put(ClassLoader parent, List<Object> key, String hash, Class<?> scriptClass) {
+        Map<List<Object>, CachedClass> classesForParent = classes.get(parent);
+        if (classesForParent == null) {
+            classesForParent = new HashMap<List<Object>, CachedClass>();
+            classes.put(parent, classesForParent);
+        }
+        classesForParent.put(key, new CachedClass(hash, scriptClass));
+    }
+
+    private static class CachedClass {
+        private final String hash;
+        private final SoftReference<Class<?>> scriptClass;
+
+        private CachedClass(String hash, Class<?> scriptClass) {
+            this.hash = hash;
+            this.scriptClass = new SoftReference<Class<?>>(scriptClass);
+        }
+    }
+}
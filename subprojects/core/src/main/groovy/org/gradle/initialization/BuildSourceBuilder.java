@@ -19,7 +19,6 @@ package org.gradle.initialization;
 import org.gradle.BuildAdapter;
 import org.gradle.GradleLauncher;
 import org.gradle.StartParameter;
-import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.plugins.EmbeddableJavaProject;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheBuilder;
@@ -30,7 +29,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.*;
@@ -43,28 +41,21 @@ public class BuildSourceBuilder {
 
     private final GradleLauncherFactory gradleLauncherFactory;
     private final ClassLoaderRegistry classLoaderRegistry;
+    private final InMemoryClassLoaderCache classLoaderCache;
     private final CacheRepository cacheRepository;
 
     private static final String DEFAULT_BUILD_SOURCE_SCRIPT_RESOURCE = "defaultBuildSourceScript.txt";
 
-    public BuildSourceBuilder(GradleLauncherFactory gradleLauncherFactory, ClassLoaderRegistry classLoaderRegistry, CacheRepository cacheRepository) {
+    public BuildSourceBuilder(GradleLauncherFactory gradleLauncherFactory, ClassLoaderRegistry classLoaderRegistry, InMemoryClassLoaderCache classLoaderCache, CacheRepository cacheRepository) {
         this.gradleLauncherFactory = gradleLauncherFactory;
         this.classLoaderRegistry = classLoaderRegistry;
+        this.classLoaderCache = classLoaderCache;
         this.cacheRepository = cacheRepository;
     }
 
     public URLClassLoader buildAndCreateClassLoader(StartParameter startParameter) {
         Set<File> classpath = createBuildSourceClasspath(startParameter);
-        Iterator<File> classpathIterator = classpath.iterator();
-        URL[] urls = new URL[classpath.size()];
-        for (int i = 0; i < urls.length; i++) {
-            try {
-                urls[i] = classpathIterator.next().toURI().toURL();
-            } catch (MalformedURLException e) {
-                throw new UncheckedIOException(e);
-            }
-        }
-        return new URLClassLoader(urls, classLoaderRegistry.getRootClassLoader());
+        return classLoaderCache.get(classLoaderRegistry.getRootClassLoader(), classpath);
     }
 
     public Set<File> createBuildSourceClasspath(StartParameter startParameter) {
@@ -66,6 +66,9 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
     private static final String EXCLUDE_TASK = "x";
     private static final String PROFILE = "profile";
     private static final String CONTINUE = "continue";
+    private static final String PARALLEL_THREADS = "parallel-threads";
+    private static final String PARALLEL_CONFIGURATION = "parallel-configuration";
+    private static final String CONFIGURE_ON_DEMAND = "configure-on-demand";
     private static final String PROJECT_CACHE_DIR = "project-cache-dir";
 
     private static BiMap<String, StartParameter.ShowStacktrace> showStacktraceMap = HashBiMap.create();
@@ -106,6 +109,9 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
         parser.option(EXCLUDE_TASK, "exclude-task").hasArguments().hasDescription("Specify a task to be excluded from execution.");
         parser.option(PROFILE).hasDescription("Profiles build execution time and generates a report in the <build_dir>/reports/profile directory.");
         parser.option(CONTINUE).hasDescription("Continues task execution after a task failure. [experimental]");
+        parser.option(PARALLEL_THREADS).hasArgument().hasDescription("Executes independent tasks concurrently, using the specified number of threads. [experimental]");
+        parser.option(PARALLEL_CONFIGURATION).hasDescription("Configures projects concurrently once their parent project has been configured. [experimental]");
+        parser.option(CONFIGURE_ON_DEMAND).hasDescription("Only configures the projects required to run the requested tasks. [experimental]");
     }
 
     @Override
@@ -218,6 +224,29 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
         if (options.hasOption(CONTINUE)) {
             startParameter.setContinueOnFailure(true);
         }
+
+        if (options.hasOption(PARALLEL_THREADS)) {
+            String value = options.option(PARALLEL_THREADS).getValue();
+            try {
+                int threadCount = Integer.parseInt(value);
+                if (threadCount < 1) {
+                    throw new NumberFormatException();
+                }
+                startParameter.setParallelThreadCount(threadCount);
+            } catch (NumberFormatException e) {
+                throw new CommandLineArgumentException(String.format(
+                        "Error: The --%s option requires a positive number of threads, but '%s' was specified.",
+                        PARALLEL_THREADS, value));
+            }
+        }
+
+        if (options.hasOption(PARALLEL_CONFIGURATION)) {
+            startParameter.setParallelProjectConfiguration(true);
+        }
+
+        if (options.hasOption(CONFIGURE_ON_DEMAND)) {
+            startParameter.setConfigureOnDemand(true);
+        }
         
         return startParameter;
     }
@@ -18,9 +18,14 @@ package org.gradle.initialization;
 
 import org.gradle.*;
 import org.gradle.api.internal.ExceptionAnalyser;
+import org.gradle.api.internal.Instantiator;
+import org.gradle.api.internal.plugins.DefaultPluginRegistry;
+import org.gradle.api.internal.plugins.PluginRegistry;
 import org.gradle.api.internal.project.GlobalServicesRegistry;
 import org.gradle.api.internal.project.ServiceRegistry;
 import org.gradle.api.internal.project.TopLevelBuildServiceRegistry;
+import org.gradle.api.internal.project.taskfactory.ITaskFactory;
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.logging.StandardOutputListener;
 import org.gradle.cli.CommandLineConverter;
@@ -73,6 +78,30 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
         sharedServices.get(ListenerManager.class).removeListener(listener);
     }
 
+    /**
+     * Creates the services which are shared by all builds, and loads the implementation classes of the given plugins,
+     * so that a long-lived process can do this work before its first build is requested.
+     */
+    public void preload(Iterable<String> pluginIds) {
+        if (commandLineConverter == null) {
+            commandLineConverter = sharedServices.get(CommandLineConverter.class);
+        }
+        sharedServices.get(Instantiator.class);
+        sharedServices.get(ITaskFactory.class);
+        PluginRegistry pluginRegistry = new DefaultPluginRegistry(sharedServices.get(ClassLoaderRegistry.class).getPluginsClassLoader());
+        for (String pluginId : pluginIds) {
+            pluginRegistry.getTypeForId(pluginId);
+        }
+    }
+
+    /**
+     * Stops the processes which the builds run by this factory have left running, such as compiler daemons. Called
+     * when a long-lived process which runs many builds is about to exit.
+     */
+    public void stop() {
+        sharedServices.get(CompilerDaemonManager.class).stop();
+    }
+
     public StartParameter createStartParameter(String... commandLineArgs) {
         if (commandLineConverter == null) {
             commandLineConverter = sharedServices.get(CommandLineConverter.class);
@@ -135,6 +164,7 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
                         new BuildSourceBuilder(
                                 this,
                                 serviceRegistry.get(ClassLoaderRegistry.class),
+                                serviceRegistry.get(InMemoryClassLoaderCache.class),
                                 serviceRegistry.get(CacheRepository.class))),
                 serviceRegistry.get(BuildLoader.class),
                 serviceRegistry.get(BuildConfigurer.class),
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.initialization;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.changedetection.Hasher;
+import org.gradle.util.UncheckedException;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * A cache of the ClassLoaders created for buildSrc and for build script classpaths, shared by all builds run by a
+ * process. A ClassLoader is reused when it is requested with the same parent and classpath, and the contents of the
+ * classpath have not changed since it was created. This way a long-lived process such as the daemon keeps the classes
+ * loaded from an unchanged plugin classpath, and their compiled code, from one build to the next. Holds at most a fixed
+ * number of ClassLoaders, evicting the least recently used ClassLoaders first.
+ *
+ * <p>Is thread-safe.</p>
+ */
+public class InMemoryClassLoaderCache {
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+    private final Hasher hasher;
+    private final Map<List<Object>, CachedClassLoader> entries;
+
+    public InMemoryClassLoaderCache(Hasher hasher) {
+        this(hasher, DEFAULT_MAX_ENTRIES);
+    }
+
+    public InMemoryClassLoaderCache(Hasher hasher, final int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Maximum number of entries must be positive.");
+        }
+        this.hasher = hasher;
+        entries = new LinkedHashMap<List<Object>, CachedClassLoader>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedClassLoader> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns a ClassLoader which loads classes from the given classpath, and delegates to the given parent.
+     */
+    public URLClassLoader get(ClassLoader parent, Collection<File> classpath) {
+        List<File> files = new ArrayList<File>(classpath);
+        List<Object> key = Arrays.asList(parent, files);
+        String hash = hash(files);
+        synchronized (this) {
+            CachedClassLoader cachedClassLoader = entries.get(key);
+            if (cachedClassLoader != null && cachedClassLoader.hash.equals(hash)) {
+                return cachedClassLoader.classLoader;
+            }
+            URLClassLoader classLoader = new URLClassLoader(toURLs(files), parent);
+            entries.put(key, new CachedClassLoader(hash, classLoader));
+            return classLoader;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private String hash(List<File> files) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw UncheckedException.asUncheckedException(e);
+        }
+        for (File file : files) {
+            hash(file, file.getAbsolutePath(), digest);
+        }
+        return new BigInteger(1, digest.digest()).toString(32);
+    }
+
+    private void hash(File file, String path, MessageDigest digest) {
+        digest.update(path.getBytes());
+        if (file.isFile()) {
+            digest.update((byte) 1);
+            digest.update(hasher.hash(file));
+        } else if (file.isDirectory()) {
+            digest.update((byte) 2);
+            File[] children = file.listFiles();
+            if (children == null) {
+                throw new UncheckedIOException(String.format("Could not list contents of directory '%s'.", file));
+            }
+            Arrays.sort(children);
+            for (File child : children) {
+                hash(child, child.getName(), digest);
+            }
+            digest.update((byte) 3);
+        } else {
+            digest.update((byte) 0);
+        }
+    }
+
+    private static URL[] toURLs(List<File> files) {
+        URL[] urls = new URL[files.size()];
+        for (int i = 0; i < urls.length; i++) {
+            try {
+                urls[i] = files.get(i).toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return urls;
+    }
+
+    private static class CachedClassLoader {
+        private final String hash;
+        private final URLClassLoader classLoader;
+
+        private CachedClassLoader(String hash, URLClassLoader classLoader) {
+            this.hash = hash;
+            this.classLoader = classLoader;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.invocation;
 
 import groovy.lang.Closure;
+import org.gradle.BuildAdapter;
 import org.gradle.BuildListener;
 import org.gradle.StartParameter;
 import org.gradle.api.ProjectEvaluationListener;
@@ -33,6 +34,7 @@ import org.gradle.util.GradleVersion;
 import org.gradle.util.MultiParentClassLoader;
 
 import java.io.File;
+import java.lang.reflect.Method;
 
 public class DefaultGradle implements GradleInternal {
     private ProjectInternal rootProject;
@@ -47,6 +49,7 @@ public class DefaultGradle implements GradleInternal {
     private final GradleDistributionLocator distributionLocator;
     private final ListenerBroadcast<BuildListener> buildListenerBroadcast;
     private final ListenerBroadcast<ProjectEvaluationListener> projectEvaluationListenerBroadcast;
+    private boolean fullConfigurationRequired;
 
     public DefaultGradle(Gradle parent, StartParameter startParameter, ServiceRegistryFactory parentRegistry) {
         this.parent = parent;
@@ -148,6 +151,7 @@ public class DefaultGradle implements GradleInternal {
     }
 
     public void projectsEvaluated(Closure closure) {
+        fullConfigurationRequired = true;
         buildListenerBroadcast.add("projectsEvaluated", closure);
     }
 
@@ -156,9 +160,21 @@ public class DefaultGradle implements GradleInternal {
     }
 
     public void addListener(Object listener) {
+        if (listener instanceof BuildListener && handlesProjectsEvaluated(listener)) {
+            fullConfigurationRequired = true;
+        }
         listenerManager.addListener(listener);
     }
 
+    private static boolean handlesProjectsEvaluated(Object listener) {
+        try {
+            Method method = listener.getClass().getMethod("projectsEvaluated", Gradle.class);
+            return method.getDeclaringClass() != BuildAdapter.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
     public void removeListener(Object listener) {
         listenerManager.removeListener(listener);
     }
@@ -179,6 +195,10 @@ public class DefaultGradle implements GradleInternal {
         return buildListenerBroadcast.getSource();
     }
 
+    public boolean isFullConfigurationRequired() {
+        return fullConfigurationRequired;
+    }
+
     public Gradle getGradle() {
         return this;
     }
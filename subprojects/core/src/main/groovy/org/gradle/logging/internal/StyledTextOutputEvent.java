@@ -58,6 +58,10 @@ public class StyledTextOutputEvent extends RenderableOutputEvent {
         this.spans = new ArrayList<Span>(spans);
     }
 
+    public List<Span> getSpans() {
+        return spans;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -100,5 +104,13 @@ public class StyledTextOutputEvent extends RenderableOutputEvent {
             this.style = Normal;
             this.text = text;
         }
+
+        public StyledTextOutput.Style getStyle() {
+            return style;
+        }
+
+        public String getText() {
+            return text;
+        }
     }
 }
@@ -49,6 +49,14 @@ public interface ObjectConnection extends Addressable, AsyncStoppable {
      */
     void addIncoming(Class<?> type, Dispatch<? super MethodInvocation> dispatch);
 
+    /**
+     * Registers an action to run when the peer stops sending messages, either because the connection has been stopped
+     * or because the peer has gone away. The action is run immediately when this has already happened.
+     *
+     * @param action The action to run.
+     */
+    void onDisconnect(Runnable action);
+
     /**
      * Commences a graceful stop of this connection. Stops accepting outgoing messages. Requests that the peer stop
      * sending incoming messages.
@@ -17,21 +17,211 @@ package org.gradle.messaging.remote.internal;
 
 import org.gradle.messaging.remote.Address;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Serializes messages using Java serialization. The descriptor of each class is written only the first time the class
+ * is used on a given stream, rather than once per message. Later uses refer to the class by its index in the table of
+ * classes written so far.
+ *
+ * <p>Each message is written as a frame, which starts with the names of the classes that the message uses for the
+ * first time, followed by the length of the serialized message. The reader adds these names to its table before it
+ * reads the message, so that its table stays in step with the writer's, and the next message can still be read, when a
+ * class used by the message cannot be loaded.</p>
+ *
+ * <p>The peers of a connection must use the same versions of the message classes, which is the case for the daemon
+ * and its clients, and for worker processes.</p>
+ */
 public class DefaultMessageSerializer<T> implements MessageSerializer<T> {
+    public static final byte PROTOCOL_VERSION = 1;
     private final ClassLoader classLoader;
 
     public DefaultMessageSerializer(ClassLoader classLoader) {
         this.classLoader = classLoader;
     }
 
-    public T read(DataInputStream inputStream, Address localAddress, Address remoteAddress) throws Exception {
-        return (T) Message.receive(inputStream, classLoader);
+    public ObjectReader<T> newReader(InputStream inputStream, Address localAddress, Address remoteAddress) {
+        return new MessageReader<T>(inputStream, classLoader);
+    }
+
+    public ObjectWriter<T> newWriter(OutputStream outputStream) {
+        return new MessageWriter<T>(outputStream);
+    }
+
+    private static class MessageReader<T> implements ObjectReader<T> {
+        private final DataInputStream inputStream;
+        private final ClassLoader classLoader;
+        private final List<String> classNames = new ArrayList<String>();
+        private final Map<String, ObjectStreamClass> classes = new HashMap<String, ObjectStreamClass>();
+        private boolean headerRead;
+
+        public MessageReader(InputStream inputStream, ClassLoader classLoader) {
+            this.inputStream = new DataInputStream(inputStream);
+            this.classLoader = classLoader;
+        }
+
+        public T read() throws Exception {
+            if (!headerRead) {
+                // Read lazily, as this blocks until the peer writes its first message
+                byte protocolVersion = inputStream.readByte();
+                if (protocolVersion != PROTOCOL_VERSION) {
+                    throw new StreamCorruptedException(String.format("Unexpected message protocol version %s found.", protocolVersion));
+                }
+                headerRead = true;
+            }
+            int newClasses = readSize(inputStream);
+            for (int i = 0; i < newClasses; i++) {
+                classNames.add(inputStream.readUTF());
+            }
+            byte[] message = new byte[readSize(inputStream)];
+            inputStream.readFully(message);
+            return (T) new CompactObjectInputStream(new ByteArrayInputStream(message), classLoader, classNames, classes).readObject();
+        }
+    }
+
+    private static class MessageWriter<T> implements ObjectWriter<T> {
+        private final OutputStream outputStream;
+        private final Map<Class<?>, Integer> classes = new HashMap<Class<?>, Integer>();
+        private final ByteArrayOutputStream message = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        private boolean headerWritten;
+
+        public MessageWriter(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        public void write(T message) throws Exception {
+            this.message.reset();
+            CompactObjectOutputStream objectOutputStream = new CompactObjectOutputStream(this.message, classes);
+            try {
+                objectOutputStream.writeObject(message);
+                objectOutputStream.flush();
+            } catch (Exception e) {
+                // The message is not sent, so the peer never sees the classes it added to the table
+                objectOutputStream.discardNewClasses();
+                throw e;
+            }
+
+            frame.reset();
+            DataOutputStream frameOutputStream = new DataOutputStream(frame);
+            if (!headerWritten) {
+                frameOutputStream.writeByte(PROTOCOL_VERSION);
+                headerWritten = true;
+            }
+            List<Class<?>> newClasses = objectOutputStream.getNewClasses();
+            writeSize(frameOutputStream, newClasses.size());
+            for (Class<?> newClass : newClasses) {
+                frameOutputStream.writeUTF(newClass.getName());
+            }
+            writeSize(frameOutputStream, this.message.size());
+            this.message.writeTo(frameOutputStream);
+            frameOutputStream.flush();
+            frame.writeTo(outputStream);
+            outputStream.flush();
+        }
+    }
+
+    private static class CompactObjectOutputStream extends Message.ExceptionReplacingObjectOutputStream {
+        private final Map<Class<?>, Integer> classes;
+        private final List<Class<?>> newClasses = new ArrayList<Class<?>>();
+
+        public CompactObjectOutputStream(OutputStream outputSteam, Map<Class<?>, Integer> classes) throws IOException {
+            super(outputSteam);
+            this.classes = classes;
+        }
+
+        public List<Class<?>> getNewClasses() {
+            return newClasses;
+        }
+
+        public void discardNewClasses() {
+            for (Class<?> newClass : newClasses) {
+                classes.remove(newClass);
+            }
+            newClasses.clear();
+        }
+
+        @Override
+        protected void writeStreamHeader() throws IOException {
+            // The header is written once per stream by the MessageWriter
+        }
+
+        @Override
+        protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+            Integer index = classes.get(desc.forClass());
+            if (index == null) {
+                index = classes.size();
+                classes.put(desc.forClass(), index);
+                newClasses.add(desc.forClass());
+            }
+            writeSize(this, index);
+        }
+    }
+
+    private static class CompactObjectInputStream extends Message.ExceptionReplacingObjectInputStream {
+        private final List<String> classNames;
+        private final Map<String, ObjectStreamClass> classes;
+
+        public CompactObjectInputStream(InputStream inputSteam, ClassLoader classLoader, List<String> classNames, Map<String, ObjectStreamClass> classes) throws IOException {
+            super(inputSteam, classLoader);
+            this.classNames = classNames;
+            this.classes = classes;
+        }
+
+        @Override
+        protected void readStreamHeader() throws IOException {
+            // The header is read once per stream by the MessageReader
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            int index = readSize(this);
+            if (index >= classNames.size()) {
+                throw new StreamCorruptedException(String.format("Unexpected class index %s found.", index));
+            }
+            String className = classNames.get(index);
+            ObjectStreamClass desc = classes.get(className);
+            if (desc == null) {
+                desc = ObjectStreamClass.lookup(loadClass(className));
+                if (desc == null) {
+                    throw new InvalidClassException(className, "Class is not serializable.");
+                }
+                classes.put(className, desc);
+            }
+            return desc;
+        }
+
+        private Class<?> loadClass(String className) throws ClassNotFoundException {
+            try {
+                return getClassLoader().loadClass(className);
+            } catch (ClassNotFoundException e) {
+                // Array types cannot be loaded using a ClassLoader
+                return Class.forName(className, false, getClassLoader());
+            }
+        }
+    }
+
+    private static void writeSize(DataOutput outputStream, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            outputStream.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        outputStream.writeByte(value);
     }
 
-    public void write(T message, DataOutputStream outputStream) throws Exception {
-        Message.send(message, outputStream);
+    private static int readSize(DataInput inputStream) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = inputStream.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed size found.");
     }
 }
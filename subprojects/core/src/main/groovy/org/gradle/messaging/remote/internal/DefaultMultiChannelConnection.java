@@ -18,18 +18,24 @@ package org.gradle.messaging.remote.internal;
 
 import org.gradle.messaging.dispatch.Dispatch;
 import org.gradle.messaging.remote.Address;
+import org.gradle.messaging.remote.internal.protocol.EndOfStreamEvent;
+
+import java.util.ArrayList;
+import java.util.List;
 
 class DefaultMultiChannelConnection implements MultiChannelConnection<Object> {
     private final Address sourceAddress;
     private final Address destinationAddress;
     private final MessageHub hub;
+    private final List<Runnable> disconnectActions = new ArrayList<Runnable>();
+    private boolean disconnected;
 
     DefaultMultiChannelConnection(MessageHub hub, Connection<Message> connection, Address sourceAddress, Address destinationAddress) {
         this.hub = hub;
         this.sourceAddress = sourceAddress;
         this.destinationAddress = destinationAddress;
 
-        hub.addConnection(connection);
+        hub.addConnection(new DisconnectDetectingConnection(connection));
     }
 
     public Address getLocalAddress() {
@@ -50,6 +56,31 @@ class DefaultMultiChannelConnection implements MultiChannelConnection<Object> {
         hub.addIncoming(channelKey, dispatch);
     }
 
+    public void onDisconnect(Runnable action) {
+        synchronized (disconnectActions) {
+            if (!disconnected) {
+                disconnectActions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    private void disconnected() {
+        List<Runnable> actions;
+        synchronized (disconnectActions) {
+            if (disconnected) {
+                return;
+            }
+            disconnected = true;
+            actions = new ArrayList<Runnable>(disconnectActions);
+            disconnectActions.clear();
+        }
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+
     public Dispatch<Object> addOutgoingChannel(String channelKey) {
         return hub.addUnicastOutgoing(channelKey);
     }
@@ -62,4 +93,25 @@ class DefaultMultiChannelConnection implements MultiChannelConnection<Object> {
         requestStop();
         hub.stop();
     }
+
+    private class DisconnectDetectingConnection extends DelegatingConnection<Message> {
+        private DisconnectDetectingConnection(Connection<Message> connection) {
+            super(connection);
+        }
+
+        @Override
+        public Message receive() {
+            Message message;
+            try {
+                message = super.receive();
+            } catch (RuntimeException e) {
+                disconnected();
+                throw e;
+            }
+            if (message == null || message instanceof EndOfStreamEvent) {
+                disconnected();
+            }
+            return message;
+        }
+    }
 }
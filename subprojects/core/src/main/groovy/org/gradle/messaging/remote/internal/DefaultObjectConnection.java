@@ -19,29 +19,28 @@ import org.gradle.messaging.concurrent.AsyncStoppable;
 import org.gradle.messaging.dispatch.Dispatch;
 import org.gradle.messaging.dispatch.MethodInvocation;
 import org.gradle.messaging.remote.Address;
-import org.gradle.messaging.remote.Addressable;
 import org.gradle.messaging.remote.ObjectConnection;
 
 public class DefaultObjectConnection implements ObjectConnection {
-    private final Addressable addressable;
+    private final MultiChannelConnection<?> connection;
     private final AsyncStoppable stopControl;
     private final OutgoingMethodInvocationHandler outgoing;
     private final IncomingMethodInvocationHandler incoming;
 
-    public DefaultObjectConnection(Addressable addressable, AsyncStoppable stopControl,
+    public DefaultObjectConnection(MultiChannelConnection<?> connection, AsyncStoppable stopControl,
                                    OutgoingMethodInvocationHandler outgoing, IncomingMethodInvocationHandler incoming) {
-        this.addressable = addressable;
+        this.connection = connection;
         this.stopControl = stopControl;
         this.outgoing = outgoing;
         this.incoming = incoming;
     }
 
     public Address getRemoteAddress() {
-        return addressable.getRemoteAddress();
+        return connection.getRemoteAddress();
     }
 
     public Address getLocalAddress() {
-        return addressable.getLocalAddress();
+        return connection.getLocalAddress();
     }
 
     public <T> void addIncoming(Class<T> type, T instance) {
@@ -52,6 +51,10 @@ public class DefaultObjectConnection implements ObjectConnection {
         incoming.addIncoming(type, dispatch);
     }
 
+    public void onDisconnect(Runnable action) {
+        connection.onDisconnect(action);
+    }
+
     public <T> T addOutgoing(Class<T> type) {
         return outgoing.addOutgoing(type);
     }
@@ -17,11 +17,19 @@ package org.gradle.messaging.remote.internal;
 
 import org.gradle.messaging.remote.Address;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 public interface MessageSerializer<T> {
-    T read(DataInputStream inputStream, Address localAddress, Address remoteAddress) throws Exception;
+    /**
+     * Creates a reader for the messages read from the given stream. The reader may keep state between messages, so
+     * should be used for a single stream only.
+     */
+    ObjectReader<T> newReader(InputStream inputStream, Address localAddress, Address remoteAddress);
 
-    void write(T message, DataOutputStream outputStream) throws Exception;
+    /**
+     * Creates a writer for the messages written to the given stream. The writer may keep state between messages, so
+     * should be used for a single stream only.
+     */
+    ObjectWriter<T> newWriter(OutputStream outputStream);
 }
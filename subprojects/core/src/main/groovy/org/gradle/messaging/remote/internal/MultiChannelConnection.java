@@ -32,6 +32,12 @@ public interface MultiChannelConnection<T> extends Addressable, AsyncStoppable {
      */
     void addIncomingChannel(String channelKey, Dispatch<T> dispatch);
 
+    /**
+     * Registers an action to run when the peer stops sending messages, either because the connection has been stopped
+     * or because the peer has gone away. The action is run immediately when this has already happened.
+     */
+    void onDisconnect(Runnable action);
+
     /**
      * Commences graceful stop of this connection. Stops accepting any more outgoing messages, and requests that the
      * peer stop sending incoming messages.
@@ -22,6 +22,8 @@ import org.gradle.messaging.remote.Address;
 import org.gradle.messaging.remote.internal.Connection;
 import org.gradle.messaging.remote.internal.MessageIOException;
 import org.gradle.messaging.remote.internal.MessageSerializer;
+import org.gradle.messaging.remote.internal.ObjectReader;
+import org.gradle.messaging.remote.internal.ObjectWriter;
 
 import java.io.*;
 import java.net.InetSocketAddress;
@@ -35,19 +37,19 @@ public class SocketConnection<T> implements Connection<T> {
     private final SocketChannel socket;
     private final Address localAddress;
     private final Address remoteAddress;
-    private final MessageSerializer<T> serializer;
-    private final DataInputStream instr;
-    private final DataOutputStream outstr;
+    private final InputStream instr;
+    private final OutputStream outstr;
+    private final ObjectReader<T> reader;
+    private final ObjectWriter<T> writer;
 
     public SocketConnection(SocketChannel socket, MessageSerializer<T> serializer) {
         this.socket = socket;
-        this.serializer = serializer;
         try {
             // NOTE: we use non-blocking IO as there is no reliable way when using blocking IO to shutdown reads while
             // keeping writes active. For example, Socket.shutdownInput() does not work on Windows.
             socket.configureBlocking(false);
-            outstr = new DataOutputStream(new SocketOutputStream(socket));
-            instr = new DataInputStream(new SocketInputStream(socket));
+            outstr = new SocketOutputStream(socket);
+            instr = new SocketInputStream(socket);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -55,6 +57,8 @@ public class SocketConnection<T> implements Connection<T> {
         localAddress = new SocketInetAddress(localSocketAddress.getAddress(), localSocketAddress.getPort());
         InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
         remoteAddress = new SocketInetAddress(remoteSocketAddress.getAddress(), remoteSocketAddress.getPort());
+        reader = serializer.newReader(instr, localAddress, remoteAddress);
+        writer = serializer.newWriter(outstr);
     }
 
     @Override
@@ -72,7 +76,7 @@ public class SocketConnection<T> implements Connection<T> {
 
     public T receive() {
         try {
-            return serializer.read(instr, localAddress, remoteAddress);
+            return reader.read();
         } catch (Exception e) {
             if (isEndOfStream(e)) {
                 return null;
@@ -93,7 +97,7 @@ public class SocketConnection<T> implements Connection<T> {
 
     public void dispatch(T message) {
         try {
-            serializer.write(message, outstr);
+            writer.write(message);
             outstr.flush();
         } catch (Exception e) {
             throw new MessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
@@ -128,7 +132,7 @@ public class SocketConnection<T> implements Connection<T> {
             if (nread <= 0) {
                 return nread;
             }
-            return readBuffer[0];
+            return readBuffer[0] & 0xff;
         }
 
         @Override
@@ -18,11 +18,15 @@ package org.gradle.messaging.remote.internal.protocol;
 import org.gradle.messaging.remote.Address;
 import org.gradle.messaging.remote.internal.MessageSerializer;
 import org.gradle.messaging.remote.internal.MessageOriginator;
+import org.gradle.messaging.remote.internal.ObjectReader;
+import org.gradle.messaging.remote.internal.ObjectWriter;
 import org.gradle.messaging.remote.internal.inet.MultiChoiceAddress;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.List;
@@ -34,6 +38,25 @@ public class DiscoveryProtocolSerializer implements MessageSerializer<DiscoveryM
     public static final byte CHANNEL_AVAILABLE = 2;
     public static final byte CHANNEL_UNAVAILABLE = 3;
 
+    public ObjectReader<DiscoveryMessage> newReader(InputStream inputStream, final Address localAddress, final Address remoteAddress) {
+        final DataInputStream dataInputStream = new DataInputStream(inputStream);
+        return new ObjectReader<DiscoveryMessage>() {
+            public DiscoveryMessage read() throws Exception {
+                return DiscoveryProtocolSerializer.this.read(dataInputStream, localAddress, remoteAddress);
+            }
+        };
+    }
+
+    public ObjectWriter<DiscoveryMessage> newWriter(OutputStream outputStream) {
+        final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        return new ObjectWriter<DiscoveryMessage>() {
+            public void write(DiscoveryMessage message) throws Exception {
+                DiscoveryProtocolSerializer.this.write(message, dataOutputStream);
+                dataOutputStream.flush();
+            }
+        };
+    }
+
     public DiscoveryMessage read(DataInputStream inputStream, Address localAddress, Address remoteAddress) throws Exception {
         byte protocolVersion = inputStream.readByte();
         if (protocolVersion != PROTOCOL_VERSION) {
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.util;
+
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ClassLoaderCanonicaliser {
+    /**
+     * Returns a ClassLoader which makes exactly the same classes visible as the given ClassLoader. Skips over those
+     * ClassLoaders which make no classes visible beyond those of their parents, such as the build script ClassLoader of a
+     * project with no build script dependencies, so that ClassLoaders which see the same classes map to the same
+     * ClassLoader.
+     */
+    public static ClassLoader canonicalise(ClassLoader classLoader) {
+        if (isUrlClassLoader(classLoader)) {
+            if (((URLClassLoader) classLoader).getURLs().length == 0 && classLoader.getParent() != null) {
+                return canonicalise(classLoader.getParent());
+            }
+            return classLoader;
+        }
+        if (classLoader != null && classLoader.getClass() == MultiParentClassLoader.class) {
+            Set<ClassLoader> parents = new LinkedHashSet<ClassLoader>();
+            for (ClassLoader parent : ((MultiParentClassLoader) classLoader).getParents()) {
+                parents.add(canonicalise(parent));
+            }
+            // A parent which is also the ancestor of another parent makes no additional classes visible
+            List<ClassLoader> effectiveParents = new ArrayList<ClassLoader>();
+            for (ClassLoader parent : parents) {
+                boolean redundant = false;
+                for (ClassLoader other : parents) {
+                    redundant |= isAncestor(parent, other);
+                }
+                if (!redundant) {
+                    effectiveParents.add(parent);
+                }
+            }
+            if (effectiveParents.size() == 1) {
+                return effectiveParents.get(0);
+            }
+        }
+        return classLoader;
+    }
+
+    private static boolean isAncestor(ClassLoader candidate, ClassLoader classLoader) {
+        ClassLoader current = classLoader;
+        while (isUrlClassLoader(current)) {
+            current = current.getParent();
+            if (current == candidate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isUrlClassLoader(ClassLoader classLoader) {
+        return classLoader != null && (classLoader.getClass() == URLClassLoader.class || classLoader.getClass() == ObservableUrlClassLoader.class);
+    }
+}
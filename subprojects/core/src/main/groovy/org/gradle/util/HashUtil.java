@@ -29,6 +29,14 @@ import java.io.IOException;
  * @author Hans Dockter
  */
 public class HashUtil {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
     public static String createHash(String scriptText) {
         MessageDigest messageDigest;
         try {
@@ -48,7 +56,7 @@ public class HashUtil {
             throw UncheckedException.asUncheckedException(e);
         }
         try {
-            byte[] buffer = new byte[4096];
+            byte[] buffer = BUFFER.get();
             InputStream instr = new FileInputStream(file);
             try {
                 while (true) {
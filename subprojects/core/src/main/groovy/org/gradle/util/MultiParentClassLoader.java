@@ -39,6 +39,10 @@ public class MultiParentClassLoader extends ClassLoader {
         parents.add(parent);
     }
 
+    public List<ClassLoader> getParents() {
+        return Collections.unmodifiableList(parents);
+    }
+
     @Override
     protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
         for (ClassLoader parent : parents) {
@@ -95,6 +95,35 @@ public abstract class AbstractClassGeneratorTest {
         assertSame(generator.generate(Bean.class), generator.generate(Bean.class));
     }
 
+    @Test
+    public void generatesSubclassOnceWhenUsedByMultipleThreads() throws Exception {
+        final Set<Class<?>> generatedClasses = Collections.synchronizedSet(new HashSet<Class<?>>());
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        generatedClasses.add(generator.generate(BeanGeneratedConcurrently.class));
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(failures, isEmpty());
+        assertThat(generatedClasses.size(), equalTo(1));
+        assertSame(generatedClasses.iterator().next(), generator.generate(BeanGeneratedConcurrently.class));
+    }
+
     @Test
     public void doesNotDecorateAlreadyDecoratedClass() {
         Class<? extends Bean> generatedClass = generator.generate(Bean.class);
@@ -467,6 +496,9 @@ public abstract class AbstractClassGeneratorTest {
         }
     }
 
+    public static class BeanGeneratedConcurrently extends Bean {
+    }
+
     public static class BeanWithConstructor extends Bean {
         public BeanWithConstructor() {
             this("default value");
@@ -16,8 +16,10 @@
 
 package org.gradle.api.internal.artifacts.dependencies;
 
+import org.gradle.StartParameter;
 import org.gradle.api.Task;
 import org.gradle.api.artifacts.*;
+import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.artifacts.DependencyResolveContext;
 import org.gradle.api.internal.artifacts.ProjectDependenciesBuildInstruction;
 import org.gradle.api.internal.artifacts.configurations.ConfigurationContainerInternal;
@@ -50,6 +52,8 @@ public class DefaultProjectDependencyTest extends AbstractModuleDependencyTest {
     private final ConfigurationContainerInternal projectConfigurationsStub = context.mock(ConfigurationContainerInternal.class);
     private final ConfigurationInternal projectConfigurationStub = context.mock(ConfigurationInternal.class);
     private final TaskContainer dependencyProjectTaskContainerStub = context.mock(TaskContainer.class);
+    private final GradleInternal gradleStub = context.mock(GradleInternal.class);
+    private final StartParameter startParameter = new StartParameter();
     private final DefaultProjectDependency projectDependency = new DefaultProjectDependency(dependencyProjectStub, instruction);
 
     protected AbstractModuleDependency getDependency() {
@@ -86,6 +90,10 @@ public class DefaultProjectDependencyTest extends AbstractModuleDependencyTest {
             will(returnValue("target-group"));
             allowing(dependencyProjectStub).getVersion();
             will(returnValue("target-version"));
+            allowing(dependencyProjectStub).getGradle();
+            will(returnValue(gradleStub));
+            allowing(gradleStub).getStartParameter();
+            will(returnValue(startParameter));
         }});
     }
 
@@ -108,6 +116,17 @@ public class DefaultProjectDependencyTest extends AbstractModuleDependencyTest {
         assertThat(projectDependency.getProjectConfiguration(), sameInstance((Configuration) projectConfigurationStub));
     }
 
+    @Test
+    public void evaluatesDependencyProjectWhenProjectsAreConfiguredOnDemand() {
+        startParameter.setConfigureOnDemand(true);
+
+        context.checking(new Expectations() {{
+            one(dependencyProjectStub).evaluate();
+        }});
+
+        assertThat(projectDependency.getProjectConfiguration(), sameInstance((Configuration) projectConfigurationStub));
+    }
+
     @Test
     public void resolveDelegatesToAllSelfResolvingDependenciesInTargetConfiguration() {
         final DependencyResolveContext resolveContext = context.mock(DependencyResolveContext.class);
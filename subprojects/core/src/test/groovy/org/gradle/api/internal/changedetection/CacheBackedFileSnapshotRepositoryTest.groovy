@@ -18,9 +18,8 @@ package org.gradle.api.internal.changedetection
 import spock.lang.Specification
 import org.gradle.cache.CacheRepository
 import org.gradle.cache.CacheBuilder
-import org.gradle.cache.PersistentCache
 import org.gradle.cache.PersistentIndexedCache
-import org.gradle.cache.ObjectCacheBuilder
+import org.gradle.cache.IndexedCacheBuilder
 import org.gradle.api.invocation.Gradle
 
 class CacheBackedFileSnapshotRepositoryTest extends Specification {
@@ -30,9 +29,12 @@ class CacheBackedFileSnapshotRepositoryTest extends Specification {
     FileSnapshotRepository repository
 
     def setup() {
-        ObjectCacheBuilder<Object, PersistentCache> builder = Mock()
+        IndexedCacheBuilder<Object, Object> builder = Mock()
         1 * cacheRepository.indexedCache(Object, Object, "fileSnapshots") >> builder
         1 * builder.forObject(gradle) >> builder
+        1 * builder.withSerializer(!null) >> builder
+        1 * builder.withProperties(['layout.version': CacheBackedFileSnapshotRepository.LAYOUT_VERSION]) >> builder
+        1 * builder.withMemoryMappedReads(true) >> builder
         1 * builder.open() >> indexedCache
 
         repository = new CacheBackedFileSnapshotRepository(cacheRepository, gradle)
@@ -74,7 +76,7 @@ class CacheBackedFileSnapshotRepositoryTest extends Specification {
     }
 
     def expectCacheOpened() {
-        ObjectCacheBuilder<Object, PersistentCache> builder = Mock()
+        IndexedCacheBuilder<Object, Object> builder = Mock()
         1 * cacheRepository.indexedCache(Object, Object, "fileSnapshots") >> builder
         1 * builder.open() >> indexedCache
     }
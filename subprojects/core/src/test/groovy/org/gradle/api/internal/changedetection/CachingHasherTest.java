@@ -17,7 +17,7 @@ package org.gradle.api.internal.changedetection;
 
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
-import org.gradle.cache.ObjectCacheBuilder;
+import org.gradle.cache.IndexedCacheBuilder;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.Serializer;
 import org.gradle.util.TemporaryFolder;
@@ -30,8 +30,12 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static org.gradle.util.Matchers.reflectionEquals;
+import static org.gradle.util.WrapUtil.toMap;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 
@@ -52,7 +56,7 @@ public class CachingHasherTest {
     @Before
     public void setup() {
         context.checking(new Expectations(){{
-            ObjectCacheBuilder<CachingHasher.FileInfo, PersistentIndexedCache<File, CachingHasher.FileInfo>> cacheBuilder = context.mock(ObjectCacheBuilder.class);
+            IndexedCacheBuilder<File, CachingHasher.FileInfo> cacheBuilder = context.mock(IndexedCacheBuilder.class);
 
             one(cacheRepository).indexedCache(File.class, CachingHasher.FileInfo.class, "fileHashes");
             will(returnValue(cacheBuilder));
@@ -120,4 +124,35 @@ public class CachingHasherTest {
 
         assertThat(hasher.hash(file), sameInstance(hash));
     }
+
+    @Test
+    public void hashesOnlyChangedFilesWhenHashingMultipleFiles() {
+        final File unchanged = tmpDir.createFile("unchanged").write("content");
+        final byte[] unchangedHash = "unchanged".getBytes();
+        final List<File> files = Arrays.asList(file, unchanged);
+        context.checking(new Expectations() {{
+            one(cache).getAll(files);
+            will(returnValue(toMap(unchanged, new CachingHasher.FileInfo(unchangedHash, unchanged.length(), unchanged.lastModified()))));
+            one(delegate).hash(file);
+            will(returnValue(hash));
+            one(cache).putAll(with(allOf(
+                    hasEntry(equalTo(file), reflectionEquals(new CachingHasher.FileInfo(hash, file.length(), file.lastModified()))),
+                    not(hasKey(unchanged)))));
+        }});
+
+        byte[][] hashes = hasher.hashAll(files);
+        assertThat(hashes[0], sameInstance(hash));
+        assertThat(hashes[1], sameInstance(unchangedHash));
+    }
+
+    @Test
+    public void doesNotUpdateCacheWhenNoFilesHaveChanged() {
+        final List<File> files = Collections.singletonList(file);
+        context.checking(new Expectations() {{
+            one(cache).getAll(files);
+            will(returnValue(toMap(file, new CachingHasher.FileInfo(hash, file.length(), file.lastModified()))));
+        }});
+
+        assertThat(hasher.hashAll(files)[0], sameInstance(hash));
+    }
 }
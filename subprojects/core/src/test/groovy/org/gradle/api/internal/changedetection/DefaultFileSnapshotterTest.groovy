@@ -29,6 +29,9 @@ import org.gradle.util.TestFile
 import org.gradle.api.file.FileCollection
 import org.gradle.util.ChangeListener
 import org.gradle.api.file.FileTree
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.internal.file.collections.FileTreeAdapter
 
 @RunWith(JMock.class)
 public class DefaultFileSnapshotterTest {
@@ -316,6 +319,66 @@ public class DefaultFileSnapshotterTest {
         target.changesSince(snapshotter.emptySnapshot(), listener)
     }
 
+    @Test
+    public void canHashFilesConcurrently() {
+        DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+        try {
+            DefaultFileSnapshotter parallelSnapshotter = new DefaultFileSnapshotter(hasher, executorFactory.create('hasher'), 4)
+            List<TestFile> content = (1..200).collect { TestFile file = tmpDir.createFile("file$it"); file.write("content $it"); file }
+
+            FileCollectionSnapshot snapshot = parallelSnapshotter.snapshot(files(content as File[]))
+            assertThat(snapshot.files.files, equalTo(content as Set))
+            snapshotter.snapshot(files(content as File[])).changesSince(snapshot, listener)
+
+            content[150].write('new content')
+
+            context.checking {
+                one(listener).changed(content[150])
+            }
+            parallelSnapshotter.snapshot(files(content as File[])).changesSince(snapshot, listener)
+        } finally {
+            executorFactory.stop()
+        }
+    }
+
+    @Test
+    public void rethrowsFailureToHashFileConcurrently() {
+        DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+        RuntimeException failure = new RuntimeException()
+        List<TestFile> content = (1..200).collect { tmpDir.createFile("file$it") }
+        Closure hash = { File file -> if (file == content[120]) { throw failure }; return new byte[0] }
+        Hasher brokenHasher = [hash: hash, hashAll: { List<File> files -> files.collect(hash) as byte[][] }] as Hasher
+        try {
+            DefaultFileSnapshotter parallelSnapshotter = new DefaultFileSnapshotter(brokenHasher, executorFactory.create('hasher'), 4)
+            parallelSnapshotter.snapshot(files(content as File[]))
+            fail()
+        } catch (RuntimeException e) {
+            assertThat(e, sameInstance(failure))
+        } finally {
+            executorFactory.stop()
+        }
+    }
+
+    @Test
+    public void reusesSnapshotOfDirectoryTreeFromCacheUntilInvalidated() {
+        TestFile dir = tmpDir.createDir('dir')
+        TestFile file1 = dir.createFile('file1')
+        TestFile file2 = dir.createFile('file2')
+        FileWatcher watcher = [watch: { true }, poll: {}, sync: { true }, stop: {}] as FileWatcher
+        DirectoryTreeSnapshotCache cache = new DirectoryTreeSnapshotCache(watcher)
+        DefaultFileSnapshotter cachingSnapshotter = new DefaultFileSnapshotter(hasher, null, 1, cache)
+        FileTree tree = new FileTreeAdapter(new DirectoryFileTree(dir))
+
+        FileCollectionSnapshot snapshot = cachingSnapshotter.snapshot(tree)
+        assertThat(snapshot.files.files, equalTo([file1, file2] as Set))
+
+        file2.delete()
+        assertThat(cachingSnapshotter.snapshot(tree).files.files, equalTo([file1, file2] as Set))
+
+        cache.invalidateAll()
+        assertThat(cachingSnapshotter.snapshot(tree).files.files, equalTo([file1] as Set))
+    }
+
     private FileCollection files(File... files) {
         FileTree collection = context.mock(FileTree.class)
         context.checking {
@@ -371,6 +371,38 @@ public class DefaultTaskArtifactStateRepositoryTest {
         assertThat(state.getExecutionHistory().getOutputFiles().getFiles(), equalTo(toLinkedSet((File) outputFile, outputDirFile, outputDirFile2)));
     }
 
+    @Test
+    public void hasNoChangedInputFilesWhenTaskHasNeverBeenExecuted() {
+        TaskArtifactState state = repository.getStateFor(task());
+        assertFalse(state.isUpToDate());
+        assertThat(state.getExecutionHistory().getChangedInputFiles(), nullValue());
+    }
+
+    @Test
+    public void hasInputFilesWhichHaveBeenAddedOrChangedSincePreviousExecution() {
+        execute();
+
+        inputDirFile.writelns("new content");
+        TestFile addedFile = inputDir.file("added-file").createFile();
+        inputFile.delete();
+
+        TaskArtifactState state = repository.getStateFor(task());
+        assertFalse(state.isUpToDate());
+        assertThat(state.getExecutionHistory().getChangedInputFiles(), equalTo((Set) toSet(inputDirFile, addedFile)));
+    }
+
+    @Test
+    public void hasNoChangedInputFilesWhenOutputFilesHaveChangedSincePreviousExecution() {
+        execute();
+
+        inputDirFile.writelns("new content");
+        outputFile.write("new content");
+
+        TaskArtifactState state = repository.getStateFor(task());
+        assertFalse(state.isUpToDate());
+        assertThat(state.getExecutionHistory().getChangedInputFiles(), nullValue());
+    }
+
     @Test
     public void multipleTasksCanProduceFilesIntoTheSameOutputDirectory() {
         TaskInternal task1 = task();
@@ -384,6 +416,43 @@ public class DefaultTaskArtifactStateRepositoryTest {
         assertTrue(state.isUpToDate());
     }
 
+    @Test
+    public void multipleTasksCanBeExecutedConcurrently() throws Exception {
+        final List<TaskInternal> tasks = new ArrayList<TaskInternal>();
+        for (int i = 0; i < 8; i++) {
+            TestFile taskOutputDir = tmpDir.file("output-dir-" + i);
+            tasks.add(builder().withPath("task" + i).withOutputFiles(taskOutputDir).createsFiles(taskOutputDir.file("output")).task());
+        }
+
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (final TaskInternal task : tasks) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        execute(task);
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(failures, isEmpty());
+
+        for (int i = 0; i < tasks.size(); i++) {
+            TaskArtifactState state = repository.getStateFor(tasks.get(i));
+            assertTrue(state.isUpToDate());
+            assertThat(state.getExecutionHistory().getOutputFiles().getFiles(), equalTo(toLinkedSet((File) tmpDir.file("output-dir-" + i, "output"))));
+        }
+    }
+
     @Test
     public void multipleTasksCanProduceTheSameFileWithTheSameContents() {
         TaskInternal task1 = builder().withOutputFiles(outputFile).task();
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection
+
+import org.gradle.api.internal.changedetection.DefaultFileSnapshotter.DirSnapshot
+import org.gradle.api.internal.changedetection.DefaultFileSnapshotter.FileSnapshot
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.specs.Spec
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class DirectoryTreeSnapshotCacheTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final FileWatcher watcher = Mock()
+    final DirectoryTreeSnapshotCache cache = new DirectoryTreeSnapshotCache(watcher)
+    final Map<String, FileSnapshot> snapshot = ["/some/file": DirSnapshot.INSTANCE]
+    final Set<File> changes = []
+
+    def setup() {
+        _ * watcher.watch(_) >> true
+        _ * watcher.poll(_) >> { FileWatcher.Listener listener ->
+            changes.each { listener.changed(it) }
+            changes.clear()
+        }
+    }
+
+    def "returns snapshot of tree which has not changed"() {
+        def tree = tree('dir')
+
+        when:
+        cache.put(tree, cache.startSnapshot(tree), snapshot)
+
+        then:
+        cache.get(tree).is(snapshot)
+        cache.get(new DirectoryFileTree(tree.dir)).is(snapshot)
+    }
+
+    def "starts watching tree before it is snapshotted"() {
+        def tree = tree('dir')
+
+        when:
+        cache.startSnapshot(tree)
+
+        then:
+        1 * watcher.watch(tree.dir) >> true
+    }
+
+    def "does not cache snapshot of tree which cannot be watched"() {
+        def tree = tree('dir')
+
+        when:
+        def token = cache.startSnapshot(tree)
+        cache.put(tree, token, snapshot)
+
+        then:
+        1 * watcher.watch(tree.dir) >> false
+        token < 0
+        cache.get(tree) == null
+    }
+
+    def "does not cache snapshot when a file changes while tree is snapshotted"() {
+        def tree = tree('dir')
+
+        when:
+        def token = cache.startSnapshot(tree)
+        changes << new File(tmpDir.dir, 'other')
+        cache.put(tree, token, snapshot)
+
+        then:
+        cache.get(tree) == null
+    }
+
+    def "discards snapshot when a file in the tree changes"() {
+        def tree = tree('dir')
+        cache.put(tree, cache.startSnapshot(tree), snapshot)
+
+        when:
+        changes << new File(tree.dir, 'a/b.txt')
+
+        then:
+        cache.get(tree) == null
+    }
+
+    def "discards snapshot when the root of the tree or one of its ancestors changes"() {
+        def tree = tree('dir')
+        cache.put(tree, cache.startSnapshot(tree), snapshot)
+
+        when:
+        changes << new File(tmpDir.dir, path)
+
+        then:
+        cache.get(tree) == null
+
+        where:
+        path << ['dir', '']
+    }
+
+    def "keeps snapshot when a file outside the tree changes"() {
+        def tree = tree('dir')
+        cache.put(tree, cache.startSnapshot(tree), snapshot)
+
+        when:
+        changes << new File(tmpDir.dir, 'dir2/file.txt')
+        changes << new File(tmpDir.dir, 'other')
+
+        then:
+        cache.get(tree).is(snapshot)
+    }
+
+    def "discards all snapshots when watcher overflows"() {
+        def tree = tree('dir')
+        cache.put(tree, cache.startSnapshot(tree), snapshot)
+
+        when:
+        def result = cache.get(tree)
+
+        then:
+        1 * watcher.poll(_) >> { FileWatcher.Listener listener -> listener.overflowed() }
+        result == null
+    }
+
+    def "discards snapshots of trees which may be changed by a task"() {
+        def tree1 = tree('dir1')
+        def tree2 = tree('dir2')
+        cache.put(tree1, cache.startSnapshot(tree1), snapshot)
+        cache.put(tree2, cache.startSnapshot(tree2), snapshot)
+
+        when:
+        cache.invalidate(new SimpleFileCollection(new File(tmpDir.dir, 'dir1/out')))
+
+        then:
+        cache.get(tree1) == null
+        cache.get(tree2).is(snapshot)
+
+        when:
+        cache.invalidateAll()
+
+        then:
+        cache.get(tree2) == null
+    }
+
+    def "caches snapshots of trees with different patterns separately"() {
+        def tree = tree('dir')
+        def patterns = new PatternSet()
+        patterns.include('**/*.java')
+        def filteredTree = new DirectoryFileTree(tree.dir, patterns)
+        def doubleFilteredTree = filteredTree.filter(new PatternSet().exclude('**/Test*'))
+        cache.put(tree, cache.startSnapshot(tree), snapshot)
+
+        expect:
+        cache.get(filteredTree) == null
+        cache.get(doubleFilteredTree) == null
+
+        when:
+        def otherSnapshot = [:]
+        cache.put(doubleFilteredTree, cache.startSnapshot(doubleFilteredTree), otherSnapshot)
+
+        then:
+        cache.get(tree).is(snapshot)
+        cache.get(doubleFilteredTree).is(otherSnapshot)
+        cache.get(filteredTree.filter(new PatternSet().exclude('**/Test*'))).is(otherSnapshot)
+    }
+
+    def "does not cache trees whose patterns use specs"() {
+        def patterns = new PatternSet()
+        patterns.include({ true } as Spec)
+        def tree = new DirectoryFileTree(tmpDir.createDir('dir'), patterns)
+
+        expect:
+        cache.startSnapshot(tree) < 0
+        cache.get(tree) == null
+    }
+
+    def "does not cache anything when no watcher is available"() {
+        def cache = new DirectoryTreeSnapshotCache(null)
+        def tree = tree('dir')
+
+        when:
+        cache.put(tree, cache.startSnapshot(tree), snapshot)
+
+        then:
+        cache.get(tree) == null
+    }
+
+    def "discards snapshots of changed trees when synced"() {
+        def tree = tree('dir')
+        cache.put(tree, cache.startSnapshot(tree), snapshot)
+
+        when:
+        cache.sync()
+
+        then:
+        1 * watcher.sync() >> { changes << tree.dir; true }
+        cache.get(tree) == null
+    }
+
+    def "discards all snapshots when cannot sync with watcher"() {
+        def tree = tree('dir')
+        cache.put(tree, cache.startSnapshot(tree), snapshot)
+
+        when:
+        cache.sync()
+
+        then:
+        1 * watcher.sync() >> false
+        cache.get(tree) == null
+    }
+
+    def "stops watcher when closed"() {
+        when:
+        cache.close()
+
+        then:
+        1 * watcher.stop()
+    }
+
+    def tree(String path) {
+        return new DirectoryFileTree(tmpDir.createDir(path))
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection
+
+import org.gradle.api.internal.changedetection.DefaultFileSnapshotter.DirSnapshot
+import org.gradle.api.internal.changedetection.DefaultFileSnapshotter.FileCollectionSnapshotImpl
+import org.gradle.api.internal.changedetection.DefaultFileSnapshotter.FileHashSnapshot
+import org.gradle.api.internal.changedetection.DefaultFileSnapshotter.MissingFileSnapshot
+import org.gradle.api.internal.changedetection.OutputFilesSnapshotter.OutputFilesSnapshot
+import spock.lang.Specification
+
+class FileCollectionSnapshotSerializerTest extends Specification {
+    final FileCollectionSnapshotSerializer serializer = new FileCollectionSnapshotSerializer()
+
+    def "can serialize and deserialize a file collection snapshot"() {
+        def md5 = (0..15).collect { it as byte } as byte[]
+        def otherHash = [1, 2, 3] as byte[]
+        def snapshot = new FileCollectionSnapshotImpl([
+                '/a/b/c/file1.txt': new FileHashSnapshot(md5),
+                '/a/b/c/file2.txt': new FileHashSnapshot(otherHash),
+                '/a/b/c': DirSnapshot.INSTANCE,
+                '/a/b/d/é': MissingFileSnapshot.INSTANCE,
+                '/other': DirSnapshot.INSTANCE,
+        ])
+
+        when:
+        FileCollectionSnapshotImpl result = roundTrip(snapshot)
+
+        then:
+        result.snapshots.keySet() == snapshot.snapshots.keySet()
+        result.snapshots['/a/b/c/file1.txt'].hash == md5
+        result.snapshots['/a/b/c/file2.txt'].hash == otherHash
+        result.snapshots['/a/b/c'].is(DirSnapshot.INSTANCE)
+        result.snapshots['/a/b/d/é'].is(MissingFileSnapshot.INSTANCE)
+        result.snapshots['/other'].is(DirSnapshot.INSTANCE)
+    }
+
+    def "can serialize and deserialize an empty snapshot"() {
+        when:
+        FileCollectionSnapshotImpl result = roundTrip(new FileCollectionSnapshotImpl([:]))
+
+        then:
+        result.snapshots.isEmpty()
+    }
+
+    def "can serialize and deserialize an output files snapshot"() {
+        def filesSnapshot = new FileCollectionSnapshotImpl(['/a/b': DirSnapshot.INSTANCE])
+        def snapshot = new OutputFilesSnapshot(['/a/b': 12L, '/a/c': null], filesSnapshot)
+
+        when:
+        OutputFilesSnapshot result = roundTrip(snapshot)
+
+        then:
+        result.rootFileIds == ['/a/b': 12L, '/a/c': null]
+        result.filesSnapshot instanceof FileCollectionSnapshotImpl
+        result.filesSnapshot.snapshots.keySet() == ['/a/b'] as Set
+    }
+
+    def "can serialize and deserialize sizes"() {
+        def outstr = new ByteArrayOutputStream()
+        def output = new DataOutputStream(outstr)
+        def sizes = [0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE]
+
+        when:
+        sizes.each { FileCollectionSnapshotSerializer.writeSize(output, it) }
+        def input = new DataInputStream(new ByteArrayInputStream(outstr.toByteArray()))
+
+        then:
+        sizes.collect { FileCollectionSnapshotSerializer.readSize(input) } == sizes
+        outstr.size() == 1 + 1 + 1 + 2 + 2 + 3 + 5
+    }
+
+    def roundTrip(FileCollectionSnapshot snapshot) {
+        def outstr = new ByteArrayOutputStream()
+        serializer.write(outstr, snapshot)
+        return serializer.read(new ByteArrayInputStream(outstr.toByteArray()))
+    }
+}
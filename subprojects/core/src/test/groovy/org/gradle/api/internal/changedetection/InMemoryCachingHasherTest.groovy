@@ -0,0 +1,118 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection
+
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class InMemoryCachingHasherTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final Hasher delegate = Mock()
+    final InMemoryFileHashCache cache = new InMemoryFileHashCache()
+    final InMemoryCachingHasher hasher = new InMemoryCachingHasher(delegate, cache)
+    final byte[] hash = [1, 2, 3] as byte[]
+    final byte[] otherHash = [4, 5, 6] as byte[]
+
+    def "delegates to backing hasher when file is not in cache"() {
+        def file = tmpDir.createFile("file")
+        file.text = "content"
+
+        when:
+        def result = hasher.hash(file)
+
+        then:
+        result == hash
+        1 * delegate.hash(file) >> hash
+        cache.get(file, file.length(), file.lastModified()) == hash
+    }
+
+    def "uses cached hash when file has not changed"() {
+        def file = tmpDir.createFile("file")
+        file.text = "content"
+        cache.put(file, hash, file.length(), file.lastModified())
+
+        when:
+        def result = hasher.hash(file)
+
+        then:
+        result == hash
+        0 * delegate._
+    }
+
+    def "delegates to backing hasher when file has changed since it was cached"() {
+        def file = tmpDir.createFile("file")
+        file.text = "content"
+        cache.put(file, hash, file.length() + 1, file.lastModified())
+
+        when:
+        def result = hasher.hash(file)
+
+        then:
+        result == otherHash
+        1 * delegate.hash(file) >> otherHash
+        cache.get(file, file.length(), file.lastModified()) == otherHash
+    }
+
+    def "delegates only those files which are not in cache when hashing multiple files"() {
+        def cached = tmpDir.createFile("cached")
+        cached.text = "content"
+        def missing = tmpDir.createFile("missing")
+        missing.text = "content"
+        cache.put(cached, hash, cached.length(), cached.lastModified())
+
+        when:
+        def result = hasher.hashAll([missing, cached])
+
+        then:
+        result == [otherHash, hash] as byte[][]
+        1 * delegate.hashAll([missing]) >> ([otherHash] as byte[][])
+        0 * delegate._
+        cache.get(missing, missing.length(), missing.lastModified()) == otherHash
+    }
+
+    def "does not delegate when all files are in cache"() {
+        def file = tmpDir.createFile("file")
+        file.text = "content"
+        cache.put(file, hash, file.length(), file.lastModified())
+
+        when:
+        def result = hasher.hashAll([file])
+
+        then:
+        result == [hash] as byte[][]
+        0 * delegate._
+    }
+
+    def "cache evicts least recently used entries"() {
+        def cache = new InMemoryFileHashCache(2)
+        def a = new File("a")
+        def b = new File("b")
+        def c = new File("c")
+
+        when:
+        cache.put(a, hash, 1, 2)
+        cache.put(b, hash, 1, 2)
+        cache.get(a, 1, 2)
+        cache.put(c, hash, 1, 2)
+
+        then:
+        cache.size() == 2
+        cache.get(a, 1, 2) == hash
+        cache.get(b, 1, 2) == null
+        cache.get(c, 1, 2) == hash
+    }
+}
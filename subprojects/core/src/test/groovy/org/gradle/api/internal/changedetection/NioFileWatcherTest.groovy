@@ -0,0 +1,111 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection
+
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.TestFile
+import org.junit.Rule
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+@IgnoreIf({ !System.getProperty("java.version").matches("1\\.[7-9].*") })
+class NioFileWatcherTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final FileWatcher watcher = NioFileWatcher.createIfAvailable()
+    final Set<File> changes = new HashSet<File>()
+    boolean overflowed
+    final FileWatcher.Listener listener = [changed: { File file -> changes << file }, overflowed: { overflowed = true }] as FileWatcher.Listener
+
+    def cleanup() {
+        watcher?.stop()
+    }
+
+    def "reports changes to files in watched directory tree"() {
+        if (watcher == null) {
+            return
+        }
+        TestFile dir = tmpDir.createDir('dir')
+        TestFile file = dir.createFile('sub/file.txt')
+        TestFile other = tmpDir.createFile('other.txt')
+
+        expect:
+        watcher.watch(dir)
+
+        when:
+        file.text = 'changed'
+        other.text = 'changed'
+        waitFor { changes.contains(file) }
+
+        then:
+        !changes.contains(other)
+        !overflowed
+    }
+
+    def "reports removal of watched directory"() {
+        if (watcher == null) {
+            return
+        }
+        TestFile dir = tmpDir.createDir('dir')
+        TestFile subDir = dir.createDir('sub')
+
+        expect:
+        watcher.watch(dir)
+
+        when:
+        subDir.deleteDir()
+        waitFor { changes.contains(subDir) }
+
+        then:
+        !overflowed
+    }
+
+    def "reports changes made before sync"() {
+        if (watcher == null) {
+            return
+        }
+        TestFile dir = tmpDir.createDir('dir')
+        TestFile file = dir.createFile('file.txt')
+
+        expect:
+        watcher.watch(dir)
+
+        when:
+        file.text = 'changed'
+        def synced = watcher.sync()
+        watcher.poll(listener)
+
+        then:
+        synced
+        changes.contains(file)
+    }
+
+    def "cannot watch directory which does not exist"() {
+        expect:
+        watcher == null || !watcher.watch(tmpDir.file('missing'))
+    }
+
+    def waitFor(Closure condition) {
+        long expiry = System.currentTimeMillis() + 10000
+        while (true) {
+            watcher.poll(listener)
+            if (condition.call()) {
+                return
+            }
+            assert System.currentTimeMillis() < expiry
+            Thread.sleep(50)
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive
+
+import java.util.zip.Deflater
+import java.util.zip.ZipException
+import org.apache.tools.zip.UnixStat
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class ZipArchiveInputTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+
+    def "reads entries written by ZipArchiveOutput"() {
+        def zipFile = tmpDir.file('test.zip')
+        def time = new GregorianCalendar(2011, 5, 12, 14, 30, 22).timeInMillis.intdiv(1000) * 1000
+        def deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true)
+        def output = new ZipArchiveOutput(zipFile)
+        [new ZipArchiveEntry('dir/', ZipArchiveEntry.STORED, time, UnixStat.DIR_FLAG | 0755),
+                new ZipArchiveEntry('dir/deflated.txt', ZipArchiveEntry.DEFLATED, time, UnixStat.FILE_FLAG | 0644),
+                new ZipArchiveEntry('stored.txt', ZipArchiveEntry.STORED, time, UnixStat.FILE_FLAG | 0600)].each { entry ->
+            def outstr = output.startEntry(entry, deflater)
+            outstr << "content of $entry.name"
+            outstr.close()
+        }
+        output.close()
+        deflater.end()
+
+        when:
+        def input = new ZipArchiveInput(zipFile)
+        def entries = input.entries
+
+        then:
+        entries.collect { it.name } == ['dir/', 'dir/deflated.txt', 'stored.txt']
+        entries.collect { it.method } == [ZipArchiveEntry.STORED, ZipArchiveEntry.DEFLATED, ZipArchiveEntry.STORED]
+        entries.collect { it.unixMode } == [UnixStat.DIR_FLAG | 0755, UnixStat.FILE_FLAG | 0644, UnixStat.FILE_FLAG | 0600]
+        entries.every { it.time == time }
+        entries.collect { [it.crc, it.size, it.compressedSize, it.dataOffset] } == output.entries.collect { [it.crc, it.size, it.compressedSize, it.dataOffset] }
+        input.openCompressedContent(entries[2]).text == 'content of stored.txt'
+
+        cleanup:
+        input?.close()
+    }
+
+    def "reads entries written by Ant"() {
+        def contentDir = tmpDir.createDir('content')
+        contentDir.createFile('a/b.txt').write('some content')
+        def zipFile = tmpDir.file('test.zip')
+        contentDir.zipTo(zipFile)
+
+        when:
+        def input = new ZipArchiveInput(zipFile)
+
+        then:
+        input.entries.find { it.name == 'a/b.txt' }.size == 'some content'.length()
+
+        cleanup:
+        input?.close()
+    }
+
+    def "fails when file is not a ZIP file"() {
+        def file = tmpDir.file('test.zip')
+        file.text = 'not a zip file'
+
+        when:
+        new ZipArchiveInput(file)
+
+        then:
+        ZipException e = thrown()
+        e.message == "Could not find the central directory of ZIP file '$file'."
+    }
+}
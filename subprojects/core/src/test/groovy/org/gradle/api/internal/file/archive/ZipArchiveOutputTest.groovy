@@ -0,0 +1,100 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive
+
+import java.util.zip.Deflater
+import org.apache.tools.zip.UnixStat
+import org.apache.tools.zip.ZipFile
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class ZipArchiveOutputTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true)
+
+    def cleanup() {
+        deflater.end()
+    }
+
+    def "writes entries which can be read by Ant"() {
+        def zipFile = tmpDir.file('test.zip')
+        def time = new GregorianCalendar(2011, 5, 12, 14, 30, 22).timeInMillis
+
+        when:
+        def output = new ZipArchiveOutput(zipFile)
+        write(output, new ZipArchiveEntry('dir/', ZipArchiveEntry.STORED, time, UnixStat.DIR_FLAG | 0755), '')
+        write(output, new ZipArchiveEntry('dir/deflated.txt', ZipArchiveEntry.DEFLATED, time, UnixStat.FILE_FLAG | 0644), 'some deflated content')
+        write(output, new ZipArchiveEntry('stored.txt', ZipArchiveEntry.STORED, time, UnixStat.FILE_FLAG | 0600), 'some stored content')
+        output.close()
+
+        then:
+        def zip = new ZipFile(zipFile)
+        try {
+            assert zip.entries.collect { it.name } as Set == ['dir/', 'dir/deflated.txt', 'stored.txt'] as Set
+            assert zip.getEntry('dir/').directory
+            assert zip.getEntry('dir/').unixMode == (UnixStat.DIR_FLAG | 0755)
+            assert zip.getEntry('dir/deflated.txt').unixMode == (UnixStat.FILE_FLAG | 0644)
+            assert zip.getEntry('dir/deflated.txt').method == ZipArchiveEntry.DEFLATED
+            assert zip.getEntry('dir/deflated.txt').time.intdiv(1000) == time.intdiv(1000)
+            assert zip.getInputStream(zip.getEntry('dir/deflated.txt')).text == 'some deflated content'
+            assert zip.getEntry('stored.txt').method == ZipArchiveEntry.STORED
+            assert zip.getInputStream(zip.getEntry('stored.txt')).text == 'some stored content'
+        } finally {
+            zip.close()
+        }
+    }
+
+    def "can copy compressed content from another ZIP file"() {
+        def original = tmpDir.file('original.zip')
+        def copy = tmpDir.file('copy.zip')
+        def output = new ZipArchiveOutput(original)
+        write(output, new ZipArchiveEntry('a.txt', ZipArchiveEntry.DEFLATED, 0, UnixStat.FILE_FLAG | 0644), 'some content')
+        output.close()
+        ZipArchiveEntry entry = output.entries[0]
+
+        when:
+        output = new ZipArchiveOutput(copy)
+        original.withInputStream { instr ->
+            instr.skip(entry.dataOffset)
+            output.write(new ZipArchiveEntry(entry.name, entry.method, entry.time, entry.unixMode, entry.crc, entry.size, entry.compressedSize), instr)
+        }
+        output.close()
+
+        then:
+        copy.bytes == original.bytes
+    }
+
+    def "fails when compressed content is shorter than expected"() {
+        def output = new ZipArchiveOutput(tmpDir.file('test.zip'))
+
+        when:
+        output.write(new ZipArchiveEntry('a.txt', ZipArchiveEntry.STORED, 0, UnixStat.FILE_FLAG | 0644, 0, 10, 10), new ByteArrayInputStream(new byte[4]))
+
+        then:
+        EOFException e = thrown()
+        e.message == "Unexpected end of content for ZIP entry 'a.txt'."
+
+        cleanup:
+        output.close()
+    }
+
+    def write(ZipArchiveOutput output, ZipArchiveEntry entry, String content) {
+        def outstr = output.startEntry(entry, deflater)
+        outstr << content
+        outstr.close()
+    }
+}
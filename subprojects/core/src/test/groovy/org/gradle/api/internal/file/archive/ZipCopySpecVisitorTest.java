@@ -15,12 +15,13 @@
  */
 package org.gradle.api.internal.file.archive;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.gradle.api.GradleException;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.RelativePath;
-import org.gradle.api.internal.file.copy.ArchiveCopyAction;
 import org.gradle.api.internal.file.copy.ReadableCopySpec;
+import org.gradle.messaging.concurrent.DefaultExecutorFactory;
 import org.gradle.util.TestFile;
 import org.gradle.util.TemporaryFolder;
 import org.hamcrest.Description;
@@ -31,21 +32,38 @@ import org.jmock.api.Invocation;
 import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
 import static org.junit.Assert.*;
+import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 
+import java.io.File;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 @RunWith(JMock.class)
 public class ZipCopySpecVisitorTest {
     @Rule
     public final TemporaryFolder tmpDir = new TemporaryFolder();
     private final JUnit4Mockery context = new JUnit4Mockery();
-    private final ArchiveCopyAction copyAction = context.mock(ArchiveCopyAction.class);
+    private final ZipCopyAction copyAction = context.mock(ZipCopyAction.class);
     private final ReadableCopySpec copySpec = context.mock(ReadableCopySpec.class);
-    private final ZipCopySpecVisitor visitor = new ZipCopySpecVisitor();
+    private final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory();
+    private final ZipCopySpecVisitor visitor = new ZipCopySpecVisitor(executorFactory, 4);
+    private boolean storeCompressedFiles;
+    private boolean preserveFileTimestamps = true;
+    private boolean reproducibleFileOrder;
+    private Set<File> changedInputFiles;
+    private int mockCount;
 
     @Before
     public void setUp() {
@@ -54,9 +72,54 @@ public class ZipCopySpecVisitorTest {
             will(returnValue(1));
             allowing(copySpec).getDirMode();
             will(returnValue(2));
+            allowing(copyAction).isStoreCompressedFiles();
+            will(new Action() {
+                public void describeTo(Description description) {
+                    description.appendText("return store compressed files flag");
+                }
+
+                public Object invoke(Invocation invocation) throws Throwable {
+                    return storeCompressedFiles;
+                }
+            });
+            allowing(copyAction).isPreserveFileTimestamps();
+            will(new Action() {
+                public void describeTo(Description description) {
+                    description.appendText("return preserve file timestamps flag");
+                }
+
+                public Object invoke(Invocation invocation) throws Throwable {
+                    return preserveFileTimestamps;
+                }
+            });
+            allowing(copyAction).isReproducibleFileOrder();
+            will(new Action() {
+                public void describeTo(Description description) {
+                    description.appendText("return reproducible file order flag");
+                }
+
+                public Object invoke(Invocation invocation) throws Throwable {
+                    return reproducibleFileOrder;
+                }
+            });
+            allowing(copyAction).getChangedInputFiles();
+            will(new Action() {
+                public void describeTo(Description description) {
+                    description.appendText("return changed input files");
+                }
+
+                public Object invoke(Invocation invocation) throws Throwable {
+                    return changedInputFiles;
+                }
+            });
         }});
     }
 
+    @After
+    public void tearDown() {
+        executorFactory.stop();
+    }
+
     @Test
     public void createsZipFile() {
         final TestFile zipFile = tmpDir.getDir().file("test.zip");
@@ -81,6 +144,215 @@ public class ZipCopySpecVisitorTest {
         expandDir.file("file2").assertContents(equalTo("contents of file2"));
     }
 
+    @Test
+    public void writesEntriesInVisitOrder() throws Exception {
+        final TestFile zipFile = tmpDir.getDir().file("test.zip");
+        List<String> expected = new ArrayList<String>();
+
+        context.checking(new Expectations(){{
+            allowing(copyAction).getArchivePath();
+            will(returnValue(zipFile));
+        }});
+
+        visitor.startVisit(copyAction);
+        visitor.visitSpec(copySpec);
+        for (int i = 0; i < 20; i++) {
+            visitor.visitDir(dir("dir" + i));
+            visitor.visitFile(file("dir" + i + "/file"));
+            expected.add("dir" + i + "/");
+            expected.add("dir" + i + "/file");
+        }
+        visitor.endVisit();
+
+        assertThat(entryNames(zipFile), equalTo(expected));
+        TestFile expandDir = tmpDir.getDir().file("expanded");
+        zipFile.unzipTo(expandDir);
+        expandDir.file("dir12/file").assertContents(equalTo("contents of dir12/file"));
+    }
+
+    @Test
+    public void compressesLargeFileWhileReadingIt() {
+        final TestFile zipFile = tmpDir.getDir().file("test.zip");
+        final StringBuilder content = new StringBuilder();
+        while (content.length() < 5 * 1024 * 1024) {
+            content.append("some content ").append(content.length()).append('\n');
+        }
+
+        context.checking(new Expectations(){{
+            allowing(copyAction).getArchivePath();
+            will(returnValue(zipFile));
+        }});
+
+        visitor.startVisit(copyAction);
+        visitor.visitSpec(copySpec);
+        visitor.visitFile(file("small"));
+        visitor.visitFile(file("large", content.toString()));
+        visitor.visitFile(file("other"));
+        visitor.endVisit();
+
+        TestFile expandDir = tmpDir.getDir().file("expanded");
+        zipFile.unzipTo(expandDir);
+        expandDir.file("small").assertContents(equalTo("contents of small"));
+        expandDir.file("large").assertContents(equalTo(content.toString()));
+        expandDir.file("other").assertContents(equalTo("contents of other"));
+    }
+
+    @Test
+    public void storesCompressedFilesWhenRequested() throws Exception {
+        final TestFile zipFile = tmpDir.getDir().file("test.zip");
+        storeCompressedFiles = true;
+
+        context.checking(new Expectations(){{
+            allowing(copyAction).getArchivePath();
+            will(returnValue(zipFile));
+        }});
+
+        visitor.startVisit(copyAction);
+        visitor.visitSpec(copySpec);
+        visitor.visitFile(file("lib/some.jar"));
+        visitor.visitFile(file("images/some.PNG"));
+        visitor.visitFile(file("some.jar/file.txt"));
+        visitor.endVisit();
+
+        ZipFile zip = new ZipFile(zipFile);
+        try {
+            assertThat(zip.getEntry("lib/some.jar").getMethod(), equalTo(ZipEntry.STORED));
+            assertThat(zip.getEntry("images/some.PNG").getMethod(), equalTo(ZipEntry.STORED));
+            assertThat(zip.getEntry("some.jar/file.txt").getMethod(), equalTo(ZipEntry.DEFLATED));
+            assertThat(IOUtils.toString(zip.getInputStream(zip.getEntry("lib/some.jar"))), equalTo("contents of lib/some.jar"));
+        } finally {
+            zip.close();
+        }
+    }
+
+    @Test
+    public void createsIdenticalZipFilesWhenTimestampsAndFileOrderAreNormalized() throws Exception {
+        final TestFile zipFile1 = tmpDir.getDir().file("test1.zip");
+        final TestFile zipFile2 = tmpDir.getDir().file("test2.zip");
+        preserveFileTimestamps = false;
+        reproducibleFileOrder = true;
+
+        context.checking(new Expectations(){{
+            exactly(2).of(copyAction).getArchivePath();
+            will(onConsecutiveCalls(returnValue(zipFile1), returnValue(zipFile2)));
+        }});
+
+        visitor.startVisit(copyAction);
+        visitor.visitSpec(copySpec);
+        visitor.visitFile(file("b"));
+        visitor.visitDir(dir("a"));
+        visitor.visitFile(file("a/b"));
+        visitor.visitFile(file("a/a"));
+        visitor.endVisit();
+
+        visitor.startVisit(copyAction);
+        visitor.visitSpec(copySpec);
+        visitor.visitFile(file("a/a", "contents of a/a", 2000L));
+        visitor.visitFile(file("a/b", "contents of a/b", 2000L));
+        visitor.visitFile(file("b", "contents of b", 2000L));
+        visitor.visitDir(dir("a"));
+        visitor.endVisit();
+
+        assertThat(entryNames(zipFile1), equalTo(toList("a/", "a/a", "a/b", "b")));
+        assertTrue(Arrays.equals(FileUtils.readFileToByteArray(zipFile1), FileUtils.readFileToByteArray(zipFile2)));
+        assertThat(tmpDir.getDir().list().length, equalTo(2));
+    }
+
+    @Test
+    public void copiesEntriesForUnchangedFilesFromPreviousZipFile() throws Exception {
+        final TestFile zipFile = tmpDir.getDir().file("out/test.zip");
+        zipFile.getParentFile().mkdirs();
+        TestFile unchangedFile = tmpDir.getDir().file("unchanged.txt").write("unchanged content");
+        TestFile changedFile = tmpDir.getDir().file("changed.txt").write("original content");
+        TestFile largeFile = tmpDir.getDir().file("large.txt");
+        StringBuilder largeContent = new StringBuilder();
+        while (largeContent.length() < 5 * 1024 * 1024) {
+            largeContent.append("some content ").append(largeContent.length()).append('\n');
+        }
+        largeFile.write(largeContent);
+
+        context.checking(new Expectations(){{
+            allowing(copyAction).getArchivePath();
+            will(returnValue(zipFile));
+        }});
+
+        visitor.startVisit(copyAction);
+        visitor.visitSpec(copySpec);
+        visitor.visitFile(sourceFile("unchanged.txt", unchangedFile));
+        visitor.visitFile(sourceFile("changed.txt", changedFile));
+        visitor.visitFile(sourceFile("large.txt", largeFile));
+        visitor.visitFile(filteredFile("filtered.txt"));
+        visitor.endVisit();
+
+        changedFile.write("new content");
+        TestFile addedFile = tmpDir.getDir().file("added.txt").write("added content");
+        changedInputFiles = toSet(changedFile, addedFile);
+
+        visitor.startVisit(copyAction);
+        visitor.visitSpec(copySpec);
+        visitor.visitFile(unchangedSourceFile("unchanged.txt", unchangedFile));
+        visitor.visitFile(sourceFile("changed.txt", changedFile));
+        visitor.visitFile(unchangedSourceFile("large.txt", largeFile));
+        visitor.visitFile(filteredFile("filtered.txt"));
+        visitor.visitFile(sourceFile("added.txt", addedFile));
+        visitor.endVisit();
+
+        assertThat(entryNames(zipFile), equalTo(toList("unchanged.txt", "changed.txt", "large.txt", "filtered.txt", "added.txt")));
+        TestFile expandDir = tmpDir.getDir().file("expanded");
+        zipFile.unzipTo(expandDir);
+        expandDir.file("unchanged.txt").assertContents(equalTo("unchanged content"));
+        expandDir.file("changed.txt").assertContents(equalTo("new content"));
+        expandDir.file("large.txt").assertContents(equalTo(largeContent.toString()));
+        expandDir.file("filtered.txt").assertContents(equalTo("contents of filtered.txt"));
+        expandDir.file("added.txt").assertContents(equalTo("added content"));
+        assertThat(zipFile.getParentFile().list(), equalTo(new String[]{"test.zip"}));
+    }
+
+    @Test
+    public void createsZipFileWhenPreviousZipFileCannotBeRead() {
+        final TestFile zipFile = tmpDir.getDir().file("out/test.zip");
+        zipFile.write("not a zip");
+        changedInputFiles = Collections.emptySet();
+
+        context.checking(new Expectations(){{
+            allowing(copyAction).getArchivePath();
+            will(returnValue(zipFile));
+        }});
+
+        visitor.startVisit(copyAction);
+        visitor.visitSpec(copySpec);
+        visitor.visitFile(file("file"));
+        visitor.endVisit();
+
+        TestFile expandDir = tmpDir.getDir().file("expanded");
+        zipFile.unzipTo(expandDir);
+        expandDir.file("file").assertContents(equalTo("contents of file"));
+        assertThat(zipFile.getParentFile().list(), equalTo(new String[]{"test.zip"}));
+    }
+
+    @Test
+    public void removesPreviousZipFileWhenPreviousZipFileCannotBeReadAndElementCannotBeAdded() {
+        final TestFile zipFile = tmpDir.getDir().file("out/test.zip");
+        zipFile.write("not a zip");
+        changedInputFiles = Collections.emptySet();
+
+        context.checking(new Expectations(){{
+            allowing(copyAction).getArchivePath();
+            will(returnValue(zipFile));
+        }});
+
+        visitor.startVisit(copyAction);
+        visitor.visitSpec(copySpec);
+        try {
+            visitor.visitFile(brokenFile("file", new RuntimeException("broken")));
+            fail();
+        } catch (GradleException e) {
+            // Expected
+        }
+
+        assertThat(zipFile.getParentFile().list(), equalTo(new String[0]));
+    }
+
     @Test
     public void wrapsFailureToOpenOutputFile() {
         final TestFile zipFile = tmpDir.createDir("test.zip");
@@ -120,8 +392,83 @@ public class ZipCopySpecVisitorTest {
         }
     }
 
-    private FileVisitDetails file(final String path) {
-        final FileVisitDetails details = context.mock(FileVisitDetails.class, path);
+    @Test
+    public void cleansUpWhenElementCannotBeAdded() throws Exception {
+        final TestFile zipFile = tmpDir.getDir().file("out/test.zip");
+        zipFile.getParentFile().mkdirs();
+        reproducibleFileOrder = true;
+
+        context.checking(new Expectations(){{
+            allowing(copyAction).getArchivePath();
+            will(returnValue(zipFile));
+        }});
+
+        visitor.startVisit(copyAction);
+        visitor.visitSpec(copySpec);
+        visitor.visitFile(file("file1"));
+
+        try {
+            visitor.visitFile(brokenFile("file2", new RuntimeException("broken")));
+            fail();
+        } catch (GradleException e) {
+            // Expected
+        }
+
+        assertThat(zipFile.getParentFile().list(), equalTo(new String[0]));
+
+        visitor.startVisit(copyAction);
+        visitor.visitSpec(copySpec);
+        visitor.visitFile(file("file3"));
+        visitor.endVisit();
+
+        assertThat(entryNames(zipFile), equalTo(toList("file3")));
+        assertThat(zipFile.getParentFile().list(), equalTo(new String[]{"test.zip"}));
+    }
+
+    private List<String> entryNames(TestFile zipFile) throws Exception {
+        List<String> names = new ArrayList<String>();
+        ZipFile zip = new ZipFile(zipFile);
+        try {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                names.add(entries.nextElement().getName());
+            }
+        } finally {
+            zip.close();
+        }
+        return names;
+    }
+
+    private Set<File> toSet(File... files) {
+        Set<File> set = new HashSet<File>();
+        for (File file : files) {
+            set.add(file.getAbsoluteFile());
+        }
+        return set;
+    }
+
+    private FileVisitDetails sourceFile(final String path, final TestFile file) {
+        final FileVisitDetails details = unchangedSourceFile(path, file);
+
+        context.checking(new Expectations() {{
+            allowing(details).copyTo(with(notNullValue(OutputStream.class)));
+            will(new Action() {
+                public void describeTo(Description description) {
+                    description.appendText("write content");
+                }
+
+                public Object invoke(Invocation invocation) throws Throwable {
+                    IOUtils.write(FileUtils.readFileToByteArray(file), (OutputStream) invocation.getParameter(0));
+                    return null;
+                }
+            });
+        }});
+
+        return details;
+    }
+
+    private FileVisitDetails unchangedSourceFile(final String path, final TestFile file) {
+        final FileVisitDetails details = context.mock(FileVisitDetails.class, path + "#" + mockCount++);
 
         context.checking(new Expectations() {{
             allowing(details).getRelativePath();
@@ -130,6 +477,53 @@ public class ZipCopySpecVisitorTest {
             allowing(details).getLastModified();
             will(returnValue(1000L));
 
+            allowing(details).getFile();
+            will(returnValue(file));
+
+            allowing(details).getSize();
+            will(returnValue(file.length()));
+        }});
+
+        return details;
+    }
+
+    private FileVisitDetails filteredFile(final String path) {
+        final FileVisitDetails details = file(path);
+
+        context.checking(new Expectations() {{
+            allowing(details).getFile();
+            will(throwException(new UnsupportedOperationException()));
+        }});
+
+        return details;
+    }
+
+    private List<String> toList(String... names) {
+        List<String> list = new ArrayList<String>();
+        for (String name : names) {
+            list.add(name);
+        }
+        return list;
+    }
+
+    private FileVisitDetails file(final String path) {
+        return file(path, String.format("contents of %s", path));
+    }
+
+    private FileVisitDetails file(final String path, final String content) {
+        return file(path, content, 1000L);
+    }
+
+    private FileVisitDetails file(final String path, final String content, final long lastModified) {
+        final FileVisitDetails details = context.mock(FileVisitDetails.class, path + "#" + mockCount++);
+
+        context.checking(new Expectations() {{
+            allowing(details).getRelativePath();
+            will(returnValue(RelativePath.parse(true, path)));
+
+            allowing(details).getLastModified();
+            will(returnValue(lastModified));
+
             allowing(details).copyTo(with(notNullValue(OutputStream.class)));
             will(new Action() {
                 public void describeTo(Description description) {
@@ -137,7 +531,7 @@ public class ZipCopySpecVisitorTest {
                 }
 
                 public Object invoke(Invocation invocation) throws Throwable {
-                    IOUtils.write(String.format("contents of %s", path), (OutputStream) invocation.getParameter(0));
+                    IOUtils.write(content, (OutputStream) invocation.getParameter(0));
                     return null;
                 }
             });
@@ -147,7 +541,7 @@ public class ZipCopySpecVisitorTest {
     }
 
     private FileVisitDetails dir(final String path) {
-        final FileVisitDetails details = context.mock(FileVisitDetails.class, path);
+        final FileVisitDetails details = context.mock(FileVisitDetails.class, path + "#" + mockCount++);
 
         context.checking(new Expectations() {{
             allowing(details).getRelativePath();
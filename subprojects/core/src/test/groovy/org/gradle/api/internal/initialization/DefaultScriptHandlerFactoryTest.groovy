@@ -23,6 +23,9 @@ import org.gradle.api.internal.artifacts.configurations.DependencyMetaDataProvid
 import org.gradle.api.internal.file.FileResolver
 import org.gradle.groovy.scripts.ScriptSource
 import org.gradle.util.ObservableUrlClassLoader
+import org.gradle.util.MultiParentClassLoader
+import org.gradle.initialization.InMemoryClassLoaderCache
+import org.gradle.api.internal.changedetection.DefaultHasher
 import spock.lang.Specification
 
 class DefaultScriptHandlerFactoryTest extends Specification {
@@ -32,7 +35,7 @@ class DefaultScriptHandlerFactoryTest extends Specification {
     private final ConfigurationContainerInternal configurationContainer = Mock()
     private final FileResolver fileResolver = Mock()
     private final DependencyManagementServices dependencyManagementServices = Mock()
-    private final DefaultScriptHandlerFactory factory = new DefaultScriptHandlerFactory(dependencyManagementServices, fileResolver, metaDataProvider)
+    private final DefaultScriptHandlerFactory factory = new DefaultScriptHandlerFactory(dependencyManagementServices, fileResolver, metaDataProvider, new InMemoryClassLoaderCache(new DefaultHasher()))
 
     def createsScriptHandler() {
         ScriptSource script = scriptSource()
@@ -44,7 +47,8 @@ class DefaultScriptHandlerFactoryTest extends Specification {
         then:
         handler instanceof DefaultScriptHandler
         handler.classLoader instanceof ObservableUrlClassLoader
-        handler.classLoader.parent == parentClassLoader
+        handler.classLoader.parent instanceof MultiParentClassLoader
+        handler.classLoader.parent.parents == [parentClassLoader]
     }
 
     def reusesClassLoaderForGivenScriptClassAndParentClassLoader() {
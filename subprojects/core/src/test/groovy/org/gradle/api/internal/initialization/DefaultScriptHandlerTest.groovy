@@ -29,6 +29,9 @@ import static org.hamcrest.Matchers.*
 import static org.junit.Assert.*
 import org.gradle.groovy.scripts.ScriptSource
 import org.gradle.util.ObservableUrlClassLoader
+import org.gradle.util.MultiParentClassLoader
+import org.gradle.initialization.InMemoryClassLoaderCache
+import org.gradle.api.internal.changedetection.DefaultHasher
 import org.gradle.util.ConfigureUtil
 
 @RunWith(JMock)
@@ -39,14 +42,16 @@ public class DefaultScriptHandlerTest {
     private final ConfigurationContainer configurationContainer = context.mock(ConfigurationContainer.class)
     private final Configuration configuration = context.mock(Configuration.class)
     private final ScriptSource scriptSource = context.mock(ScriptSource.class)
-    private final ObservableUrlClassLoader classLoader = context.mock(ObservableUrlClassLoader.class)
+    private final MultiParentClassLoader classPathClassLoader = new MultiParentClassLoader(getClass().classLoader)
+    private final ObservableUrlClassLoader classLoader = new ObservableUrlClassLoader(classPathClassLoader)
+    private final InMemoryClassLoaderCache classLoaderCache = new InMemoryClassLoaderCache(new DefaultHasher())
 
     @Test void addsClasspathConfiguration() {
         context.checking {
             one(configurationContainer).add('classpath')
         }
 
-        new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader)
+        new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader, classPathClassLoader, classLoaderCache)
     }
 
     @Test void createsAClassLoaderAndAddsContentsOfClassPathConfiguration() {
@@ -59,12 +64,43 @@ public class DefaultScriptHandlerTest {
         File file2 = new File('b')
         context.checking {
             one(configuration).getFiles()
-            will(returnValue(WrapUtil.toSet(file1, file2)))
-            one(classLoader).addURL(file1.toURI().toURL())
-            one(classLoader).addURL(file2.toURI().toURL())
+            will(returnValue([file1, file2] as LinkedHashSet))
         }
 
         handler.updateClassPath()
+
+        assertThat(classPathClassLoader.parents.size(), equalTo(2))
+        URLClassLoader dependenciesClassLoader = classPathClassLoader.parents[1]
+        assertThat(dependenciesClassLoader.URLs as List, equalTo([file1.toURI().toURL(), file2.toURI().toURL()]))
+        assertThat(dependenciesClassLoader.parent, sameInstance(getClass().classLoader))
+    }
+
+    @Test void reusesClassLoaderCreatedForAnotherScriptWithSameClassPath() {
+        MultiParentClassLoader otherClassPathClassLoader = new MultiParentClassLoader(getClass().classLoader)
+        context.checking {
+            allowing(configurationContainer).add('classpath')
+            will(returnValue(configuration))
+            allowing(configuration).getFiles()
+            will(returnValue(WrapUtil.toSet(new File('a'))))
+        }
+
+        new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader, classPathClassLoader, classLoaderCache).updateClassPath()
+        new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, new ObservableUrlClassLoader(otherClassPathClassLoader), otherClassPathClassLoader, classLoaderCache).updateClassPath()
+
+        assertThat(otherClassPathClassLoader.parents[1], sameInstance(classPathClassLoader.parents[1]))
+    }
+
+    @Test void doesNotAddClassLoaderForEmptyClassPath() {
+        DefaultScriptHandler handler = handler()
+
+        context.checking {
+            one(configuration).getFiles()
+            will(returnValue([] as Set))
+        }
+
+        handler.updateClassPath()
+
+        assertThat(classPathClassLoader.parents.size(), equalTo(1))
     }
 
     @Test void canConfigureRepositories() {
@@ -100,6 +136,6 @@ public class DefaultScriptHandlerTest {
             one(configurationContainer).add('classpath')
             will(returnValue(configuration))
         }
-        return new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader)
+        return new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader, classPathClassLoader, classLoaderCache)
     }
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ package org.gradle.api.internal.project
 import java.awt.Point
 import java.text.FieldPosition
 import org.apache.tools.ant.types.FileSet
+import org.gradle.StartParameter
 import org.gradle.api.artifacts.Module
 import org.gradle.api.artifacts.dsl.ArtifactHandler
 import org.gradle.api.artifacts.dsl.DependencyHandler
@@ -104,6 +105,7 @@ class DefaultProjectTest {
     ScriptHandler scriptHandlerMock = context.mock(ScriptHandler)
     DependencyMetaDataProvider dependencyMetaDataProviderMock = context.mock(DependencyMetaDataProvider)
     Gradle build;
+    StartParameter startParameter = new StartParameter()
     Convention convention = new DefaultConvention();
     FileOperations fileOperationsMock
     LoggingManagerInternal loggingManagerMock;
@@ -169,6 +171,8 @@ class DefaultProjectTest {
             ignoring(listener)
             allowing(build).getProjectEvaluationBroadcaster();
             will(returnValue(listener))
+            allowing(build).getStartParameter();
+            will(returnValue(startParameter))
         }
 
         // TODO - don't decorate the project objects
@@ -943,6 +947,28 @@ def scriptMethod(Closure closure) {
         checkConfigureProject('configure', [project, child1] as Set)
     }
 
+    @Test void testCannotConfigureProjectWhichHasNotBeenConfiguredWhenProjectsAreConfiguredInParallel() {
+        startParameter.parallelProjectConfiguration = true
+
+        try {
+            child1.project(':child2') { }
+            fail()
+        } catch (InvalidUserDataException e) {
+            assertThat(e.message, equalTo("Cannot configure project ':child2' from project ':child1', as projects are configured in parallel and project ':child2' has not been configured yet. Use evaluationDependsOn(':child2') to configure it first."))
+        }
+    }
+
+    @Test void testCanConfigureConfiguredProjectsAndDescendantsWhenProjectsAreConfiguredInParallel() {
+        startParameter.parallelProjectConfiguration = true
+        child2.state.executed()
+
+        child1.project(':child2') { testSubProp = 'child2' }
+        child1.subprojects { testSubProp = 'childchild' }
+
+        assertThat(child2.testSubProp, equalTo('child2'))
+        assertThat(childchild.testSubProp, equalTo('childchild'))
+    }
+
     @Test void testHasUsefulToString() {
         assertEquals('root project \'root\'', project.toString())
         assertEquals('project \':child1\'', child1.toString())
@@ -17,18 +17,25 @@
 package org.gradle.api.internal.project;
 
 import org.gradle.api.internal.*;
+import org.gradle.api.internal.changedetection.DirectoryTreeSnapshotCache;
+import org.gradle.api.internal.changedetection.InMemoryFileHashCache;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.DefaultPluginModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.classpath.PluginModuleRegistry;
+import org.gradle.api.internal.project.taskfactory.DependencyAutoWireTaskFactory;
+import org.gradle.api.internal.project.taskfactory.ITaskFactory;
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
 import org.gradle.cache.internal.CacheFactory;
 import org.gradle.cache.internal.DefaultCacheFactory;
 import org.gradle.cache.internal.DefaultFileLockManager;
 import org.gradle.cache.internal.FileLockManager;
+import org.gradle.groovy.scripts.internal.InMemoryScriptClassCache;
 import org.gradle.initialization.ClassLoaderRegistry;
 import org.gradle.cli.CommandLineConverter;
 import org.gradle.initialization.DefaultClassLoaderRegistry;
 import org.gradle.initialization.DefaultCommandLineConverter;
+import org.gradle.initialization.InMemoryClassLoaderCache;
 import org.gradle.listener.DefaultListenerManager;
 import org.gradle.listener.ListenerManager;
 import org.gradle.logging.LoggingManagerInternal;
@@ -41,6 +48,7 @@ import org.gradle.util.DefaultClassLoaderFactory;
 import org.junit.Test;
 
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 public class GlobalServicesRegistryTest {
@@ -117,8 +125,41 @@ public class GlobalServicesRegistryTest {
         assertThat(registry.get(Instantiator.class), instanceOf(ClassGeneratorBackedInstantiator.class));
     }
 
+    @Test
+    public void providesATaskFactory() {
+        assertThat(registry.get(ITaskFactory.class), instanceOf(DependencyAutoWireTaskFactory.class));
+        assertThat(registry.get(ITaskFactory.class), sameInstance(registry.get(ITaskFactory.class)));
+    }
+
     @Test
     public void providesAFileLockManager() {
         assertThat(registry.get(FileLockManager.class), instanceOf(DefaultFileLockManager.class));
     }
+
+    @Test
+    public void providesAnInMemoryFileHashCache() {
+        assertThat(registry.get(InMemoryFileHashCache.class), instanceOf(InMemoryFileHashCache.class));
+        assertThat(registry.get(InMemoryFileHashCache.class), sameInstance(registry.get(InMemoryFileHashCache.class)));
+    }
+
+    @Test
+    public void providesADirectoryTreeSnapshotCache() {
+        assertThat(registry.get(DirectoryTreeSnapshotCache.class), instanceOf(DirectoryTreeSnapshotCache.class));
+    }
+
+    @Test
+    public void providesAnInMemoryScriptClassCache() {
+        assertThat(registry.get(InMemoryScriptClassCache.class), sameInstance(registry.get(InMemoryScriptClassCache.class)));
+    }
+
+    @Test
+    public void providesAnInMemoryClassLoaderCache() {
+        assertThat(registry.get(InMemoryClassLoaderCache.class), sameInstance(registry.get(InMemoryClassLoaderCache.class)));
+    }
+
+    @Test
+    public void providesACompilerDaemonManager() {
+        assertThat(registry.get(CompilerDaemonManager.class), instanceOf(CompilerDaemonManager.class));
+        assertThat(registry.get(CompilerDaemonManager.class), sameInstance(registry.get(CompilerDaemonManager.class)));
+    }
 }
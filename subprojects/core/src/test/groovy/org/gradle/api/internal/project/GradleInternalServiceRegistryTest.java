@@ -25,6 +25,7 @@ import org.gradle.execution.DefaultTaskGraphExecuter;
 import org.gradle.execution.TaskGraphExecuter;
 import org.gradle.listener.ListenerBroadcast;
 import org.gradle.listener.ListenerManager;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 import org.gradle.util.JUnit4GroovyMockery;
 import org.gradle.util.MultiParentClassLoader;
 import org.jmock.Expectations;
@@ -81,6 +82,8 @@ public class GradleInternalServiceRegistryTest {
     @Test
     public void providesATaskGraphExecuter() {
         context.checking(new Expectations() {{
+            allowing(parent).get(ExecutorFactory.class);
+            will(returnValue(context.mock(ExecutorFactory.class)));
             one(listenerManager).createAnonymousBroadcaster(TaskExecutionGraphListener.class);
             will(returnValue(new ListenerBroadcast<TaskExecutionGraphListener>(TaskExecutionGraphListener.class)));
             one(listenerManager).createAnonymousBroadcaster(TaskExecutionListener.class);
@@ -31,6 +31,7 @@ import org.gradle.api.internal.artifacts.dsl.DefaultArtifactHandler;
 import org.gradle.api.internal.artifacts.dsl.PublishArtifactFactory;
 import org.gradle.api.internal.artifacts.dsl.dependencies.DependencyFactory;
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
+import org.gradle.api.internal.changedetection.DefaultHasher;
 import org.gradle.api.internal.file.*;
 import org.gradle.api.internal.initialization.DefaultScriptHandler;
 import org.gradle.api.internal.initialization.ScriptClassLoaderProvider;
@@ -43,6 +44,7 @@ import org.gradle.api.internal.tasks.TaskContainerInternal;
 import org.gradle.api.logging.LoggingManager;
 import org.gradle.api.plugins.Convention;
 import org.gradle.api.plugins.PluginContainer;
+import org.gradle.initialization.InMemoryClassLoaderCache;
 import org.gradle.logging.LoggingManagerInternal;
 import org.gradle.util.JUnit4GroovyMockery;
 import org.jmock.Expectations;
@@ -235,6 +237,9 @@ public class ProjectInternalServiceRegistryTest {
 
             allowing(gradle).getScriptClassLoader();
             will(returnValue(null));
+
+            allowing(parent).get(InMemoryClassLoaderCache.class);
+            will(returnValue(new InMemoryClassLoaderCache(new DefaultHasher())));
         }});
     }
 
@@ -20,9 +20,11 @@ import org.gradle.api.internal.tasks.TaskExecuter
 import org.gradle.api.internal.tasks.execution.ExecuteAtMostOnceTaskExecuter
 import org.gradle.listener.ListenerManager
 import org.gradle.cache.CacheRepository
-import org.gradle.cache.ObjectCacheBuilder
+import org.gradle.cache.IndexedCacheBuilder
 import org.gradle.StartParameter
 import org.gradle.api.invocation.Gradle
+import org.gradle.messaging.concurrent.ExecutorFactory
+import org.gradle.api.internal.changedetection.InMemoryFileHashCache
 
 class TaskExecutionServicesTest extends Specification {
     final ServiceRegistry parent = Mock()
@@ -34,13 +36,17 @@ class TaskExecutionServicesTest extends Specification {
         ListenerManager listenerManager = Mock()
         StartParameter startParameter = Mock()
         CacheRepository cacheRepository = Mock()
-        ObjectCacheBuilder<?, ?> cacheBuilder = Mock()
+        IndexedCacheBuilder<?, ?> cacheBuilder = Mock()
+        ExecutorFactory executorFactory = Mock()
         _ * parent.get(ListenerManager) >> listenerManager
         _ * parent.get(StartParameter) >> startParameter
         _ * parent.get(CacheRepository) >> cacheRepository
+        _ * parent.get(ExecutorFactory) >> executorFactory
+        _ * parent.get(InMemoryFileHashCache) >> new InMemoryFileHashCache()
         _ * cacheRepository.indexedCache(!null, !null, !null) >> cacheBuilder
         _ * cacheBuilder.forObject(gradle) >> cacheBuilder
         _ * cacheBuilder.withSerializer(!null) >> cacheBuilder
+        _ * cacheBuilder.withProperties(!null) >> cacheBuilder
 
         expect:
         services.get(TaskExecuter) instanceof ExecuteAtMostOnceTaskExecuter
@@ -20,20 +20,28 @@ import org.gradle.StartParameter;
 import org.gradle.api.internal.*;
 import org.gradle.api.internal.artifacts.dsl.DefaultPublishArtifactFactory;
 import org.gradle.api.internal.artifacts.dsl.PublishArtifactFactory;
+import org.gradle.api.internal.changedetection.DefaultHasher;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.classpath.PluginModuleRegistry;
+import org.gradle.api.internal.tasks.compile.CompilerPool;
+import org.gradle.api.internal.tasks.compile.DefaultCompilerPool;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.internal.CacheFactory;
 import org.gradle.cache.internal.DefaultCacheRepository;
 import org.gradle.configuration.BuildConfigurer;
+import org.gradle.configuration.ConfigureOnDemandBuildConfigurer;
 import org.gradle.configuration.DefaultBuildConfigurer;
+import org.gradle.configuration.PrecompilingBuildConfigurer;
 import org.gradle.configuration.DefaultScriptPluginFactory;
 import org.gradle.configuration.ScriptPluginFactory;
 import org.gradle.execution.BuildExecuter;
 import org.gradle.execution.DefaultBuildExecuter;
 import org.gradle.groovy.scripts.DefaultScriptCompilerFactory;
 import org.gradle.groovy.scripts.ScriptCompilerFactory;
+import org.gradle.groovy.scripts.internal.CachingScriptClassCompiler;
+import org.gradle.groovy.scripts.internal.InMemoryScriptClassCache;
+import org.gradle.groovy.scripts.internal.ScriptClassCompiler;
 import org.gradle.initialization.*;
 import org.gradle.listener.DefaultListenerManager;
 import org.gradle.listener.ListenerManager;
@@ -87,6 +95,10 @@ public class TopLevelBuildServiceRegistryTest {
             will(returnValue(new DefaultModuleRegistry()));
             allowing(parent).get(PluginModuleRegistry.class);
             will(returnValue(context.mock(PluginModuleRegistry.class)));
+            allowing(parent).get(InMemoryScriptClassCache.class);
+            will(returnValue(new InMemoryScriptClassCache()));
+            allowing(parent).get(InMemoryClassLoaderCache.class);
+            will(returnValue(new InMemoryClassLoaderCache(new DefaultHasher())));
         }});
     }
     
@@ -129,6 +141,12 @@ public class TopLevelBuildServiceRegistryTest {
         assertThat(registry.get(PublishArtifactFactory.class), sameInstance(registry.get(PublishArtifactFactory.class)));
     }
 
+    @Test
+    public void providesAScriptClassCompiler() {
+        assertThat(registry.get(ScriptClassCompiler.class), instanceOf(CachingScriptClassCompiler.class));
+        assertThat(registry.get(ScriptClassCompiler.class), sameInstance(registry.get(ScriptClassCompiler.class)));
+    }
+
     @Test
     public void providesAScriptCompilerFactory() {
         expectListenerManagerCreated();
@@ -218,12 +236,34 @@ public class TopLevelBuildServiceRegistryTest {
         assertThat(registry.get(ExecutorFactory.class), sameInstance(registry.get(ExecutorFactory.class)));
     }
 
+    @Test
+    public void providesACompilerPool() {
+        assertThat(registry.get(CompilerPool.class), instanceOf(DefaultCompilerPool.class));
+        assertThat(registry.get(CompilerPool.class), sameInstance(registry.get(CompilerPool.class)));
+    }
+
     @Test
     public void providesABuildConfigurer() {
         assertThat(registry.get(BuildConfigurer.class), instanceOf(DefaultBuildConfigurer.class));
         assertThat(registry.get(BuildConfigurer.class), sameInstance(registry.get(BuildConfigurer.class)));
     }
 
+    @Test
+    public void providesAPrecompilingBuildConfigurerWhenProjectsAreConfiguredInParallel() {
+        startParameter.setParallelProjectConfiguration(true);
+
+        assertThat(registry.get(BuildConfigurer.class), instanceOf(PrecompilingBuildConfigurer.class));
+        assertThat(registry.get(BuildConfigurer.class), sameInstance(registry.get(BuildConfigurer.class)));
+    }
+
+    @Test
+    public void providesAConfigureOnDemandBuildConfigurerWhenProjectsAreConfiguredOnDemand() {
+        startParameter.setConfigureOnDemand(true);
+
+        assertThat(registry.get(BuildConfigurer.class), instanceOf(ConfigureOnDemandBuildConfigurer.class));
+        assertThat(registry.get(BuildConfigurer.class), sameInstance(registry.get(BuildConfigurer.class)));
+    }
+
     @Test
     public void providesAPropertiesLoader() {
         assertThat(registry.get(IGradlePropertiesLoader.class), instanceOf(DefaultGradlePropertiesLoader.class));
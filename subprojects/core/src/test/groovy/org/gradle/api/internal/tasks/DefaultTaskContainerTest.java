@@ -16,10 +16,12 @@
 package org.gradle.api.internal.tasks;
 
 import groovy.lang.Closure;
+import org.gradle.StartParameter;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Rule;
 import org.gradle.api.Task;
 import org.gradle.api.UnknownTaskException;
+import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.Instantiator;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.project.ProjectInternal;
@@ -44,6 +46,8 @@ public class DefaultTaskContainerTest {
     private final JUnit4Mockery context = new JUnit4Mockery();
     private final ITaskFactory taskFactory = context.mock(ITaskFactory.class);
     private final ProjectInternal project = context.mock(ProjectInternal.class, "<project>");
+    private final GradleInternal gradle = context.mock(GradleInternal.class);
+    private final StartParameter startParameter = new StartParameter();
     private int taskCount;
     private final DefaultTaskContainer container = new DefaultTaskContainer(project, context.mock(Instantiator.class), taskFactory);
 
@@ -261,21 +265,41 @@ public class DefaultTaskContainerTest {
         expectTaskLookupInOtherProject(":", "task", task);
         assertThat(container.resolveTask(new StringBuilder(":task")), sameInstance(task));
     }
-    
-    private void expectTaskLookupInOtherProject(final String projectPath, final String taskName, final Task task) {
+
+    @Test
+    public void evaluatesOtherProjectWhenFindingTaskByPathAndProjectsAreConfiguredOnDemand() {
+        startParameter.setConfigureOnDemand(true);
+        Task task = task("task");
+        final ProjectInternal otherProject = expectTaskLookupInOtherProject(":other", "task", task);
+
+        context.checking(new Expectations() {{
+            one(otherProject).evaluate();
+        }});
+
+        assertThat(container.findByPath(":other:task"), sameInstance(task));
+    }
+
+    private ProjectInternal expectTaskLookupInOtherProject(final String projectPath, final String taskName, final Task task) {
+        final ProjectInternal otherProject = context.mock(ProjectInternal.class);
         context.checking(new Expectations() {{
-            ProjectInternal otherProject = context.mock(ProjectInternal.class);
             TaskContainerInternal otherTaskContainer = context.mock(TaskContainerInternal.class);
 
             allowing(project).findProject(projectPath);
             will(returnValue(otherProject));
 
+            allowing(project).getGradle();
+            will(returnValue(gradle));
+
+            allowing(gradle).getStartParameter();
+            will(returnValue(startParameter));
+
             allowing(otherProject).getTasks();
             will(returnValue(otherTaskContainer));
 
             allowing(otherTaskContainer).findByName(taskName);
             will(returnValue(task));
         }});
+        return otherProject;
     }
 
     private TaskInternal task(final String name) {
@@ -99,6 +99,26 @@ class DefaultTaskOutputsTest extends Specification {
         1 * history.outputFiles >> outputFiles
     }
     
+    public void getChangedInputFilesDelegatesToTaskHistory() {
+        TaskExecutionHistory history = Mock()
+        Set<File> changedFiles = [new File('changed')] as Set
+
+        setup:
+        outputs.history = history
+
+        when:
+        def f = outputs.changedInputFiles
+
+        then:
+        f == changedFiles
+        1 * history.changedInputFiles >> changedFiles
+    }
+
+    public void getChangedInputFilesReturnsNullWhenNoTaskHistoryAvailable() {
+        expect:
+        outputs.changedInputFiles == null
+    }
+
     public void getPreviousFilesFailsWhenNoTaskHistoryAvailable() {
         when:
         outputs.previousFiles
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+class DefaultCompilerPoolTest extends Specification {
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final DefaultCompilerPool pool = new DefaultCompilerPool(executorFactory, 2)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "runs compilation and returns its result"() {
+        when:
+        def result = pool.submit({ 'result' } as Callable)
+
+        then:
+        result.get() == 'result'
+    }
+
+    def "rethrows compilation failure"() {
+        def failure = new RuntimeException('broken')
+
+        when:
+        pool.submit({ throw failure } as Callable).get()
+
+        then:
+        ExecutionException e = thrown()
+        e.cause == failure
+    }
+
+    def "runs compilations concurrently up to the worker count"() {
+        def started = new CountDownLatch(2)
+        def release = new CountDownLatch(1)
+        def active = 0
+        def maxActive = 0
+        def compilation = {
+            synchronized (this) { maxActive = Math.max(maxActive, ++active) }
+            started.countDown()
+            release.await(10, TimeUnit.SECONDS)
+            synchronized (this) { active-- }
+            return true
+        } as Callable
+
+        when:
+        def results = (1..5).collect { pool.submit(compilation) }
+        assert started.await(10, TimeUnit.SECONDS)
+        release.countDown()
+
+        then:
+        results.every { it.get() }
+        maxActive == 2
+    }
+
+    def "can submit compilations after the workers have finished"() {
+        expect:
+        pool.submit({ 1 } as Callable).get() == 1
+        pool.submit({ 2 } as Callable).get() == 2
+        pool.submit({ 3 } as Callable).get() == 3
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.daemon
+
+import org.gradle.api.internal.Factory
+import org.gradle.api.internal.changedetection.DefaultHasher
+import org.gradle.process.internal.WorkerProcessBuilder
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.TimeProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class CompilerDaemonManagerTest extends Specification {
+    static final long IDLE_TIMEOUT = 60 * 60 * 1000
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    final CompilerDaemonStarter starter = Mock()
+    final Factory<WorkerProcessBuilder> workerFactory = Mock()
+    final CompileAction action = Mock()
+    final DaemonForkOptions forkOptions = new DaemonForkOptions([new File('groovy.jar')], ['groovy'], null, null)
+    final CompileResult result = new CompileResult(true, null)
+    long currentTime = 1000
+    final TimeProvider timeProvider = { currentTime } as TimeProvider
+    final CompilerDaemonManager manager = new CompilerDaemonManager(starter, new DefaultHasher(), timeProvider, IDLE_TIMEOUT)
+    final DaemonForkOptions daemonOptions = manager.daemonOptions(forkOptions)
+
+    def "starts a daemon for the first compilation"() {
+        CompilerDaemon daemon = Mock()
+
+        when:
+        def r = manager.execute(forkOptions, workerFactory, action)
+
+        then:
+        r == result
+        1 * starter.startDaemon(workerFactory, daemonOptions) >> daemon
+        1 * daemon.execute(action) >> result
+    }
+
+    def "reuses an idle daemon with the same fork options"() {
+        CompilerDaemon daemon = Mock()
+        _ * daemon.forkOptions >> daemonOptions
+
+        when:
+        manager.execute(forkOptions, workerFactory, action)
+        manager.execute(new DaemonForkOptions([new File('groovy.jar')], ['groovy'], null, null), workerFactory, action)
+
+        then:
+        1 * starter.startDaemon(workerFactory, daemonOptions) >> daemon
+        2 * daemon.execute(action) >> result
+    }
+
+    def "starts a separate daemon for different fork options"() {
+        CompilerDaemon daemon1 = Mock()
+        CompilerDaemon daemon2 = Mock()
+        def otherOptions = new DaemonForkOptions([new File('groovy-other.jar')], ['groovy'], null, null)
+        _ * daemon1.forkOptions >> daemonOptions
+
+        when:
+        manager.execute(forkOptions, workerFactory, action)
+        manager.execute(otherOptions, workerFactory, action)
+
+        then:
+        1 * starter.startDaemon(workerFactory, daemonOptions) >> daemon1
+        1 * starter.startDaemon(workerFactory, manager.daemonOptions(otherOptions)) >> daemon2
+        1 * daemon1.execute(action) >> result
+        1 * daemon2.execute(action) >> result
+    }
+
+    def "starts a separate daemon when the content of the classpath has changed"() {
+        CompilerDaemon daemon1 = Mock()
+        CompilerDaemon daemon2 = Mock()
+        def jar = tmpDir.createFile('groovy.jar')
+        jar.write('content')
+        def options = new DaemonForkOptions([jar], ['groovy'], null, null)
+        def originalOptions = manager.daemonOptions(options)
+        _ * daemon1.forkOptions >> originalOptions
+
+        when:
+        manager.execute(options, workerFactory, action)
+        jar.write('changed content')
+        manager.execute(options, workerFactory, action)
+
+        then:
+        1 * starter.startDaemon(workerFactory, originalOptions) >> daemon1
+        1 * starter.startDaemon(workerFactory, { it != originalOptions }) >> daemon2
+        1 * daemon1.execute(action) >> result
+        1 * daemon2.execute(action) >> result
+    }
+
+    def "starts a separate daemon when the daemon with the same fork options is busy"() {
+        CompilerDaemon daemon1 = Mock()
+        CompilerDaemon daemon2 = Mock()
+        def nestedAction = Mock(CompileAction)
+
+        when:
+        manager.execute(forkOptions, workerFactory, action)
+
+        then:
+        2 * starter.startDaemon(workerFactory, daemonOptions) >>> [daemon1, daemon2]
+        1 * daemon1.execute(action) >> { manager.execute(forkOptions, workerFactory, nestedAction); result }
+        1 * daemon2.execute(nestedAction) >> result
+    }
+
+    def "does not reuse a daemon which has stopped"() {
+        CompilerDaemon daemon1 = Mock()
+        CompilerDaemon daemon2 = Mock()
+        _ * daemon1.forkOptions >> daemonOptions
+        daemon1.stopped >>> [false, true]
+
+        when:
+        manager.execute(forkOptions, workerFactory, action)
+        manager.execute(forkOptions, workerFactory, action)
+
+        then:
+        2 * starter.startDaemon(workerFactory, daemonOptions) >>> [daemon1, daemon2]
+        1 * daemon1.execute(action) >> result
+        1 * daemon2.execute(action) >> result
+    }
+
+    def "stops daemons which have been idle for longer than the idle timeout"() {
+        CompilerDaemon daemon1 = Mock()
+        CompilerDaemon daemon2 = Mock()
+        def otherOptions = new DaemonForkOptions([new File('groovy-other.jar')], ['groovy'], null, null)
+        _ * starter.startDaemon(workerFactory, daemonOptions) >> daemon1
+        _ * starter.startDaemon(workerFactory, manager.daemonOptions(otherOptions)) >> daemon2
+        _ * daemon1.forkOptions >> daemonOptions
+        _ * daemon2.forkOptions >> manager.daemonOptions(otherOptions)
+        _ * daemon1.execute(action) >> result
+        _ * daemon2.execute(action) >> result
+
+        when:
+        manager.execute(forkOptions, workerFactory, action)
+        currentTime += IDLE_TIMEOUT / 2
+        manager.execute(otherOptions, workerFactory, action)
+        currentTime += IDLE_TIMEOUT / 2
+        manager.stopExpiredDaemons()
+
+        then:
+        1 * daemon1.stop()
+        0 * daemon2.stop()
+    }
+
+    def "stops idle daemons when stopped"() {
+        CompilerDaemon daemon = Mock()
+        _ * starter.startDaemon(workerFactory, daemonOptions) >> daemon
+        _ * daemon.execute(action) >> result
+
+        when:
+        manager.execute(forkOptions, workerFactory, action)
+        manager.stop()
+
+        then:
+        1 * daemon.stop()
+    }
+
+    def "stops a daemon which is in use when stopped once its compilation completes"() {
+        CompilerDaemon daemon = Mock()
+        _ * starter.startDaemon(workerFactory, daemonOptions) >> daemon
+
+        when:
+        manager.execute(forkOptions, workerFactory, action)
+
+        then:
+        1 * daemon.execute(action) >> { manager.stop(); result }
+
+        then:
+        1 * daemon.stop()
+    }
+}
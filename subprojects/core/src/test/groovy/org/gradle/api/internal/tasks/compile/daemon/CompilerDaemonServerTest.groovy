@@ -0,0 +1,39 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.daemon
+
+import org.gradle.messaging.remote.ObjectConnection
+import org.gradle.process.internal.WorkerProcessContext
+import spock.lang.Specification
+
+class CompilerDaemonServerTest extends Specification {
+    final ObjectConnection connection = Mock()
+    final WorkerProcessContext context = Mock()
+    final CompilerDaemonServer server = new CompilerDaemonServer()
+
+    def setup() {
+        _ * context.serverConnection >> connection
+        _ * context.displayName >> "worker"
+    }
+
+    def "finishes when the connection to the build process is closed"() {
+        when:
+        server.execute(context)
+
+        then:
+        1 * connection.onDisconnect(!null) >> { Runnable action -> action.run() }
+    }
+}
@@ -20,6 +20,7 @@ import org.gradle.api.Action
 import org.gradle.cache.DefaultSerializer
 import org.gradle.cache.internal.CacheFactory.CrossVersionMode
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache
+import org.gradle.cache.internal.btree.CachingBlockStore
 import org.gradle.util.TemporaryFolder
 import org.junit.Rule
 import spock.lang.Specification
@@ -54,7 +55,7 @@ class DefaultCacheFactoryTest extends Specification {
     public void "creates directory backed store instance"() {
         when:
         def factory = factoryFactory.create()
-        def cache = factory.openStore(tmpDir.dir, FileLockManager.LockMode.Shared, CrossVersionMode.VersionSpecific, null)
+        def cache = factory.openStore(tmpDir.dir, FileLockManager.LockMode.Shared, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         cache instanceof DefaultPersistentDirectoryStore
@@ -64,7 +65,7 @@ class DefaultCacheFactoryTest extends Specification {
     public void "creates directory backed cache instance"() {
         when:
         def factory = factoryFactory.create()
-        def cache = factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Shared, CrossVersionMode.VersionSpecific, null)
+        def cache = factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Shared, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         cache instanceof DefaultPersistentDirectoryCache
@@ -74,7 +75,7 @@ class DefaultCacheFactoryTest extends Specification {
     public void "creates indexed cache instance"() {
         when:
         def factory = factoryFactory.create()
-        def cache = factory.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, new DefaultSerializer())
+        def cache = factory.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, new DefaultSerializer(), CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         cache instanceof BTreePersistentIndexedCache
@@ -83,7 +84,7 @@ class DefaultCacheFactoryTest extends Specification {
     public void "creates state cache instance"() {
         when:
         def factory = factoryFactory.create()
-        def cache = factory.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, new DefaultSerializer())
+        def cache = factory.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, new DefaultSerializer(), CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         cache instanceof SimpleStateCache
@@ -92,8 +93,8 @@ class DefaultCacheFactoryTest extends Specification {
     public void "reuses directory backed cache instances"() {
         when:
         def factory = factoryFactory.create()
-        def ref1 = factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
-        def ref2 = factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        def ref1 = factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
+        def ref2 = factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         ref1.is(ref2)
@@ -104,8 +105,8 @@ class DefaultCacheFactoryTest extends Specification {
         when:
         def factory1 = factoryFactory.create()
         def factory2 = factoryFactory.create()
-        def ref1 = factory1.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
-        def ref2 = factory2.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        def ref1 = factory1.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
+        def ref2 = factory2.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         ref1.is(ref2)
@@ -115,8 +116,8 @@ class DefaultCacheFactoryTest extends Specification {
     public void "reuses indexed cache instances"() {
         when:
         def factory = factoryFactory.create()
-        def ref1 = factory.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
-        def ref2 = factory.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        def ref1 = factory.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
+        def ref2 = factory.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         ref1.is(ref2)
@@ -127,8 +128,8 @@ class DefaultCacheFactoryTest extends Specification {
         when:
         def factory1 = factoryFactory.create()
         def factory2 = factoryFactory.create()
-        def ref1 = factory1.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
-        def ref2 = factory2.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        def ref1 = factory1.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
+        def ref2 = factory2.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         ref1.is(ref2)
@@ -138,8 +139,8 @@ class DefaultCacheFactoryTest extends Specification {
     public void "reuses state cache instances"() {
         when:
         def factory = factoryFactory.create()
-        def ref1 = factory.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
-        def ref2 = factory.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        def ref1 = factory.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
+        def ref2 = factory.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         ref1.is(ref2)
@@ -150,8 +151,8 @@ class DefaultCacheFactoryTest extends Specification {
         when:
         def factory1 = factoryFactory.create()
         def factory2 = factoryFactory.create()
-        def ref1 = factory1.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
-        def ref2 = factory2.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        def ref1 = factory1.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
+        def ref2 = factory2.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         ref1.is(ref2)
@@ -162,8 +163,8 @@ class DefaultCacheFactoryTest extends Specification {
         given:
         def factory1 = factoryFactory.create()
         def factory2 = factoryFactory.create()
-        factory1.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
-        def oldCache = factory2.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory1.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
+        def oldCache = factory2.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         when:
         factory1.close()
@@ -174,7 +175,7 @@ class DefaultCacheFactoryTest extends Specification {
 
         when:
         def factory = factoryFactory.create()
-        def cache = factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        def cache = factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         !cache.is(oldCache)
@@ -186,8 +187,8 @@ class DefaultCacheFactoryTest extends Specification {
         given:
         def factory1 = factoryFactory.create()
         def factory2 = factoryFactory.create()
-        factory1.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
-        def oldCache = factory2.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory1.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
+        def oldCache = factory2.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         when:
         factory1.close()
@@ -198,7 +199,7 @@ class DefaultCacheFactoryTest extends Specification {
 
         when:
         def factory = factoryFactory.create()
-        def cache = factory.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        def cache = factory.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         !cache.is(oldCache)
@@ -210,8 +211,8 @@ class DefaultCacheFactoryTest extends Specification {
         given:
         def factory1 = factoryFactory.create()
         def factory2 = factoryFactory.create()
-        factory1.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
-        def oldCache = factory2.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory1.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
+        def oldCache = factory2.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         when:
         factory1.close()
@@ -222,7 +223,7 @@ class DefaultCacheFactoryTest extends Specification {
 
         when:
         def factory = factoryFactory.create()
-        def cache = factory.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        def cache = factory.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         !cache.is(oldCache)
@@ -234,10 +235,10 @@ class DefaultCacheFactoryTest extends Specification {
         given:
         def factory1 = factoryFactory.create()
         def factory2 = factoryFactory.create()
-        def oldCache = factory1.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
-        factory2.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
-        factory2.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
-        factory2.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        def oldCache = factory1.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
+        factory2.openIndexedCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
+        factory2.openStateCache(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
+        factory2.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         when:
         factory1.close()
@@ -248,7 +249,7 @@ class DefaultCacheFactoryTest extends Specification {
 
         when:
         def factory = factoryFactory.create()
-        def cache = factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        def cache = factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         !oldCache.is(cache)
@@ -259,10 +260,10 @@ class DefaultCacheFactoryTest extends Specification {
     public void "fails when directory cache is already open with different properties"() {
         given:
         def factory = factoryFactory.create()
-        factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         when:
-        factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'other'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'other'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         IllegalStateException e = thrown()
@@ -272,11 +273,11 @@ class DefaultCacheFactoryTest extends Specification {
     public void "fails when directory cache is already open with different properties in different session"() {
         given:
         def factory1 = factoryFactory.create()
-        factory1.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory1.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         when:
         def factory2 = factoryFactory.create()
-        factory2.open(tmpDir.dir, CacheUsage.ON, [prop: 'other'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory2.open(tmpDir.dir, CacheUsage.ON, [prop: 'other'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         IllegalStateException e = thrown()
@@ -286,10 +287,10 @@ class DefaultCacheFactoryTest extends Specification {
     public void "fails when directory cache is already open when rebuild is requested"() {
         given:
         def factory = factoryFactory.create()
-        factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         when:
-        factory.open(tmpDir.dir, CacheUsage.REBUILD, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory.open(tmpDir.dir, CacheUsage.REBUILD, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         IllegalStateException e = thrown()
@@ -299,11 +300,11 @@ class DefaultCacheFactoryTest extends Specification {
     public void "fails when directory cache is already open in different session when rebuild is requested"() {
         given:
         def factory1 = factoryFactory.create()
-        factory1.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory1.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         when:
         def factory2 = factoryFactory.create()
-        factory2.open(tmpDir.dir, CacheUsage.REBUILD, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory2.open(tmpDir.dir, CacheUsage.REBUILD, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         IllegalStateException e = thrown()
@@ -313,10 +314,10 @@ class DefaultCacheFactoryTest extends Specification {
     public void "can open directory cache when rebuild is requested and cache was rebuilt in same session"() {
         given:
         def factory = factoryFactory.create()
-        factory.open(tmpDir.dir, CacheUsage.REBUILD, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory.open(tmpDir.dir, CacheUsage.REBUILD, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         when:
-        factory.open(tmpDir.dir, CacheUsage.REBUILD, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory.open(tmpDir.dir, CacheUsage.REBUILD, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         notThrown(RuntimeException)
@@ -325,12 +326,12 @@ class DefaultCacheFactoryTest extends Specification {
     public void "can open directory cache when rebuild is requested and has been closed"() {
         given:
         def factory1 = factoryFactory.create()
-        factory1.open(tmpDir.dir, CacheUsage.REBUILD, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory1.open(tmpDir.dir, CacheUsage.REBUILD, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
         factory1.close()
 
         when:
         def factory2 = factoryFactory.create()
-        factory2.open(tmpDir.dir, CacheUsage.REBUILD, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory2.open(tmpDir.dir, CacheUsage.REBUILD, [prop: 'value'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         notThrown(RuntimeException)
@@ -339,10 +340,10 @@ class DefaultCacheFactoryTest extends Specification {
     public void "fails when directory cache when cache is already open with different lock mode"() {
         given:
         def factory = factoryFactory.create()
-        factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Shared, CrossVersionMode.VersionSpecific, null)
+        factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'value'], FileLockManager.LockMode.Shared, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         when:
-        factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'other'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null)
+        factory.open(tmpDir.dir, CacheUsage.ON, [prop: 'other'], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, true)
 
         then:
         IllegalStateException e = thrown()
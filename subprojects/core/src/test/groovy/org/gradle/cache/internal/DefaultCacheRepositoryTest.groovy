@@ -32,6 +32,7 @@ import org.gradle.cache.PersistentIndexedCache
 import org.gradle.cache.DefaultSerializer
 import org.gradle.cache.PersistentStateCache
 import org.gradle.cache.internal.CacheFactory.CrossVersionMode
+import org.gradle.cache.internal.btree.CachingBlockStore
 
 class DefaultCacheRepositoryTest extends Specification {
     @Rule
@@ -82,7 +83,20 @@ class DefaultCacheRepositoryTest extends Specification {
 
         then:
         result == indexedCache
-        1 * cacheFactory.openIndexedCache(sharedCacheDir.file(version, "key"), CacheUsage.ON, [:], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, {it instanceof DefaultSerializer}) >> indexedCache
+        1 * cacheFactory.openIndexedCache(sharedCacheDir.file(version, "key"), CacheUsage.ON, [:], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, {it instanceof DefaultSerializer}, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, false) >> indexedCache
+        0 * cacheFactory._
+    }
+
+    public void createsIndexedCacheWithGivenInMemorySizeAndMappingMode() {
+        given:
+        PersistentIndexedCache<String, Integer> indexedCache = Mock()
+
+        when:
+        def result = repository.indexedCache(String.class, Integer.class, "key").withMaxInMemorySize(1024).withMemoryMappedReads(true).open()
+
+        then:
+        result == indexedCache
+        1 * cacheFactory.openIndexedCache(sharedCacheDir.file(version, "key"), CacheUsage.ON, [:], FileLockManager.LockMode.Exclusive, CrossVersionMode.VersionSpecific, {it instanceof DefaultSerializer}, 1024, true) >> indexedCache
         0 * cacheFactory._
     }
 
@@ -146,7 +160,7 @@ class DefaultCacheRepositoryTest extends Specification {
         repository.indexedCache(String, String, "a/b/c").withVersionStrategy(VersionStrategy.SharedCache).open()
 
         then:
-        1 * cacheFactory.openIndexedCache(sharedCacheDir.file("a/b/c"), CacheUsage.ON, [:], FileLockManager.LockMode.Exclusive, CrossVersionMode.CrossVersion, !null)
+        1 * cacheFactory.openIndexedCache(sharedCacheDir.file("a/b/c"), CacheUsage.ON, [:], FileLockManager.LockMode.Exclusive, CrossVersionMode.CrossVersion, !null, CachingBlockStore.DEFAULT_MAX_CACHE_SIZE, false)
         0 * cacheFactory._
     }
 
@@ -127,6 +127,29 @@ class DefaultFileLockManagerTest extends Specification {
         lock?.close()
     }
 
+    def "can call writeToFile() from an action which is already running under writeToFile()"() {
+        def lock = manager.lock(tmpDir.createFile("file.txt"), mode, "lock")
+        def nestedActionCalled = false
+        def unlockedCleanlyAfterNestedAction = true
+
+        when:
+        lock.writeToFile({
+            lock.writeToFile({ nestedActionCalled = true } as Runnable)
+            unlockedCleanlyAfterNestedAction = lock.unlockedCleanly
+        } as Runnable)
+
+        then:
+        nestedActionCalled
+        !unlockedCleanlyAfterNestedAction
+        lock.unlockedCleanly
+
+        cleanup:
+        lock?.close()
+
+        where:
+        mode << [LockMode.Shared, LockMode.Exclusive]
+    }
+
     def "cannot lock a file twice in single process"() {
         given:
         lock(LockMode.Exclusive);
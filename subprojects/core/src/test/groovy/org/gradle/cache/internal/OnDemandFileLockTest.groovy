@@ -50,4 +50,25 @@ class OnDemandFileLockTest extends Specification {
         1 * targetLock.close()
         0 * targetLock._
     }
+
+    def "uses exclusive lock when called from action which is writing to file"() {
+        def readAction = {} as Callable
+        def nestedAction = {} as Runnable
+        def action = {
+            lock.readFromFile(readAction)
+            lock.writeToFile(nestedAction)
+        } as Runnable
+
+        when:
+        lock.writeToFile(action)
+
+        then:
+        1 * manager.lock(file, LockMode.Exclusive, "some-lock") >> targetLock
+        1 * targetLock.writeToFile(action) >> { action.run() }
+        1 * targetLock.readFromFile(readAction)
+        1 * targetLock.writeToFile(nestedAction)
+        1 * targetLock.close()
+        0 * targetLock._
+        0 * manager._
+    }
 }
@@ -259,6 +259,81 @@ public class BTreePersistentIndexedCacheTest {
         assertThat(cache.get(new File("File")), equalTo(3));
     }
 
+    @Test
+    public void canGetAndPutMultipleEntries() {
+        Map<String, Integer> entries = new HashMap<String, Integer>();
+        for (int i = 0; i < 20; i++) {
+            entries.put(String.format("key_%d", i), i);
+        }
+        cache.put("key_3", 100);
+
+        cache.putAll(entries);
+
+        assertThat(cache.getAll(entries.keySet()), equalTo(entries));
+
+        cache.reset();
+
+        assertThat(cache.getAll(entries.keySet()), equalTo(entries));
+        assertThat(cache.getAll(Arrays.asList("key_1", "unknown")), equalTo(Collections.singletonMap("key_1", 1)));
+        cache.verify();
+    }
+
+    @Test
+    public void canReadAndUpdateEntriesUsingMemoryMappedFile() {
+        BTreePersistentIndexedCache<String, String> cache = new BTreePersistentIndexedCache<String, String>(cacheFile, fileLock, new DefaultSerializer<String>(), (short) 4, 100, 1024, true);
+        char[] chars = new char[16 * 1024];
+        Arrays.fill(chars, 'x');
+        String largeValue = new String(chars);
+        int count = 2 * FileBackedBlockStore.REGION_SIZE / largeValue.length();
+
+        for (int i = 0; i < count; i++) {
+            cache.put(String.format("key_%d", i), largeValue + i);
+        }
+        assertThat(cacheFile.length(), greaterThan((long) FileBackedBlockStore.REGION_SIZE));
+
+        cache.reset();
+
+        for (int i = 0; i < count; i++) {
+            assertThat(cache.get(String.format("key_%d", i)), equalTo(largeValue + i));
+        }
+        cache.put("key_1", "small");
+        cache.reset();
+
+        assertThat(cache.get("key_1"), equalTo("small"));
+        assertThat(cache.get("key_2"), equalTo(largeValue + 2));
+        cache.verify();
+    }
+
+    @Test
+    public void readsRecentlyUsedBlocksFromCache() {
+        checkAdds(1, 2, 3, 4, 5);
+        BlockStoreStatistics statistics = cache.getStatistics();
+
+        long misses = statistics.getCacheMisses();
+        long blocksRead = statistics.getBlocksRead();
+        long hits = statistics.getCacheHits();
+        assertThat(cache.get("key_3"), equalTo(3));
+
+        assertThat(statistics.getCacheMisses(), equalTo(misses));
+        assertThat(statistics.getBlocksRead(), equalTo(blocksRead));
+        assertThat(statistics.getCacheHits(), greaterThan(hits));
+    }
+
+    @Test
+    public void evictsBlocksWhenCacheIsFull() {
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, fileLock, serializer, (short) 4, 100, 0, false);
+        checkAdds(1, 2, 3, 4, 5);
+        BlockStoreStatistics statistics = cache.getStatistics();
+
+        long misses = statistics.getCacheMisses();
+        long blocksRead = statistics.getBlocksRead();
+        assertThat(cache.get("key_3"), equalTo(3));
+
+        assertThat(statistics.getCacheMisses(), greaterThan(misses));
+        assertThat(statistics.getBlocksRead(), greaterThan(blocksRead));
+        assertThat(statistics.getBytesRead(), greaterThan(0L));
+    }
+
     private void checkAdds(Integer... values) {
         checkAdds(Arrays.asList(values));
     }
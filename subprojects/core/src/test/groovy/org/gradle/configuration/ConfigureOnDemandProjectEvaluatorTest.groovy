@@ -0,0 +1,90 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration
+
+import org.gradle.api.Action
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import spock.lang.Specification
+
+class ConfigureOnDemandProjectEvaluatorTest extends Specification {
+    final ProjectEvaluator target = Mock()
+    final Action<? super ProjectInternal> action = Mock()
+    final ProjectInternal project = Mock()
+    final ProjectInternal parent = Mock()
+    final ProjectInternal dependsOnProject = Mock()
+    final ProjectStateInternal state = new ProjectStateInternal()
+    final ConfigureOnDemandProjectEvaluator evaluator = new ConfigureOnDemandProjectEvaluator(target, action)
+
+    def "evaluates parent then project then projects it depends on, and then applies actions"() {
+        when:
+        evaluator.evaluate(project, state)
+
+        then:
+        _ * project.parent >> parent
+        1 * parent.evaluate()
+
+        then:
+        1 * target.evaluate(project, state)
+
+        then:
+        _ * project.dependsOnProjects >> ([dependsOnProject] as Set)
+        1 * dependsOnProject.evaluate()
+
+        then:
+        1 * action.execute(project)
+    }
+
+    def "does not evaluate project which has already been evaluated"() {
+        state.executed()
+
+        when:
+        evaluator.evaluate(project, state)
+
+        then:
+        0 * _._
+    }
+
+    def "does not evaluate project which is being evaluated by the current thread"() {
+        state.executing = true
+
+        when:
+        evaluator.evaluate(project, state)
+
+        then:
+        0 * _._
+    }
+
+    def "does not evaluate project again when it has been evaluated by its parent"() {
+        when:
+        evaluator.evaluate(project, state)
+
+        then:
+        _ * project.parent >> parent
+        1 * parent.evaluate() >> { state.executed() }
+        0 * target._
+        0 * action._
+    }
+
+    def "does not apply actions when evaluation fails"() {
+        when:
+        evaluator.evaluate(project, state)
+
+        then:
+        1 * target.evaluate(project, state) >> { state.executed(new RuntimeException()) }
+        0 * action._
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+class ParallelBuildConfigurerTest extends Specification {
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final GradleInternal gradle = Mock()
+    final BuildConfigurer target = Mock()
+    final List<String> evaluated = new CopyOnWriteArrayList<String>()
+    final ParallelBuildConfigurer configurer = new ParallelBuildConfigurer(target, executorFactory, 4)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "evaluates each project once its parent has been evaluated and then configures the build"() {
+        def c = project('c')
+        def a = project('a', [c])
+        def b = project('b')
+        def root = project('root', [a, b])
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> root
+        1 * target.configure(gradle)
+
+        and:
+        evaluated.size() == 4
+        evaluated.first() == 'root'
+        evaluated.indexOf('c') > evaluated.indexOf('a')
+    }
+
+    def "evaluates sibling projects concurrently"() {
+        def latch = new CountDownLatch(2)
+        def a = project('a', []) { latch.countDown(); assert latch.await(10, TimeUnit.SECONDS) }
+        def b = project('b', []) { latch.countDown(); assert latch.await(10, TimeUnit.SECONDS) }
+        def root = project('root', [a, b])
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> root
+        evaluated as Set == ['root', 'a', 'b'] as Set
+    }
+
+    def "does not evaluate children of a project which fails and rethrows the failure"() {
+        def failure = new RuntimeException("broken")
+        def c = project('c')
+        def a = project('a', [c]) { throw failure }
+        def root = project('root', [a])
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+        _ * gradle.rootProject >> root
+        0 * target._
+        evaluated == ['root', 'a']
+    }
+
+    def project(String name, List<ProjectInternal> children = [], Closure action = {}) {
+        // Use a stub rather than a mock, as mock invocations are serialised
+        def childProjects = children.collectEntries { [it.toString(), it] }
+        return [
+                toString: { name },
+                evaluate: { evaluated << name; action.call(); null },
+                getChildProjects: { childProjects }
+        ] as ProjectInternal
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import org.gradle.api.CircularReferenceException
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+class ParallelProjectEvaluatorTest extends Specification {
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final Map<ProjectInternal, Closure> actions = [:]
+    final List<ProjectInternal> evaluated = new CopyOnWriteArrayList<ProjectInternal>()
+    // Use a stub rather than a mock, as mock invocations are serialised
+    final ProjectEvaluator target = [evaluate: { ProjectInternal project, ProjectStateInternal state ->
+        evaluated << project
+        state.executing = true
+        try {
+            actions[project]?.call()
+        } finally {
+            state.executing = false
+            state.executed()
+        }
+    }] as ProjectEvaluator
+    final ParallelProjectEvaluator evaluator = new ParallelProjectEvaluator(target)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "evaluates project using target evaluator"() {
+        def project = project('a')
+        def state = new ProjectStateInternal()
+
+        when:
+        evaluator.evaluate(project, state)
+
+        then:
+        evaluated == [project]
+        state.executed
+    }
+
+    def "does not evaluate project which has already been evaluated"() {
+        def project = project('a')
+        def state = new ProjectStateInternal()
+        state.executed()
+
+        when:
+        evaluator.evaluate(project, state)
+
+        then:
+        evaluated.empty
+    }
+
+    def "waits for project which is being evaluated by another thread"() {
+        def project = project('a')
+        def state = new ProjectStateInternal()
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def finished = new CountDownLatch(1)
+        actions[project] = { started.countDown(); assert release.await(10, TimeUnit.SECONDS) }
+        def executor = executorFactory.create("test")
+
+        when:
+        executor.execute { evaluator.evaluate(project, state) }
+        assert started.await(10, TimeUnit.SECONDS)
+        executor.execute { evaluator.evaluate(project, state); finished.countDown() }
+
+        then:
+        !finished.await(200, TimeUnit.MILLISECONDS)
+
+        when:
+        release.countDown()
+
+        then:
+        finished.await(10, TimeUnit.SECONDS)
+        evaluated == [project]
+    }
+
+    def "fails when threads wait for each other"() {
+        def a = project('a')
+        def b = project('b')
+        def stateA = new ProjectStateInternal()
+        def stateB = new ProjectStateInternal()
+        def started = new CountDownLatch(2)
+        def failures = new CopyOnWriteArrayList<Throwable>()
+        actions[a] = { started.countDown(); assert started.await(10, TimeUnit.SECONDS); evaluator.evaluate(b, stateB) }
+        actions[b] = { started.countDown(); assert started.await(10, TimeUnit.SECONDS); evaluator.evaluate(a, stateA) }
+        def executor = executorFactory.create("test")
+
+        when:
+        executor.execute { try { evaluator.evaluate(a, stateA) } catch (Throwable t) { failures << t } }
+        executor.execute { try { evaluator.evaluate(b, stateB) } catch (Throwable t) { failures << t } }
+        executor.stop()
+
+        then:
+        failures.size() == 1
+        failures[0] instanceof CircularReferenceException
+        stateA.executed
+        stateB.executed
+    }
+
+    def project(String name) {
+        return [toString: { name }] as ProjectInternal
+    }
+}
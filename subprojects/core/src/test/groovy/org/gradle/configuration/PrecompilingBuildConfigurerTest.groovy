@@ -0,0 +1,127 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.configuration
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import org.gradle.api.initialization.dsl.ScriptHandler
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.groovy.scripts.StringScriptSource
+import org.gradle.groovy.scripts.internal.ScriptClassCompiler
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+class PrecompilingBuildConfigurerTest extends Specification {
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final GradleInternal gradle = Mock()
+    final BuildConfigurer target = Mock()
+    final List<String> compiled = new CopyOnWriteArrayList<String>()
+    final ClassLoader classLoader = new URLClassLoader(new URL[0])
+    Closure compileAction = {}
+    // Use a stub rather than a mock, as mock invocations are serialised
+    final ScriptClassCompiler compiler = [
+            compile: { source, classLoader, transformer, baseClass ->
+                compiled << "${source.displayName}:${transformer.id}".toString()
+                compileAction.call()
+                null
+            }
+    ] as ScriptClassCompiler
+    final PrecompilingBuildConfigurer configurer = new PrecompilingBuildConfigurer(target, compiler, new ImportsReader(), executorFactory, 4)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "compiles the build script of each project and then configures the build"() {
+        def a = project('a')
+        def root = project('root', 'println "root"', [a])
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> root
+        1 * target.configure(gradle)
+
+        and:
+        compiled as Set == ['root:buildscript', 'root:no_buildscript', 'a:buildscript', 'a:no_buildscript'] as Set
+    }
+
+    def "compiles build scripts concurrently"() {
+        def latch = new CountDownLatch(2)
+        compileAction = { latch.countDown(); assert latch.await(10, TimeUnit.SECONDS) }
+        def root = project('root', '', [project('a')])
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> root
+        compiled.size() == 4
+    }
+
+    def "does not compile build scripts which may be affected by build script dependencies"() {
+        def c = project('c')
+        def a = project('a', 'buildscript { }', [c])
+        def b = project('b')
+        def root = project('root', '', [a, b])
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> root
+        compiled as Set == ['root:buildscript', 'root:no_buildscript', 'b:buildscript', 'b:no_buildscript'] as Set
+    }
+
+    def "ignores compilation failures"() {
+        compileAction = { throw new RuntimeException("broken") }
+        def root = project('root', '', [project('a')])
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> root
+        1 * target.configure(gradle)
+        compiled.size() == 2
+    }
+
+    def "does not compile anything for a single project build"() {
+        def root = project('root')
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> root
+        1 * target.configure(gradle)
+        compiled.isEmpty()
+    }
+
+    def project(String name, String script = 'println "hello"', List<ProjectInternal> children = []) {
+        def childProjects = children.collectEntries { [it.toString(), it] }
+        def buildscript = [getClassLoader: { classLoader }] as ScriptHandler
+        return [
+                toString: { name },
+                getBuildScriptSource: { new StringScriptSource(name, script) },
+                getBuildscript: { buildscript },
+                getChildProjects: { childProjects }
+        ] as ProjectInternal
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.execution
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import org.gradle.api.execution.TaskExecutionListener
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+class ParallelTaskPlanExecutorTest extends Specification {
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final TaskExecutionListener listener = Mock()
+    final TaskFailureHandler failureHandler = Mock()
+    final List<String> executed = new CopyOnWriteArrayList<String>()
+    final ParallelTaskPlanExecutor executor = new ParallelTaskPlanExecutor(executorFactory, 4)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "executes independent tasks concurrently"() {
+        def latch = new CountDownLatch(2)
+        def a = task("a") { latch.countDown(); assert latch.await(10, TimeUnit.SECONDS) }
+        def b = task("b") { latch.countDown(); assert latch.await(10, TimeUnit.SECONDS) }
+
+        when:
+        executor.process([a, b], listener, failureHandler)
+
+        then:
+        executed as Set == ['a', 'b'] as Set
+        a.state == TaskInfo.State.EXECUTED
+        b.state == TaskInfo.State.EXECUTED
+        2 * listener.beforeExecute(_)
+        2 * listener.afterExecute(_, _)
+    }
+
+    def "executes a task only after its dependencies have executed"() {
+        def a = task("a")
+        def b = task("b", a)
+        def c = task("c", a)
+        def d = task("d", b, c)
+
+        when:
+        executor.process([a, b, c, d], listener, failureHandler)
+
+        then:
+        executed.size() == 4
+        executed.first() == 'a'
+        executed.last() == 'd'
+    }
+
+    def "does not execute tasks whose dependencies have failed"() {
+        def failure = new RuntimeException("broken")
+        def a = task("a") { throw failure }
+        def b = task("b", a)
+        def c = task("c", b)
+        def d = task("d")
+
+        when:
+        executor.process([a, b, c, d], listener, failureHandler)
+
+        then:
+        executed as Set == ['a', 'd'] as Set
+        a.state == TaskInfo.State.FAILED
+        b.state == TaskInfo.State.SKIPPED
+        c.state == TaskInfo.State.SKIPPED
+        d.state == TaskInfo.State.EXECUTED
+        1 * failureHandler.onTaskFailure(a.task)
+        2 * listener.beforeExecute(_)
+        2 * listener.afterExecute(_, _)
+    }
+
+    def "stops starting tasks and rethrows failure when failure handler aborts execution"() {
+        def failure = new RuntimeException("broken")
+        def a = task("a") { throw failure }
+        def b = task("b", a)
+
+        when:
+        executor.process([a, b], listener, failureHandler)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+        executed == ['a']
+        1 * failureHandler.onTaskFailure(a.task) >> { a.task.state.rethrowFailure() }
+    }
+
+    def "never notifies listener concurrently"() {
+        def tasks = (1..20).collect { task("task$it") }
+        def active = 0
+        def maxActive = 0
+        def serialListener = [
+                beforeExecute: { synchronized (this) { maxActive = Math.max(maxActive, ++active) }; Thread.sleep(2); synchronized (this) { active-- } },
+                afterExecute: { t, s -> }
+        ] as TaskExecutionListener
+
+        when:
+        executor.process(tasks, serialListener, failureHandler)
+
+        then:
+        executed.size() == 20
+        maxActive == 1
+    }
+
+    def task(String name, TaskInfo... dependencies) {
+        return task(name, dependencies, {})
+    }
+
+    def task(String name, TaskInfo[] dependencies = [], Closure action) {
+        // Use a stub rather than a mock, as mock invocations are serialised
+        TaskStateInternal state = new TaskStateInternal(name)
+        TaskInternal task = [
+                getState: { state },
+                toString: { name },
+                executeWithoutThrowingTaskFailure: {
+                    executed << name
+                    try {
+                        action.call()
+                        state.executed(null)
+                    } catch (Throwable t) {
+                        state.executed(t)
+                    }
+                }
+        ] as TaskInternal
+        return new TaskInfo(task, dependencies as Set)
+    }
+}
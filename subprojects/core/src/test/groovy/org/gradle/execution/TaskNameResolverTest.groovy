@@ -100,6 +100,27 @@ class TaskNameResolverTest extends Specification {
         candidates.get('task') == [task1, task2] as Set
     }
 
+    def evaluatesProjectsBeforeSelectingTasks() {
+        ProjectInternal project = Mock()
+        TaskContainerInternal tasks = Mock()
+        ProjectInternal childProject = Mock()
+        TaskContainerInternal childProjectTasks = Mock()
+        _ * project.tasks >> tasks
+        _ * project.subprojects >> ([childProject] as Set)
+        _ * childProject.tasks >> childProjectTasks
+
+        when:
+        resolver.selectAll('task', project)
+
+        then:
+        1 * project.evaluate()
+        1 * childProject.evaluate()
+
+        then:
+        1 * tasks.findByName('task') >> task('task')
+        1 * childProjectTasks.findByName('task')
+    }
+
     def selectsImplicitTaskForMultipleProjectsWhenThereIsAnExactMatchOnName() {
         ProjectInternal project = Mock()
         TaskContainerInternal tasks = Mock()
@@ -20,10 +20,14 @@ import org.gradle.groovy.scripts.ScriptSource
 import org.gradle.groovy.scripts.Transformer
 import org.gradle.groovy.scripts.Script
 import org.gradle.groovy.scripts.TestScript
+import org.gradle.api.internal.resource.StringResource
+import org.gradle.util.MultiParentClassLoader
+import org.gradle.util.ObservableUrlClassLoader
 
 class CachingScriptClassCompilerTest extends Specification {
     private final ScriptClassCompiler target = Mock()
-    private final CachingScriptClassCompiler compiler = new CachingScriptClassCompiler(target)
+    private final InMemoryScriptClassCache classCache = new InMemoryScriptClassCache()
+    private final CachingScriptClassCompiler compiler = new CachingScriptClassCompiler(classCache, target)
 
     def "caches the script class for a given script class and classloader and transformer and baseclass"() {
         ScriptSource script1 = scriptSource('script')
@@ -103,9 +107,102 @@ class CachingScriptClassCompilerTest extends Specification {
         1 * target.compile(script2, parentClassLoader, transformer, TestScript.class) >> TestScript.class
     }
 
-    def scriptSource(String className = 'script') {
+    def "reuses script class loaded by another build when the script has not changed"() {
+        ScriptSource script1 = scriptSource('script')
+        ScriptSource script2 = scriptSource('script')
+        ClassLoader parentClassLoader = Mock()
+        Transformer transformer = transformer()
+        def otherCompiler = new CachingScriptClassCompiler(classCache, target)
+
+        when:
+        def c1 = compiler.compile(script1, parentClassLoader, transformer, Script.class)
+        def c2 = otherCompiler.compile(script2, parentClassLoader, transformer, Script.class)
+
+        then:
+        c1 == c2
+        1 * target.compile(script1, parentClassLoader, transformer, Script.class) >> Script.class
+        0 * target._
+    }
+
+    def "does not reuse script class loaded by another build when the script has changed"() {
+        ScriptSource script1 = scriptSource('script', 'some text')
+        ScriptSource script2 = scriptSource('script', 'changed text')
+        ClassLoader parentClassLoader = Mock()
+        Transformer transformer = transformer()
+        def otherCompiler = new CachingScriptClassCompiler(classCache, target)
+
+        when:
+        compiler.compile(script1, parentClassLoader, transformer, Script.class)
+        otherCompiler.compile(script2, parentClassLoader, transformer, Script.class)
+
+        then:
+        1 * target.compile(script1, parentClassLoader, transformer, Script.class) >> Script.class
+        1 * target.compile(script2, parentClassLoader, transformer, Script.class) >> Script.class
+    }
+
+    def "compiles script against the parent of a ClassLoader which has no classpath"() {
+        ScriptSource script1 = scriptSource('script')
+        ScriptSource script2 = scriptSource('script')
+        ClassLoader parentClassLoader = Mock()
+        Transformer transformer = transformer()
+        def classLoader1 = new ObservableUrlClassLoader(parentClassLoader)
+        def classLoader2 = new URLClassLoader(new URL[0], new ObservableUrlClassLoader(parentClassLoader))
+
+        when:
+        def c1 = compiler.compile(script1, classLoader1, transformer, Script.class)
+        def c2 = compiler.compile(script2, classLoader2, transformer, Script.class)
+
+        then:
+        c1 == c2
+        1 * target.compile(script1, parentClassLoader, transformer, Script.class) >> Script.class
+        0 * target._
+    }
+
+    def "compiles script against the ClassLoader itself when it has a classpath"() {
+        ScriptSource script = scriptSource('script')
+        ClassLoader parentClassLoader = Mock()
+        Transformer transformer = transformer()
+        def classLoader = new ObservableUrlClassLoader(parentClassLoader, new File('lib.jar').toURI().toURL())
+
+        when:
+        compiler.compile(script, classLoader, transformer, Script.class)
+
+        then:
+        1 * target.compile(script, classLoader, transformer, Script.class) >> Script.class
+    }
+
+    def "compiles script against the effective parent of a multi-parent ClassLoader"() {
+        ScriptSource script = scriptSource('script')
+        ClassLoader rootClassLoader = Mock()
+        Transformer transformer = transformer()
+        def buildSrcClassLoader = new URLClassLoader([new File('buildSrc.jar').toURI().toURL()] as URL[], rootClassLoader)
+        def classLoader = new MultiParentClassLoader(rootClassLoader, new ObservableUrlClassLoader(buildSrcClassLoader))
+
+        when:
+        compiler.compile(script, classLoader, transformer, Script.class)
+
+        then:
+        1 * target.compile(script, buildSrcClassLoader, transformer, Script.class) >> Script.class
+    }
+
+    def "compiles script against a multi-parent ClassLoader whose parents are unrelated"() {
+        ScriptSource script = scriptSource('script')
+        ClassLoader parent1 = Mock()
+        ClassLoader parent2 = Mock()
+        Transformer transformer = transformer()
+        def classLoader = new MultiParentClassLoader(parent1, parent2)
+
+        when:
+        compiler.compile(script, classLoader, transformer, Script.class)
+
+        then:
+        1 * target.compile(script, classLoader, transformer, Script.class) >> Script.class
+    }
+
+    def scriptSource(String className = 'script', String text = 'text') {
         ScriptSource script = Mock()
         _ * script.className >> className
+        _ * script.resource >> new StringResource('script', text)
         script
     }
 
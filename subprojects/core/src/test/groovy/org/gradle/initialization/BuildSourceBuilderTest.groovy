@@ -21,6 +21,7 @@ import org.gradle.StartParameter
 import org.gradle.api.Project
 import org.gradle.api.file.FileCollection
 import org.gradle.api.internal.plugins.EmbeddableJavaProject
+import org.gradle.api.internal.changedetection.DefaultHasher
 import org.gradle.api.invocation.Gradle
 import org.gradle.api.plugins.Convention
 import org.gradle.cache.CacheBuilder
@@ -61,7 +62,7 @@ class BuildSourceBuilderTest {
     EmbeddableJavaProject projectMetaInfo = context.mock(EmbeddableJavaProject.class)
 
     @Before public void setUp() {
-        buildSourceBuilder = new BuildSourceBuilder(gradleFactoryMock, context.mock(ClassLoaderRegistry.class), cacheRepository)
+        buildSourceBuilder = new BuildSourceBuilder(gradleFactoryMock, context.mock(ClassLoaderRegistry.class), new InMemoryClassLoaderCache(new DefaultHasher()), cacheRepository)
         expectedStartParameter = new StartParameter(currentDir: testBuildSrcDir)
         testDependencies = ['dep1' as File, 'dep2' as File]
         Convention convention = context.mock(Convention)
@@ -70,6 +70,9 @@ public class DefaultCommandLineConverterTest {
 
     private final DefaultCommandLineConverter commandLineConverter = new DefaultCommandLineConverter();
     private boolean expectedContinue;
+    private int expectedParallelThreadCount;
+    private boolean expectedParallelProjectConfiguration;
+    private boolean expectedConfigureOnDemand;
 
     @Test
     public void withoutAnyOptions() {
@@ -100,6 +103,9 @@ public class DefaultCommandLineConverterTest {
         assertEquals(expectedInitScripts, startParameter.getInitScripts());
         assertEquals(expectedProfile, startParameter.isProfile());
         assertEquals(expectedContinue, startParameter.isContinueOnFailure());
+        assertEquals(expectedParallelThreadCount, startParameter.getParallelThreadCount());
+        assertEquals(expectedParallelProjectConfiguration, startParameter.isParallelProjectConfiguration());
+        assertEquals(expectedConfigureOnDemand, startParameter.isConfigureOnDemand());
         assertEquals(expectedProjectCacheDir, startParameter.getProjectCacheDir());
     }
 
@@ -363,6 +369,34 @@ public class DefaultCommandLineConverterTest {
         checkConversion("--continue");
     }
 
+    @Test
+    public void withParallelThreads() {
+        expectedParallelThreadCount = 4;
+        checkConversion("--parallel-threads", "4");
+    }
+
+    @Test(expected = CommandLineArgumentException.class)
+    public void withNonNumericParallelThreads() {
+        checkConversion("--parallel-threads", "many");
+    }
+
+    @Test(expected = CommandLineArgumentException.class)
+    public void withZeroParallelThreads() {
+        checkConversion("--parallel-threads", "0");
+    }
+
+    @Test
+    public void withParallelConfiguration() {
+        expectedParallelProjectConfiguration = true;
+        checkConversion("--parallel-configuration");
+    }
+
+    @Test
+    public void withConfigureOnDemand() {
+        expectedConfigureOnDemand = true;
+        checkConversion("--configure-on-demand");
+    }
+
     @Test(expected = CommandLineArgumentException.class)
     public void withUnknownOption() {
         checkConversion("--unknown");
@@ -17,6 +17,7 @@ package org.gradle.initialization
 
 import org.gradle.GradleLauncher
 import org.gradle.StartParameter
+import org.gradle.api.plugins.UnknownPluginException
 import org.gradle.cli.CommandLineConverter
 import spock.lang.Specification
 
@@ -90,4 +91,21 @@ class DefaultGradleLauncherFactoryTest extends Specification {
         1 * parameterConverter.convert(['a']) >> startParameter
     }
 
+    def preloadsSharedServices() {
+        when:
+        factory.preload([])
+
+        then:
+        noExceptionThrown()
+    }
+
+    def preloadFailsForUnknownPlugin() {
+        when:
+        factory.preload(['unknown'])
+
+        then:
+        UnknownPluginException e = thrown()
+        e.message == "Plugin with id 'unknown' not found."
+    }
+
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.initialization
+
+import org.gradle.api.internal.changedetection.DefaultHasher
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class InMemoryClassLoaderCacheTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final ClassLoader parent = getClass().classLoader
+    final InMemoryClassLoaderCache cache = new InMemoryClassLoaderCache(new DefaultHasher(), 2)
+
+    def "creates ClassLoader for classpath and parent"() {
+        def jar = tmpDir.createFile('lib.jar')
+        def dir = tmpDir.createDir('classes')
+
+        when:
+        def classLoader = cache.get(parent, [jar, dir])
+
+        then:
+        classLoader.URLs as List == [jar.toURI().toURL(), dir.toURI().toURL()]
+        classLoader.parent.is(parent)
+    }
+
+    def "reuses ClassLoader for unchanged classpath"() {
+        def jar = tmpDir.createFile('lib.jar')
+        def dir = tmpDir.createDir('classes')
+        dir.createFile('org/gradle/Thing.class').write('content')
+
+        expect:
+        cache.get(parent, [jar, dir]).is(cache.get(parent, [jar, dir]))
+    }
+
+    def "does not reuse ClassLoader for different classpath or parent"() {
+        def jar = tmpDir.createFile('lib.jar')
+        def other = tmpDir.createFile('other.jar')
+        def classLoader = cache.get(parent, [jar])
+
+        expect:
+        !classLoader.is(cache.get(parent, [other]))
+        !classLoader.is(cache.get(parent, [jar, other]))
+        !classLoader.is(cache.get(new URLClassLoader(new URL[0], parent), [jar]))
+    }
+
+    def "does not reuse ClassLoader when contents of classpath have changed"() {
+        def jar = tmpDir.createFile('lib.jar')
+        jar.write('content')
+        def dir = tmpDir.createDir('classes')
+        def classFile = dir.createFile('org/gradle/Thing.class')
+        classFile.write('content')
+
+        when:
+        def original = cache.get(parent, [jar, dir])
+        jar.write('changed')
+        def afterJarChanged = cache.get(parent, [jar, dir])
+        classFile.write('changed')
+        def afterClassChanged = cache.get(parent, [jar, dir])
+        dir.createFile('org/gradle/Other.class').write('content')
+        def afterClassAdded = cache.get(parent, [jar, dir])
+
+        then:
+        !afterJarChanged.is(original)
+        !afterClassChanged.is(afterJarChanged)
+        !afterClassAdded.is(afterClassChanged)
+        afterClassAdded.is(cache.get(parent, [jar, dir]))
+    }
+
+    def "discards least recently used ClassLoader when full"() {
+        def a = tmpDir.createFile('a.jar')
+        def b = tmpDir.createFile('b.jar')
+        def c = tmpDir.createFile('c.jar')
+        def classLoaderA = cache.get(parent, [a])
+        def classLoaderB = cache.get(parent, [b])
+
+        when:
+        cache.get(parent, [a])
+        cache.get(parent, [c])
+
+        then:
+        cache.size() == 2
+        cache.get(parent, [a]).is(classLoaderA)
+        !cache.get(parent, [b]).is(classLoaderB)
+    }
+}
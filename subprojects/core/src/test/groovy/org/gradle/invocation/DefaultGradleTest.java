@@ -17,7 +17,9 @@
 package org.gradle.invocation;
 
 import groovy.lang.Closure;
+import org.gradle.BuildAdapter;
 import org.gradle.BuildListener;
+import org.gradle.BuildResult;
 import org.gradle.StartParameter;
 import org.gradle.api.ProjectEvaluationListener;
 import org.gradle.api.initialization.dsl.ScriptHandler;
@@ -47,7 +49,9 @@ import java.io.IOException;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(JUnit4.class)
 public class DefaultGradleTest {
@@ -199,6 +203,51 @@ public class DefaultGradleTest {
         gradle.projectsEvaluated(closure);
     }
 
+    @Test
+    public void requiresFullConfigurationOnceProjectsEvaluatedClosureIsRegistered() {
+        final Closure closure = HelperUtil.TEST_CLOSURE;
+        context.checking(new Expectations() {{
+            one(buildListenerBroadcast).add("projectsEvaluated", closure);
+        }});
+
+        assertFalse(gradle.isFullConfigurationRequired());
+        gradle.projectsEvaluated(closure);
+        assertTrue(gradle.isFullConfigurationRequired());
+    }
+
+    @Test
+    public void requiresFullConfigurationOnceProjectsEvaluatedListenerIsAdded() {
+        final BuildListener listener = new BuildAdapter() {
+            @Override
+            public void projectsEvaluated(Gradle gradle) {
+            }
+        };
+        context.checking(new Expectations() {{
+            one(listenerManager).addListener(listener);
+        }});
+
+        gradle.addBuildListener(listener);
+        assertTrue(gradle.isFullConfigurationRequired());
+    }
+
+    @Test
+    public void doesNotRequireFullConfigurationWhenListenerDoesNotHandleProjectsEvaluated() {
+        final BuildListener listener = new BuildAdapter() {
+            @Override
+            public void buildFinished(BuildResult result) {
+            }
+        };
+        final Object otherListener = new Object();
+        context.checking(new Expectations() {{
+            one(listenerManager).addListener(listener);
+            one(listenerManager).addListener(otherListener);
+        }});
+
+        gradle.addListener(listener);
+        gradle.addListener(otherListener);
+        assertFalse(gradle.isFullConfigurationRequired());
+    }
+
     @Test
     public void broadcastsBuildFinishedEventsToClosures() {
         final Closure closure = HelperUtil.TEST_CLOSURE;
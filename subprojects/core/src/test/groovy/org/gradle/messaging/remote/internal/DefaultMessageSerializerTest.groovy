@@ -0,0 +1,180 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.messaging.remote.internal
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.logging.internal.LogEvent
+import spock.lang.Specification
+
+class DefaultMessageSerializerTest extends Specification {
+    final DefaultMessageSerializer<Object> serializer = new DefaultMessageSerializer<Object>(getClass().classLoader)
+
+    def "can write and read a sequence of messages"() {
+        def failure = new RuntimeException("broken")
+        def messages = [
+                new LogEvent(123L, "category", LogLevel.INFO, "message", null),
+                "a string",
+                LogLevel.WARN,
+                new LogEvent(456L, "category", LogLevel.ERROR, "other message", failure),
+                [1, 2, 3] as int[],
+                ["a", "b"] as String[],
+                null,
+                new LogEvent(789L, "category", LogLevel.INFO, "message", null)
+        ]
+
+        when:
+        def result = roundTrip(messages)
+
+        then:
+        result.size() == messages.size()
+        result[0].timestamp == 123L
+        result[0].category == "category"
+        result[0].logLevel == LogLevel.INFO
+        result[0].message == "message"
+        result[1] == "a string"
+        result[2] == LogLevel.WARN
+        result[3].logLevel == LogLevel.ERROR
+        result[3].throwable.class == RuntimeException
+        result[3].throwable.message == "broken"
+        result[4] == [1, 2, 3] as int[]
+        result[5] == ["a", "b"] as String[]
+        result[6] == null
+        result[7].timestamp == 789L
+    }
+
+    def "writes class details only once per stream"() {
+        def outstr = new ByteArrayOutputStream()
+        def writer = serializer.newWriter(outstr)
+
+        when:
+        writer.write(new LogEvent(123L, "category", LogLevel.INFO, "message", null))
+        def first = outstr.size()
+        writer.write(new LogEvent(123L, "category", LogLevel.INFO, "message", null))
+        def second = outstr.size() - first
+
+        def javaSerialized = new ByteArrayOutputStream()
+        Message.send(new LogEvent(123L, "category", LogLevel.INFO, "message", null), javaSerialized)
+
+        then:
+        second < first / 2
+        second < javaSerialized.size() / 2
+    }
+
+    def "does not hold on to messages which have been written"() {
+        def message = new LogEvent(123L, "category", LogLevel.INFO, "message", null)
+
+        when:
+        def result = roundTrip([message, message])
+
+        then:
+        result[1].message == "message"
+        !result[0].is(result[1])
+    }
+
+    def "fails to read stream with unknown protocol version"() {
+        def outstr = new ByteArrayOutputStream()
+        outstr.write(90)
+
+        when:
+        serializer.newReader(new ByteArrayInputStream(outstr.toByteArray()), null, null).read()
+
+        then:
+        StreamCorruptedException e = thrown()
+        e.message == "Unexpected message protocol version 90 found."
+    }
+
+    def "can read later messages when a nested class of a message cannot be loaded"() {
+        def serializer = new DefaultMessageSerializer<Object>(new FilteringClassLoader(getClass().classLoader, UnloadableValue.name))
+        def outstr = new ByteArrayOutputStream()
+        def writer = serializer.newWriter(outstr)
+        writer.write(new MessageWithValues(first: new UnloadableValue(), second: new LogEvent(123L, "category", LogLevel.INFO, "message", null)))
+        writer.write(new LogEvent(456L, "category", LogLevel.INFO, "other message", null))
+        writer.write(new MessageWithValues(first: "a", second: "b"))
+        def reader = serializer.newReader(new ByteArrayInputStream(outstr.toByteArray()), null, null)
+
+        when:
+        reader.read()
+
+        then:
+        thrown(ClassNotFoundException)
+
+        when:
+        def second = reader.read()
+        def third = reader.read()
+
+        then:
+        second.timestamp == 456L
+        second.message == "other message"
+        third.first == "a"
+        third.second == "b"
+    }
+
+    def "can write later messages when a message cannot be serialized"() {
+        def outstr = new ByteArrayOutputStream()
+        def writer = serializer.newWriter(outstr)
+
+        when:
+        writer.write(new MessageWithValues(first: new LogEvent(123L, "category", LogLevel.INFO, "message", null), second: new Object()))
+
+        then:
+        thrown(NotSerializableException)
+
+        when:
+        writer.write(new LogEvent(456L, "category", LogLevel.INFO, "other message", null))
+        writer.write(new MessageWithValues(first: "a", second: "b"))
+        def reader = serializer.newReader(new ByteArrayInputStream(outstr.toByteArray()), null, null)
+        def first = reader.read()
+        def second = reader.read()
+
+        then:
+        first.timestamp == 456L
+        second.first == "a"
+    }
+
+    def roundTrip(List<?> messages) {
+        def outstr = new ByteArrayOutputStream()
+        def writer = serializer.newWriter(outstr)
+        messages.each { writer.write(it) }
+
+        def reader = serializer.newReader(new ByteArrayInputStream(outstr.toByteArray()), null, null)
+        return messages.collect { reader.read() }
+    }
+}
+
+class MessageWithValues implements Serializable {
+    Object first
+    Object second
+}
+
+class UnloadableValue implements Serializable {
+}
+
+class FilteringClassLoader extends ClassLoader {
+    private final String hiddenClassName
+
+    FilteringClassLoader(ClassLoader parent, String hiddenClassName) {
+        super(parent)
+        this.hiddenClassName = hiddenClassName
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) {
+        if (name == hiddenClassName) {
+            throw new ClassNotFoundException(name)
+        }
+        return super.loadClass(name, resolve)
+    }
+}
@@ -169,6 +169,39 @@ public class ArchiveIntegrationTest extends AbstractIntegrationTest {
         }
     }
 
+    @Test public void canUpdateAZipArchiveIncrementally() {
+        createDir('test') {
+            file('unchanged.txt').write("unchanged")
+            file('changed.txt').write("original")
+            file('removed.txt').write("removed")
+        }
+
+        testFile('build.gradle') << '''
+            task zip(type: Zip) {
+                from 'test'
+                destinationDir = buildDir
+                archiveName = 'test.zip'
+                incremental = true
+            }
+'''
+
+        inTestDirectory().withTasks('zip').run()
+
+        testFile('test/changed.txt').write("changed")
+        testFile('test/added.txt').write("added")
+        testFile('test/removed.txt').delete()
+
+        inTestDirectory().withTasks('zip').run()
+
+        TestFile expandDir = testFile('expanded')
+        testFile('build/test.zip').unzipTo(expandDir)
+        expandDir.assertHasDescendants('unchanged.txt', 'changed.txt', 'added.txt')
+        expandDir.file('unchanged.txt').assertContents(equalTo('unchanged'))
+        expandDir.file('changed.txt').assertContents(equalTo('changed'))
+        expandDir.file('added.txt').assertContents(equalTo('added'))
+        testFile('build').assertHasDescendants('test.zip')
+    }
+
     @Test public void canCreateATarArchive() {
         createDir('test') {
             dir1 {
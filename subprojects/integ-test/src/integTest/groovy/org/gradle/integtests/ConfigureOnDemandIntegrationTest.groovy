@@ -0,0 +1,66 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.integtests
+
+import org.gradle.integtests.fixtures.internal.AbstractIntegrationSpec
+
+class ConfigureOnDemandIntegrationTest extends AbstractIntegrationSpec {
+    def setup() {
+        file('settings.gradle') << "include 'api', 'impl', 'util', 'other'"
+        file('build.gradle') << '''
+            allprojects {
+                task configured << {}
+                afterEvaluate { project ->
+                    def marker = file("${rootProject.buildDir}/configured/${project.path == ':' ? 'root' : project.name}")
+                    marker.parentFile.mkdirs()
+                    marker.text = 'configured'
+                }
+            }
+'''
+    }
+
+    def "configures only the projects required to run the requested tasks"() {
+        file('api/build.gradle') << '''
+            configurations { compile }
+'''
+        file('impl/build.gradle') << '''
+            configurations { compile }
+            dependencies { compile project(path: ':api', configuration: 'compile') }
+            task build(dependsOn: [configurations.compile.buildDependencies, ':util:configured'])
+'''
+
+        when:
+        executer.withArguments('--configure-on-demand')
+        run ':impl:build'
+
+        then:
+        file('build/configured').list() as Set == ['root', 'impl', 'api', 'util'] as Set
+        executedTasks.contains(':util:configured')
+    }
+
+    def "configures all projects when a script registers a projects evaluated hook"() {
+        buildFile << '''
+            gradle.projectsEvaluated { }
+'''
+
+        when:
+        executer.withArguments('--configure-on-demand')
+        run ':impl:configured'
+
+        then:
+        file('build/configured').list() as Set == ['root', 'impl', 'api', 'util', 'other'] as Set
+    }
+}
@@ -232,6 +232,47 @@ task show << { println configurations.compile.files }
         succeeds('show')
     }
 
+    public void "can resolve and cache many artifacts from an HTTP Ivy repository"() {
+        distribution.requireOwnUserHomeDir()
+
+        given:
+        def repo = ivyRepo()
+        def names = ['projectA', 'projectB', 'projectC', 'projectD', 'projectE']
+        names.each { name ->
+            def module = repo.module('group', name, '1.2')
+            module.publish()
+            server.expectGet("/repo/group/$name/1.2/ivy-1.2.xml", module.ivyFile)
+            server.expectGet("/repo/group/$name/1.2/$name-1.2.jar", module.jarFile)
+        }
+        server.start()
+
+        and:
+        buildFile << """
+repositories {
+    ivy {
+        url "http://localhost:${server.port}/repo"
+    }
+}
+configurations { compile }
+dependencies {
+    compile ${names.collect { "'group:$it:1.2'" }.join(', ')}
+}
+task listJars << {
+    assert configurations.compile.collect { it.name } == ${names.collect { "'$it-1.2.jar'" }}
+}
+"""
+
+        expect:
+        succeeds('listJars')
+
+//        given:
+        server.resetExpectations()
+        // No extra calls for cached dependencies
+
+//        expect:
+        succeeds('listJars')
+    }
+
     IvyRepository ivyRepo() {
         return new IvyRepository(file('ivy-repo'))
     }
@@ -19,6 +19,7 @@ import org.gradle.StartParameter;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.initialization.DefaultCommandLineConverter;
+import org.gradle.initialization.DefaultGradleLauncherFactory;
 import org.gradle.launcher.daemon.registry.DaemonDir;
 import org.gradle.launcher.daemon.server.Daemon;
 import org.gradle.launcher.daemon.server.DaemonIdleTimeout;
@@ -31,6 +32,7 @@ import org.gradle.os.ProcessEnvironment;
 
 import java.io.*;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * The entry point for a daemon process.
@@ -42,6 +44,7 @@ import java.util.Arrays;
 public class DaemonMain extends EntryPoint {
 
     private static final Logger LOGGER = Logging.getLogger(DaemonMain.class);
+    private static final List<String> PRELOADED_PLUGINS = Arrays.asList("base", "java-base", "java", "groovy-base", "groovy");
 
     final private StartParameter startParameter;
     final private boolean redirectIo;
@@ -81,6 +84,8 @@ public class DaemonMain extends EntryPoint {
             }
         });
 
+        preload(daemonServices);
+
         Daemon daemon = daemonServices.get(Daemon.class);
         daemon.start();
         try {
@@ -90,6 +95,20 @@ public class DaemonMain extends EntryPoint {
         } catch (DaemonStoppedException e) {
             LOGGER.info("Daemon stopping due to stop request");
             listener.onFailure(e);
+        } finally {
+            daemonServices.get(DefaultGradleLauncherFactory.class).stop();
+        }
+    }
+
+    /**
+     * Does the work common to every build before the daemon advertises itself, so that its first client does not have
+     * to wait for it. This matters most for a spare daemon, which clients start before they need it.
+     */
+    private static void preload(DaemonServices daemonServices) {
+        try {
+            daemonServices.get(DefaultGradleLauncherFactory.class).preload(PRELOADED_PLUGINS);
+        } catch (RuntimeException e) {
+            LOGGER.info("Could not preload the daemon.", e);
         }
     }
 
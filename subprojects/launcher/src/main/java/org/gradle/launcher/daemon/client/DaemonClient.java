@@ -35,7 +35,7 @@ import org.gradle.messaging.remote.internal.Connection;
  *
  * <li>Client sends a {@link org.gradle.launcher.daemon.protocol.Command} message.</li>
  *
- * <li>Server sends zero or more {@link org.gradle.logging.internal.OutputEvent} messages. Note that the server may send output messages before it receives the command message. </li>
+ * <li>Server sends zero or more {@link org.gradle.logging.internal.OutputEvent} or {@link org.gradle.launcher.daemon.protocol.OutputEventBatch} messages. Note that the server may send output messages before it receives the command message. </li>
  *
  * <li>Server sends a {@link org.gradle.launcher.daemon.protocol.Result} message.</li>
  *
@@ -113,6 +113,10 @@ public class DaemonClient implements GradleLauncherActionExecuter<BuildActionPar
                     throw new DaemonDisappearedException(build, connection);
                 } else if (object instanceof OutputEvent) {
                     outputEventListener.onOutput((OutputEvent) object);
+                } else if (object instanceof OutputEventBatch) {
+                    for (OutputEvent event : ((OutputEventBatch) object).getEvents()) {
+                        outputEventListener.onOutput(event);
+                    }
                 } else if (object instanceof Result) {
                     @SuppressWarnings("unchecked")
                     Result<T> result = (Result<T>) object;
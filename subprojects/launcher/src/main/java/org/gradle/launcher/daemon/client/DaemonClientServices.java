@@ -27,6 +27,7 @@ import org.gradle.os.*;
 import org.gradle.os.jna.NativeEnvironment;
 
 import java.io.File;
+import java.util.Collections;
 
 /**
  * Takes care of instantiating and wiring together the services required by the daemon client.
@@ -34,15 +35,21 @@ import java.io.File;
 public class DaemonClientServices extends DaemonClientServicesSupport {
     private final File userHomeDir;
     private final int idleTimeout;
+    private final DaemonPoolSettings poolSettings;
 
     public DaemonClientServices(ServiceRegistry loggingServices, File userHomeDir) {
         this(loggingServices, userHomeDir, DaemonIdleTimeout.DEFAULT_IDLE_TIMEOUT);
     }
 
     public DaemonClientServices(ServiceRegistry loggingServices, File userHomeDir, int idleTimeout) {
+        this(loggingServices, userHomeDir, idleTimeout, new DaemonPoolSettings(Collections.<String, String>emptyMap()));
+    }
+
+    public DaemonClientServices(ServiceRegistry loggingServices, File userHomeDir, int idleTimeout, DaemonPoolSettings poolSettings) {
         super(loggingServices);
         this.userHomeDir = userHomeDir;
         this.idleTimeout = idleTimeout;
+        this.poolSettings = poolSettings;
     }
 
     protected ProcessEnvironment createProcessEnvironment() {
@@ -61,6 +68,11 @@ public class DaemonClientServices extends DaemonClientServicesSupport {
         return new PersistentDaemonRegistry(get(DaemonDir.class).getRegistry(), get(FileLockManager.class));
     }
 
+    protected void configureDaemonConnector(DefaultDaemonConnector connector) {
+        connector.setMaxDaemons(poolSettings.getMaxDaemons());
+        connector.setKeepSpareDaemon(poolSettings.isKeepSpareDaemon());
+    }
+
     public Runnable makeDaemonStarter() {
         return new DaemonStarter(userHomeDir, idleTimeout);
     }
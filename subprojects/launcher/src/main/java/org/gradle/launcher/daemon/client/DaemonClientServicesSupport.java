@@ -81,7 +81,14 @@ abstract public class DaemonClientServicesSupport extends DefaultServiceRegistry
 
     @SuppressWarnings("unchecked")
     protected DaemonConnector createDaemonConnector() {
-        return new DefaultDaemonConnector(get(DaemonRegistry.class), makeDaemonCompatibilitySpec(), get(OutgoingConnector.class), makeDaemonStarter());
+        DefaultDaemonConnector connector = new DefaultDaemonConnector(get(DaemonRegistry.class), makeDaemonCompatibilitySpec(), get(OutgoingConnector.class), makeDaemonStarter());
+        configureDaemonConnector(connector);
+        return connector;
+    }
+
+    // subclass hook, allowing the pool of daemons to be configured
+    protected void configureDaemonConnector(DefaultDaemonConnector connector) {
+
     }
 
     abstract protected DaemonRegistry createDaemonRegistry();
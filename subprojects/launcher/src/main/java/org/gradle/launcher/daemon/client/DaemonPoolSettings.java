@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.launcher.daemon.client;
+
+import org.gradle.StartParameter;
+import org.gradle.api.GradleException;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The settings for the pool of daemons a client may start, read from system properties:
+ *
+ * <ul>
+ * <li>{@value #MAX_DAEMONS_PROPERTY} limits the number of compatible daemons. By default the number of daemons is not
+ * limited.</li>
+ * <li>{@value #SPARE_DAEMON_PROPERTY} keeps a spare compatible daemon running, ready for the next build. By default no
+ * spare daemon is kept.</li>
+ * </ul>
+ */
+public class DaemonPoolSettings {
+    public static final String MAX_DAEMONS_PROPERTY = "org.gradle.daemon.maxdaemons";
+    public static final String SPARE_DAEMON_PROPERTY = "org.gradle.daemon.spare";
+    private final int maxDaemons;
+    private final boolean keepSpareDaemon;
+
+    public DaemonPoolSettings(StartParameter startParameter) {
+        this(startParameter.getSystemPropertiesArgs());
+    }
+
+    /**
+     * throws exception when the max daemons property is not a valid positive int
+     */
+    public DaemonPoolSettings(Map<String, String> sysProperties) {
+        if (sysProperties == null) {
+            sysProperties = Collections.<String, String>emptyMap();
+        }
+
+        String maxDaemonsProperty = sysProperties.get(MAX_DAEMONS_PROPERTY);
+        if (maxDaemonsProperty == null) {
+            maxDaemons = DefaultDaemonConnector.UNLIMITED_DAEMONS;
+        } else {
+            try {
+                maxDaemons = Integer.parseInt(maxDaemonsProperty);
+            } catch (Exception e) {
+                throw new GradleException(String.format("Unable to parse %s sys property. The value should be an int but is: %s", MAX_DAEMONS_PROPERTY, maxDaemonsProperty));
+            }
+            if (maxDaemons <= 0) {
+                throw new GradleException(String.format("Unable to parse %s sys property. The value should be greater than 0 but is: %s", MAX_DAEMONS_PROPERTY, maxDaemonsProperty));
+            }
+        }
+        keepSpareDaemon = "true".equals(sysProperties.get(SPARE_DAEMON_PROPERTY));
+    }
+
+    public int getMaxDaemons() {
+        return maxDaemons;
+    }
+
+    public boolean isKeepSpareDaemon() {
+        return keepSpareDaemon;
+    }
+}
@@ -21,12 +21,16 @@ import org.gradle.api.logging.Logging;
 import org.gradle.api.specs.Spec;
 import org.gradle.launcher.daemon.registry.DaemonInfo;
 import org.gradle.launcher.daemon.registry.DaemonRegistry;
+import org.gradle.launcher.daemon.registry.DaemonStats;
 import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.messaging.remote.internal.ConnectException;
 import org.gradle.messaging.remote.internal.Connection;
 import org.gradle.messaging.remote.internal.OutgoingConnector;
 import org.gradle.util.UncheckedException;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 
@@ -37,6 +41,7 @@ public class DefaultDaemonConnector implements DaemonConnector {
 
     private static final Logger LOGGER = Logging.getLogger(DefaultDaemonConnector.class);
     public final static int DEFAULT_CONNECT_TIMEOUT = 30000;
+    public final static int UNLIMITED_DAEMONS = 0;
 
     private final DaemonRegistry daemonRegistry;
     private final Spec<DaemonContext> contextCompatibilitySpec;
@@ -44,6 +49,8 @@ public class DefaultDaemonConnector implements DaemonConnector {
     private final Runnable daemonStarter;
 
     private long connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private int maxDaemons = UNLIMITED_DAEMONS;
+    private boolean keepSpareDaemon;
 
     public DefaultDaemonConnector(DaemonRegistry daemonRegistry, Spec<DaemonContext> contextCompatibilitySpec, OutgoingConnector<Object> connector, Runnable daemonStarter) {
         this.daemonRegistry = daemonRegistry;
@@ -60,16 +67,50 @@ public class DefaultDaemonConnector implements DaemonConnector {
         return connectTimeout;
     }
 
+    /**
+     * Sets the maximum number of compatible daemons which may be running at the same time. When this many daemons are
+     * running and all of them are busy, {@link #connect()} waits for one of them to become idle rather than starting
+     * another daemon. It waits for at most the connect timeout, and then starts another daemon regardless.
+     */
+    public void setMaxDaemons(int maxDaemons) {
+        this.maxDaemons = maxDaemons;
+    }
+
+    public int getMaxDaemons() {
+        return maxDaemons;
+    }
+
+    /**
+     * Sets whether a spare compatible daemon should be kept running. When set, {@link #connect()} starts a new daemon in
+     * the background when it takes the last idle daemon, so that the next build does not have to wait for a daemon to
+     * start.
+     */
+    public void setKeepSpareDaemon(boolean keepSpareDaemon) {
+        this.keepSpareDaemon = keepSpareDaemon;
+    }
+
+    public boolean isKeepSpareDaemon() {
+        return keepSpareDaemon;
+    }
+
     public Connection<Object> maybeConnect() {
         return findConnection(daemonRegistry.getAll());
     }
 
-    private Connection<Object> findConnection(List<DaemonInfo> daemonInfos) {
+    private List<DaemonInfo> compatible(List<DaemonInfo> daemonInfos) {
+        List<DaemonInfo> compatible = new ArrayList<DaemonInfo>();
         for (DaemonInfo daemonInfo : daemonInfos) {
-            if (!contextCompatibilitySpec.isSatisfiedBy(daemonInfo.getContext())) {
-                continue;
+            if (contextCompatibilitySpec.isSatisfiedBy(daemonInfo.getContext())) {
+                compatible.add(daemonInfo);
             }
+        }
+        return compatible;
+    }
 
+    private Connection<Object> findConnection(List<DaemonInfo> daemonInfos) {
+        List<DaemonInfo> candidates = compatible(daemonInfos);
+        Collections.sort(candidates, new LeastLoadedFirst());
+        for (DaemonInfo daemonInfo : candidates) {
             try {
                 return connector.connect(daemonInfo.getAddress());
             } catch (ConnectException e) {
@@ -86,11 +127,26 @@ public class DefaultDaemonConnector implements DaemonConnector {
     }
 
     public Connection<Object> connect() {
+        Connection<Object> connection = doConnect();
+        if (keepSpareDaemon) {
+            maybeStartSpareDaemon();
+        }
+        return connection;
+    }
+
+    private Connection<Object> doConnect() {
         Connection<Object> connection = findConnection(daemonRegistry.getIdle());
         if (connection != null) {
             return connection;
         }
 
+        if (isPoolFull()) {
+            connection = awaitIdleDaemon();
+            if (connection != null) {
+                return connection;
+            }
+        }
+
         LOGGER.info("Starting Gradle daemon");
         daemonStarter.run();
         Date expiry = new Date(System.currentTimeMillis() + connectTimeout);
@@ -109,7 +165,71 @@ public class DefaultDaemonConnector implements DaemonConnector {
         throw new GradleException("Timeout waiting to connect to Gradle daemon.");
     }
 
+    private void maybeStartSpareDaemon() {
+        // The daemon we have connected to remains registered as idle until it receives its command
+        if (compatible(daemonRegistry.getIdle()).size() <= 1 && !isPoolFull()) {
+            LOGGER.info("Starting spare Gradle daemon");
+            daemonStarter.run();
+        }
+    }
+
+    private boolean isPoolFull() {
+        return maxDaemons > 0 && compatible(daemonRegistry.getAll()).size() >= maxDaemons;
+    }
+
+    /**
+     * Waits while the pool is full for one of the daemons in it to become idle. Gives up after the connect timeout, as
+     * a daemon which died while busy remains in the registry and so keeps the pool full.
+     *
+     * @return A connection to the daemon, or null if the pool is no longer full or the timeout has expired.
+     */
+    private Connection<Object> awaitIdleDaemon() {
+        LOGGER.lifecycle("All {} Gradle daemons are busy. Waiting for one of them to become available.", maxDaemons);
+        Date expiry = new Date(System.currentTimeMillis() + connectTimeout);
+        do {
+            try {
+                Thread.sleep(200L);
+            } catch (InterruptedException e) {
+                throw UncheckedException.asUncheckedException(e);
+            }
+            Connection<Object> connection = findConnection(daemonRegistry.getIdle());
+            if (connection != null) {
+                return connection;
+            }
+            if (System.currentTimeMillis() >= expiry.getTime()) {
+                LOGGER.lifecycle("Timeout waiting for a busy Gradle daemon to become available.");
+                return null;
+            }
+        } while (isPoolFull());
+        return null;
+    }
+
     public DaemonRegistry getDaemonRegistry() {
         return daemonRegistry;
     }
+
+    /**
+     * Orders daemons so that healthy daemons come first, and then those with the least heap in use. Daemons which have
+     * not yet run a build are treated as healthy and as having no heap in use.
+     */
+    private static class LeastLoadedFirst implements Comparator<DaemonInfo> {
+        public int compare(DaemonInfo info1, DaemonInfo info2) {
+            boolean healthy1 = isHealthy(info1);
+            boolean healthy2 = isHealthy(info2);
+            if (healthy1 != healthy2) {
+                return healthy1 ? -1 : 1;
+            }
+            return Double.compare(heapUsage(info1), heapUsage(info2));
+        }
+
+        private boolean isHealthy(DaemonInfo info) {
+            DaemonStats stats = info.getStats();
+            return stats == null || stats.isHealthy();
+        }
+
+        private double heapUsage(DaemonInfo info) {
+            DaemonStats stats = info.getStats();
+            return stats == null ? 0 : stats.getHeapUsage();
+        }
+    }
 }
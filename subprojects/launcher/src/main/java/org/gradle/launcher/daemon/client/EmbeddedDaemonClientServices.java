@@ -20,6 +20,7 @@ import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.launcher.daemon.registry.DaemonRegistry;
 import org.gradle.launcher.daemon.registry.EmbeddedDaemonRegistry;
 import org.gradle.launcher.daemon.server.Daemon;
+import org.gradle.launcher.daemon.server.DaemonHealthMonitor;
 import org.gradle.launcher.daemon.server.DaemonServerConnector;
 import org.gradle.launcher.daemon.server.exec.DefaultDaemonCommandExecuter;
 import org.gradle.launcher.daemon.server.DaemonTcpServerConnector;
@@ -48,7 +49,8 @@ public class EmbeddedDaemonClientServices extends DaemonClientServicesSupport {
                 get(DaemonServerConnector.class),
                 get(DaemonRegistry.class),
                 get(DaemonContext.class),
-                new DefaultDaemonCommandExecuter(getLoggingServices(), get(ExecutorFactory.class)), get(ExecutorFactory.class)
+                new DefaultDaemonCommandExecuter(getLoggingServices(), get(ExecutorFactory.class)), get(ExecutorFactory.class),
+                new DaemonHealthMonitor()
             );
         }
     }
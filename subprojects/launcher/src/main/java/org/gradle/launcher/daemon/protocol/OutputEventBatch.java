@@ -0,0 +1,43 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.launcher.daemon.protocol;
+
+import org.gradle.logging.internal.OutputEvent;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sequence of output events sent from the daemon server back to the client as a single message. The client should
+ * handle the events in the order given.
+ */
+public class OutputEventBatch implements Serializable {
+    private final List<OutputEvent> events;
+
+    public OutputEventBatch(List<? extends OutputEvent> events) {
+        this.events = new ArrayList<OutputEvent>(events);
+    }
+
+    public List<OutputEvent> getEvents() {
+        return events;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OutputEventBatch[events=%s]", events.size());
+    }
+}
@@ -29,6 +29,7 @@ public class DaemonInfo implements Serializable {
     private final Address address;
     private final DaemonContext context;
     private boolean idle = true;
+    private DaemonStats stats;
 
     public DaemonInfo(Address address, DaemonContext context) {
         this.address = address;
@@ -40,6 +41,11 @@ public class DaemonInfo implements Serializable {
         return this;
     }
 
+    public DaemonInfo setStats(DaemonStats stats) {
+        this.stats = stats;
+        return this;
+    }
+
     public Address getAddress() {
         return address;
     }
@@ -52,9 +58,16 @@ public class DaemonInfo implements Serializable {
         return idle;
     }
 
+    /**
+     * The stats recorded when the daemon last finished a build, or {@code null} if it has not yet run a build.
+     */
+    public DaemonStats getStats() {
+        return stats;
+    }
+
     @Override
     public String toString() {
-        return String.format("DaemonInfo{address=%s, idle=%s, context=%s}", address, idle, context);
+        return String.format("DaemonInfo{address=%s, idle=%s, stats=%s, context=%s}", address, idle, stats, context);
     }
 
 }
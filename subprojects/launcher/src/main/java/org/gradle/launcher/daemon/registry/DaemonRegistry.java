@@ -33,7 +33,7 @@ public interface DaemonRegistry {
     void store(Address address, DaemonContext daemonContext);
     void remove(Address address);
     void markBusy(Address address);
-    void markIdle(Address address);
+    void markIdle(Address address, DaemonStats stats);
 
     static class EmptyRegistryException extends RuntimeException {
         public EmptyRegistryException(String message) {
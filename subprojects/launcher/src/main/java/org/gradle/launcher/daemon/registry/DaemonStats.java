@@ -0,0 +1,87 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.registry;
+
+import java.io.Serializable;
+
+/**
+ * A snapshot of the load on a daemon. A daemon records its stats in the registry each time it finishes a build, so that
+ * clients can choose between the idle daemons.
+ */
+public class DaemonStats implements Serializable {
+
+    private final int buildCount;
+    private final long heapUsed;
+    private final long heapMax;
+    private final double gcTimeRatio;
+    private final boolean healthy;
+
+    public DaemonStats(int buildCount, long heapUsed, long heapMax, double gcTimeRatio, boolean healthy) {
+        this.buildCount = buildCount;
+        this.heapUsed = heapUsed;
+        this.heapMax = heapMax;
+        this.gcTimeRatio = gcTimeRatio;
+        this.healthy = healthy;
+    }
+
+    /**
+     * The number of builds the daemon has run.
+     */
+    public int getBuildCount() {
+        return buildCount;
+    }
+
+    /**
+     * The heap in use by the daemon after its most recent garbage collection, in bytes.
+     */
+    public long getHeapUsed() {
+        return heapUsed;
+    }
+
+    /**
+     * The maximum heap available to the daemon, in bytes.
+     */
+    public long getHeapMax() {
+        return heapMax;
+    }
+
+    /**
+     * The fraction of the maximum heap which is in use, or 0 when the maximum is unknown.
+     */
+    public double getHeapUsage() {
+        return heapMax > 0 ? (double) heapUsed / heapMax : 0;
+    }
+
+    /**
+     * The fraction of the daemon's most recent build which was spent collecting garbage.
+     */
+    public double getGcTimeRatio() {
+        return gcTimeRatio;
+    }
+
+    /**
+     * Returns false when the daemon is running low on memory, in which case clients should prefer other daemons.
+     */
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DaemonStats{buildCount=%s, heapUsed=%s, heapMax=%s, gcTimeRatio=%s, healthy=%s}", buildCount, heapUsed, heapMax, gcTimeRatio, healthy);
+    }
+}
@@ -91,9 +91,9 @@ public class EmbeddedDaemonRegistry implements DaemonRegistry {
         }
     }
 
-    public void markIdle(Address address) {
+    public void markIdle(Address address, DaemonStats stats) {
         synchronized (daemonInfos) {
-            daemonInfos.get(address).setIdle(true);
+            daemonInfos.get(address).setIdle(true).setStats(stats);
         }
     }
 
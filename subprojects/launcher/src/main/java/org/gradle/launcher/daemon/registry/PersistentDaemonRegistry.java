@@ -104,11 +104,11 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
         });
     }
 
-    public synchronized void markIdle(final Address address) {
+    public synchronized void markIdle(final Address address, final DaemonStats stats) {
         cache.update(new PersistentStateCache.UpdateAction<DaemonRegistryContent>() {
             public DaemonRegistryContent update(DaemonRegistryContent oldValue) {
                 assertCacheNotEmpty(oldValue);
-                oldValue.getInfo(address).setIdle(true);
+                oldValue.getInfo(address).setIdle(true).setStats(stats);
                 return oldValue;
             }
         });
@@ -19,6 +19,7 @@ import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.launcher.daemon.protocol.Command;
 import org.gradle.launcher.daemon.registry.DaemonRegistry;
+import org.gradle.launcher.daemon.registry.DaemonStats;
 import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.launcher.daemon.server.exec.DaemonCommandExecuter;
 import org.gradle.messaging.concurrent.ExecutorFactory;
@@ -46,6 +47,7 @@ public class Daemon implements Runnable, Stoppable {
     private final DaemonRegistry daemonRegistry;
     private final DaemonContext daemonContext;
     private final DaemonCommandExecuter commandExecuter;
+    private final DaemonHealthMonitor healthMonitor;
 
     private DaemonStateCoordinator stateCoordinator;
 
@@ -61,12 +63,14 @@ public class Daemon implements Runnable, Stoppable {
      * 
      * @param connector The provider of server connections for this daemon
      * @param daemonRegistry The registry that this daemon should advertise itself in
+     * @param healthMonitor Decides whether this daemon should expire after each build
      */
-    public Daemon(DaemonServerConnector connector, DaemonRegistry daemonRegistry, DaemonContext daemonContext, DaemonCommandExecuter commandExecuter, ExecutorFactory executorFactory) {
+    public Daemon(DaemonServerConnector connector, DaemonRegistry daemonRegistry, DaemonContext daemonContext, DaemonCommandExecuter commandExecuter, ExecutorFactory executorFactory, DaemonHealthMonitor healthMonitor) {
         this.connector = connector;
         this.daemonRegistry = daemonRegistry;
         this.daemonContext = daemonContext;
         this.commandExecuter = commandExecuter;
+        this.healthMonitor = healthMonitor;
         handlersExecutor = executorFactory.create("Daemon Connection Handler");
     }
 
@@ -122,13 +126,22 @@ public class Daemon implements Runnable, Stoppable {
             
             Runnable onStartCommand = new Runnable() {
                 public void run() {
+                    healthMonitor.onStartBuild();
                     registryUpdater.onStartActivity();
                 }
             };
 
             Runnable onFinishCommand = new Runnable() {
                 public void run() {
-                    registryUpdater.onCompleteActivity();
+                    DaemonStats stats = healthMonitor.onFinishBuild();
+                    String expirationReason = healthMonitor.getExpirationReason();
+                    if (expirationReason == null) {
+                        registryUpdater.onCompleteActivity(stats);
+                    } else {
+                        // Leave the daemon marked as busy, so that no client connects to it while it is stopping
+                        LOGGER.lifecycle("Daemon is expiring, as {}.", expirationReason);
+                        stateCoordinator.requestStop();
+                    }
                 }
             };
             
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.launcher.daemon.server;
+
+import org.gradle.launcher.daemon.registry.DaemonStats;
+
+import java.lang.management.*;
+
+/**
+ * Tracks the health of the daemon across builds. After each build, the heap and permanent generation in use after the
+ * most recent collection are compared with the maximum available, and the time spent collecting garbage during the
+ * build is compared with the duration of the build.
+ * <p>
+ * A daemon which is running low on memory is reported as unhealthy, so that clients prefer other daemons. A daemon
+ * which has run out of memory, or which is spending much of its time collecting garbage with little heap to spare,
+ * should expire once it has finished its build, rather than waiting for its idle timeout.
+ */
+public class DaemonHealthMonitor {
+    public static final double HEAP_USAGE_WARNING = 0.75;
+    public static final double HEAP_USAGE_LIMIT = 0.9;
+    public static final double PERM_GEN_USAGE_LIMIT = 0.9;
+    public static final double GC_TIME_RATIO_LIMIT = 0.25;
+
+    private int buildCount;
+    private long buildStartTime;
+    private long buildStartGcTime;
+    private String expirationReason;
+
+    /**
+     * Called when the daemon starts a build.
+     */
+    public void onStartBuild() {
+        buildCount++;
+        buildStartTime = currentTime();
+        buildStartGcTime = getGcTime();
+    }
+
+    /**
+     * Called when the daemon finishes a build.
+     *
+     * @return The stats to publish for the daemon.
+     */
+    public DaemonStats onFinishBuild() {
+        long buildTime = currentTime() - buildStartTime;
+        double gcTimeRatio = buildTime > 0 ? (double) (getGcTime() - buildStartGcTime) / buildTime : 0;
+        long heapUsed = getHeapUsedAfterGc();
+        long heapMax = getHeapMax();
+        double heapUsage = heapMax > 0 ? (double) heapUsed / heapMax : 0;
+        double permGenUsage = getPermGenUsageAfterGc();
+
+        if (heapUsage >= HEAP_USAGE_LIMIT) {
+            expirationReason = String.format("%.0f%% of the heap is in use after garbage collection", heapUsage * 100);
+        } else if (permGenUsage >= PERM_GEN_USAGE_LIMIT) {
+            expirationReason = String.format("%.0f%% of the permanent generation is in use after garbage collection", permGenUsage * 100);
+        } else if (heapUsage >= HEAP_USAGE_WARNING && gcTimeRatio >= GC_TIME_RATIO_LIMIT) {
+            expirationReason = String.format("%.0f%% of the last build was spent collecting garbage", gcTimeRatio * 100);
+        } else {
+            expirationReason = null;
+        }
+
+        boolean healthy = heapUsage < HEAP_USAGE_WARNING && gcTimeRatio < GC_TIME_RATIO_LIMIT;
+        return new DaemonStats(buildCount, heapUsed, heapMax, gcTimeRatio, healthy);
+    }
+
+    /**
+     * Returns the reason the daemon should expire after the most recent build, or null if it should continue running.
+     */
+    public String getExpirationReason() {
+        return expirationReason;
+    }
+
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    protected long getGcTime() {
+        long gcTime = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcTime += Math.max(0, collector.getCollectionTime());
+        }
+        return gcTime;
+    }
+
+    protected long getHeapUsedAfterGc() {
+        // Use the heap in use after the most recent collection, as the heap in use now mostly contains garbage from the build
+        long heapUsed = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && usage != null) {
+                heapUsed += usage.getUsed();
+            }
+        }
+        if (heapUsed == 0) {
+            heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+        return heapUsed;
+    }
+
+    protected long getHeapMax() {
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    protected double getPermGenUsageAfterGc() {
+        // The permanent generation is the only non-heap pool which is garbage collected
+        double usage = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage poolUsage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.NON_HEAP && poolUsage != null && poolUsage.getMax() > 0) {
+                usage = Math.max(usage, (double) poolUsage.getUsed() / poolUsage.getMax());
+            }
+        }
+        return usage;
+    }
+}
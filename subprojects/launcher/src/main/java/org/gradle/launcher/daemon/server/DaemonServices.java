@@ -20,6 +20,7 @@ import org.gradle.api.internal.project.ServiceRegistry;
 import org.gradle.cache.internal.DefaultFileLockManager;
 import org.gradle.cache.internal.DefaultProcessMetaDataProvider;
 import org.gradle.cache.internal.FileLockManager;
+import org.gradle.initialization.DefaultGradleLauncherFactory;
 import org.gradle.launcher.daemon.registry.DaemonDir;
 import org.gradle.launcher.daemon.registry.DaemonRegistry;
 import org.gradle.launcher.daemon.registry.PersistentDaemonRegistry;
@@ -75,6 +76,14 @@ public class DaemonServices extends DefaultServiceRegistry {
         return new DaemonContextBuilder().create();
     }
 
+    protected DefaultGradleLauncherFactory createGradleLauncherFactory() {
+        return new DefaultGradleLauncherFactory(loggingServices);
+    }
+
+    protected DaemonHealthMonitor createDaemonHealthMonitor() {
+        return new DaemonHealthMonitor();
+    }
+
     protected Daemon createDaemon() {
         return new Daemon(
                 new DaemonTcpServerConnector(),
@@ -82,7 +91,9 @@ public class DaemonServices extends DefaultServiceRegistry {
                 get(DaemonContext.class),
                 new DefaultDaemonCommandExecuter(
                         loggingServices,
-                        get(ExecutorFactory.class)),
-                get(ExecutorFactory.class));
+                        get(ExecutorFactory.class),
+                        get(DefaultGradleLauncherFactory.class)),
+                get(ExecutorFactory.class),
+                get(DaemonHealthMonitor.class));
     }
 }
@@ -19,6 +19,7 @@ package org.gradle.launcher.daemon.server;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.launcher.daemon.registry.DaemonRegistry;
+import org.gradle.launcher.daemon.registry.DaemonStats;
 import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.messaging.remote.Address;
 
@@ -48,10 +49,10 @@ class DomainRegistryUpdater {
         }
     }
 
-    public void onCompleteActivity() {
+    public void onCompleteActivity(DaemonStats stats) {
         LOGGER.info("Marking the daemon as idle, address: " + connectorAddress);
         try {
-            daemonRegistry.markIdle(connectorAddress);
+            daemonRegistry.markIdle(connectorAddress, stats);
         } catch (DaemonRegistry.EmptyRegistryException e) {
             LOGGER.warn("Cannot mark daemon as idle because the registry is empty.");
         }
@@ -37,10 +37,14 @@ public class DefaultDaemonCommandExecuter implements DaemonCommandExecuter {
     final private GradleLauncherFactory launcherFactory;
 
     public DefaultDaemonCommandExecuter(ServiceRegistry loggingServices, ExecutorFactory executorFactory) {
+        this(loggingServices, executorFactory, new DefaultGradleLauncherFactory(loggingServices));
+    }
+
+    public DefaultDaemonCommandExecuter(ServiceRegistry loggingServices, ExecutorFactory executorFactory, GradleLauncherFactory launcherFactory) {
         this.loggingServices = loggingServices;
         this.executorFactory = executorFactory;
         this.loggingOutput = loggingServices.get(LoggingOutputInternal.class);
-        this.launcherFactory = new DefaultGradleLauncherFactory(loggingServices);
+        this.launcherFactory = launcherFactory;
     }
 
     public void executeCommand(Connection<Object> connection, Command command, DaemonStateCoordinator daemonStateCoordinator) {
@@ -54,7 +58,7 @@ public class DefaultDaemonCommandExecuter implements DaemonCommandExecuter {
             new HandleStop(),
             new UpdateDaemonStateAndHandleBusyDaemon(),
             new ReturnResult(),
-            new ForwardOutput(loggingOutput),
+            new ForwardOutput(loggingOutput, executorFactory),
             new ResetDeprecationLogger(),
             new ReportExceptions(loggingServices.get(StyledTextOutputFactory.class)),
             new HandleSleep(),
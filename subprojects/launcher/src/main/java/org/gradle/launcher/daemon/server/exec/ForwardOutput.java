@@ -15,35 +15,43 @@
  */
 package org.gradle.launcher.daemon.server.exec;
 
-import org.gradle.logging.internal.OutputEvent;
-import org.gradle.logging.internal.OutputEventListener;
 import org.gradle.logging.internal.LoggingOutputInternal;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.dispatch.Dispatch;
 
 /**
- * Registers a logging event listener to forward any output back to the client.
+ * Registers a logging event listener to forward any output back to the client. Consecutive log messages are sent
+ * to the client in batches, see {@link OutputEventBatcher}.
  */
 public class ForwardOutput implements DaemonCommandAction {
     
     private final LoggingOutputInternal loggingOutput;
-    
-    public ForwardOutput(LoggingOutputInternal loggingOutput) {
+    private final ExecutorFactory executorFactory;
+
+    public ForwardOutput(LoggingOutputInternal loggingOutput, ExecutorFactory executorFactory) {
         this.loggingOutput = loggingOutput;
+        this.executorFactory = executorFactory;
     }
     
     public void execute(final DaemonCommandExecution execution) {
-        OutputEventListener listener = new OutputEventListener() {
-            public void onOutput(OutputEvent event) {
+        Dispatch<Object> client = new Dispatch<Object>() {
+            public void dispatch(Object message) {
                 try {
-                    execution.getConnection().dispatch(event);
+                    execution.getConnection().dispatch(message);
                 } catch (Exception e) {
                     //Ignore. It means the client has disconnected so no point sending him any log output.
                     //we should be checking if client still listens elsewhere anyway.
                 }
             }
         };
+        OutputEventBatcher batcher = new OutputEventBatcher(client, executorFactory);
 
-        loggingOutput.addOutputEventListener(listener);
-        execution.proceed();
-        loggingOutput.removeOutputEventListener(listener);
+        loggingOutput.addOutputEventListener(batcher);
+        try {
+            execution.proceed();
+        } finally {
+            loggingOutput.removeOutputEventListener(batcher);
+            batcher.stop();
+        }
     }
 }
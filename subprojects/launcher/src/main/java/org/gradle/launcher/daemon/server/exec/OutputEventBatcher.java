@@ -0,0 +1,166 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.launcher.daemon.server.exec;
+
+import org.gradle.api.logging.LogLevel;
+import org.gradle.launcher.daemon.protocol.OutputEventBatch;
+import org.gradle.logging.internal.LogEvent;
+import org.gradle.logging.internal.OutputEvent;
+import org.gradle.logging.internal.OutputEventListener;
+import org.gradle.logging.internal.StyledTextOutputEvent;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.Stoppable;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+import org.gradle.messaging.dispatch.Dispatch;
+import org.gradle.util.UncheckedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Forwards output events to a {@link Dispatch}, coalescing consecutive log and text events into a single {@link
+ * OutputEventBatch}. A batch is sent once it holds {@link #MAX_BATCH_SIZE} characters of text, once it has been held
+ * for {@link #MAX_BATCH_DELAY} milliseconds, or as soon as an event arrives which should be seen promptly, such as a
+ * progress event or an error. Events are always forwarded in the order they are received.
+ */
+public class OutputEventBatcher implements OutputEventListener, Stoppable {
+    public static final int MAX_BATCH_SIZE = 8192;
+    public static final int MAX_BATCH_DELAY = 10;
+
+    private final Dispatch<Object> dispatch;
+    private final int maxBatchDelay;
+    private final StoppableExecutor executor;
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private final List<OutputEvent> batch = new ArrayList<OutputEvent>();
+    private int batchSize;
+    private long batchStart;
+    private boolean stopped;
+
+    public OutputEventBatcher(Dispatch<Object> dispatch, ExecutorFactory executorFactory) {
+        this(dispatch, executorFactory, MAX_BATCH_DELAY);
+    }
+
+    OutputEventBatcher(Dispatch<Object> dispatch, ExecutorFactory executorFactory, int maxBatchDelay) {
+        this.dispatch = dispatch;
+        this.maxBatchDelay = maxBatchDelay;
+        executor = executorFactory.create("Daemon output batcher");
+        executor.execute(new Runnable() {
+            public void run() {
+                flushExpiredBatches();
+            }
+        });
+    }
+
+    public void onOutput(OutputEvent event) {
+        lock.lock();
+        try {
+            if (!isBatchable(event)) {
+                flush();
+                dispatch.dispatch(event);
+                return;
+            }
+            if (batch.isEmpty()) {
+                batchStart = System.currentTimeMillis();
+                condition.signalAll();
+            }
+            batch.add(event);
+            batchSize += sizeOf(event);
+            if (batchSize >= MAX_BATCH_SIZE || isUrgent(event)) {
+                flush();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forwards any batched events, and stops forwarding. Blocks until complete.
+     */
+    public void stop() {
+        lock.lock();
+        try {
+            flush();
+            stopped = true;
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        executor.stop();
+    }
+
+    private void flushExpiredBatches() {
+        lock.lock();
+        try {
+            while (!stopped) {
+                if (batch.isEmpty()) {
+                    condition.await();
+                    continue;
+                }
+                long remaining = batchStart + maxBatchDelay - System.currentTimeMillis();
+                if (remaining > 0) {
+                    condition.await(remaining, TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                flush();
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.asUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (batch.size() == 1) {
+            dispatch.dispatch(batch.get(0));
+        } else {
+            dispatch.dispatch(new OutputEventBatch(batch));
+        }
+        batch.clear();
+        batchSize = 0;
+    }
+
+    private boolean isBatchable(OutputEvent event) {
+        return event instanceof StyledTextOutputEvent || event instanceof LogEvent;
+    }
+
+    private boolean isUrgent(OutputEvent event) {
+        if (event.getLogLevel() == LogLevel.ERROR) {
+            return true;
+        }
+        return event instanceof LogEvent && ((LogEvent) event).getThrowable() != null;
+    }
+
+    private int sizeOf(OutputEvent event) {
+        if (event instanceof LogEvent) {
+            String message = ((LogEvent) event).getMessage();
+            return message == null ? 0 : message.length();
+        }
+        int size = 0;
+        for (StyledTextOutputEvent.Span span : ((StyledTextOutputEvent) event).getSpans()) {
+            size += span.getText() == null ? 0 : span.getText().length();
+        }
+        return size;
+    }
+}
@@ -19,9 +19,11 @@ import org.gradle.initialization.BuildClientMetaData
 import org.gradle.initialization.GradleLauncherAction
 import org.gradle.launcher.exec.BuildActionParameters
 import org.gradle.launcher.daemon.protocol.Build
+import org.gradle.launcher.daemon.protocol.OutputEventBatch
 import org.gradle.launcher.daemon.protocol.Success
 import org.gradle.launcher.daemon.protocol.CommandFailure
 import org.gradle.launcher.daemon.protocol.Stop
+import org.gradle.logging.internal.OutputEvent
 import org.gradle.logging.internal.OutputEventListener
 import org.gradle.messaging.remote.internal.Connection
 import spock.lang.Specification
@@ -79,6 +81,24 @@ class DaemonClientTest extends Specification {
         1 * connection.stop()
     }
 
+    def forwardsOutputEventsToListener() {
+        GradleLauncherAction<String> action = Mock()
+        BuildActionParameters parameters = Mock()
+        OutputEvent event1 = Mock()
+        OutputEvent event2 = Mock()
+        OutputEvent event3 = Mock()
+        def received = []
+
+        when:
+        client.execute(action, parameters)
+
+        then:
+        1 * connector.connect() >> connection
+        3 * connection.receive() >>> [event1, new OutputEventBatch([event2, event3]), new Success('[result]')]
+        3 * outputEventListener.onOutput(_) >> { received << it[0] }
+        received == [event1, event2, event3]
+    }
+
     def rethrowsFailureToExecuteAction() {
         GradleLauncherAction<String> action = Mock()
         BuildActionParameters parameters = Mock()
@@ -20,6 +20,7 @@ import org.gradle.api.specs.Specs
 import org.gradle.api.GradleException
 import org.gradle.launcher.daemon.registry.EmbeddedDaemonRegistry
 import org.gradle.launcher.daemon.context.DaemonContext
+import org.gradle.launcher.daemon.registry.DaemonStats
 
 import org.gradle.messaging.remote.Address
 import org.gradle.messaging.remote.internal.Connection
@@ -31,6 +32,7 @@ class DaemonConnectorSupportTest extends Specification {
 
     def connectTimeoutSecs = 1
     def daemonCounter = 0
+    def addresses = []
     def compatibilitySpec = { true }
 
     def getCompatibilitySpec() {
@@ -70,7 +72,17 @@ class DaemonConnectorSupportTest extends Specification {
         def daemonNum = daemonCounter++
         def context = [:] as DaemonContext
         context.metaClass.num = daemonNum
-        registry.store(createAddress(daemonNum), context)
+        def address = createAddress(daemonNum)
+        addresses << address
+        registry.store(address, context)
+    }
+
+    def markBusy(int daemonNum) {
+        registry.markBusy(addresses[daemonNum])
+    }
+
+    def markIdle(int daemonNum, int heapUsedPercent, boolean healthy = true) {
+        registry.markIdle(addresses[daemonNum], new DaemonStats(1, heapUsedPercent, 100, 0, healthy))
     }
 
     def theConnector
@@ -127,6 +139,120 @@ class DaemonConnectorSupportTest extends Specification {
         GradleException e = thrown()
         e.message.startsWith "Timeout waiting to connect to Gradle daemon"
     }
-    
 
-}
\ No newline at end of file
+    def "connector prefers the idle daemon with the least heap in use"() {
+        given:
+        3.times { startNewDaemon() }
+        markIdle(0, 50)
+        markIdle(1, 20)
+        markIdle(2, 90)
+
+        expect:
+        connect() == 1
+    }
+
+    def "connector prefers healthy daemons"() {
+        given:
+        2.times { startNewDaemon() }
+        markIdle(0, 10, false)
+        markIdle(1, 50, true)
+
+        expect:
+        connect() == 1
+    }
+
+    def "connector starts a new daemon when all daemons are busy and the pool is not full"() {
+        given:
+        connector.maxDaemons = 2
+        startNewDaemon()
+        markBusy(0)
+
+        expect:
+        connect() == 1
+        numAllDaemons == 2
+    }
+
+    def "connector waits for a daemon to become idle when the pool is full"() {
+        given:
+        connector.maxDaemons = 1
+        startNewDaemon()
+        markBusy(0)
+
+        when:
+        Thread.start {
+            Thread.sleep(500)
+            markIdle(0, 10)
+        }
+        def num = connect()
+
+        then:
+        num == 0
+        numAllDaemons == 1
+    }
+
+    def "connector starts a new daemon when no daemon becomes idle before the connect timeout"() {
+        given:
+        connector.maxDaemons = 1
+        startNewDaemon()
+        markBusy(0)
+
+        expect:
+        connect() == 1
+        numAllDaemons == 2
+    }
+
+    def "connector does not count incompatible daemons towards the pool size"() {
+        given:
+        connector.maxDaemons = 1
+        startNewDaemon()
+        markBusy(0)
+        compatibilitySpec = { it.num > 0 }
+
+        expect:
+        connect() == 1
+    }
+
+    def "connector starts a spare daemon when it takes the last idle daemon"() {
+        given:
+        connector.keepSpareDaemon = true
+        startNewDaemon()
+
+        expect:
+        connect() == 0
+        numAllDaemons == 2
+    }
+
+    def "connector starts a spare daemon as well as the daemon it needs"() {
+        given:
+        connector.keepSpareDaemon = true
+
+        expect:
+        connect() == 0
+        numAllDaemons == 2
+    }
+
+    def "connector does not start a spare daemon when there is another idle daemon"() {
+        given:
+        connector.keepSpareDaemon = true
+        2.times { startNewDaemon() }
+
+        when:
+        connect()
+
+        then:
+        numAllDaemons == 2
+    }
+
+    def "connector does not start a spare daemon when the pool is full"() {
+        given:
+        connector.keepSpareDaemon = true
+        connector.maxDaemons = 1
+        startNewDaemon()
+
+        when:
+        connect()
+
+        then:
+        numAllDaemons == 1
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.launcher.daemon.client
+
+import org.gradle.api.GradleException
+import spock.lang.Specification
+
+class DaemonPoolSettingsTest extends Specification {
+
+    def "reads and validates max daemons"() {
+        expect:
+        new DaemonPoolSettings(['org.gradle.daemon.maxdaemons': '4']).maxDaemons == 4
+        new DaemonPoolSettings([:]).maxDaemons == DefaultDaemonConnector.UNLIMITED_DAEMONS
+        new DaemonPoolSettings((Map) null).maxDaemons == DefaultDaemonConnector.UNLIMITED_DAEMONS
+
+        when:
+        new DaemonPoolSettings(['org.gradle.daemon.maxdaemons': 'asdf'])
+
+        then:
+        def ex = thrown(GradleException)
+        ex.message.contains 'org.gradle.daemon.maxdaemons'
+        ex.message.contains 'asdf'
+
+        when:
+        new DaemonPoolSettings(['org.gradle.daemon.maxdaemons': '0'])
+
+        then:
+        ex = thrown(GradleException)
+        ex.message.contains 'greater than 0'
+    }
+
+    def "reads spare daemon setting"() {
+        expect:
+        new DaemonPoolSettings(['org.gradle.daemon.spare': 'true']).keepSpareDaemon
+        !new DaemonPoolSettings(['org.gradle.daemon.spare': 'false']).keepSpareDaemon
+        !new DaemonPoolSettings([:]).keepSpareDaemon
+    }
+}
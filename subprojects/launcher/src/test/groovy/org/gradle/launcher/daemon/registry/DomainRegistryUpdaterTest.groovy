@@ -32,20 +32,22 @@ public class DomainRegistryUpdaterTest extends Specification {
     def address = {} as Address
     def updater = new DomainRegistryUpdater(registry, new DaemonContextBuilder().create(), address)
 
-    def "marks idle"() {
+    def "marks idle and publishes stats"() {
+        def stats = new DaemonStats(1, 10, 100, 0, true)
+
         when:
-        updater.onCompleteActivity()
+        updater.onCompleteActivity(stats)
 
         then:
-        1 * registry.markIdle(address)
+        1 * registry.markIdle(address, stats)
     }
 
     def "ignores empty cache on marking idle"() {
         given:
-        1 * registry.markIdle(address) >> { throw new EmptyRegistryException("") }
+        1 * registry.markIdle(address, _) >> { throw new EmptyRegistryException("") }
 
         when:
-        updater.onCompleteActivity()
+        updater.onCompleteActivity(null)
 
         then:
         noExceptionThrown()
@@ -63,13 +63,14 @@ class EmbeddedDaemonRegistrySpec extends Specification {
         busy.size() == 2
 
         when:
-        markIdle(address(10))
-        markIdle(address(20))
+        markIdle(address(10), null)
+        markIdle(address(20), new DaemonStats(1, 10, 100, 0, true))
 
         then:
         all.size() == 2
         idle.size() == 2
         busy.empty
+        all.find { it.address == address(20) }.stats.heapUsage == 0.1d
 
         when:
         remove(address(10))
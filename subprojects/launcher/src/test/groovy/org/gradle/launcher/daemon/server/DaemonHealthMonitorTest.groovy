@@ -0,0 +1,121 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.launcher.daemon.server
+
+import spock.lang.Specification
+
+class DaemonHealthMonitorTest extends Specification {
+    long now
+    long collectionTime
+    long retainedHeap
+    double retainedPermGen
+
+    final DaemonHealthMonitor monitor = new DaemonHealthMonitor() {
+        protected long currentTime() { now }
+        protected long getGcTime() { collectionTime }
+        protected long getHeapUsedAfterGc() { retainedHeap }
+        protected long getHeapMax() { 1000 }
+        protected double getPermGenUsageAfterGc() { retainedPermGen }
+    }
+
+    def "reports stats for each build"() {
+        when:
+        def stats = build(1000, 100, 200)
+
+        then:
+        stats.buildCount == 1
+        stats.heapUsed == 200
+        stats.heapMax == 1000
+        stats.gcTimeRatio == 0.1d
+        stats.healthy
+        monitor.expirationReason == null
+
+        when:
+        stats = build(2000, 0, 300)
+
+        then:
+        stats.buildCount == 2
+        stats.gcTimeRatio == 0d
+        stats.healthy
+        monitor.expirationReason == null
+    }
+
+    def "reports daemon as unhealthy when the heap is nearly full"() {
+        when:
+        def stats = build(1000, 0, 800)
+
+        then:
+        !stats.healthy
+        monitor.expirationReason == null
+    }
+
+    def "reports daemon as unhealthy when a build spends much of its time collecting garbage"() {
+        when:
+        def stats = build(1000, 400, 200)
+
+        then:
+        !stats.healthy
+        monitor.expirationReason == null
+    }
+
+    def "expires daemon when the heap is full"() {
+        when:
+        def stats = build(1000, 0, 950)
+
+        then:
+        !stats.healthy
+        monitor.expirationReason == "95% of the heap is in use after garbage collection"
+    }
+
+    def "expires daemon when the permanent generation is full"() {
+        given:
+        retainedPermGen = 0.95
+
+        when:
+        build(1000, 0, 200)
+
+        then:
+        monitor.expirationReason == "95% of the permanent generation is in use after garbage collection"
+    }
+
+    def "expires daemon when it is thrashing"() {
+        when:
+        build(1000, 400, 800)
+
+        then:
+        monitor.expirationReason == "40% of the last build was spent collecting garbage"
+    }
+
+    def "daemon recovers when memory is released"() {
+        given:
+        build(1000, 0, 950)
+
+        when:
+        def stats = build(1000, 0, 100)
+
+        then:
+        stats.healthy
+        monitor.expirationReason == null
+    }
+
+    def build(long buildTime, long buildGcTime, long heapUsedAfterBuild) {
+        monitor.onStartBuild()
+        now += buildTime
+        collectionTime += buildGcTime
+        retainedHeap = heapUsedAfterBuild
+        return monitor.onFinishBuild()
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.gradle.launcher.daemon.server
 
+import org.gradle.initialization.DefaultGradleLauncherFactory
 import org.gradle.launcher.daemon.registry.DaemonDir
 import org.gradle.logging.LoggingServiceRegistry
 import org.gradle.os.ProcessEnvironment
@@ -36,6 +37,16 @@ class DaemonServicesTest extends Specification {
         services.get(ProcessEnvironment.class) != null
     }
 
+    def "makes a DefaultGradleLauncherFactory available"() {
+        expect:
+        services.get(DefaultGradleLauncherFactory.class) != null
+    }
+
+    def "makes a DaemonHealthMonitor available"() {
+        expect:
+        services.get(DaemonHealthMonitor.class) != null
+    }
+
     def "makes a Daemon available"() {
         expect:
         services.get(Daemon.class) != null
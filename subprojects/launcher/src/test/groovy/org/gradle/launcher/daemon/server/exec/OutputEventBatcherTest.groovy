@@ -0,0 +1,138 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.launcher.daemon.server.exec
+
+import java.util.concurrent.CopyOnWriteArrayList
+import org.gradle.api.logging.LogLevel
+import org.gradle.launcher.daemon.protocol.OutputEventBatch
+import org.gradle.logging.internal.LogEvent
+import org.gradle.logging.internal.ProgressStartEvent
+import org.gradle.logging.internal.StyledTextOutputEvent
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import org.gradle.messaging.dispatch.Dispatch
+import spock.lang.Specification
+
+class OutputEventBatcherTest extends Specification {
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final List<Object> dispatched = new CopyOnWriteArrayList<Object>()
+    // Use a stub rather than a mock, as the batcher dispatches from its own thread
+    final Dispatch<Object> dispatch = [dispatch: { dispatched << it }] as Dispatch
+    OutputEventBatcher batcher = new OutputEventBatcher(dispatch, executorFactory, 60000)
+
+    def cleanup() {
+        batcher.stop()
+        executorFactory.stop()
+    }
+
+    def "sends consecutive text events as a single batch"() {
+        def events = (1..3).collect { text("line $it") }
+
+        when:
+        events.each { batcher.onOutput(it) }
+        batcher.stop()
+
+        then:
+        dispatched.size() == 1
+        dispatched[0] instanceof OutputEventBatch
+        dispatched[0].events == events
+    }
+
+    def "sends a single event without wrapping it in a batch"() {
+        def event = text("line")
+
+        when:
+        batcher.onOutput(event)
+        batcher.stop()
+
+        then:
+        dispatched == [event]
+    }
+
+    def "sends batch once the delay has expired"() {
+        def event = text("line")
+        batcher.stop()
+        batcher = new OutputEventBatcher(dispatch, executorFactory)
+
+        when:
+        batcher.onOutput(event)
+        waitForDispatch()
+
+        then:
+        dispatched == [event]
+    }
+
+    def "sends batch once it reaches the maximum size"() {
+        def first = text("a" * (OutputEventBatcher.MAX_BATCH_SIZE - 1))
+        def second = text("b")
+        def third = text("c")
+
+        when:
+        batcher.onOutput(first)
+        batcher.onOutput(second)
+        batcher.onOutput(third)
+
+        then:
+        dispatched.size() == 1
+        dispatched[0].events == [first, second]
+    }
+
+    def "sends batch and then the event when a progress event is received"() {
+        def first = text("first")
+        def second = log(LogLevel.INFO, "second", null)
+        def progress = new ProgressStartEvent(123L, "category", "description", null, null, null)
+
+        when:
+        batcher.onOutput(first)
+        batcher.onOutput(second)
+        batcher.onOutput(progress)
+
+        then:
+        dispatched.size() == 2
+        dispatched[0].events == [first, second]
+        dispatched[1] == progress
+    }
+
+    def "sends batch immediately when an error is received"() {
+        def first = text("first")
+        def error = log(LogLevel.ERROR, "broken", null)
+        def failure = log(LogLevel.INFO, "failed", new RuntimeException())
+
+        when:
+        batcher.onOutput(first)
+        batcher.onOutput(error)
+        batcher.onOutput(failure)
+
+        then:
+        dispatched.size() == 2
+        dispatched[0].events == [first, error]
+        dispatched[1] == failure
+    }
+
+    def text(String text) {
+        return new StyledTextOutputEvent(123L, "category", LogLevel.LIFECYCLE, text)
+    }
+
+    def log(LogLevel logLevel, String message, Throwable failure) {
+        return new LogEvent(123L, "category", logLevel, message, failure)
+    }
+
+    def waitForDispatch() {
+        def expiry = System.currentTimeMillis() + 5000
+        while (dispatched.empty && System.currentTimeMillis() < expiry) {
+            Thread.sleep(5)
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import groovy.lang.GroovyClassLoader;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.tools.javac.JavaAwareCompilationUnit;
+import org.gradle.api.GradleException;
+import org.gradle.api.internal.tasks.compile.daemon.CompileAction;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles Groovy source files, and optionally Java source files, using the Groovy compiler API. Intended to be run in a
+ * compiler daemon, where the Groovy classes are loaded from the Groovy classpath of the compile task.
+ */
+public class ApiGroovyCompiler implements CompileAction {
+    private final List<File> source;
+    private final File destinationDir;
+    private final List<File> classpath;
+    private final String encoding;
+    private final boolean verbose;
+    private final boolean stacktrace;
+    private final boolean failOnError;
+    private final List<String> javacFlags;
+    private final List<String> javacNamedValues;
+
+    /**
+     * @param javacFlags The options to pass to javac for joint compilation, without the leading '-'.
+     * @param javacNamedValues Pairs of option name, without the leading '-', and value to pass to javac for joint
+     * compilation.
+     */
+    public ApiGroovyCompiler(List<File> source, File destinationDir, List<File> classpath, String encoding,
+                             boolean verbose, boolean stacktrace, boolean failOnError, List<String> javacFlags,
+                             List<String> javacNamedValues) {
+        this.source = source;
+        this.destinationDir = destinationDir;
+        this.classpath = classpath;
+        this.encoding = encoding;
+        this.verbose = verbose;
+        this.stacktrace = stacktrace;
+        this.failOnError = failOnError;
+        this.javacFlags = javacFlags;
+        this.javacNamedValues = javacNamedValues;
+    }
+
+    public boolean execute(ClassLoader compilerClassLoader) {
+        if (source.isEmpty()) {
+            return false;
+        }
+
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setTargetDirectory(destinationDir);
+        configuration.setVerbose(verbose);
+        configuration.setDebug(stacktrace);
+        if (encoding != null) {
+            configuration.setSourceEncoding(encoding);
+        }
+        List<String> classpathEntries = new ArrayList<String>();
+        for (File file : classpath) {
+            classpathEntries.add(file.getAbsolutePath());
+        }
+        configuration.setClasspathList(classpathEntries);
+
+        boolean hasJavaSource = false;
+        for (File file : source) {
+            hasJavaSource |= file.getName().endsWith(".java");
+        }
+
+        destinationDir.mkdirs();
+        File stubDir = null;
+        try {
+            GroovyClassLoader classLoader = new GroovyClassLoader(compilerClassLoader, configuration);
+            CompilationUnit unit;
+            if (hasJavaSource) {
+                stubDir = createStubDir();
+                Map<String, Object> jointCompilationOptions = new HashMap<String, Object>();
+                jointCompilationOptions.put("stubDir", stubDir);
+                jointCompilationOptions.put("flags", javacFlags.toArray(new String[javacFlags.size()]));
+                jointCompilationOptions.put("namedValues", javacNamedValues.toArray(new String[javacNamedValues.size()]));
+                configuration.setJointCompilationOptions(jointCompilationOptions);
+                unit = new JavaAwareCompilationUnit(configuration, classLoader);
+            } else {
+                unit = new CompilationUnit(configuration, null, classLoader);
+            }
+            unit.addSources(source.toArray(new File[source.size()]));
+            unit.compile();
+        } catch (CompilationFailedException e) {
+            System.err.println(e.getMessage());
+            System.err.flush();
+            if (failOnError) {
+                throw new GradleException("Compile failed; see the compiler error output for details.");
+            }
+        } finally {
+            if (stubDir != null) {
+                GFileUtils.deleteDirectory(stubDir);
+            }
+        }
+        return true;
+    }
+
+    private File createStubDir() {
+        try {
+            File stubDir = File.createTempFile("groovy-java-stubs", "");
+            stubDir.delete();
+            stubDir.mkdirs();
+            return stubDir;
+        } catch (IOException e) {
+            throw new GradleException("Could not create a directory for the Java stubs of the Groovy source files.", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.EmptyVisitor;
+import org.objectweb.asm.commons.Remapper;
+import org.objectweb.asm.commons.RemappingClassAdapter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Extracts the names of the classes referenced by a compiled class. This includes the classes referenced by the
+ * signatures, annotations and method bodies of the class.
+ */
+public class ClassDependencyAnalyzer {
+    public ClassDependencyGraph.ClassInfo analyze(String sourcePath, File classFile) throws IOException {
+        InputStream inputStream = new FileInputStream(classFile);
+        try {
+            return analyze(sourcePath, inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    public ClassDependencyGraph.ClassInfo analyze(String sourcePath, InputStream classFile) throws IOException {
+        DependencyCollector collector = new DependencyCollector();
+        ConstantDetector detector = new ConstantDetector(collector);
+        new ClassReader(classFile).accept(detector, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        collector.dependencies.remove(detector.binaryName);
+        return new ClassDependencyGraph.ClassInfo(sourcePath, collector.dependencies, detector.hasConstants);
+    }
+
+    private static class DependencyCollector extends Remapper {
+        private final Set<String> dependencies = new HashSet<String>();
+
+        @Override
+        public String map(String typeName) {
+            dependencies.add(typeName.replace('/', '.'));
+            return typeName;
+        }
+    }
+
+    /**
+     * Detects compile-time constants, which are inlined into the classes which use them, so cannot be found in the
+     * byte code of those classes.
+     */
+    private static class ConstantDetector extends RemappingClassAdapter {
+        private String binaryName;
+        private boolean hasConstants;
+
+        public ConstantDetector(Remapper remapper) {
+            super(new EmptyVisitor(), remapper);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            binaryName = name.replace('/', '.');
+            super.visit(version, access, name, signature, superName, interfaces);
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+            if (value != null && (access & Opcodes.ACC_STATIC) != 0 && (access & Opcodes.ACC_FINAL) != 0) {
+                hasConstants = true;
+            }
+            return super.visitField(access, name, desc, signature, value);
+        }
+    }
+}
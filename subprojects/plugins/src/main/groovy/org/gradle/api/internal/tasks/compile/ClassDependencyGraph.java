@@ -0,0 +1,166 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.UncheckedIOException;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The state kept by {@link Jdk6JavaCompiler} between compilations: the hash of each source file compiled, and for
+ * each class compiled, the source file it was compiled from and the classes it depends on.
+ */
+public class ClassDependencyGraph implements Serializable {
+    private final String settings;
+    private final Map<String, byte[]> sourceHashes = new HashMap<String, byte[]>();
+    private final Map<String, ClassInfo> classes = new HashMap<String, ClassInfo>();
+
+    /**
+     * @param settings A digest of the compiler settings and classpath used. The graph is discarded when these change.
+     */
+    public ClassDependencyGraph(String settings) {
+        this.settings = settings;
+    }
+
+    public String getSettings() {
+        return settings;
+    }
+
+    public Map<String, byte[]> getSourceHashes() {
+        return sourceHashes;
+    }
+
+    public Map<String, ClassInfo> getClasses() {
+        return classes;
+    }
+
+    /**
+     * Returns the classes compiled from the given source files.
+     */
+    public Set<String> getClassesFor(Collection<String> sourcePaths) {
+        Set<String> result = new HashSet<String>();
+        for (Map.Entry<String, ClassInfo> entry : classes.entrySet()) {
+            if (sourcePaths.contains(entry.getValue().getSourcePath())) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the classes which depend on the given classes, either directly or indirectly.
+     */
+    public Set<String> getDependents(Collection<String> classNames) {
+        Map<String, Set<String>> dependents = new HashMap<String, Set<String>>();
+        for (Map.Entry<String, ClassInfo> entry : classes.entrySet()) {
+            for (String dependency : entry.getValue().getDependencies()) {
+                Set<String> classDependents = dependents.get(dependency);
+                if (classDependents == null) {
+                    classDependents = new HashSet<String>();
+                    dependents.put(dependency, classDependents);
+                }
+                classDependents.add(entry.getKey());
+            }
+        }
+
+        Set<String> result = new HashSet<String>();
+        LinkedList<String> queue = new LinkedList<String>(classNames);
+        while (!queue.isEmpty()) {
+            Set<String> classDependents = dependents.get(queue.removeFirst());
+            if (classDependents == null) {
+                continue;
+            }
+            for (String dependent : classDependents) {
+                if (result.add(dependent)) {
+                    queue.add(dependent);
+                }
+            }
+        }
+        result.removeAll(classNames);
+        return result;
+    }
+
+    /**
+     * Returns true if any of the given classes declares a compile-time constant.
+     */
+    public boolean hasConstants(Collection<String> classNames) {
+        for (String className : classNames) {
+            ClassInfo info = classes.get(className);
+            if (info != null && info.hasConstants()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loads the graph from the given file. Returns null if the file does not exist or cannot be read.
+     */
+    public static ClassDependencyGraph load(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            ObjectInputStream inputStream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                return (ClassDependencyGraph) inputStream.readObject();
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public void save(File file) {
+        try {
+            file.getParentFile().mkdirs();
+            ObjectOutputStream outputStream = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            try {
+                outputStream.writeObject(this);
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static class ClassInfo implements Serializable {
+        private final String sourcePath;
+        private final Set<String> dependencies;
+        private final boolean hasConstants;
+
+        public ClassInfo(String sourcePath, Set<String> dependencies, boolean hasConstants) {
+            this.sourcePath = sourcePath;
+            this.dependencies = dependencies;
+            this.hasConstants = hasConstants;
+        }
+
+        public String getSourcePath() {
+            return sourcePath;
+        }
+
+        public Set<String> getDependencies() {
+            return dependencies;
+        }
+
+        public boolean hasConstants() {
+            return hasConstants;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.ClassPathRegistry;
+import org.gradle.api.internal.Factory;
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
+import org.gradle.api.internal.tasks.compile.daemon.DaemonForkOptions;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.api.tasks.compile.GroovyCompileOptions;
+import org.gradle.process.internal.WorkerProcessBuilder;
+import org.gradle.util.GUtil;
+import org.gradle.util.Jvm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compiles Groovy source files, and optionally Java source files, in a compiler daemon, so that the Groovy compiler
+ * is loaded and warmed up once rather than for every compilation. A separate daemon is used for each Groovy classpath
+ * and set of fork options.
+ */
+public class DaemonGroovyCompiler implements GroovyJavaJointCompiler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DaemonGroovyCompiler.class);
+    private static final List<String> SHARED_PACKAGES = Arrays.asList("groovy", "org.codehaus.groovy",
+            "groovyjarjarantlr", "groovyjarjarasm", "groovyjarjarcommonscli", "antlr", "org.objectweb.asm",
+            "org.apache.commons.cli");
+    private final Factory<WorkerProcessBuilder> workerFactory;
+    private final ClassPathRegistry classPathRegistry;
+    private final CompilerDaemonManager daemonManager;
+    private FileCollection source;
+    private File destinationDir;
+    private Iterable<File> classpath;
+    private Iterable<File> groovyClasspath;
+    private String sourceCompatibility;
+    private String targetCompatibility;
+    private GroovyCompileOptions groovyCompileOptions = new GroovyCompileOptions();
+    private CompileOptions compileOptions = new CompileOptions();
+
+    public DaemonGroovyCompiler(Factory<WorkerProcessBuilder> workerFactory, ClassPathRegistry classPathRegistry, CompilerDaemonManager daemonManager) {
+        this.workerFactory = workerFactory;
+        this.classPathRegistry = classPathRegistry;
+        this.daemonManager = daemonManager;
+    }
+
+    public GroovyCompileOptions getGroovyCompileOptions() {
+        return groovyCompileOptions;
+    }
+
+    public void setGroovyCompileOptions(GroovyCompileOptions groovyCompileOptions) {
+        this.groovyCompileOptions = groovyCompileOptions;
+    }
+
+    public CompileOptions getCompileOptions() {
+        return compileOptions;
+    }
+
+    public void setCompileOptions(CompileOptions compileOptions) {
+        this.compileOptions = compileOptions;
+    }
+
+    public void setGroovyClasspath(Iterable<File> groovyClasspath) {
+        this.groovyClasspath = groovyClasspath;
+    }
+
+    public void setSourceCompatibility(String sourceCompatibility) {
+        this.sourceCompatibility = sourceCompatibility;
+    }
+
+    public void setTargetCompatibility(String targetCompatibility) {
+        this.targetCompatibility = targetCompatibility;
+    }
+
+    public void setSource(FileCollection source) {
+        this.source = source;
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        this.destinationDir = destinationDir;
+    }
+
+    public void setClasspath(Iterable<File> classpath) {
+        this.classpath = classpath;
+    }
+
+    public WorkResult execute() {
+        List<File> sourceFiles = new ArrayList<File>(source.getFiles());
+        if (groovyCompileOptions.isListFiles()) {
+            for (File file : sourceFiles) {
+                LOGGER.info("    {}", file);
+            }
+        }
+
+        // Add in commons-cli, as the Groovy POM does not (for some versions of Groovy), and tools.jar for joint
+        // compilation
+        List<File> compilerClasspath = GUtil.addToCollection(new ArrayList<File>(), groovyClasspath,
+                classPathRegistry.getClassPathFiles("COMMONS_CLI"));
+        File toolsJar = Jvm.current().getToolsJar();
+        if (toolsJar != null) {
+            compilerClasspath.add(toolsJar);
+        }
+        DaemonForkOptions forkOptions = new DaemonForkOptions(compilerClasspath, SHARED_PACKAGES,
+                groovyCompileOptions.getForkOptions().getMemoryInitialSize(),
+                groovyCompileOptions.getForkOptions().getMemoryMaximumSize());
+
+        List<File> compileClasspath = GUtil.addToCollection(new ArrayList<File>(), classpath);
+        compileClasspath.addAll(compilerClasspath);
+        List<String> javacFlags = new ArrayList<String>();
+        List<String> javacNamedValues = new ArrayList<String>();
+        splitJavacOptions(getJavacOptions(compileClasspath), javacFlags, javacNamedValues);
+
+        ApiGroovyCompiler action = new ApiGroovyCompiler(sourceFiles, destinationDir, compileClasspath,
+                groovyCompileOptions.getEncoding(), groovyCompileOptions.isVerbose(), groovyCompileOptions.isStacktrace(),
+                groovyCompileOptions.isFailOnError(), javacFlags, javacNamedValues);
+        return daemonManager.execute(forkOptions, workerFactory, action).rethrowFailure();
+    }
+
+    private List<String> getJavacOptions(Collection<File> compileClasspath) {
+        List<String> options = new ArrayList<String>();
+        options.add("-classpath");
+        options.add(GUtil.join(compileClasspath, File.pathSeparator));
+        if (sourceCompatibility != null) {
+            options.add("-source");
+            options.add(sourceCompatibility);
+        }
+        if (targetCompatibility != null) {
+            options.add("-target");
+            options.add(targetCompatibility);
+        }
+        if (compileOptions.getEncoding() != null) {
+            options.add("-encoding");
+            options.add(compileOptions.getEncoding());
+        }
+        if (!compileOptions.isDebug()) {
+            options.add("-g:none");
+        } else if (compileOptions.getDebugOptions().getDebugLevel() != null) {
+            options.add("-g:" + compileOptions.getDebugOptions().getDebugLevel());
+        } else {
+            options.add("-g");
+        }
+        if (!compileOptions.isWarnings()) {
+            options.add("-nowarn");
+        }
+        if (compileOptions.isDeprecation()) {
+            options.add("-deprecation");
+        }
+        if (compileOptions.isVerbose()) {
+            options.add("-verbose");
+        }
+        if (compileOptions.getBootClasspath() != null) {
+            options.add("-bootclasspath");
+            options.add(compileOptions.getBootClasspath());
+        }
+        if (compileOptions.getExtensionDirs() != null) {
+            options.add("-extdirs");
+            options.add(compileOptions.getExtensionDirs());
+        }
+        for (Object arg : compileOptions.getCompilerArgs()) {
+            options.add(arg.toString());
+        }
+        return options;
+    }
+
+    /**
+     * Splits javac command-line options into the flags and name-value pairs that the Groovy joint compiler expects.
+     */
+    static void splitJavacOptions(List<String> options, List<String> flags, List<String> namedValues) {
+        for (int i = 0; i < options.size(); i++) {
+            String option = options.get(i);
+            String name = option.startsWith("-") ? option.substring(1) : option;
+            if (i + 1 < options.size() && !options.get(i + 1).startsWith("-")) {
+                namedValues.add(name);
+                namedValues.add(options.get(++i));
+            } else {
+                flags.add(name);
+            }
+        }
+    }
+}
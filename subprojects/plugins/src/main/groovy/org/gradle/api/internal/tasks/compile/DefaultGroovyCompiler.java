@@ -0,0 +1,111 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.ClassPathRegistry;
+import org.gradle.api.internal.Factory;
+import org.gradle.api.internal.project.IsolatedAntBuilder;
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.api.tasks.compile.GroovyCompileOptions;
+import org.gradle.process.internal.WorkerProcessBuilder;
+
+import java.io.File;
+
+/**
+ * Selects the Groovy compiler to use based on the compile options. Uses the {@link DaemonGroovyCompiler} when {@link
+ * GroovyCompileOptions#isUseAnt()} is false. Uses Ant's groovyc task otherwise.
+ */
+public class DefaultGroovyCompiler implements GroovyJavaJointCompiler {
+    private final IsolatedAntBuilder antBuilder;
+    private final ClassPathRegistry classPathRegistry;
+    private final Factory<WorkerProcessBuilder> workerFactory;
+    private final CompilerDaemonManager daemonManager;
+    private final GroovyCompileOptions groovyCompileOptions = new GroovyCompileOptions();
+    private final CompileOptions compileOptions = new CompileOptions();
+    private FileCollection source;
+    private File destinationDir;
+    private Iterable<File> classpath;
+    private Iterable<File> groovyClasspath;
+    private String sourceCompatibility;
+    private String targetCompatibility;
+
+    public DefaultGroovyCompiler(IsolatedAntBuilder antBuilder, ClassPathRegistry classPathRegistry, Factory<WorkerProcessBuilder> workerFactory,
+                                 CompilerDaemonManager daemonManager) {
+        this.antBuilder = antBuilder;
+        this.classPathRegistry = classPathRegistry;
+        this.workerFactory = workerFactory;
+        this.daemonManager = daemonManager;
+    }
+
+    public GroovyCompileOptions getGroovyCompileOptions() {
+        return groovyCompileOptions;
+    }
+
+    public CompileOptions getCompileOptions() {
+        return compileOptions;
+    }
+
+    public void setGroovyClasspath(Iterable<File> groovyClasspath) {
+        this.groovyClasspath = groovyClasspath;
+    }
+
+    public void setSourceCompatibility(String sourceCompatibility) {
+        this.sourceCompatibility = sourceCompatibility;
+    }
+
+    public void setTargetCompatibility(String targetCompatibility) {
+        this.targetCompatibility = targetCompatibility;
+    }
+
+    public void setSource(FileCollection source) {
+        this.source = source;
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        this.destinationDir = destinationDir;
+    }
+
+    public void setClasspath(Iterable<File> classpath) {
+        this.classpath = classpath;
+    }
+
+    public WorkResult execute() {
+        GroovyJavaJointCompiler compiler = createCompiler();
+        compiler.setSource(source);
+        compiler.setDestinationDir(destinationDir);
+        compiler.setClasspath(classpath);
+        compiler.setGroovyClasspath(groovyClasspath);
+        compiler.setSourceCompatibility(sourceCompatibility);
+        compiler.setTargetCompatibility(targetCompatibility);
+        return compiler.execute();
+    }
+
+    private GroovyJavaJointCompiler createCompiler() {
+        if (!groovyCompileOptions.isUseAnt()) {
+            DaemonGroovyCompiler compiler = new DaemonGroovyCompiler(workerFactory, classPathRegistry, daemonManager);
+            compiler.setGroovyCompileOptions(groovyCompileOptions);
+            compiler.setCompileOptions(compileOptions);
+            return compiler;
+        }
+        AntGroovyCompiler compiler = new AntGroovyCompiler(antBuilder, classPathRegistry);
+        compiler.setGroovyCompileOptions(groovyCompileOptions);
+        compiler.setCompileOptions(compileOptions);
+        return compiler;
+    }
+}
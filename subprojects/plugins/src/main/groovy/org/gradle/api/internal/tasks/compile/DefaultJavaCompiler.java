@@ -0,0 +1,98 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.AntBuilder;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.Factory;
+import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.util.Jvm;
+
+import java.io.File;
+
+/**
+ * Selects the Java compiler to use based on the compile options. Uses the in-process {@link Jdk6JavaCompiler} when
+ * {@link CompileOptions#isUseAnt()} is false, the build is running on Java 6 or later and no options which require
+ * Ant are used, such as forking or the depend task. Uses Ant's javac task otherwise.
+ */
+public class DefaultJavaCompiler implements JavaCompiler {
+    private final Factory<AntBuilder> antBuilderFactory;
+    private final TaskOutputsInternal taskOutputs;
+    private final CompileOptions compileOptions = new CompileOptions();
+    private FileCollection source;
+    private File destinationDir;
+    private Iterable<File> classpath;
+    private String sourceCompatibility;
+    private String targetCompatibility;
+    private File dependencyCacheDir;
+
+    public DefaultJavaCompiler(Factory<AntBuilder> antBuilderFactory, TaskOutputsInternal taskOutputs) {
+        this.antBuilderFactory = antBuilderFactory;
+        this.taskOutputs = taskOutputs;
+    }
+
+    public CompileOptions getCompileOptions() {
+        return compileOptions;
+    }
+
+    public void setSourceCompatibility(String sourceCompatibility) {
+        this.sourceCompatibility = sourceCompatibility;
+    }
+
+    public void setTargetCompatibility(String targetCompatibility) {
+        this.targetCompatibility = targetCompatibility;
+    }
+
+    public void setSource(FileCollection source) {
+        this.source = source;
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        this.destinationDir = destinationDir;
+    }
+
+    public void setClasspath(Iterable<File> classpath) {
+        this.classpath = classpath;
+    }
+
+    public void setDependencyCacheDir(File dependencyCacheDir) {
+        this.dependencyCacheDir = dependencyCacheDir;
+    }
+
+    public WorkResult execute() {
+        JavaCompiler compiler = createCompiler();
+        compiler.setSource(source);
+        compiler.setDestinationDir(destinationDir);
+        compiler.setClasspath(classpath);
+        compiler.setDependencyCacheDir(dependencyCacheDir);
+        compiler.setSourceCompatibility(sourceCompatibility);
+        compiler.setTargetCompatibility(targetCompatibility);
+        return compiler.execute();
+    }
+
+    private JavaCompiler createCompiler() {
+        if (!compileOptions.isUseAnt() && !compileOptions.isFork() && !compileOptions.isUseDepend() && Jvm.current().isJava6Compatible()) {
+            Jdk6JavaCompiler compiler = new Jdk6JavaCompiler(taskOutputs);
+            compiler.setCompileOptions(compileOptions);
+            return compiler;
+        }
+        AntJavaCompiler compiler = new AntJavaCompiler(antBuilderFactory);
+        compiler.setCompileOptions(compileOptions);
+        return new IncrementalJavaCompiler(compiler, antBuilderFactory, taskOutputs);
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.util.GUtil;
+import org.gradle.util.HashUtil;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * A Java compiler which uses the {@code javax.tools} API to compile in-process, and so requires Java 6 or later.
+ *
+ * <p>When a dependency cache directory is provided, the compiler records which classes each compiled class depends on,
+ * as found in the class files it generates. On the next compilation, only the source files which have changed and the
+ * source files of the classes which depend on them, directly or indirectly, are recompiled. Everything is recompiled
+ * when the compiler settings or classpath change, or when a changed source file declares a compile-time constant, as
+ * constants are inlined into the classes which use them.</p>
+ */
+public class Jdk6JavaCompiler implements JavaCompiler {
+    private static final Logger LOGGER = Logging.getLogger(Jdk6JavaCompiler.class);
+    private final TaskOutputsInternal taskOutputs;
+    private final ClassDependencyAnalyzer analyzer = new ClassDependencyAnalyzer();
+    private FileCollection source;
+    private File destinationDir;
+    private Iterable<File> classpath;
+    private String sourceCompatibility;
+    private String targetCompatibility;
+    private File dependencyCacheDir;
+    private CompileOptions compileOptions = new CompileOptions();
+
+    public Jdk6JavaCompiler(TaskOutputsInternal taskOutputs) {
+        this.taskOutputs = taskOutputs;
+    }
+
+    public CompileOptions getCompileOptions() {
+        return compileOptions;
+    }
+
+    public void setCompileOptions(CompileOptions compileOptions) {
+        this.compileOptions = compileOptions;
+    }
+
+    public void setSourceCompatibility(String sourceCompatibility) {
+        this.sourceCompatibility = sourceCompatibility;
+    }
+
+    public void setTargetCompatibility(String targetCompatibility) {
+        this.targetCompatibility = targetCompatibility;
+    }
+
+    public void setSource(FileCollection source) {
+        this.source = source;
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        this.destinationDir = destinationDir;
+    }
+
+    public void setClasspath(Iterable<File> classpath) {
+        this.classpath = classpath;
+    }
+
+    public void setDependencyCacheDir(File dependencyCacheDir) {
+        this.dependencyCacheDir = dependencyCacheDir;
+    }
+
+    public WorkResult execute() {
+        Map<String, File> sourceFiles = new TreeMap<String, File>();
+        for (File file : source) {
+            if (file.getName().endsWith(".java")) {
+                sourceFiles.put(file.getAbsolutePath(), file);
+            }
+        }
+
+        ClassDependencyGraph graph = new ClassDependencyGraph(HashUtil.createHash(getSettings()));
+        for (File file : sourceFiles.values()) {
+            graph.getSourceHashes().put(file.getAbsolutePath(), HashUtil.createHash(file));
+        }
+        File graphFile = getGraphFile();
+        ClassDependencyGraph previous = graphFile == null ? null : ClassDependencyGraph.load(graphFile);
+        if (graphFile != null) {
+            // Discard the graph until the compilation has succeeded
+            graphFile.delete();
+        }
+
+        Collection<File> filesToCompile = sourceFiles.values();
+        Iterable<File> compileClasspath = classpath;
+        boolean didWork;
+        if (canCompileIncrementally(previous, graph)) {
+            Set<String> changedSources = getChangedSources(previous, graph);
+            Set<String> staleClasses = previous.getClassesFor(changedSources);
+            staleClasses.addAll(previous.getDependents(staleClasses));
+            Set<String> sourcesToCompile = new TreeSet<String>(changedSources);
+            for (String className : staleClasses) {
+                sourcesToCompile.add(previous.getClasses().get(className).getSourcePath());
+            }
+            sourcesToCompile.retainAll(sourceFiles.keySet());
+            LOGGER.info("{} of {} source files have changed. Recompiling {} source files.", new Object[]{changedSources.size(), sourceFiles.size(), sourcesToCompile.size()});
+
+            for (String className : staleClasses) {
+                getClassFile(className).delete();
+            }
+            for (Map.Entry<String, ClassDependencyGraph.ClassInfo> entry : previous.getClasses().entrySet()) {
+                if (!staleClasses.contains(entry.getKey())) {
+                    graph.getClasses().put(entry.getKey(), entry.getValue());
+                }
+            }
+            filesToCompile = new ArrayList<File>();
+            for (String path : sourcesToCompile) {
+                filesToCompile.add(sourceFiles.get(path));
+            }
+            compileClasspath = GUtil.addLists(Collections.singletonList(destinationDir), classpath);
+            didWork = !staleClasses.isEmpty() || !filesToCompile.isEmpty();
+        } else {
+            SimpleStaleClassCleaner cleaner = new SimpleStaleClassCleaner(taskOutputs);
+            cleaner.setDestinationDir(destinationDir);
+            cleaner.execute();
+            didWork = !filesToCompile.isEmpty();
+        }
+
+        if (!filesToCompile.isEmpty()) {
+            destinationDir.mkdirs();
+            Map<String, File> compiledClasses = new HashMap<String, File>();
+            if (!compile(filesToCompile, compileClasspath, compiledClasses)) {
+                if (compileOptions.isFailOnError()) {
+                    throw new GradleException("Compile failed; see the compiler error output for details.");
+                }
+                return new SimpleWorkResult(true);
+            }
+            if (graphFile != null) {
+                addClasses(graph, compiledClasses);
+            }
+        }
+
+        if (graphFile != null) {
+            graph.save(graphFile);
+        }
+        return new SimpleWorkResult(didWork);
+    }
+
+    private boolean canCompileIncrementally(ClassDependencyGraph previous, ClassDependencyGraph current) {
+        if (previous == null) {
+            return false;
+        }
+        if (!previous.getSettings().equals(current.getSettings())) {
+            LOGGER.info("The compiler settings or classpath have changed. Recompiling all source files.");
+            return false;
+        }
+        Set<String> changedSources = getChangedSources(previous, current);
+        if (previous.hasConstants(previous.getClassesFor(changedSources))) {
+            LOGGER.info("A changed source file declares a compile-time constant. Recompiling all source files.");
+            return false;
+        }
+        return true;
+    }
+
+    private void addClasses(ClassDependencyGraph graph, Map<String, File> compiledClasses) {
+        for (Map.Entry<String, File> entry : compiledClasses.entrySet()) {
+            try {
+                graph.getClasses().put(entry.getKey(), analyzer.analyze(entry.getValue().getAbsolutePath(), getClassFile(entry.getKey())));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private Set<String> getChangedSources(ClassDependencyGraph previous, ClassDependencyGraph current) {
+        Set<String> changed = new HashSet<String>();
+        for (Map.Entry<String, byte[]> entry : previous.getSourceHashes().entrySet()) {
+            byte[] hash = current.getSourceHashes().get(entry.getKey());
+            if (hash == null || !Arrays.equals(hash, entry.getValue())) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String path : current.getSourceHashes().keySet()) {
+            if (!previous.getSourceHashes().containsKey(path)) {
+                changed.add(path);
+            }
+        }
+        // Recompile any source whose classes have been removed from the destination directory
+        for (Map.Entry<String, ClassDependencyGraph.ClassInfo> entry : previous.getClasses().entrySet()) {
+            if (!getClassFile(entry.getKey()).isFile()) {
+                changed.add(entry.getValue().getSourcePath());
+            }
+        }
+        return changed;
+    }
+
+    private boolean compile(Collection<File> files, Iterable<File> compileClasspath, final Map<String, File> compiledClasses) {
+        javax.tools.JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new GradleException("Cannot find the Java compiler. Check that Gradle is running using a JDK, rather than a JRE.");
+        }
+        if (compileOptions.isListFiles()) {
+            for (File file : files) {
+                LOGGER.quiet("    {}", file);
+            }
+        }
+
+        Charset charset = compileOptions.getEncoding() == null ? null : Charset.forName(compileOptions.getEncoding());
+        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(null, null, charset);
+        JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standardFileManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+                if (kind == JavaFileObject.Kind.CLASS && sibling != null) {
+                    compiledClasses.put(className, new File(sibling.toUri()));
+                }
+                return super.getJavaFileForOutput(location, className, kind, sibling);
+            }
+        };
+
+        List<String> options = getOptions(compileClasspath);
+        LOGGER.debug("Compiling {} source files with options {}", files.size(), options);
+        try {
+            javax.tools.JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, standardFileManager.getJavaFileObjectsFromFiles(files));
+            return task.call();
+        } finally {
+            try {
+                fileManager.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private List<String> getOptions(Iterable<File> compileClasspath) {
+        List<String> options = new ArrayList<String>();
+        options.add("-d");
+        options.add(destinationDir.getPath());
+        options.add("-classpath");
+        options.add(GUtil.join(toPaths(compileClasspath), File.pathSeparator));
+        options.add("-sourcepath");
+        options.add("");
+        options.addAll(getSettingsOptions());
+        return options;
+    }
+
+    private List<String> getSettingsOptions() {
+        List<String> options = new ArrayList<String>();
+        if (sourceCompatibility != null) {
+            options.add("-source");
+            options.add(sourceCompatibility);
+        }
+        if (targetCompatibility != null) {
+            options.add("-target");
+            options.add(targetCompatibility);
+        }
+        if (compileOptions.getEncoding() != null) {
+            options.add("-encoding");
+            options.add(compileOptions.getEncoding());
+        }
+        if (!compileOptions.isDebug()) {
+            options.add("-g:none");
+        } else if (compileOptions.getDebugOptions().getDebugLevel() != null) {
+            options.add("-g:" + compileOptions.getDebugOptions().getDebugLevel());
+        } else {
+            options.add("-g");
+        }
+        if (!compileOptions.isWarnings()) {
+            options.add("-nowarn");
+        }
+        if (compileOptions.isDeprecation()) {
+            options.add("-deprecation");
+        }
+        if (compileOptions.isVerbose()) {
+            options.add("-verbose");
+        }
+        if (compileOptions.getBootClasspath() != null) {
+            options.add("-bootclasspath");
+            options.add(compileOptions.getBootClasspath());
+        }
+        if (compileOptions.getExtensionDirs() != null) {
+            options.add("-extdirs");
+            options.add(compileOptions.getExtensionDirs());
+        }
+        for (Object arg : compileOptions.getCompilerArgs()) {
+            options.add(arg.toString());
+        }
+        return options;
+    }
+
+    /**
+     * Returns a description of everything other than the source files which affects the output of the compiler.
+     */
+    private String getSettings() {
+        StringBuilder settings = new StringBuilder();
+        settings.append(destinationDir.getAbsolutePath()).append('\n');
+        settings.append(getSettingsOptions()).append('\n');
+        for (File file : classpath) {
+            appendFileDetails(file, settings);
+        }
+        return settings.toString();
+    }
+
+    private void appendFileDetails(File file, StringBuilder settings) {
+        settings.append(file.getAbsolutePath()).append(' ').append(file.length()).append(' ').append(file.lastModified()).append('\n');
+        File[] children = file.listFiles();
+        if (children != null) {
+            Arrays.sort(children);
+            for (File child : children) {
+                appendFileDetails(child, settings);
+            }
+        }
+    }
+
+    private File getGraphFile() {
+        if (dependencyCacheDir == null) {
+            return null;
+        }
+        return new File(dependencyCacheDir, String.format("class-dependencies-%s.bin", HashUtil.createHash(destinationDir.getAbsolutePath())));
+    }
+
+    private File getClassFile(String className) {
+        return new File(destinationDir, className.replace('.', File.separatorChar) + ".class");
+    }
+
+    private static List<String> toPaths(Iterable<File> files) {
+        List<String> paths = new ArrayList<String>();
+        for (File file : files) {
+            paths.add(file.getPath());
+        }
+        return paths;
+    }
+
+    private static class SimpleWorkResult implements WorkResult {
+        private final boolean didWork;
+
+        public SimpleWorkResult(boolean didWork) {
+            this.didWork = didWork;
+        }
+
+        public boolean getDidWork() {
+            return didWork;
+        }
+    }
+}
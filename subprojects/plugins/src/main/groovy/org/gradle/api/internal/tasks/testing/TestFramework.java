@@ -49,4 +49,10 @@ public interface TestFramework {
      * executed before starting each worker process.
      */
     Action<WorkerProcessBuilder> getWorkerConfigurationAction();
+
+    /**
+     * Returns true if the test processor created by this framework only runs its test classes when it is stopped,
+     * rather than as each test class is received.
+     */
+    boolean isRunTestClassesOnStop();
 }
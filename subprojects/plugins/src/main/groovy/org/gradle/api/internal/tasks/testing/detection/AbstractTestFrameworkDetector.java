@@ -16,7 +16,7 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.gradle.api.GradleException;
 import org.gradle.api.file.FileCollection;
@@ -25,13 +25,13 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
 import java.util.*;
 
 /**
+ * Base class for detectors which scan class files using ASM. Class files may be processed concurrently from multiple
+ * threads.
+ *
  * @author Tom Eyckmans
  */
 public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor> implements TestFrameworkDetector {
@@ -42,15 +42,17 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     private final FileCollection testClasspath;
     private List<File> testClassDirectories;
     private final ClassFileExtractionManager classFileExtractionManager;
+    private final TestClassDetectionCache detectionCache;
     private final Map<File, Boolean> superClasses;
     private TestClassProcessor testClassProcessor;
     private final List<String> knownTestCaseClassNames;
 
-    protected AbstractTestFrameworkDetector(File testClassesDirectory, FileCollection testClasspath, ClassFileExtractionManager classFileExtractionManager) {
+    protected AbstractTestFrameworkDetector(File testClassesDirectory, FileCollection testClasspath, ClassFileExtractionManager classFileExtractionManager, TestClassDetectionCache detectionCache) {
         this.testClassesDirectory = testClassesDirectory;
         this.testClasspath = testClasspath;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.detectionCache = detectionCache;
+        this.superClasses = Collections.synchronizedMap(new HashMap<File, Boolean>());
         this.knownTestCaseClassNames = new ArrayList<String>();
         addKnownTestCaseClassNames(TEST_CASE, GROOVY_TEST_CASE);
     }
@@ -81,7 +83,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         }
     }
 
-    private void prepareClasspath() {
+    private synchronized void prepareClasspath() {
         if (testClassDirectories != null) {
             return;
         }
@@ -100,19 +102,28 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     }
 
     protected TestClassVisitor classVisitor(final File testClassFile) {
-        final TestClassVisitor classVisitor = createClassVisitor();
-
-        InputStream classStream = null;
         try {
-            classStream = new BufferedInputStream(new FileInputStream(testClassFile));
-            final ClassReader classReader = new ClassReader(classStream);
-            classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+            byte[] contents = FileUtils.readFileToByteArray(testClassFile);
+            if (detectionCache == null) {
+                return classVisitor(contents);
+            }
+            byte[] hash = TestClassDetectionCache.hash(contents);
+            TestClassDetectionCache.ClassInfo classInfo = detectionCache.get(hash);
+            if (classInfo != null) {
+                return new CachedTestClassVisitor(this, classInfo);
+            }
+            TestClassVisitor classVisitor = classVisitor(contents);
+            detectionCache.put(hash, classVisitor);
+            return classVisitor;
         } catch (Throwable e) {
             throw new GradleException("failed to read class file " + testClassFile.getAbsolutePath(), e);
-        } finally {
-            IOUtils.closeQuietly(classStream);
         }
+    }
 
+    private TestClassVisitor classVisitor(byte[] contents) {
+        final TestClassVisitor classVisitor = createClassVisitor();
+        final ClassReader classReader = new ClassReader(contents);
+        classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
         return classVisitor;
     }
 
@@ -152,6 +163,15 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
 
     public void startDetection(TestClassProcessor testClassProcessor) {
         this.testClassProcessor = testClassProcessor;
+        if (detectionCache != null) {
+            detectionCache.load();
+        }
+    }
+
+    public void stopDetection() {
+        if (detectionCache != null) {
+            detectionCache.save();
+        }
     }
 
     public void addKnownTestCaseClassNames(String... knownTestCaseClassNames) {
@@ -173,4 +193,33 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
 
         return isKnownTestCase;
     }
+
+    private static class CachedTestClassVisitor extends TestClassVisitor {
+        private final TestClassDetectionCache.ClassInfo classInfo;
+
+        private CachedTestClassVisitor(TestFrameworkDetector detector, TestClassDetectionCache.ClassInfo classInfo) {
+            super(detector);
+            this.classInfo = classInfo;
+        }
+
+        @Override
+        public String getClassName() {
+            return classInfo.getClassName();
+        }
+
+        @Override
+        public boolean isTest() {
+            return classInfo.isTest();
+        }
+
+        @Override
+        public boolean isAbstract() {
+            return classInfo.isAbstract();
+        }
+
+        @Override
+        public String getSuperClassName() {
+            return classInfo.getSuperClassName();
+        }
+    }
 }
@@ -22,25 +22,43 @@ import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+import org.gradle.util.UncheckedException;
 
 import java.io.File;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * The default test class scanner depending on the availability of a test framework detecter a detection or filename
  * scan is performed to find test classes.
  *
+ * <p>When given an {@link ExecutorFactory}, class files are passed to the detector from several threads, and test
+ * classes are passed on to the test class processor as they are detected.</p>
+ *
  * @author Tom Eyckmans
  */
 public class DefaultTestClassScanner implements Runnable {
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null, 1);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, ExecutorFactory executorFactory, int maxThreads) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
     }
 
     public void run() {
@@ -52,12 +70,56 @@ public class DefaultTestClassScanner implements Runnable {
     }
 
     private void detectionScan() {
-        testFrameworkDetector.startDetection(testClassProcessor);
-        candidateClassFiles.visit(new ClassFileVisitor() {
-            public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(fileDetails.getFile());
+        boolean parallel = executorFactory != null && maxThreads > 1;
+        testFrameworkDetector.startDetection(parallel ? new SynchronizedTestClassProcessor(testClassProcessor) : testClassProcessor);
+        try {
+            if (parallel) {
+                parallelDetectionScan();
+            } else {
+                candidateClassFiles.visit(new ClassFileVisitor() {
+                    public void visitClassFile(FileVisitDetails fileDetails) {
+                        testFrameworkDetector.processTestClass(fileDetails.getFile());
+                    }
+                });
             }
-        });
+        } finally {
+            testFrameworkDetector.stopDetection();
+        }
+    }
+
+    private void parallelDetectionScan() {
+        final File endOfQueue = new File("");
+        final BlockingQueue<File> queue = new LinkedBlockingQueue<File>();
+        StoppableExecutor executor = executorFactory.create("Test class detection");
+        try {
+            for (int i = 0; i < maxThreads; i++) {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            while (true) {
+                                File classFile = queue.take();
+                                if (classFile == endOfQueue) {
+                                    return;
+                                }
+                                testFrameworkDetector.processTestClass(classFile);
+                            }
+                        } catch (InterruptedException e) {
+                            throw UncheckedException.asUncheckedException(e);
+                        }
+                    }
+                });
+            }
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    queue.add(fileDetails.getFile());
+                }
+            });
+        } finally {
+            for (int i = 0; i < maxThreads; i++) {
+                queue.add(endOfQueue);
+            }
+            executor.stop();
+        }
     }
 
     private void filenameScan() {
@@ -81,4 +143,24 @@ public class DefaultTestClassScanner implements Runnable {
 
         public abstract void visitClassFile(FileVisitDetails fileDetails);
     }
+
+    private static class SynchronizedTestClassProcessor implements TestClassProcessor {
+        private final TestClassProcessor processor;
+
+        private SynchronizedTestClassProcessor(TestClassProcessor processor) {
+            this.processor = processor;
+        }
+
+        public synchronized void startProcessing(TestResultProcessor resultProcessor) {
+            processor.startProcessing(resultProcessor);
+        }
+
+        public synchronized void processTestClass(TestClassRunInfo testClass) {
+            processor.processTestClass(testClass);
+        }
+
+        public synchronized void stop() {
+            processor.stop();
+        }
+    }
 }
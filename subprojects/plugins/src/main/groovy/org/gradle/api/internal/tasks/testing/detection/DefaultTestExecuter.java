@@ -18,19 +18,25 @@ package org.gradle.api.internal.tasks.testing.detection;
 
 import org.gradle.api.file.FileTree;
 import org.gradle.api.internal.Factory;
+import org.gradle.api.internal.tasks.testing.TestClassCompletionListener;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.TestClassDurations;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
 import org.gradle.api.tasks.testing.Test;
+import org.gradle.listener.ListenerBroadcast;
 import org.gradle.messaging.actor.ActorFactory;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
 import org.gradle.util.TrueTimeProvider;
 
+import java.io.File;
+
 /**
  * The default test class scanner factory.
  *
@@ -39,19 +45,22 @@ import org.gradle.util.TrueTimeProvider;
 public class DefaultTestExecuter implements TestExecuter {
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final ActorFactory actorFactor;
+    private final ExecutorFactory executorFactory;
 
-    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor) {
+    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor, ExecutorFactory executorFactory) {
         this.workerFactory = workerFactory;
         this.actorFactor = actorFactor;
+        this.executorFactory = executorFactory;
     }
 
     public void execute(final Test testTask, TestResultProcessor testResultProcessor) {
         final TestFramework testFramework = testTask.getTestFramework();
         final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
+        final ListenerBroadcast<TestClassCompletionListener> completionListener = new ListenerBroadcast<TestClassCompletionListener>(TestClassCompletionListener.class);
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
-                        testTask.getClasspath(), testFramework.getWorkerConfigurationAction());
+                        testTask.getClasspath(), testFramework.getWorkerConfigurationAction(), completionListener.getSource());
             }
         };
         Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -60,18 +69,41 @@ public class DefaultTestExecuter implements TestExecuter {
             }
         };
 
-        TestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
-                reforkingProcessorFactory, actorFactor);
+        TestClassDurations durations = null;
+        MaxNParallelTestClassProcessor processor;
+        if (testFramework.isRunTestClassesOnStop()) {
+            // The workers report each test class as complete as soon as they receive it, so hand them out round-robin
+            processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(), reforkingProcessorFactory,
+                    actorFactor, null, false);
+        } else if (testTask.getMaxParallelForks() > 1) {
+            // Start the slowest test classes first, so that they do not run on their own at the end
+            durations = new TestClassDurations(new File(testTask.getTemporaryDir(), "test-class-durations.properties"));
+            durations.load();
+            testResultProcessor = durations.recordTo(testResultProcessor);
+            processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(), reforkingProcessorFactory,
+                    actorFactor, durations.longestFirst());
+        } else {
+            processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(), reforkingProcessorFactory,
+                    actorFactor);
+        }
+        completionListener.add(processor);
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
 
         Runnable detector;
         if (testTask.isScanForTestClasses()) {
             TestFrameworkDetector testFrameworkDetector = testTask.getTestFramework().getDetector();
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor, executorFactory,
+                    Runtime.getRuntime().availableProcessors());
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
         }
-        new TestMainAction(detector, processor, testResultProcessor, new TrueTimeProvider()).run();
+        try {
+            new TestMainAction(detector, processor, testResultProcessor, new TrueTimeProvider()).run();
+        } finally {
+            if (durations != null) {
+                durations.save();
+            }
+        }
     }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.util.GFileUtils;
+import org.gradle.util.UncheckedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A persistent cache of the information extracted from test class files by a {@link TestClassVisitor}, keyed by the
+ * hash of the class file contents. Only the entries used since the cache was loaded are written back when it is saved.
+ * This class is thread-safe.
+ */
+public class TestClassDetectionCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestClassDetectionCache.class);
+    private static final int VERSION = 1;
+    private static final int IS_TEST = 1;
+    private static final int IS_ABSTRACT = 2;
+    private final File cacheFile;
+    private final Map<HashKey, ClassInfo> previous = new HashMap<HashKey, ClassInfo>();
+    private final Map<HashKey, ClassInfo> current = new HashMap<HashKey, ClassInfo>();
+
+    public TestClassDetectionCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    public synchronized void load() {
+        previous.clear();
+        current.clear();
+        if (!cacheFile.isFile()) {
+            return;
+        }
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            try {
+                if (input.readInt() != VERSION) {
+                    return;
+                }
+                int count = input.readInt();
+                for (int i = 0; i < count; i++) {
+                    byte[] hash = new byte[input.readUnsignedByte()];
+                    input.readFully(hash);
+                    String className = input.readUTF();
+                    String superClassName = input.readBoolean() ? input.readUTF() : null;
+                    int flags = input.readUnsignedByte();
+                    previous.put(new HashKey(hash), new ClassInfo(className, superClassName, (flags & IS_TEST) != 0, (flags & IS_ABSTRACT) != 0));
+                }
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not read test class detection cache %s. Ignoring.", cacheFile), e);
+            previous.clear();
+        }
+    }
+
+    public synchronized void save() {
+        try {
+            GFileUtils.forceMkdir(cacheFile.getParentFile());
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)));
+            try {
+                output.writeInt(VERSION);
+                output.writeInt(current.size());
+                for (Map.Entry<HashKey, ClassInfo> entry : current.entrySet()) {
+                    byte[] hash = entry.getKey().hash;
+                    output.writeByte(hash.length);
+                    output.write(hash);
+                    ClassInfo info = entry.getValue();
+                    output.writeUTF(info.className);
+                    output.writeBoolean(info.superClassName != null);
+                    if (info.superClassName != null) {
+                        output.writeUTF(info.superClassName);
+                    }
+                    output.writeByte((info.test ? IS_TEST : 0) | (info.isAbstract ? IS_ABSTRACT : 0));
+                }
+            } finally {
+                output.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not write test class detection cache %s. Ignoring.", cacheFile), e);
+        }
+    }
+
+    /**
+     * Returns the cached information for a class file with the given contents, or null if not cached.
+     */
+    public synchronized ClassInfo get(byte[] hash) {
+        HashKey key = new HashKey(hash);
+        ClassInfo info = current.get(key);
+        if (info == null) {
+            info = previous.remove(key);
+            if (info != null) {
+                current.put(key, info);
+            }
+        }
+        return info;
+    }
+
+    public synchronized void put(byte[] hash, TestClassVisitor classVisitor) {
+        current.put(new HashKey(hash), new ClassInfo(classVisitor.getClassName(), classVisitor.getSuperClassName(),
+                classVisitor.isTest(), classVisitor.isAbstract()));
+    }
+
+    /**
+     * Calculates the hash of the given class file contents, for use as a cache key.
+     */
+    public static byte[] hash(byte[] classFileContents) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(classFileContents);
+        } catch (NoSuchAlgorithmException e) {
+            throw UncheckedException.asUncheckedException(e);
+        }
+    }
+
+    public static class ClassInfo {
+        private final String className;
+        private final String superClassName;
+        private final boolean test;
+        private final boolean isAbstract;
+
+        public ClassInfo(String className, String superClassName, boolean test, boolean isAbstract) {
+            this.className = className;
+            this.superClassName = superClassName;
+            this.test = test;
+            this.isAbstract = isAbstract;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getSuperClassName() {
+            return superClassName;
+        }
+
+        public boolean isTest() {
+            return test;
+        }
+
+        public boolean isAbstract() {
+            return isAbstract;
+        }
+    }
+
+    private static class HashKey {
+        private final byte[] hash;
+        private final int hashCode;
+
+        private HashKey(byte[] hash) {
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof HashKey && Arrays.equals(hash, ((HashKey) obj).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -25,5 +25,14 @@ import java.io.File;
 public interface TestFrameworkDetector {
     void startDetection(TestClassProcessor testClassProcessor);
 
+    /**
+     * Detects whether the given class file is a test class, and publishes it if so. May be called concurrently from
+     * multiple threads.
+     */
     boolean processTestClass(File testClassFile);
+
+    /**
+     * Called once all class files have been processed.
+     */
+    void stopDetection();
 }
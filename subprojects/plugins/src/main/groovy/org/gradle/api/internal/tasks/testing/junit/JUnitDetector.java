@@ -17,6 +17,7 @@ package org.gradle.api.internal.tasks.testing.junit;
 
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
 import org.gradle.api.internal.tasks.testing.detection.TestClassVisitor;
 import org.gradle.api.internal.tasks.testing.detection.AbstractTestFrameworkDetector;
 import org.slf4j.Logger;
@@ -30,8 +31,8 @@ import java.io.File;
 public class JUnitDetector extends AbstractTestFrameworkDetector<JUnitTestClassDetecter> {
     private static final Logger LOGGER = LoggerFactory.getLogger(JUnitDetector.class);
 
-    public JUnitDetector(File testClassesDirectory, FileCollection testClasspath, ClassFileExtractionManager classFileExtractionManager) {
-        super(testClassesDirectory, testClasspath, classFileExtractionManager);
+    public JUnitDetector(File testClassesDirectory, FileCollection testClasspath, ClassFileExtractionManager classFileExtractionManager, TestClassDetectionCache detectionCache) {
+        super(testClassesDirectory, testClasspath, classFileExtractionManager, detectionCache);
     }
 
     protected JUnitTestClassDetecter createClassVisitor() {
@@ -22,6 +22,7 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
 import org.gradle.api.internal.tasks.testing.junit.report.DefaultTestReport;
 import org.gradle.api.internal.tasks.testing.junit.report.TestReporter;
 import org.gradle.api.tasks.testing.Test;
@@ -45,7 +46,8 @@ public class JUnitTestFramework implements TestFramework {
         this.testTask = testTask;
         reporter = new DefaultTestReport();
         options = new JUnitOptions();
-        detector = new JUnitDetector(testTask.getTestClassesDir(), testTask.getClasspath(), new ClassFileExtractionManager(testTask.getTemporaryDir()));
+        detector = new JUnitDetector(testTask.getTestClassesDir(), testTask.getClasspath(), new ClassFileExtractionManager(testTask.getTemporaryDir()),
+                new TestClassDetectionCache(new File(testTask.getTemporaryDir(), "junit-test-classes.bin")));
     }
 
     public WorkerTestClassProcessorFactory getProcessorFactory() {
@@ -72,6 +74,10 @@ public class JUnitTestFramework implements TestFramework {
         reporter.generateReport();
     }
 
+    public boolean isRunTestClassesOnStop() {
+        return false;
+    }
+
     public JUnitOptions getOptions() {
         return options;
     }
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.tasks.testing.processors;
 
 import org.gradle.api.internal.Factory;
+import org.gradle.api.internal.tasks.testing.TestClassCompletionListener;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
@@ -27,26 +28,55 @@ import org.gradle.messaging.dispatch.DispatchException;
 import org.gradle.util.UncheckedException;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
- * processors.
+ * Manages a set of parallel TestClassProcessors. Test classes are queued, and each processor is handed the next test
+ * class only once it has finished with its previous one, so that a slow test class does not hold up the test classes
+ * queued behind it. The processors must report completion of each test class to {@link #completed(TestClassRunInfo)}.
+ *
+ * <p>Queued test classes are handed out in the order they were received, or in the order defined by a comparator when
+ * one is provided.</p>
+ *
+ * <p>Some processors only run their test classes when they are stopped, and so report completion as soon as they have
+ * received a test class. For these, waiting for completion is of no use, and the test classes are instead assigned to
+ * the processors round-robin as they are received.</p>
  */
-public class MaxNParallelTestClassProcessor implements TestClassProcessor {
+public class MaxNParallelTestClassProcessor implements TestClassProcessor, TestClassCompletionListener {
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private final PriorityQueue<QueuedTestClass> queue;
+    private final boolean waitForCompletion;
+    private final List<Slot> slots = new ArrayList<Slot>();
     private TestResultProcessor resultProcessor;
+    private long counter;
     private int pos;
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
     private Actor resultProcessorActor;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, null);
+    }
+
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Comparator<? super TestClassRunInfo> order) {
+        this(maxProcessors, factory, actorFactory, order, true);
+    }
+
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Comparator<? super TestClassRunInfo> order, boolean waitForCompletion) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.queue = new PriorityQueue<QueuedTestClass>(11, new QueueOrder(order));
+        this.waitForCompletion = waitForCompletion;
     }
 
     public void startProcessing(TestResultProcessor resultProcessor) {
@@ -55,26 +85,176 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     }
 
     public void processTestClass(TestClassRunInfo testClass) {
-        TestClassProcessor processor;
-        if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
-        } else {
-            processor = processors.get(pos);
-            pos = (pos + 1) % processors.size();
+        lock.lock();
+        try {
+            if (!waitForCompletion) {
+                dispatchRoundRobin(testClass);
+                return;
+            }
+            queue.add(new QueuedTestClass(testClass, counter++));
+            dispatchQueued();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void completed(TestClassRunInfo testClass) {
+        lock.lock();
+        try {
+            for (Slot slot : slots) {
+                if (slot.current == testClass) {
+                    slot.current = null;
+                    dispatchQueued();
+                    condition.signalAll();
+                    return;
+                }
+            }
+        } finally {
+            lock.unlock();
         }
-        processor.processTestClass(testClass);
     }
 
     public void stop() {
+        lock.lock();
+        try {
+            while (!queue.isEmpty() || isBusy()) {
+                condition.await();
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.asUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
+
         try {
             new CompositeStoppable(processors).add(actors).add(resultProcessorActor).stop();
         } catch (DispatchException e) {
             throw UncheckedException.asUncheckedException(e.getCause());
         }
     }
+
+    private boolean isBusy() {
+        for (Slot slot : slots) {
+            if (slot.current != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void dispatchQueued() {
+        while (!queue.isEmpty()) {
+            Slot slot = findIdleSlot();
+            if (slot == null) {
+                return;
+            }
+            TestClassRunInfo testClass = queue.remove().testClass;
+            slot.current = testClass;
+            slot.processor.processTestClass(testClass);
+        }
+    }
+
+    private void dispatchRoundRobin(TestClassRunInfo testClass) {
+        Slot slot;
+        if (slots.size() < maxProcessors) {
+            slot = startSlot();
+        } else {
+            slot = slots.get(pos);
+            pos = (pos + 1) % slots.size();
+        }
+        slot.processor.processTestClass(testClass);
+    }
+
+    private Slot findIdleSlot() {
+        for (Slot slot : slots) {
+            if (slot.current == null) {
+                return slot;
+            }
+        }
+        if (slots.size() == maxProcessors) {
+            return null;
+        }
+        return startSlot();
+    }
+
+    private Slot startSlot() {
+        TestClassProcessor processor = new CompletionReportingProcessor(factory.create());
+        Actor actor = actorFactory.createActor(processor);
+        processor = actor.getProxy(TestClassProcessor.class);
+        actors.add(actor);
+        processors.add(processor);
+        processor.startProcessing(resultProcessor);
+        Slot slot = new Slot(processor);
+        slots.add(slot);
+        return slot;
+    }
+
+    private static class Slot {
+        private final TestClassProcessor processor;
+        private TestClassRunInfo current;
+
+        private Slot(TestClassProcessor processor) {
+            this.processor = processor;
+        }
+    }
+
+    private static class QueuedTestClass {
+        private final TestClassRunInfo testClass;
+        private final long sequence;
+
+        private QueuedTestClass(TestClassRunInfo testClass, long sequence) {
+            this.testClass = testClass;
+            this.sequence = sequence;
+        }
+    }
+
+    private static class QueueOrder implements Comparator<QueuedTestClass> {
+        private final Comparator<? super TestClassRunInfo> order;
+
+        private QueueOrder(Comparator<? super TestClassRunInfo> order) {
+            this.order = order;
+        }
+
+        public int compare(QueuedTestClass o1, QueuedTestClass o2) {
+            if (order != null) {
+                int diff = order.compare(o1.testClass, o2.testClass);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return o1.sequence < o2.sequence ? -1 : o1.sequence > o2.sequence ? 1 : 0;
+        }
+    }
+
+    /**
+     * Releases the slot for a test class which the target processor fails to accept, as the processor will not report
+     * its completion.
+     */
+    private class CompletionReportingProcessor implements TestClassProcessor {
+        private final TestClassProcessor processor;
+
+        private CompletionReportingProcessor(TestClassProcessor processor) {
+            this.processor = processor;
+        }
+
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            processor.startProcessing(resultProcessor);
+        }
+
+        public void processTestClass(TestClassRunInfo testClass) {
+            boolean accepted = false;
+            try {
+                processor.processTestClass(testClass);
+                accepted = true;
+            } finally {
+                if (!accepted) {
+                    completed(testClass);
+                }
+            }
+        }
+
+        public void stop() {
+            processor.stop();
+        }
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.GUtil;
+
+import java.io.File;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The execution times of test classes, persisted between runs in a properties file. Used to start the slowest test
+ * classes first.
+ */
+public class TestClassDurations {
+    private final File durationsFile;
+    private final Map<String, Long> durations = new HashMap<String, Long>();
+
+    public TestClassDurations(File durationsFile) {
+        this.durationsFile = durationsFile;
+    }
+
+    public synchronized void load() {
+        durations.clear();
+        if (!durationsFile.isFile()) {
+            return;
+        }
+        Properties properties = GUtil.loadProperties(durationsFile);
+        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+            try {
+                durations.put(entry.getKey().toString(), Long.valueOf(entry.getValue().toString()));
+            } catch (NumberFormatException e) {
+                // Ignore
+            }
+        }
+    }
+
+    public synchronized void save() {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Long> entry : durations.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue().toString());
+        }
+        GFileUtils.forceMkdir(durationsFile.getParentFile());
+        GUtil.saveProperties(properties, durationsFile);
+    }
+
+    /**
+     * Returns the duration of the given test class, in milliseconds, or null when not known.
+     */
+    public synchronized Long getDuration(String className) {
+        return durations.get(className);
+    }
+
+    synchronized void setDuration(String className, long duration) {
+        durations.put(className, duration);
+    }
+
+    /**
+     * Returns a comparator which orders test classes by decreasing duration. Test classes with no known duration are
+     * ordered first.
+     */
+    public Comparator<TestClassRunInfo> longestFirst() {
+        return new Comparator<TestClassRunInfo>() {
+            public int compare(TestClassRunInfo o1, TestClassRunInfo o2) {
+                long duration1 = durationOf(o1);
+                long duration2 = durationOf(o2);
+                return duration1 > duration2 ? -1 : duration1 < duration2 ? 1 : 0;
+            }
+
+            private long durationOf(TestClassRunInfo testClass) {
+                Long duration = getDuration(testClass.getTestClassName());
+                return duration == null ? Long.MAX_VALUE : duration;
+            }
+        };
+    }
+
+    /**
+     * Returns a result processor which records the durations of the test classes it receives results for, and then
+     * forwards the results to the given processor.
+     */
+    public TestResultProcessor recordTo(TestResultProcessor processor) {
+        return new RecordingTestResultProcessor(processor);
+    }
+
+    private class RecordingTestResultProcessor implements TestResultProcessor {
+        private final TestResultProcessor processor;
+        private final Map<Object, Started> started = new HashMap<Object, Started>();
+
+        public RecordingTestResultProcessor(TestResultProcessor processor) {
+            this.processor = processor;
+        }
+
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            if (test.isComposite() && test.getClassName() != null) {
+                synchronized (started) {
+                    started.put(test.getId(), new Started(test.getClassName(), event.getStartTime()));
+                }
+            }
+            processor.started(test, event);
+        }
+
+        public void completed(Object testId, TestCompleteEvent event) {
+            Started start;
+            synchronized (started) {
+                start = started.remove(testId);
+            }
+            if (start != null) {
+                setDuration(start.className, Math.max(0, event.getEndTime() - start.startTime));
+            }
+            processor.completed(testId, event);
+        }
+
+        public void output(Object testId, TestOutputEvent event) {
+            processor.output(testId, event);
+        }
+
+        public void failure(Object testId, Throwable result) {
+            processor.failure(testId, result);
+        }
+    }
+
+    private static class Started {
+        private final String className;
+        private final long startTime;
+
+        private Started(String className, long startTime) {
+            this.className = className;
+            this.startTime = startTime;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.testing.testng;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.tasks.testing.detection.AbstractTestFrameworkDetector;
 import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
 import org.gradle.api.internal.tasks.testing.detection.TestClassVisitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,8 +31,8 @@ import java.io.File;
 class TestNGDetector extends AbstractTestFrameworkDetector<TestNGTestClassDetecter> {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestNGDetector.class);
 
-    TestNGDetector(File testClassesDirectory, FileCollection testClasspath, ClassFileExtractionManager classFileExtractionManager) {
-        super(testClassesDirectory, testClasspath, classFileExtractionManager);
+    TestNGDetector(File testClassesDirectory, FileCollection testClasspath, ClassFileExtractionManager classFileExtractionManager, TestClassDetectionCache detectionCache) {
+        super(testClassesDirectory, testClasspath, classFileExtractionManager, detectionCache);
     }
 
     protected TestNGTestClassDetecter createClassVisitor() {
@@ -23,6 +23,7 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionCache;
 import org.gradle.api.internal.tasks.testing.junit.JULRedirector;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.api.tasks.testing.testng.TestNGOptions;
@@ -46,7 +47,8 @@ public class TestNGTestFramework implements TestFramework {
         this.testTask = testTask;
         options = new TestNGOptions(testTask.getProject().getProjectDir());
         options.setAnnotationsOnSourceCompatibility(JavaVersion.toVersion(testTask.getProject().property("sourceCompatibility")));
-        detector = new TestNGDetector(testTask.getTestClassesDir(), testTask.getClasspath(), new ClassFileExtractionManager(testTask.getTemporaryDir()));
+        detector = new TestNGDetector(testTask.getTestClassesDir(), testTask.getClasspath(), new ClassFileExtractionManager(testTask.getTemporaryDir()),
+                new TestClassDetectionCache(new File(testTask.getTemporaryDir(), "testng-test-classes.bin")));
     }
 
     public WorkerTestClassProcessorFactory getProcessorFactory() {
@@ -68,6 +70,10 @@ public class TestNGTestFramework implements TestFramework {
         // default listeners and these generate reports by default.
     }
 
+    public boolean isRunTestClassesOnStop() {
+        return true;
+    }
+
     public TestNGOptions getOptions() {
         return options;
     }
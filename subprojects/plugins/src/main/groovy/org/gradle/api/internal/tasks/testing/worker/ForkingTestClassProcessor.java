@@ -18,32 +18,46 @@ package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.Action;
 import org.gradle.api.internal.Factory;
+import org.gradle.api.internal.tasks.testing.TestClassCompletionListener;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.process.ExecResult;
 import org.gradle.process.JavaForkOptions;
+import org.gradle.process.internal.ExecHandle;
+import org.gradle.process.internal.ExecHandleListener;
 import org.gradle.process.internal.WorkerProcess;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
 
+/**
+ * Executes test classes in a forked worker process. Notifies the given {@link TestClassCompletionListener} as the
+ * worker finishes with each test class, or when the worker process exits with test classes still outstanding.
+ */
 public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final WorkerTestClassProcessorFactory processorFactory;
     private final JavaForkOptions options;
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
+    private final TestClassCompletionListener completionListener;
+    private final LinkedList<TestClassRunInfo> outstanding = new LinkedList<TestClassRunInfo>();
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
     private TestResultProcessor resultProcessor;
 
-    public ForkingTestClassProcessor(Factory<WorkerProcessBuilder> workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction) {
+    public ForkingTestClassProcessor(Factory<WorkerProcessBuilder> workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, TestClassCompletionListener completionListener) {
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
         this.options = options;
         this.classPath = classPath;
         this.buildConfigAction = buildConfigAction;
+        this.completionListener = completionListener;
     }
 
     public void startProcessing(TestResultProcessor resultProcessor) {
@@ -58,16 +72,21 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
             builder.worker(new TestWorker(processorFactory));
             options.copyTo(builder.getJavaCommand());
             buildConfigAction.execute(builder);
+            builder.getJavaCommand().listener(new WorkerExitListener());
             
             workerProcess = builder.build();
             workerProcess.start();
 
             workerProcess.getConnection().addIncoming(TestResultProcessor.class, resultProcessor);
+            workerProcess.getConnection().addIncoming(TestClassCompletionListener.class, new WorkerCompletionListener());
             remoteProcessor = workerProcess.getConnection().addOutgoing(RemoteTestClassProcessor.class);
 
             remoteProcessor.startProcessing();
         }
 
+        synchronized (outstanding) {
+            outstanding.add(testClass);
+        }
         remoteProcessor.processTestClass(testClass);
     }
 
@@ -77,4 +96,35 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
             workerProcess.waitForStop();
         }
     }
+
+    private class WorkerCompletionListener implements TestClassCompletionListener {
+        public void completed(TestClassRunInfo testClass) {
+            // The worker processes test classes in the order they were sent, and the copy received back from the
+            // worker is not the instance that was sent, so report the oldest outstanding instance instead
+            TestClassRunInfo original;
+            synchronized (outstanding) {
+                if (outstanding.isEmpty()) {
+                    return;
+                }
+                original = outstanding.removeFirst();
+            }
+            completionListener.completed(original);
+        }
+    }
+
+    private class WorkerExitListener implements ExecHandleListener {
+        public void executionStarted(ExecHandle execHandle) {
+        }
+
+        public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+            List<TestClassRunInfo> abandoned;
+            synchronized (outstanding) {
+                abandoned = new ArrayList<TestClassRunInfo>(outstanding);
+                outstanding.clear();
+            }
+            for (TestClassRunInfo testClass : abandoned) {
+                completionListener.completed(testClass);
+            }
+        }
+    }
 }
@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.Action;
 import org.gradle.api.internal.project.DefaultServiceRegistry;
+import org.gradle.api.internal.tasks.testing.TestClassCompletionListener;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
@@ -39,6 +40,7 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
     private CountDownLatch completed;
     private TestClassProcessor processor;
     private TestResultProcessor resultProcessor;
+    private TestClassCompletionListener completionListener;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
         this.factory = factory;
@@ -67,6 +69,7 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
         processor = proxy.getSource();
 
         this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        this.completionListener = serverConnection.addOutgoing(TestClassCompletionListener.class);
 
         serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
 
@@ -83,7 +86,11 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
     }
 
     public void processTestClass(TestClassRunInfo testClass) {
-        processor.processTestClass(testClass);
+        try {
+            processor.processTestClass(testClass);
+        } finally {
+            completionListener.completed(testClass);
+        }
     }
 
     public void stop() {
@@ -18,15 +18,19 @@ package org.gradle.api.tasks.compile;
 
 import org.gradle.api.AntBuilder;
 import org.gradle.api.internal.Factory;
-import org.gradle.api.internal.tasks.compile.AntJavaCompiler;
-import org.gradle.api.internal.tasks.compile.IncrementalJavaCompiler;
+import org.gradle.api.internal.tasks.compile.CompilerPool;
+import org.gradle.api.internal.tasks.compile.DefaultJavaCompiler;
 import org.gradle.api.internal.tasks.compile.JavaCompiler;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.OutputDirectory;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.util.UncheckedException;
 
 import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Compiles Java source files.
@@ -41,7 +45,7 @@ public class Compile extends AbstractCompile {
 
     public Compile() {
         Factory<AntBuilder> antBuilderFactory = getServices().getFactory(AntBuilder.class);
-        javaCompiler = new IncrementalJavaCompiler(new AntJavaCompiler(antBuilderFactory), antBuilderFactory, getOutputs());
+        javaCompiler = new DefaultJavaCompiler(antBuilderFactory, getOutputs());
     }
 
     @TaskAction
@@ -52,8 +56,28 @@ public class Compile extends AbstractCompile {
         javaCompiler.setDependencyCacheDir(getDependencyCacheDir());
         javaCompiler.setSourceCompatibility(getSourceCompatibility());
         javaCompiler.setTargetCompatibility(getTargetCompatibility());
-        WorkResult result = javaCompiler.execute();
-        setDidWork(result.getDidWork());
+        // Run the compiler in the build's compiler pool, which limits the number of compilations that run at the same
+        // time when tasks are executed in parallel
+        Future<WorkResult> result = getServices().get(CompilerPool.class).submit(new Callable<WorkResult>() {
+            public WorkResult call() {
+                return javaCompiler.execute();
+            }
+        });
+        setDidWork(waitFor(result).getDidWork());
+    }
+
+    private static WorkResult waitFor(Future<WorkResult> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw UncheckedException.asUncheckedException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw UncheckedException.asUncheckedException(e);
+        }
     }
 
     @OutputDirectory
@@ -84,6 +84,14 @@ class CompileOptions extends AbstractOptions {
      */
     DependOptions dependOptions = new DependOptions()
 
+    /**
+     * Specifies whether to use Ant's {@code <javac>} task to compile. When {@code false}, the compiler is run
+     * in-process using the {@code javax.tools} API, and only the source files which have changed and the source files
+     * which depend on them are recompiled. This requires Java 6 or later, and is not used when {@link #fork} or
+     * {@link #useDepend} is {@code true}. The default is {@code true}.
+     */
+    boolean useAnt = true
+
     /**
      * The compiler to use.
      */
@@ -134,7 +142,7 @@ class CompileOptions extends AbstractOptions {
     }
 
     List excludedFieldsFromOptionMap() {
-        ['debugOptions', 'forkOptions', 'compilerArgs', 'dependOptions', 'useDepend']
+        ['debugOptions', 'forkOptions', 'compilerArgs', 'dependOptions', 'useDepend', 'useAnt']
     }
 
     Map fieldName2AntMap() {
@@ -20,12 +20,14 @@ import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.project.IsolatedAntBuilder;
-import org.gradle.api.internal.tasks.compile.AntGroovyCompiler;
+import org.gradle.api.internal.tasks.compile.DefaultGroovyCompiler;
 import org.gradle.api.internal.tasks.compile.GroovyJavaJointCompiler;
 import org.gradle.api.internal.tasks.compile.IncrementalGroovyCompiler;
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.process.internal.WorkerProcessBuilder;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -45,7 +47,8 @@ public class GroovyCompile extends AbstractCompile {
     public GroovyCompile() {
         IsolatedAntBuilder antBuilder = getServices().get(IsolatedAntBuilder.class);
         ClassPathRegistry classPathRegistry = getServices().get(ClassPathRegistry.class);
-        compiler = new IncrementalGroovyCompiler(new AntGroovyCompiler(antBuilder, classPathRegistry), getOutputs());
+        compiler = new IncrementalGroovyCompiler(new DefaultGroovyCompiler(antBuilder, classPathRegistry,
+                getServices().getFactory(WorkerProcessBuilder.class), getServices().get(CompilerDaemonManager.class)), getOutputs());
     }
 
     protected void compile() {
@@ -33,6 +33,14 @@ public class GroovyCompileOptions extends AbstractOptions {
     boolean includeJavaRuntime = false
     boolean stacktrace
 
+    /**
+     * Specifies whether to use Ant's {@code <groovyc>} task to compile. When {@code false}, the compiler is run in a
+     * compiler daemon, which is a long-lived process that keeps the Groovy compiler loaded between compilations and
+     * builds. A daemon is started for each Groovy classpath, and uses the memory settings of {@link #forkOptions}. It
+     * stops once it has been idle for a while. The default is {@code true}.
+     */
+    boolean useAnt = true
+
     GroovyCompileOptions fork(Map forkArgs) {
         fork = true
         forkOptions.define(forkArgs)
@@ -40,7 +48,7 @@ public class GroovyCompileOptions extends AbstractOptions {
     }
 
     List excludedFieldsFromOptionMap() {
-        ['forkOptions']
+        ['forkOptions', 'useAnt']
     }
 
     Map fieldName2AntMap() {
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.api.GradleException
+import org.gradle.util.ClasspathUtil
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.TestFile
+import org.junit.Rule
+import spock.lang.Specification
+
+class ApiGroovyCompilerTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    final TestFile srcDir = tmpDir.createDir('src')
+    final TestFile destDir = tmpDir.file('classes')
+    final File groovyJar = ClasspathUtil.getClasspathForClass(GroovyObject)
+
+    def "compiles Groovy source files"() {
+        srcDir.file('A.groovy').write('class A { String value = "a" }')
+        srcDir.file('B.groovy').write('class B extends A { }')
+
+        when:
+        def didWork = compiler([srcDir.file('A.groovy'), srcDir.file('B.groovy')]).execute(getClass().classLoader)
+
+        then:
+        didWork
+        destDir.file('A.class').assertIsFile()
+        destDir.file('B.class').assertIsFile()
+    }
+
+    def "compiles Groovy and Java source files which depend on each other"() {
+        srcDir.file('A.groovy').write('class A { String value = "a" }')
+        srcDir.file('B.java').write('public class B extends A { }')
+        srcDir.file('C.groovy').write('class C extends B { }')
+
+        when:
+        def didWork = compiler([srcDir.file('A.groovy'), srcDir.file('B.java'), srcDir.file('C.groovy')]).execute(getClass().classLoader)
+
+        then:
+        didWork
+        destDir.file('A.class').assertIsFile()
+        destDir.file('B.class').assertIsFile()
+        destDir.file('C.class').assertIsFile()
+    }
+
+    def "does no work when there are no source files"() {
+        expect:
+        !compiler([]).execute(getClass().classLoader)
+    }
+
+    def "fails when the source does not compile"() {
+        srcDir.file('A.groovy').write('class A extends Unknown { }')
+
+        when:
+        compiler([srcDir.file('A.groovy')]).execute(getClass().classLoader)
+
+        then:
+        GradleException e = thrown()
+        e.message == 'Compile failed; see the compiler error output for details.'
+    }
+
+    def "does not fail when the source does not compile and failOnError is false"() {
+        srcDir.file('A.groovy').write('class A extends Unknown { }')
+
+        expect:
+        compiler([srcDir.file('A.groovy')], false).execute(getClass().classLoader)
+    }
+
+    def "splits javac options into flags and named values"() {
+        def flags = []
+        def namedValues = []
+
+        when:
+        DaemonGroovyCompiler.splitJavacOptions(['-classpath', 'a:b', '-g', '-nowarn', '-source', '1.5', '-Xlint:unchecked'], flags, namedValues)
+
+        then:
+        flags == ['g', 'nowarn', 'Xlint:unchecked']
+        namedValues == ['classpath', 'a:b', 'source', '1.5']
+    }
+
+    def compiler(List<File> source, boolean failOnError = true) {
+        return new ApiGroovyCompiler(source, destDir, [], null, false, false, failOnError, ['g'], ['classpath', groovyJar.path])
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class ClassDependencyGraphTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    final ClassDependencyGraph graph = new ClassDependencyGraph("settings")
+
+    def setup() {
+        graph.classes['A'] = new ClassDependencyGraph.ClassInfo('A.java', [] as Set, true)
+        graph.classes['A$Inner'] = new ClassDependencyGraph.ClassInfo('A.java', ['A'] as Set, false)
+        graph.classes['B'] = new ClassDependencyGraph.ClassInfo('B.java', ['A', 'java.lang.String'] as Set, false)
+        graph.classes['C'] = new ClassDependencyGraph.ClassInfo('C.java', ['B'] as Set, false)
+        graph.classes['D'] = new ClassDependencyGraph.ClassInfo('D.java', ['java.lang.String'] as Set, false)
+    }
+
+    def "finds the classes compiled from source files"() {
+        expect:
+        graph.getClassesFor(['A.java']) == ['A', 'A$Inner'] as Set
+        graph.getClassesFor(['B.java', 'D.java']) == ['B', 'D'] as Set
+        graph.getClassesFor(['unknown.java']).isEmpty()
+    }
+
+    def "finds the direct and indirect dependents of classes"() {
+        expect:
+        graph.getDependents(['A']) == ['A$Inner', 'B', 'C'] as Set
+        graph.getDependents(['B']) == ['C'] as Set
+        graph.getDependents(['C']).isEmpty()
+        graph.getDependents(['java.lang.String']) == ['B', 'C', 'D'] as Set
+    }
+
+    def "detects classes which declare constants"() {
+        expect:
+        graph.hasConstants(['A', 'B'])
+        !graph.hasConstants(['B', 'C', 'unknown'])
+    }
+
+    def "can save and load graph"() {
+        def file = tmpDir.file('graph.bin')
+        graph.sourceHashes['A.java'] = [1, 2] as byte[]
+
+        when:
+        graph.save(file)
+        def loaded = ClassDependencyGraph.load(file)
+
+        then:
+        loaded.settings == 'settings'
+        loaded.sourceHashes['A.java'] == [1, 2] as byte[]
+        loaded.classes.keySet() == graph.classes.keySet()
+        loaded.classes['B'].sourcePath == 'B.java'
+        loaded.classes['B'].dependencies == ['A', 'java.lang.String'] as Set
+        loaded.classes['A'].hasConstants()
+    }
+
+    def "load returns null when file does not exist or cannot be read"() {
+        def file = tmpDir.file('graph.bin')
+
+        expect:
+        ClassDependencyGraph.load(file) == null
+
+        when:
+        file.text = 'broken'
+
+        then:
+        ClassDependencyGraph.load(file) == null
+    }
+}
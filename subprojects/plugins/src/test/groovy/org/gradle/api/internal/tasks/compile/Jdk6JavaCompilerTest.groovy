@@ -0,0 +1,182 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.api.GradleException
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.TestFile
+import org.junit.Rule
+import spock.lang.Specification
+
+class Jdk6JavaCompilerTest extends Specification {
+    static final long OLD_TIMESTAMP = 1000000000L
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    final TaskOutputsInternal outputs = Mock()
+    final Jdk6JavaCompiler compiler = new Jdk6JavaCompiler(outputs)
+    final TestFile srcDir = tmpDir.file('src')
+    final TestFile destDir = tmpDir.file('classes')
+
+    def setup() {
+        compiler.destinationDir = destDir
+        compiler.dependencyCacheDir = tmpDir.file('cache')
+        compiler.classpath = []
+        _ * outputs.previousFiles >> { [iterator: { [].iterator() }] as FileCollection }
+
+        srcDir.createDir()
+        srcDir.file('A.java').write('public class A { public String getValue() { return "a"; } }')
+        srcDir.file('B.java').write('public class B { public String getValue() { return new A().getValue(); } }')
+        srcDir.file('C.java').write('public class C extends B { }')
+        srcDir.file('D.java').write('public class D { }')
+    }
+
+    def "compiles all source files"() {
+        when:
+        def result = compile()
+
+        then:
+        result.didWork
+        ['A', 'B', 'C', 'D'].each { destDir.file("${it}.class").assertExists() }
+    }
+
+    def "recompiles changed source files and the source files which depend on them"() {
+        compile()
+        makeClassesOld()
+
+        when:
+        srcDir.file('B.java').write('public class B { public String getValue() { return new A().getValue() + "b"; } }')
+        def result = compile()
+
+        then:
+        result.didWork
+        recompiled() == ['B', 'C'] as Set
+    }
+
+    def "recompiles source files which depend on a removed source file"() {
+        srcDir.file('D.java').write('public class D { public Object value = new C(); }')
+        compile()
+        makeClassesOld()
+
+        when:
+        srcDir.file('C.java').delete()
+        compile()
+
+        then:
+        GradleException e = thrown()
+        e.message == 'Compile failed; see the compiler error output for details.'
+        destDir.file('C.class').assertDoesNotExist()
+    }
+
+    def "removes classes for removed source files"() {
+        compile()
+        makeClassesOld()
+
+        when:
+        srcDir.file('D.java').delete()
+        compile()
+
+        then:
+        destDir.file('D.class').assertDoesNotExist()
+        recompiled().isEmpty()
+    }
+
+    def "recompiles all source files when a changed source file declares a constant"() {
+        srcDir.file('A.java').write('public class A { public static final String VALUE = "a"; public String getValue() { return VALUE; } }')
+        compile()
+        makeClassesOld()
+
+        when:
+        srcDir.file('A.java').write('public class A { public static final String VALUE = "b"; public String getValue() { return VALUE; } }')
+        compile()
+
+        then:
+        recompiled() == ['A', 'B', 'C', 'D'] as Set
+    }
+
+    def "recompiles all source files when the compiler settings change"() {
+        compile()
+        makeClassesOld()
+
+        when:
+        compiler.compileOptions.debug = false
+        compile()
+
+        then:
+        recompiled() == ['A', 'B', 'C', 'D'] as Set
+    }
+
+    def "recompiles all source files when no dependency cache dir is provided"() {
+        compiler.dependencyCacheDir = null
+        compile()
+        makeClassesOld()
+
+        when:
+        srcDir.file('D.java').write('public class D { int value; }')
+        compile()
+
+        then:
+        recompiled() == ['A', 'B', 'C', 'D'] as Set
+    }
+
+    def "recompiles source files whose classes have been removed"() {
+        compile()
+        makeClassesOld()
+
+        when:
+        destDir.file('D.class').delete()
+        compile()
+
+        then:
+        recompiled() == ['D'] as Set
+    }
+
+    def "fails when source does not compile"() {
+        srcDir.file('D.java').write('public class D { broken }')
+
+        when:
+        compile()
+
+        then:
+        GradleException e = thrown()
+        e.message == 'Compile failed; see the compiler error output for details.'
+    }
+
+    def "does not fail when source does not compile and failOnError is false"() {
+        srcDir.file('D.java').write('public class D { broken }')
+        compiler.compileOptions.failOnError = false
+
+        when:
+        def result = compile()
+
+        then:
+        result.didWork
+    }
+
+    def compile() {
+        compiler.source = new SimpleFileCollection(srcDir.listFiles() as List)
+        return compiler.execute()
+    }
+
+    def makeClassesOld() {
+        destDir.listFiles().each { it.setLastModified(OLD_TIMESTAMP) }
+    }
+
+    def recompiled() {
+        return destDir.listFiles().findAll { it.lastModified() != OLD_TIMESTAMP }.collect { it.name - '.class' } as Set
+    }
+}
@@ -27,6 +27,10 @@ import org.jmock.Sequence
 import org.gradle.api.file.FileTree
 import static org.hamcrest.Matchers.*
 import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import java.util.concurrent.CopyOnWriteArrayList
+import static org.junit.Assert.*
 
 @RunWith(JMock.class)
 public class DefaultTestClassScannerTest {
@@ -51,8 +55,59 @@ public class DefaultTestClassScannerTest {
             one(detector).processTestClass(new File('class1.class'))
             one(detector).processTestClass(new File('class2.class'))
             inSequence(sequence)
+            one(detector).stopDetection()
+            inSequence(sequence)
         }
         
         scanner.run()
     }
+
+    @Test
+    public void passesEachClassFileToTestClassDetectorFromMultipleThreads() {
+        DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+        DefaultTestClassScanner scanner = new DefaultTestClassScanner(files, stubDetector, processor, executorFactory, 4)
+        def classFiles = (1..20).collect { new File("class${it}.class") }
+
+        context.checking {
+            one(files).visit(withParam(notNullValue()))
+            will { visitor ->
+                classFiles.each { file -> visitor.visitFile({ file } as FileVisitDetails) }
+                visitor.visitFile({ new File('resource.txt') } as FileVisitDetails)
+            }
+            classFiles.each { file ->
+                one(processor).processTestClass(withParam(hasProperty('testClassName', equalTo(file.name))))
+            }
+        }
+
+        try {
+            scanner.run()
+        } finally {
+            executorFactory.stop()
+        }
+
+        assertThat(stubDetector.processed as Set, equalTo(classFiles as Set))
+        assertTrue(stubDetector.stopped)
+    }
+
+    private final StubDetector stubDetector = new StubDetector()
+
+    private static class StubDetector implements TestFrameworkDetector {
+        final List<File> processed = new CopyOnWriteArrayList<File>()
+        TestClassProcessor testClassProcessor
+        boolean stopped
+
+        void startDetection(TestClassProcessor testClassProcessor) {
+            this.testClassProcessor = testClassProcessor
+        }
+
+        boolean processTestClass(File testClassFile) {
+            processed << testClassFile
+            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(testClassFile.name))
+            return true
+        }
+
+        void stopDetection() {
+            stopped = true
+        }
+    }
 }
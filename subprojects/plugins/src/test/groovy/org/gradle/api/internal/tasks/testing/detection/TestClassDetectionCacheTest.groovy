@@ -0,0 +1,112 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestClassDetectionCacheTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    final File cacheFile = tmpDir.file("cache.bin")
+
+    def "can get class info which has been put"() {
+        def cache = new TestClassDetectionCache(cacheFile)
+        def hash = TestClassDetectionCache.hash([1, 2, 3] as byte[])
+
+        when:
+        cache.put(hash, visitor('org/gradle/SomeTest', 'org/gradle/BaseTest', true, false))
+        def info = cache.get(TestClassDetectionCache.hash([1, 2, 3] as byte[]))
+
+        then:
+        info.className == 'org/gradle/SomeTest'
+        info.superClassName == 'org/gradle/BaseTest'
+        info.test
+        !info.abstract
+        cache.get(TestClassDetectionCache.hash([1, 2] as byte[])) == null
+    }
+
+    def "can save and load cache"() {
+        def cache = new TestClassDetectionCache(cacheFile)
+        def hash1 = TestClassDetectionCache.hash([1] as byte[])
+        def hash2 = TestClassDetectionCache.hash([2] as byte[])
+        cache.put(hash1, visitor('SomeTest', 'BaseTest', true, false))
+        cache.put(hash2, visitor('BaseTest', null, false, true))
+
+        when:
+        cache.save()
+        def loaded = new TestClassDetectionCache(cacheFile)
+        loaded.load()
+
+        then:
+        def info1 = loaded.get(hash1)
+        info1.className == 'SomeTest'
+        info1.superClassName == 'BaseTest'
+        info1.test
+        !info1.abstract
+        def info2 = loaded.get(hash2)
+        info2.className == 'BaseTest'
+        info2.superClassName == null
+        !info2.test
+        info2.abstract
+    }
+
+    def "saves only those entries used since the cache was loaded"() {
+        def hash1 = TestClassDetectionCache.hash([1] as byte[])
+        def hash2 = TestClassDetectionCache.hash([2] as byte[])
+        def cache = new TestClassDetectionCache(cacheFile)
+        cache.put(hash1, visitor('Test1', null, true, false))
+        cache.put(hash2, visitor('Test2', null, true, false))
+        cache.save()
+
+        when:
+        cache.load()
+        cache.get(hash2)
+        cache.save()
+        cache.load()
+
+        then:
+        cache.get(hash1) == null
+        cache.get(hash2).className == 'Test2'
+    }
+
+    def "ignores missing or unreadable cache file"() {
+        def cache = new TestClassDetectionCache(cacheFile)
+        def hash = TestClassDetectionCache.hash([1] as byte[])
+
+        when:
+        cache.load()
+
+        then:
+        cache.get(hash) == null
+
+        when:
+        cacheFile.bytes = [0, 0, 0, 1, 0, 0, 0, 5, 16] as byte[]
+        cache.load()
+
+        then:
+        cache.get(hash) == null
+    }
+
+    def visitor(String className, String superClassName, boolean test, boolean isAbstract) {
+        TestClassVisitor visitor = Mock()
+        _ * visitor.className >> className
+        _ * visitor.superClassName >> superClassName
+        _ * visitor.test >> test
+        _ * visitor.abstract >> isAbstract
+        return visitor
+    }
+}
@@ -26,6 +26,7 @@ import org.gradle.util.IdGenerator;
 import org.jmock.Expectations;
 import org.junit.Before;
 
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertThat;
@@ -66,6 +67,13 @@ public class JUnitTestFrameworkTest extends AbstractTestFrameworkTest {
         assertNotNull(jUnitTestFramework.getReporter());
     }
 
+    @org.junit.Test
+    public void testRunsTestClassesAsTheyAreReceived() {
+        jUnitTestFramework = new JUnitTestFramework(testMock);
+
+        assertFalse(jUnitTestFramework.isRunTestClassesOnStop());
+    }
+
     @org.junit.Test
     public void testCreatesTestProcessor() {
         jUnitTestFramework = new JUnitTestFramework(testMock);
@@ -16,15 +16,15 @@
 
 package org.gradle.api.internal.tasks.testing.processors
 
+import org.gradle.api.internal.Factory
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.messaging.actor.Actor
 import org.gradle.messaging.actor.ActorFactory
-import spock.lang.Specification
-import org.gradle.api.internal.Factory
+import org.gradle.util.ConcurrentSpecification
 
-class MaxNParallelTestClassProcessorTest extends Specification {
+class MaxNParallelTestClassProcessorTest extends ConcurrentSpecification {
     private final Factory<TestClassProcessor> factory = Mock()
     private final TestResultProcessor resultProcessor = Mock()
     private final TestResultProcessor asyncResultProcessor = Mock()
@@ -71,12 +71,13 @@ class MaxNParallelTestClassProcessorTest extends Specification {
 
         then:
         1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor(!null) >> actor1
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
         1 * asyncProcessor1.startProcessing(asyncResultProcessor)
         1 * asyncProcessor1.processTestClass(test)
 
         when:
+        processor.completed(test)
         processor.stop()
 
         then:
@@ -86,7 +87,8 @@ class MaxNParallelTestClassProcessorTest extends Specification {
     }
 
     def startsMultipleProcessorsOnDemandAndStopsAtEnd() {
-        TestClassRunInfo test = Mock()
+        TestClassRunInfo test1 = Mock()
+        TestClassRunInfo test2 = Mock()
         TestClassProcessor processor1 = Mock()
         TestClassProcessor processor2 = Mock()
         TestClassProcessor asyncProcessor1 = Mock()
@@ -97,26 +99,28 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         startProcessor()
 
         when:
-        processor.processTestClass(test)
+        processor.processTestClass(test1)
 
         then:
         1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor(!null) >> actor1
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
         1 * asyncProcessor1.startProcessing(asyncResultProcessor)
-        1 * asyncProcessor1.processTestClass(test)
+        1 * asyncProcessor1.processTestClass(test1)
 
         when:
-        processor.processTestClass(test)
+        processor.processTestClass(test2)
 
         then:
         1 * factory.create() >> processor2
-        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actorFactory.createActor(!null) >> actor2
         1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
         1 * asyncProcessor2.startProcessing(asyncResultProcessor)
-        1 * asyncProcessor2.processTestClass(test)
+        1 * asyncProcessor2.processTestClass(test2)
 
         when:
+        processor.completed(test1)
+        processor.completed(test2)
         processor.stop()
 
         then:
@@ -124,47 +128,203 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * asyncProcessor2.stop()
     }
 
-    def roundRobinsTestClassesToProcessors() {
-        TestClassRunInfo test = Mock()
-        TestClassProcessor processor1 = Mock()
-        TestClassProcessor processor2 = Mock()
+    def queuesTestClassesUntilAProcessorHasCompletedItsTestClass() {
+        TestClassRunInfo test1 = Mock()
+        TestClassRunInfo test2 = Mock()
+        TestClassRunInfo test3 = Mock()
+        TestClassRunInfo test4 = Mock()
         TestClassProcessor asyncProcessor1 = Mock()
         TestClassProcessor asyncProcessor2 = Mock()
-        Actor actor1 = Mock()
-        Actor actor2 = Mock()
 
         startProcessor()
+        startsProcessors(asyncProcessor1, asyncProcessor2)
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
 
         when:
-        processor.processTestClass(test)
+        processor.processTestClass(test3)
+        processor.processTestClass(test4)
+
+        then:
+        0 * asyncProcessor1._
+        0 * asyncProcessor2._
+
+        when:
+        processor.completed(test2)
+
+        then:
+        1 * asyncProcessor2.processTestClass(test3)
+        0 * asyncProcessor1._
+
+        when:
+        processor.completed(test3)
+
+        then:
+        1 * asyncProcessor2.processTestClass(test4)
+        0 * asyncProcessor1._
+    }
+
+    def ignoresCompletionOfTestClassWhichIsNotInProgress() {
+        TestClassRunInfo test1 = Mock()
+        TestClassRunInfo test2 = Mock()
+        TestClassRunInfo test3 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+
+        startProcessor()
+        startsProcessors(asyncProcessor1, asyncProcessor2)
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+        processor.completed(test1)
+
+        when:
+        processor.completed(test1)
+        processor.processTestClass(test3)
+
+        then:
+        1 * asyncProcessor1.processTestClass(test3)
+
+        when:
+        processor.completed(test1)
+        processor.processTestClass(test1)
+
+        then:
+        0 * asyncProcessor1._
+        0 * asyncProcessor2._
+    }
+
+    def handsOutQueuedTestClassesInTheGivenOrder() {
+        TestClassRunInfo test1 = testClass('a')
+        TestClassRunInfo test2 = testClass('b')
+        TestClassRunInfo test3 = testClass('c')
+        TestClassRunInfo test4 = testClass('b')
+        TestClassProcessor asyncProcessor1 = Mock()
+        def processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory, { a, b -> b.testClassName <=> a.testClassName } as Comparator)
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+        startsProcessors(asyncProcessor1)
+        processor.processTestClass(test1)
+
+        when:
+        processor.processTestClass(test2)
+        processor.processTestClass(test3)
+        processor.processTestClass(test4)
+        processor.completed(test1)
+        processor.completed(test3)
+        processor.completed(test2)
+
+        then:
+        1 * asyncProcessor1.processTestClass(test3)
+
+        then:
+        1 * asyncProcessor1.processTestClass(test2)
 
         then:
+        1 * asyncProcessor1.processTestClass(test4)
+    }
+
+    def stopWaitsForQueuedTestClassesToCompleteBeforeStoppingProcessors() {
+        TestClassRunInfo test1 = Mock()
+        TestClassRunInfo test2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        def processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory)
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+        startsProcessors(asyncProcessor1)
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+
+        when:
+        start { processor.completed(test1) }
+        processor.stop()
+
+        then:
+        1 * asyncProcessor1.processTestClass(test2) >> { start { processor.completed(test2) } }
+
+        then:
+        1 * asyncProcessor1.stop()
+    }
+
+    def releasesProcessorWhenItFailsToAcceptATestClass() {
+        TestClassRunInfo test1 = Mock()
+        TestClassRunInfo test2 = Mock()
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        Actor actor1 = Mock()
+        TestClassProcessor wrapper
+        def failure = new RuntimeException()
+        def processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory)
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
         1 * factory.create() >> processor1
-        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor(!null) >> { wrapper = it[0]; actor1 }
         1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
-        1 * asyncProcessor1.startProcessing(asyncResultProcessor)
-        1 * asyncProcessor1.processTestClass(test)
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
 
         when:
-        processor.processTestClass(test)
+        wrapper.processTestClass(test1)
 
         then:
-        1 * factory.create() >> processor2
-        1 * actorFactory.createActor(processor2) >> actor2
-        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
-        1 * asyncProcessor2.startProcessing(asyncResultProcessor)
-        1 * asyncProcessor2.processTestClass(test)
+        RuntimeException e = thrown()
+        e == failure
+        1 * processor1.processTestClass(test1) >> { throw failure }
+        1 * asyncProcessor1.processTestClass(test2)
+    }
+
+    def assignsTestClassesRoundRobinWhenNotWaitingForCompletion() {
+        TestClassRunInfo test1 = Mock()
+        TestClassRunInfo test2 = Mock()
+        TestClassRunInfo test3 = Mock()
+        TestClassRunInfo test4 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, null, false)
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+        startsProcessors(asyncProcessor1, asyncProcessor2)
 
         when:
-        processor.processTestClass(test)
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+        processor.processTestClass(test3)
+        processor.processTestClass(test4)
 
         then:
-        1 * asyncProcessor1.processTestClass(test)
+        1 * asyncProcessor1.processTestClass(test1)
+        1 * asyncProcessor2.processTestClass(test2)
+        1 * asyncProcessor1.processTestClass(test3)
+        1 * asyncProcessor2.processTestClass(test4)
 
         when:
-        processor.processTestClass(test)
+        processor.stop()
 
         then:
-        1 * asyncProcessor2.processTestClass(test)
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+    }
+
+    def startsProcessors(TestClassProcessor... asyncProcessors) {
+        def actors = asyncProcessors.collect { asyncProcessor ->
+            Actor actor = Mock()
+            1 * actor.getProxy(TestClassProcessor) >> asyncProcessor
+            return actor
+        }
+        asyncProcessors.length * factory.create() >>> asyncProcessors.collect { Mock(TestClassProcessor) }
+        asyncProcessors.length * actorFactory.createActor(!null) >>> actors
+    }
+
+    def testClass(String name) {
+        TestClassRunInfo testClass = Mock()
+        _ * testClass.testClassName >> name
+        return testClass
     }
 }
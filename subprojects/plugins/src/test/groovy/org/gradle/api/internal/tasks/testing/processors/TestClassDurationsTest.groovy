@@ -0,0 +1,84 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.DefaultTestMethodDescriptor
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestClassDurationsTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    final TestResultProcessor target = Mock()
+
+    def "records duration of each test class and forwards results"() {
+        def durations = new TestClassDurations(tmpDir.file("durations.properties"))
+        def processor = durations.recordTo(target)
+        def testClass = new DefaultTestClassDescriptor(1, 'org.gradle.SomeTest')
+        def method = new DefaultTestMethodDescriptor(2, 'org.gradle.SomeTest', 'someMethod')
+
+        when:
+        processor.started(testClass, new TestStartEvent(100))
+        processor.started(method, new TestStartEvent(110))
+        processor.completed(2, new TestCompleteEvent(150))
+        processor.completed(1, new TestCompleteEvent(200))
+
+        then:
+        durations.getDuration('org.gradle.SomeTest') == 100
+        2 * target.started(_, _)
+        2 * target.completed(_, _)
+    }
+
+    def "orders test classes by decreasing duration with unknown test classes first"() {
+        def durations = new TestClassDurations(tmpDir.file("durations.properties"))
+        durations.setDuration('Fast', 10)
+        durations.setDuration('Slow', 2000)
+        def classes = ['Fast', 'Unknown', 'Slow'].collect { new DefaultTestClassRunInfo(it) }
+
+        expect:
+        classes.sort(false, durations.longestFirst())*.testClassName == ['Unknown', 'Slow', 'Fast']
+    }
+
+    def "can save and load durations"() {
+        def file = tmpDir.file("dir/durations.properties")
+        def durations = new TestClassDurations(file)
+        durations.setDuration('SomeTest', 123)
+
+        when:
+        durations.save()
+        def loaded = new TestClassDurations(file)
+        loaded.load()
+
+        then:
+        loaded.getDuration('SomeTest') == 123
+        loaded.getDuration('OtherTest') == null
+    }
+
+    def "loads nothing when file does not exist"() {
+        def durations = new TestClassDurations(tmpDir.file("durations.properties"))
+
+        when:
+        durations.load()
+
+        then:
+        durations.getDuration('SomeTest') == null
+    }
+}
@@ -66,6 +66,13 @@ public class TestNGTestFrameworkTest extends AbstractTestFrameworkTest {
         assertNotNull(testNGTestFramework.getOptions());
     }
 
+    @org.junit.Test
+    public void testRunsTestClassesOnStop() {
+        testNGTestFramework = new TestNGTestFramework(testMock);
+
+        assertTrue(testNGTestFramework.isRunTestClassesOnStop());
+    }
+
     @org.junit.Test
     public void testCreatesTestProcessor() {
         testNGTestFramework = new TestNGTestFramework(testMock);
@@ -18,18 +18,22 @@ package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.Action;
 import org.gradle.api.internal.Factory;
+import org.gradle.api.internal.tasks.testing.TestClassCompletionListener;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.messaging.remote.ObjectConnection;
 import org.gradle.process.JavaForkOptions;
+import org.gradle.process.internal.ExecHandleListener;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.WorkerProcess;
 import org.gradle.process.internal.WorkerProcessBuilder;
 import org.gradle.util.JUnit4GroovyMockery;
 import org.jmock.Expectations;
+import org.jmock.api.Invocation;
 import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.action.CustomAction;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -37,6 +41,7 @@ import java.io.File;
 import java.util.List;
 
 import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
 
 @RunWith(JMock.class)
@@ -54,7 +59,10 @@ public class ForkingTestClassProcessorTest {
     private final JavaForkOptions options = context.mock(JavaForkOptions.class);
     @SuppressWarnings("unchecked")
     private final Action<WorkerProcessBuilder> action = context.mock(Action.class);
-    private final ForkingTestClassProcessor processor = new ForkingTestClassProcessor(workerFactory, processorFactory, options, appClassPath, action);
+    private final TestClassCompletionListener completionListener = context.mock(TestClassCompletionListener.class);
+    private final ForkingTestClassProcessor processor = new ForkingTestClassProcessor(workerFactory, processorFactory, options, appClassPath, action, completionListener);
+    private TestClassCompletionListener workerCompletionListener;
+    private ExecHandleListener workerExitListener;
 
     @Test
     public void onFirstTestCaseStartsWorkerProcess() {
@@ -94,6 +102,52 @@ public class ForkingTestClassProcessorTest {
         processor.stop();
     }
 
+    @Test
+    public void notifiesListenerAsWorkerProcessCompletesEachTestClass() {
+        expectWorkerProcessStarted();
+        context.checking(new Expectations() {{
+            one(worker).processTestClass(test1);
+            one(worker).processTestClass(test2);
+        }});
+
+        processor.startProcessing(resultProcessor);
+        processor.processTestClass(test1);
+        processor.processTestClass(test2);
+
+        context.checking(new Expectations() {{
+            one(completionListener).completed(test1);
+        }});
+
+        workerCompletionListener.completed(context.mock(TestClassRunInfo.class, "copy1"));
+
+        context.checking(new Expectations() {{
+            one(completionListener).completed(test2);
+        }});
+
+        workerCompletionListener.completed(context.mock(TestClassRunInfo.class, "copy2"));
+    }
+
+    @Test
+    public void notifiesListenerOfOutstandingTestClassesWhenWorkerProcessExits() {
+        expectWorkerProcessStarted();
+        context.checking(new Expectations() {{
+            one(worker).processTestClass(test1);
+            one(worker).processTestClass(test2);
+        }});
+
+        processor.startProcessing(resultProcessor);
+        processor.processTestClass(test1);
+        processor.processTestClass(test2);
+
+        context.checking(new Expectations() {{
+            one(completionListener).completed(test1);
+            one(completionListener).completed(test2);
+        }});
+
+        workerExitListener.executionFinished(null, null);
+        workerCompletionListener.completed(test1);
+    }
+
     @Test
     public void onEndProcessingDoesNothingIfNoTestsProcessed() {
         processor.startProcessing(resultProcessor);
@@ -122,6 +176,14 @@ public class ForkingTestClassProcessorTest {
 
             one(options).copyTo(javaCommandBuilder);
 
+            one(javaCommandBuilder).listener(with(notNullValue(ExecHandleListener.class)));
+            will(new CustomAction("capture exit listener") {
+                public Object invoke(Invocation invocation) throws Throwable {
+                    workerExitListener = (ExecHandleListener) invocation.getParameter(0);
+                    return null;
+                }
+            });
+
             one(builder).build();
             will(returnValue(workerProcess));
 
@@ -129,6 +191,14 @@ public class ForkingTestClassProcessorTest {
             will(returnValue(connection));
 
             one(connection).addIncoming(TestResultProcessor.class, resultProcessor);
+
+            one(connection).addIncoming(with(equalTo(TestClassCompletionListener.class)), with(notNullValue(TestClassCompletionListener.class)));
+            will(new CustomAction("capture completion listener") {
+                public Object invoke(Invocation invocation) throws Throwable {
+                    workerCompletionListener = (TestClassCompletionListener) invocation.getParameter(1);
+                    return null;
+                }
+            });
             
             one(connection).addOutgoing(RemoteTestClassProcessor.class);
             will(returnValue(worker));
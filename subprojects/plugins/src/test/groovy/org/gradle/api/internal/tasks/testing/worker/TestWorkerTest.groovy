@@ -17,6 +17,7 @@
 
 package org.gradle.api.internal.tasks.testing.worker
 
+import org.gradle.api.internal.tasks.testing.TestClassCompletionListener
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
@@ -44,6 +45,7 @@ public class TestWorkerTest extends MultithreadedTestCase {
     private final TestClassProcessor processor = context.mock(TestClassProcessor.class)
     private final TestClassRunInfo test = context.mock(TestClassRunInfo.class)
     private final TestResultProcessor resultProcessor = context.mock(TestResultProcessor.class)
+    private final TestClassCompletionListener completionListener = context.mock(TestClassCompletionListener.class)
     private final TestWorker worker = new TestWorker(factory)
 
     @Before
@@ -70,6 +72,9 @@ public class TestWorkerTest extends MultithreadedTestCase {
             one(connection).addOutgoing(TestResultProcessor.class)
             will(returnValue(resultProcessor))
 
+            one(connection).addOutgoing(TestClassCompletionListener.class)
+            will(returnValue(completionListener))
+
             one(connection).addIncoming(RemoteTestClassProcessor.class, worker)
             will {
                 start {
@@ -84,6 +89,7 @@ public class TestWorkerTest extends MultithreadedTestCase {
 
             one(processor).startProcessing(withParam(notNullValue()))
             one(processor).processTestClass(test)
+            one(completionListener).completed(test)
             one(processor).stop()
         }
 
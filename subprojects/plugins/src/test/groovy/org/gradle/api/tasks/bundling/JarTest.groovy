@@ -19,6 +19,7 @@ package org.gradle.api.tasks.bundling
 import org.gradle.api.java.archives.internal.DefaultManifest
 import org.junit.Before
 import org.junit.Test
+import java.util.jar.JarInputStream
 import static org.junit.Assert.assertEquals
 import static org.junit.Assert.assertNotNull
 
@@ -59,4 +60,24 @@ class JarTest extends AbstractArchiveTaskTest {
         }
         assertEquals(jar.manifest.attributes.key, 'value')
     }
+
+    @Test public void testManifestIsFirstEntryWhenFileOrderIsReproducible() {
+        tmpDir.createFile('src/AUTHORS').write('authors')
+        tmpDir.createFile('src/1.txt').write('content')
+        jar.from(tmpDir.file('src'))
+        jar.reproducibleFileOrder = true
+        jar.manifest {
+            attributes(key: 'value')
+        }
+
+        jar.execute()
+
+        JarInputStream stream = new JarInputStream(new FileInputStream(jar.archivePath))
+        try {
+            assertNotNull(stream.manifest)
+            assertEquals('value', stream.manifest.mainAttributes.getValue('key'))
+        } finally {
+            stream.close()
+        }
+    }
 }
\ No newline at end of file
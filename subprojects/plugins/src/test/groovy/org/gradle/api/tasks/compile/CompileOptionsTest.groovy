@@ -42,6 +42,7 @@ class CompileOptionsTest {
         assertTrue(compileOptions.debug)
         assertTrue(compileOptions.failOnError)
         assertTrue(compileOptions.warnings)
+        assertTrue(compileOptions.useAnt)
 
         assertFalse(compileOptions.includeJavaRuntime)
         assertFalse(compileOptions.deprecation)
@@ -118,7 +119,7 @@ class CompileOptionsTest {
     @Test public void testWithExcludeFieldsFromOptionMap() {
       compileOptions.compilerArgs = [[value: 'something']]
         Map optionMap = compileOptions.optionMap()
-        ['debugOptions', 'forkOptions', 'compilerArgs'].each {
+        ['debugOptions', 'forkOptions', 'compilerArgs', 'useAnt'].each {
             assertFalse(optionMap.containsKey(it))
         }
     }
@@ -40,10 +40,15 @@ class GroovyCompileOptionsTest {
         assertFalse(compileOptions.listFiles)
         assertFalse(compileOptions.verbose)
         assertTrue(compileOptions.fork)
+        assertTrue(compileOptions.useAnt)
         assertNull(compileOptions.encoding)
         assertNotNull(compileOptions.forkOptions)
     }
 
+    @Test public void testOptionMapDoesNotContainUseAnt() {
+        assertFalse(compileOptions.optionMap().containsKey('useAnt'))
+    }
+
     @Test public void testOptionMapForForkOptions() {
         Map optionMap = compileOptions.optionMap()
         assertEquals(optionMap.subMap(TEST_FORK_OPTION_MAP.keySet()), TEST_FORK_OPTION_MAP)
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.scala;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.internal.tasks.compile.daemon.CompileAction;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Compiles Scala source files, and parses any Java source files they use, by calling the Scala compiler's {@code
+ * scala.tools.nsc.Main} entry point. Intended to be run in a compiler daemon, where the Scala compiler is loaded from
+ * the Scala classpath of the compile task. Uses reflection, so that it does not depend on any particular version of
+ * Scala.
+ */
+public class ApiScalaCompiler implements CompileAction {
+    private final List<String> arguments;
+    private final boolean failOnError;
+
+    /**
+     * @param arguments The scalac command-line arguments, including the source files to compile.
+     */
+    public ApiScalaCompiler(List<String> arguments, boolean failOnError) {
+        this.arguments = arguments;
+        this.failOnError = failOnError;
+    }
+
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+    public boolean execute(ClassLoader compilerClassLoader) {
+        boolean hasErrors;
+        try {
+            Class<?> mainClass = compilerClassLoader.loadClass("scala.tools.nsc.Main");
+            Method process = mainClass.getMethod("process", String[].class);
+            process.invoke(null, new Object[]{arguments.toArray(new String[arguments.size()])});
+            Object reporter = mainClass.getMethod("reporter").invoke(null);
+            hasErrors = (Boolean) reporter.getClass().getMethod("hasErrors").invoke(reporter);
+        } catch (InvocationTargetException e) {
+            throw new GradleException("Could not run the Scala compiler.", e.getCause());
+        } catch (Exception e) {
+            throw new GradleException("Could not run the Scala compiler.", e);
+        }
+        if (hasErrors && failOnError) {
+            throw new GradleException("Compile failed; see the compiler error output for details.");
+        }
+        return true;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.scala;
+
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.Factory;
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
+import org.gradle.api.internal.tasks.compile.daemon.DaemonForkOptions;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.scala.ScalaCompileOptions;
+import org.gradle.process.internal.WorkerProcessBuilder;
+import org.gradle.util.GUtil;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiles Scala source files in a compiler daemon, so that the Scala compiler is loaded and warmed up once rather than
+ * for every compilation. A separate daemon is used for each Scala classpath.
+ */
+public class DaemonScalaCompiler implements ScalaCompiler {
+    private final Factory<WorkerProcessBuilder> workerFactory;
+    private final CompilerDaemonManager daemonManager;
+    private FileCollection source;
+    private File destinationDir;
+    private Iterable<File> classpath;
+    private Iterable<File> scalaClasspath;
+    private ScalaCompileOptions scalaCompileOptions = new ScalaCompileOptions();
+
+    public DaemonScalaCompiler(Factory<WorkerProcessBuilder> workerFactory, CompilerDaemonManager daemonManager) {
+        this.workerFactory = workerFactory;
+        this.daemonManager = daemonManager;
+    }
+
+    public ScalaCompileOptions getScalaCompileOptions() {
+        return scalaCompileOptions;
+    }
+
+    public void setScalaCompileOptions(ScalaCompileOptions scalaCompileOptions) {
+        this.scalaCompileOptions = scalaCompileOptions;
+    }
+
+    public void setScalaClasspath(Iterable<File> scalaClasspath) {
+        this.scalaClasspath = scalaClasspath;
+    }
+
+    public void setSource(FileCollection source) {
+        this.source = source;
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        this.destinationDir = destinationDir;
+    }
+
+    public void setClasspath(Iterable<File> classpath) {
+        this.classpath = classpath;
+    }
+
+    public WorkResult execute() {
+        destinationDir.mkdirs();
+        DaemonForkOptions forkOptions = new DaemonForkOptions(scalaClasspath, Collections.<String>emptyList(), null, null);
+        ApiScalaCompiler action = new ApiScalaCompiler(getArguments(), scalaCompileOptions.isFailOnError());
+        return daemonManager.execute(forkOptions, workerFactory, action).rethrowFailure();
+    }
+
+    List<String> getArguments() {
+        List<String> arguments = new ArrayList<String>();
+        arguments.add("-d");
+        arguments.add(destinationDir.getPath());
+        List<File> compileClasspath = new ArrayList<File>();
+        compileClasspath.add(destinationDir);
+        GUtil.addToCollection(compileClasspath, classpath);
+        arguments.add("-classpath");
+        arguments.add(GUtil.join(compileClasspath, File.pathSeparator));
+        if (scalaCompileOptions.isDeprecation()) {
+            arguments.add("-deprecation");
+        }
+        if (scalaCompileOptions.isUnchecked()) {
+            arguments.add("-unchecked");
+        }
+        if (scalaCompileOptions.isOptimize()) {
+            arguments.add("-optimise");
+        }
+        if (scalaCompileOptions.getEncoding() != null) {
+            arguments.add("-encoding");
+            arguments.add(scalaCompileOptions.getEncoding());
+        }
+        if (scalaCompileOptions.getDebugLevel() != null) {
+            arguments.add("-g:" + scalaCompileOptions.getDebugLevel());
+        }
+        if (scalaCompileOptions.getTargetCompatibility() != null) {
+            arguments.add("-target:jvm-" + scalaCompileOptions.getTargetCompatibility());
+        }
+        if ("verbose".equals(scalaCompileOptions.getLoggingLevel())) {
+            arguments.add("-verbose");
+        } else if ("debug".equals(scalaCompileOptions.getLoggingLevel())) {
+            arguments.add("-Ydebug");
+        }
+        if (scalaCompileOptions.getLoggingPhases() != null && !scalaCompileOptions.getLoggingPhases().isEmpty()) {
+            arguments.add("-Ylog:" + GUtil.join(scalaCompileOptions.getLoggingPhases(), ","));
+        }
+        if (scalaCompileOptions.getAdditionalParameters() != null) {
+            arguments.addAll(scalaCompileOptions.getAdditionalParameters());
+        }
+        for (File file : source.getFiles()) {
+            arguments.add(file.getPath());
+        }
+        return arguments;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.scala;
+
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.Factory;
+import org.gradle.api.internal.project.IsolatedAntBuilder;
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.scala.ScalaCompileOptions;
+import org.gradle.process.internal.WorkerProcessBuilder;
+
+import java.io.File;
+
+/**
+ * Selects the Scala compiler to use based on the compile options. Uses the {@link DaemonScalaCompiler} when {@link
+ * ScalaCompileOptions#isUseAnt()} is false and the fsc compile daemon is not used. Uses Ant's scalac or fsc task
+ * otherwise.
+ */
+public class DefaultScalaCompiler implements ScalaCompiler {
+    private final IsolatedAntBuilder antBuilder;
+    private final Factory<WorkerProcessBuilder> workerFactory;
+    private final CompilerDaemonManager daemonManager;
+    private final ScalaCompileOptions scalaCompileOptions = new ScalaCompileOptions();
+    private FileCollection source;
+    private File destinationDir;
+    private Iterable<File> classpath;
+    private Iterable<File> scalaClasspath;
+
+    public DefaultScalaCompiler(IsolatedAntBuilder antBuilder, Factory<WorkerProcessBuilder> workerFactory, CompilerDaemonManager daemonManager) {
+        this.antBuilder = antBuilder;
+        this.workerFactory = workerFactory;
+        this.daemonManager = daemonManager;
+    }
+
+    public ScalaCompileOptions getScalaCompileOptions() {
+        return scalaCompileOptions;
+    }
+
+    public void setScalaClasspath(Iterable<File> scalaClasspath) {
+        this.scalaClasspath = scalaClasspath;
+    }
+
+    public void setSource(FileCollection source) {
+        this.source = source;
+    }
+
+    public void setDestinationDir(File destinationDir) {
+        this.destinationDir = destinationDir;
+    }
+
+    public void setClasspath(Iterable<File> classpath) {
+        this.classpath = classpath;
+    }
+
+    public WorkResult execute() {
+        ScalaCompiler compiler = createCompiler();
+        compiler.setSource(source);
+        compiler.setDestinationDir(destinationDir);
+        compiler.setClasspath(classpath);
+        compiler.setScalaClasspath(scalaClasspath);
+        return compiler.execute();
+    }
+
+    private ScalaCompiler createCompiler() {
+        if (!scalaCompileOptions.isUseAnt() && !scalaCompileOptions.isUseCompileDaemon()) {
+            DaemonScalaCompiler compiler = new DaemonScalaCompiler(workerFactory, daemonManager);
+            compiler.setScalaCompileOptions(scalaCompileOptions);
+            return compiler;
+        }
+        AntScalaCompiler compiler = new AntScalaCompiler(antBuilder);
+        compiler.setScalaCompileOptions(scalaCompileOptions);
+        return compiler;
+    }
+}
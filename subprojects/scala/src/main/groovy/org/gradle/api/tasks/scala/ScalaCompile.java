@@ -21,11 +21,13 @@ import org.gradle.api.file.FileTree;
 import org.gradle.api.internal.project.IsolatedAntBuilder;
 import org.gradle.api.internal.tasks.compile.AntJavaCompiler;
 import org.gradle.api.internal.tasks.compile.JavaCompiler;
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
 import org.gradle.api.internal.tasks.scala.*;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.compile.AbstractCompile;
 import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.process.internal.WorkerProcessBuilder;
 
 /**
  * Compiles Scala source files, and optionally, Java source files.
@@ -36,7 +38,8 @@ public class ScalaCompile extends AbstractCompile {
     private ScalaJavaJointCompiler compiler;
 
     public ScalaCompile() {
-        ScalaCompiler scalaCompiler = new AntScalaCompiler(getServices().get(IsolatedAntBuilder.class));
+        ScalaCompiler scalaCompiler = new DefaultScalaCompiler(getServices().get(IsolatedAntBuilder.class),
+                getServices().getFactory(WorkerProcessBuilder.class), getServices().get(CompilerDaemonManager.class));
         JavaCompiler javaCompiler = new AntJavaCompiler(getServices().getFactory(AntBuilder.class));
         compiler = new IncrementalScalaCompiler(new DefaultScalaJavaJointCompiler(scalaCompiler, javaCompiler), getOutputs());
     }
@@ -35,6 +35,14 @@ public class ScalaCompileOptions extends AbstractOptions {
      */
     String daemonServer;
 
+    /**
+     * Whether to use Ant's scalac task to compile. When false, and {@link #useCompileDaemon} is false, the compiler is
+     * run in a Gradle compiler daemon, which is a long-lived process that keeps the Scala compiler loaded between
+     * compilations and builds. A daemon is started for each Scala classpath, and stops once it has been idle for a
+     * while. The default is true.
+     */
+    boolean useAnt = true
+
     /**
      * Fail the build on compilation errors.
      */
@@ -136,7 +144,7 @@ public class ScalaCompileOptions extends AbstractOptions {
     }
 
     List excludedFieldsFromOptionMap() {
-        ['useCompileDaemon'] + (optimize ? [] : ['optimize'])
+        ['useCompileDaemon', 'useAnt'] + (optimize ? [] : ['optimize'])
     }
 
     private String toOnOffString(value) {
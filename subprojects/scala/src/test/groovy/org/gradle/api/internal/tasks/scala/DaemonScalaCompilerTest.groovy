@@ -0,0 +1,90 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.scala
+
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.Factory
+import org.gradle.api.internal.tasks.compile.daemon.CompileResult
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager
+import org.gradle.api.internal.tasks.compile.daemon.DaemonForkOptions
+import org.gradle.process.internal.WorkerProcessBuilder
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class DaemonScalaCompilerTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    private final Factory<WorkerProcessBuilder> workerFactory = Mock()
+    private final CompilerDaemonManager daemonManager = Mock()
+    private final FileCollection source = Mock()
+    private final File destDir = tmpDir.file('classes')
+    private final File lib = tmpDir.file('lib.jar')
+    private final File sourceFile = tmpDir.file('src/A.scala')
+    private final DaemonScalaCompiler compiler = new DaemonScalaCompiler(workerFactory, daemonManager)
+
+    def setup() {
+        compiler.source = source
+        compiler.destinationDir = destDir
+        compiler.classpath = [lib]
+        compiler.scalaClasspath = [tmpDir.file('scala-compiler.jar'), tmpDir.file('scala-library.jar')]
+        _ * source.files >> ([sourceFile] as Set)
+    }
+
+    def "executes the compiler in a daemon for the Scala classpath"() {
+        def result = new CompileResult(true, null)
+
+        when:
+        def r = compiler.execute()
+
+        then:
+        r == result
+        1 * daemonManager.execute({ DaemonForkOptions options -> options.classpath == [tmpDir.file('scala-compiler.jar'), tmpDir.file('scala-library.jar')] }, workerFactory, { ApiScalaCompiler action -> action.arguments.last() == sourceFile.path }) >> result
+    }
+
+    def "rethrows compile failure"() {
+        def failure = new RuntimeException()
+
+        when:
+        compiler.execute()
+
+        then:
+        1 * daemonManager.execute(_, _, _) >> new CompileResult(true, failure)
+        RuntimeException e = thrown()
+        e == failure
+    }
+
+    def "uses default options as compiler arguments"() {
+        expect:
+        compiler.arguments == ['-d', destDir.path, '-classpath', [destDir, lib].join(File.pathSeparator), '-deprecation',
+                '-unchecked', '-target:jvm-1.5', sourceFile.path]
+    }
+
+    def "uses compile options as compiler arguments"() {
+        def options = compiler.scalaCompileOptions
+        options.deprecation = false
+        options.unchecked = false
+        options.optimize = true
+        options.encoding = 'utf-8'
+        options.debugLevel = 'vars'
+        options.loggingLevel = 'verbose'
+        options.loggingPhases = ['typer', 'jvm']
+        options.additionalParameters = ['-Xcheckinit']
+
+        expect:
+        compiler.arguments == ['-d', destDir.path, '-classpath', [destDir, lib].join(File.pathSeparator), '-optimise',
+                '-encoding', 'utf-8', '-g:vars', '-target:jvm-1.5', '-verbose', '-Ylog:typer,jvm', '-Xcheckinit', sourceFile.path]
+    }
+}
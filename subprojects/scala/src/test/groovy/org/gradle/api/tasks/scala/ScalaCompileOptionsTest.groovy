@@ -37,6 +37,11 @@ public class ScalaCompileOptionsTest {
         assertFalse(compileOptions.optionMap().containsKey(antProperty))
     }
 
+    @Test public void testOptionMapDoesNotContainUseAnt() {
+        assertTrue(compileOptions.useAnt)
+        assertFalse(compileOptions.optionMap().containsKey('useAnt'))
+    }
+
     @Test public void testOptionMapContainsDaemonServerIfSpecified() {
         assertSimpleStringValue('daemonServer', 'server', null, 'host:9000')
     }